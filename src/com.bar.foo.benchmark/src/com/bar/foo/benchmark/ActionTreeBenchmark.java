@@ -0,0 +1,200 @@
+package com.bar.foo.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jface.action.IAction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bar.foo.actiontree.ActionTree;
+import com.bar.foo.actiontree.InMemoryActionTreeTarget;
+
+/**
+ * Benchmarks for contributing whole {@link ActionTree}s to
+ * {@link InMemoryActionTreeTarget}s. No display is needed, so these measure
+ * the contribution code itself. {@link SwtActionTreeBenchmark} measures the
+ * same operations with SWT {@code Menu}s.
+ * <p>
+ * The root is contributed to one target, like a menu bar, and every other
+ * node is contributed to its parent's target, like a sub-menu. This is the
+ * work done when every sub-menu of the tree has been shown.
+ * </p>
+ *
+ * @author Jordan
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class ActionTreeBenchmark {
+
+	/**
+	 * Measures filling the targets with a new tree. Each tree can only be
+	 * filled once, so a new tree is built before each fill and each fill is
+	 * timed on its own.
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Warmup(iterations = 20)
+	@Measurement(iterations = 20)
+	public InMemoryActionTreeTarget fill(EmptyState state) {
+		state.fill();
+		return state.menuBar;
+	}
+
+	/**
+	 * Measures refreshing every node of a filled tree. Nothing has changed, so
+	 * every contribution is skipped.
+	 */
+	@Benchmark
+	public InMemoryActionTreeTarget refresh(FilledState state) {
+		for (ActionTree node : state.nodes) {
+			node.refresh();
+		}
+		return state.menuBar;
+	}
+
+	/**
+	 * Measures changing the tool tip of every node of a filled tree and
+	 * refreshing it. Each item is updated in place.
+	 */
+	@Benchmark
+	public InMemoryActionTreeTarget refreshToolTip(FilledState state) {
+		String toolTipText = Integer.toString(state.refreshes++);
+		for (ActionTree node : state.nodes) {
+			node.setToolTipText(toolTipText);
+			node.refresh();
+		}
+		return state.menuBar;
+	}
+
+	/**
+	 * Measures changing the style of every node of a filled tree and
+	 * refreshing it. This replaces the item of every node without children.
+	 */
+	@Benchmark
+	public InMemoryActionTreeTarget refreshStyle(FilledState state) {
+		Integer style = (state.refreshes++ % 2 == 0 ? IAction.AS_CHECK_BOX
+				: IAction.AS_PUSH_BUTTON);
+		for (ActionTree node : state.nodes) {
+			node.setStyle(style);
+			node.refresh();
+		}
+		return state.menuBar;
+	}
+
+	/**
+	 * A tree and the targets for its nodes.
+	 */
+	@State(Scope.Thread)
+	public abstract static class TreeState {
+
+		/**
+		 * The shape of the tree.
+		 */
+		@Param({ "Balanced", "Wide", "Chain" })
+		public TreeShape shape;
+
+		/**
+		 * The number of nodes in the tree.
+		 */
+		@Param({ "100", "1000", "10000", "100000" })
+		public int size;
+
+		/**
+		 * All nodes of the tree.
+		 */
+		protected ActionTree[] nodes;
+
+		/**
+		 * The index of each node's parent.
+		 */
+		protected int[] parents;
+
+		/**
+		 * The target for the root.
+		 */
+		protected InMemoryActionTreeTarget menuBar;
+
+		/**
+		 * The target for each node's children, or {@code null} if the node
+		 * has no children.
+		 */
+		protected InMemoryActionTreeTarget[] menus;
+
+		/**
+		 * Builds a new tree and empty targets.
+		 */
+		protected void build() {
+			nodes = ActionTreeFactory.create(shape, size);
+			parents = shape.createParents(size);
+			// Operations are only counted, so that they do not accumulate.
+			menuBar = new InMemoryActionTreeTarget(false);
+			menus = new InMemoryActionTreeTarget[size];
+			for (int i = 0; i < size; i++) {
+				if (nodes[i].hasChildren()) {
+					menus[i] = new InMemoryActionTreeTarget(false);
+				}
+			}
+		}
+
+		/**
+		 * Fills the targets with the tree.
+		 */
+		protected void fill() {
+			nodes[0].fill(menuBar);
+			for (int i = 1; i < nodes.length; i++) {
+				nodes[i].fill(menus[parents[i]]);
+			}
+		}
+	}
+
+	/**
+	 * A tree that has not been contributed to its targets.
+	 */
+	@State(Scope.Thread)
+	public static class EmptyState extends TreeState {
+
+		/**
+		 * Builds a new tree before each fill.
+		 */
+		@Setup(Level.Iteration)
+		public void setUp() {
+			build();
+		}
+	}
+
+	/**
+	 * A tree that has been contributed to its targets.
+	 */
+	@State(Scope.Thread)
+	public static class FilledState extends TreeState {
+
+		/**
+		 * The number of refreshes, used to change the properties of the
+		 * nodes before each refresh.
+		 */
+		protected int refreshes;
+
+		/**
+		 * Builds and fills the tree once for all refreshes.
+		 */
+		@Setup(Level.Trial)
+		public void setUp() {
+			build();
+			fill();
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package com.bar.foo.benchmark;
+
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.action.IAction;
+
+import com.bar.foo.actiontree.ActionTree;
+
+/**
+ * Builds {@link ActionTree}s with the same shapes as the
+ * {@link BenchmarkTree}s for the contribution benchmarks.
+ *
+ * @author Jordan
+ *
+ */
+public final class ActionTreeFactory {
+
+	/**
+	 * The action shared by every other node, so that both nodes with and
+	 * without actions are contributed.
+	 */
+	private static final IAction action = new Action("Action") {
+		@Override
+		public void run() {
+			// Nothing to do.
+		}
+	};
+
+	/**
+	 * This class only has static methods.
+	 */
+	private ActionTreeFactory() {
+		// Nothing to do.
+	}
+
+	/**
+	 * Creates a tree of the specified shape and size. Each node's text is its
+	 * index, and every node with an even index has an action.
+	 *
+	 * @param shape
+	 *            The shape of the tree.
+	 * @param size
+	 *            The number of nodes.
+	 * @return All nodes of the tree, indexed in the order they were added. The
+	 *         root is at index 0.
+	 */
+	public static ActionTree[] create(TreeShape shape, int size) {
+		int[] parents = shape.createParents(size);
+		ActionTree[] nodes = new ActionTree[size];
+		for (int i = 0; i < size; i++) {
+			nodes[i] = new ActionTree();
+			nodes[i].setText(Integer.toString(i));
+			if (i % 2 == 0) {
+				nodes[i].setAction(action);
+			}
+			if (i > 0) {
+				nodes[parents[i]].addChild(nodes[i]);
+			}
+		}
+		return nodes;
+	}
+}
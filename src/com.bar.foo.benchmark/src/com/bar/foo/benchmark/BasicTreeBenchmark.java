@@ -0,0 +1,192 @@
+package com.bar.foo.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bar.foo.tree.BasicTree;
+import com.bar.foo.tree.ITree;
+import com.bar.foo.workload.test.TreeWorkload;
+
+/**
+ * Benchmarks for the core operations of {@link BasicTree}. Each benchmark is
+ * run for every {@link TreeShape} and size. The trees are built from the
+ * shape's generated {@link TreeWorkload}.
+ * <p>
+ * The operations on single nodes use a fixed sample of parents and children
+ * chosen at random from the tree, cycling through them so that one node's
+ * cache behavior does not dominate. The full-tree operations compare and hash
+ * the whole tree.
+ * </p>
+ * <p>
+ * The largest trees need several gigabytes of heap. Use {@code -p size=...}
+ * to run a subset of the sizes.
+ * </p>
+ * 
+ * @author Jordan
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class BasicTreeBenchmark {
+
+	/**
+	 * The number of parent and child pairs sampled from the tree.
+	 */
+	private static final int SAMPLES = 1024;
+
+	/**
+	 * The shape of the tree.
+	 */
+	@Param({ "Balanced", "Wide", "Chain", "Random", "Zipfian",
+			"Caterpillar" })
+	public TreeShape shape;
+
+	/**
+	 * The number of nodes in the tree.
+	 */
+	@Param({ "1000", "10000", "100000", "1000000", "10000000" })
+	public int size;
+
+	/**
+	 * The root of the tree.
+	 */
+	private BenchmarkTree root;
+
+	/**
+	 * The root of an equal copy of the tree.
+	 */
+	private BenchmarkTree copy;
+
+	/**
+	 * Sampled nodes that have children.
+	 */
+	private BenchmarkTree[] parents;
+
+	/**
+	 * A child of each of the sampled {@link #parents}.
+	 */
+	private BenchmarkTree[] children;
+
+	/**
+	 * The index of the next sample to use.
+	 */
+	private int sample = 0;
+
+	/**
+	 * A node that is not in the tree, used to add a child.
+	 */
+	private final BenchmarkTree spare = new BenchmarkTree(-1);
+
+	/**
+	 * Builds the trees and samples the nodes.
+	 */
+	@Setup
+	public void setUp() {
+		TreeWorkload workload = shape.createWorkload(size);
+		List<BenchmarkTree> nodes = workload.createTree(BenchmarkTree.FACTORY);
+		root = nodes.get(0);
+		copy = workload.createTree(BenchmarkTree.FACTORY).get(0);
+
+		// Sample parents uniformly from the nodes with children. A tree with
+		// more than one node always has one.
+		parents = new BenchmarkTree[SAMPLES];
+		children = new BenchmarkTree[SAMPLES];
+		Random random = new Random(TreeShape.SEED);
+		for (int i = 0; i < SAMPLES; i++) {
+			BenchmarkTree parent;
+			do {
+				parent = nodes.get(random.nextInt(size));
+			} while (!parent.hasChildren());
+			parents[i] = parent;
+			children[i] = parent.getChild(random.nextInt(parent
+					.getNumberOfChildren()));
+		}
+	}
+
+	/**
+	 * Moves to the next sample and gets its index.
+	 */
+	private int nextSample() {
+		sample = (sample + 1) & (SAMPLES - 1);
+		return sample;
+	}
+
+	/**
+	 * Measures {@link BasicTree#addChild(BasicTree)}. The child is removed
+	 * again from the end of the list, which takes constant time, so that the
+	 * tree keeps its shape.
+	 */
+	@Benchmark
+	public boolean addChild() {
+		BenchmarkTree parent = parents[nextSample()];
+		boolean added = parent.addChild(spare);
+		parent.removeChild(parent.getNumberOfChildren() - 1);
+		return added;
+	}
+
+	/**
+	 * Measures {@link BasicTree#removeChild(BasicTree)} for a child at a
+	 * random position. The child is added back at the end of the list so
+	 * that the tree keeps its shape, though not its order.
+	 */
+	@Benchmark
+	public boolean removeChild() {
+		int i = nextSample();
+		boolean removed = parents[i].removeChild(children[i]);
+		parents[i].addChild(children[i]);
+		return removed;
+	}
+
+	/**
+	 * Measures {@link BasicTree#hasChild(BasicTree)} for a child of the node.
+	 */
+	@Benchmark
+	public boolean hasChild() {
+		int i = nextSample();
+		return parents[i].hasChild(children[i]);
+	}
+
+	/**
+	 * Measures {@link BasicTree#getChildren()}, which copies the list of
+	 * children.
+	 */
+	@Benchmark
+	public List<BenchmarkTree> getChildren() {
+		return parents[nextSample()].getChildren();
+	}
+
+	/**
+	 * Measures {@link BasicTree#equals(ITree, boolean)} for two equal trees.
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public boolean equalsFullTree() {
+		return root.equals(copy, true);
+	}
+
+	/**
+	 * Measures {@link BasicTree#hashCode(boolean)} for the whole tree.
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public int hashCodeFullTree() {
+		return root.hashCode(true);
+	}
+}
@@ -0,0 +1,104 @@
+package com.bar.foo.benchmark;
+
+import com.bar.foo.tree.BasicTree;
+import com.bar.foo.workload.test.ITreeNodeFactory;
+import com.bar.foo.workload.test.TreeWorkload;
+
+/**
+ * A {@link BasicTree} with an integer ID, used as the node type for the
+ * benchmarks. Nodes with the same ID are equal, so trees built from the same
+ * {@link TreeShape} and size are equal.
+ * 
+ * @author Jordan
+ *
+ */
+public class BenchmarkTree extends BasicTree<BenchmarkTree> {
+
+	/**
+	 * Builds the nodes of a {@link TreeWorkload}. Each node's ID is its index
+	 * in the workload.
+	 */
+	public static final ITreeNodeFactory<BenchmarkTree> FACTORY = new ITreeNodeFactory<BenchmarkTree>() {
+		@Override
+		public BenchmarkTree create(int id, int payload) {
+			BenchmarkTree node = new BenchmarkTree(id);
+			node.payload = payload;
+			return node;
+		}
+
+		@Override
+		public void setPayload(BenchmarkTree node, int payload) {
+			node.payload = payload;
+		}
+	};
+
+	/**
+	 * The ID of the node. For nodes created by
+	 * {@link #create(TreeShape, int)}, this is the node's index.
+	 */
+	public final int id;
+
+	/**
+	 * The payload from the {@link TreeWorkload}, if any. It is not compared
+	 * by {@link #equals(Object)}.
+	 */
+	public int payload;
+
+	/**
+	 * The default constructor.
+	 * 
+	 * @param id
+	 *            The ID of the node.
+	 */
+	public BenchmarkTree(int id) {
+		this.id = id;
+	}
+
+	/**
+	 * Creates a tree of the specified shape and size.
+	 * 
+	 * @param shape
+	 *            The shape of the tree.
+	 * @param size
+	 *            The number of nodes.
+	 * @return All nodes of the tree, indexed by ID. The root is at index 0.
+	 */
+	public static BenchmarkTree[] create(TreeShape shape, int size) {
+		int[] parents = shape.createParents(size);
+		BenchmarkTree[] nodes = new BenchmarkTree[size];
+		nodes[0] = new BenchmarkTree(0);
+		for (int i = 1; i < size; i++) {
+			nodes[i] = new BenchmarkTree(i);
+			nodes[parents[i]].addChild(nodes[i]);
+		}
+		return nodes;
+	}
+
+	/*
+	 * Overrides a method from BasicTree.
+	 */
+	@Override
+	public boolean equals(Object object) {
+		boolean equals = super.equals(object);
+		if (equals && this != object) {
+			equals = (id == ((BenchmarkTree) object).id);
+		}
+		return equals;
+	}
+
+	/*
+	 * Overrides a method from BasicTree.
+	 */
+	@Override
+	public int hashCode() {
+		return 31 * super.hashCode() + id;
+	}
+
+	/*
+	 * Implements a method from ITree.
+	 */
+	@Override
+	public BenchmarkTree getValue() {
+		return this;
+	}
+}
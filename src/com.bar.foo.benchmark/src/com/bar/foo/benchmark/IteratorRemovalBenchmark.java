@@ -0,0 +1,166 @@
+package com.bar.foo.benchmark;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bar.foo.tree.iterator.TreeIterationOrder;
+import com.bar.foo.wraptree.INode;
+import com.bar.foo.wraptree.ITree;
+
+/**
+ * Benchmarks for {@link Iterator#remove()} on the iterators from the
+ * {@link com.bar.foo.tree.iterator} and {@link com.bar.foo.wraptree.iterator}
+ * packages. Each benchmark traverses the whole tree and removes every
+ * {@link #INTERVAL}th node it visits, so the result includes the traversal.
+ * Compare it with {@link TraversalBenchmark} for the cost of the removals.
+ * <p>
+ * Removing a node in breadth-first or pre-order also skips its sub-tree, so
+ * fewer nodes are visited and removed than in post-order, where the sub-tree
+ * has already been visited. Only the post-order iterator in the
+ * {@link com.bar.foo.wraptree.iterator} package supports removal.
+ * </p>
+ * <p>
+ * Since each traversal changes the tree, the trees are rebuilt before every
+ * traversal and each traversal is timed on its own.
+ * </p>
+ *
+ * @author Jordan
+ *
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20)
+@Measurement(iterations = 20)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class IteratorRemovalBenchmark {
+
+	/**
+	 * Every node whose index is a multiple of this, other than the root, is
+	 * removed.
+	 */
+	private static final int INTERVAL = 16;
+
+	/**
+	 * The only order supported by {@link #wraptreePostOrderIterator}.
+	 */
+	private static final com.bar.foo.wraptree.iterator.TreeIterationOrder POST_ORDER = com.bar.foo.wraptree.iterator.TreeIterationOrder.PostOrder;
+
+	/**
+	 * Measures removals with
+	 * {@link BenchmarkTree#iterator(TreeIterationOrder)}.
+	 */
+	@Benchmark
+	public int treeIterator(TreeState state) {
+		int removed = 0;
+		Iterator<BenchmarkTree> iterator = state.root.iterator(state.order);
+		while (iterator.hasNext()) {
+			BenchmarkTree node = iterator.next();
+			if (node.id % INTERVAL == 0 && node.id != 0) {
+				iterator.remove();
+				removed++;
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * Measures removals with the post-order iterator from
+	 * {@link ITree#iterator(com.bar.foo.wraptree.iterator.TreeIterationOrder)}.
+	 */
+	@Benchmark
+	public int wraptreePostOrderIterator(SimpleTreeState state) {
+		int removed = 0;
+		Iterator<INode<Integer>> iterator = state.root.iterator(POST_ORDER);
+		while (iterator.hasNext()) {
+			int id = iterator.next().getValue();
+			if (id % INTERVAL == 0 && id != 0) {
+				iterator.remove();
+				removed++;
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * The {@link com.bar.foo.tree} tree for each order, shape and size.
+	 */
+	@State(Scope.Thread)
+	public static class TreeState {
+
+		/**
+		 * The order in which nodes are visited.
+		 */
+		@Param({ "BreadthFirst", "PreOrder", "PostOrder" })
+		public TreeIterationOrder order;
+
+		/**
+		 * The shape of the tree.
+		 */
+		@Param({ "Balanced", "Wide", "Chain" })
+		public TreeShape shape;
+
+		/**
+		 * The number of nodes in the tree.
+		 */
+		@Param({ "1000", "10000", "100000" })
+		public int size;
+
+		/**
+		 * The root of the tree.
+		 */
+		private BenchmarkTree root;
+
+		/**
+		 * Builds a new tree before each traversal.
+		 */
+		@Setup(Level.Iteration)
+		public void setUp() {
+			root = BenchmarkTree.create(shape, size)[0];
+		}
+	}
+
+	/**
+	 * The {@link com.bar.foo.wraptree} tree for each shape and size.
+	 */
+	@State(Scope.Thread)
+	public static class SimpleTreeState {
+
+		/**
+		 * The shape of the tree.
+		 */
+		@Param({ "Balanced", "Wide", "Chain" })
+		public TreeShape shape;
+
+		/**
+		 * The number of nodes in the tree.
+		 */
+		@Param({ "1000", "10000", "100000" })
+		public int size;
+
+		/**
+		 * The root of the tree.
+		 */
+		private ITree<Integer> root;
+
+		/**
+		 * Builds a new tree before each traversal.
+		 */
+		@Setup(Level.Iteration)
+		public void setUp() {
+			root = (ITree<Integer>) SimpleTreeFactory.create(shape, size)[0];
+		}
+	}
+}
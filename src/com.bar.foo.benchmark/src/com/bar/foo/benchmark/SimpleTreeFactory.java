@@ -0,0 +1,61 @@
+package com.bar.foo.benchmark;
+
+import com.bar.foo.wraptree.INode;
+import com.bar.foo.wraptree.ITree;
+import com.bar.foo.wraptree.SimpleNode;
+import com.bar.foo.wraptree.SimpleTree;
+
+/**
+ * Builds {@link com.bar.foo.wraptree} trees with the same shapes as the
+ * {@link BenchmarkTree}s, so that the two tree packages can be compared.
+ *
+ * @author Jordan
+ *
+ */
+public final class SimpleTreeFactory {
+
+	/**
+	 * This class only has static methods.
+	 */
+	private SimpleTreeFactory() {
+		// Nothing to do.
+	}
+
+	/**
+	 * Creates a tree of the specified shape and size. Nodes with children are
+	 * {@link SimpleTree}s, and leaves are {@link SimpleNode}s. Each node's
+	 * value is its index.
+	 *
+	 * @param shape
+	 *            The shape of the tree.
+	 * @param size
+	 *            The number of nodes.
+	 * @return All nodes of the tree, indexed by value. The root is at index 0
+	 *         and is always a {@link SimpleTree}.
+	 */
+	@SuppressWarnings("unchecked")
+	public static INode<Integer>[] create(TreeShape shape, int size) {
+		int[] parents = shape.createParents(size);
+
+		// Find the nodes that need to be trees before creating any of them.
+		boolean[] hasChildren = new boolean[size];
+		hasChildren[0] = true;
+		for (int i = 1; i < size; i++) {
+			hasChildren[parents[i]] = true;
+		}
+
+		// Parents always come before their children.
+		INode<Integer>[] nodes = (INode<Integer>[]) new INode<?>[size];
+		nodes[0] = new SimpleTree<Integer>(0, null);
+		for (int i = 1; i < size; i++) {
+			ITree<Integer> parent = (ITree<Integer>) nodes[parents[i]];
+			if (hasChildren[i]) {
+				nodes[i] = new SimpleTree<Integer>(i, parent);
+			} else {
+				nodes[i] = new SimpleNode<Integer>(i, parent);
+			}
+			parent.addChild(nodes[i]);
+		}
+		return nodes;
+	}
+}
@@ -0,0 +1,213 @@
+package com.bar.foo.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Menu;
+import org.eclipse.swt.widgets.Shell;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bar.foo.actiontree.ActionTree;
+
+/**
+ * Benchmarks for contributing whole {@link ActionTree}s to SWT {@code Menu}s.
+ * These are the same operations as in {@link ActionTreeBenchmark}, but with
+ * real widgets, so they need a display. On a headless machine, run them with
+ * {@code xvfb-run}.
+ * <p>
+ * Refreshing an item in a {@code Menu} looks up its index among all items in
+ * the {@code Menu}, so the largest sizes of the other benchmarks are left out.
+ * </p>
+ *
+ * @author Jordan
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class SwtActionTreeBenchmark {
+
+	/**
+	 * Measures filling the {@code Menu}s with a new tree. A new tree and new
+	 * {@code Menu}s are created before each fill, and each fill is timed on its
+	 * own.
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Warmup(iterations = 20)
+	@Measurement(iterations = 20)
+	public Menu fill(EmptyState state) {
+		state.fill();
+		return state.menuBar;
+	}
+
+	/**
+	 * Measures refreshing every node of a filled tree. Nothing has changed, so
+	 * every contribution is skipped.
+	 */
+	@Benchmark
+	public Menu refresh(FilledState state) {
+		for (ActionTree node : state.nodes) {
+			node.refresh();
+		}
+		return state.menuBar;
+	}
+
+	/**
+	 * A tree and the {@code Menu}s for its nodes. The display is opened on the
+	 * benchmark thread the first time a tree is built, and closed when the
+	 * trial ends.
+	 */
+	@State(Scope.Thread)
+	public abstract static class TreeState {
+
+		/**
+		 * The shape of the tree.
+		 */
+		@Param({ "Balanced", "Wide", "Chain" })
+		public TreeShape shape;
+
+		/**
+		 * The number of nodes in the tree.
+		 */
+		@Param({ "100", "1000", "10000" })
+		public int size;
+
+		/**
+		 * The display that owns the widgets.
+		 */
+		protected Display display;
+
+		/**
+		 * The parent of the {@code Menu}s.
+		 */
+		protected Shell shell;
+
+		/**
+		 * All nodes of the tree.
+		 */
+		protected ActionTree[] nodes;
+
+		/**
+		 * The index of each node's parent.
+		 */
+		protected int[] parents;
+
+		/**
+		 * The menu bar for the root.
+		 */
+		protected Menu menuBar;
+
+		/**
+		 * The drop-down {@code Menu} for each node's children, or {@code null}
+		 * if the node has no children.
+		 */
+		protected Menu[] menus;
+
+		/**
+		 * Builds a new tree and empty {@code Menu}s.
+		 */
+		protected void build() {
+			if (display == null) {
+				display = new Display();
+				shell = new Shell(display);
+			}
+			nodes = ActionTreeFactory.create(shape, size);
+			parents = shape.createParents(size);
+			menuBar = new Menu(shell, SWT.BAR);
+			menus = new Menu[size];
+			for (int i = 0; i < size; i++) {
+				if (nodes[i].hasChildren()) {
+					menus[i] = new Menu(shell, SWT.DROP_DOWN);
+				}
+			}
+		}
+
+		/**
+		 * Fills the {@code Menu}s with the tree.
+		 */
+		protected void fill() {
+			nodes[0].fill(menuBar);
+			for (int i = 1; i < nodes.length; i++) {
+				nodes[i].fill(menus[parents[i]]);
+			}
+		}
+
+		/**
+		 * Disposes the {@code Menu}s and their items.
+		 */
+		protected void disposeMenus() {
+			menuBar.dispose();
+			for (Menu menu : menus) {
+				if (menu != null) {
+					menu.dispose();
+				}
+			}
+		}
+
+		/**
+		 * Closes the display.
+		 */
+		@TearDown(Level.Trial)
+		public void closeDisplay() {
+			if (display != null) {
+				display.dispose();
+				display = null;
+			}
+		}
+	}
+
+	/**
+	 * A tree that has not been contributed to its {@code Menu}s.
+	 */
+	@State(Scope.Thread)
+	public static class EmptyState extends TreeState {
+
+		/**
+		 * Builds a new tree before each fill.
+		 */
+		@Setup(Level.Iteration)
+		public void setUp() {
+			build();
+		}
+
+		/**
+		 * Disposes the filled {@code Menu}s after each fill.
+		 */
+		@TearDown(Level.Iteration)
+		public void tearDown() {
+			disposeMenus();
+		}
+	}
+
+	/**
+	 * A tree that has been contributed to its {@code Menu}s.
+	 */
+	@State(Scope.Thread)
+	public static class FilledState extends TreeState {
+
+		/**
+		 * Builds and fills the tree once for all refreshes.
+		 */
+		@Setup(Level.Trial)
+		public void setUp() {
+			build();
+			fill();
+		}
+	}
+}
@@ -0,0 +1,248 @@
+package com.bar.foo.benchmark;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.bar.foo.tree.iterator.TreeIterationOrder;
+import com.bar.foo.workload.test.TreeWorkload;
+import com.bar.foo.wraptree.INode;
+import com.bar.foo.wraptree.ITree;
+
+/**
+ * Benchmarks for full traversals of a tree with the iterators from the
+ * {@link com.bar.foo.tree.iterator} and {@link com.bar.foo.wraptree.iterator}
+ * packages. Each is compared with a hand-written recursive traversal of the
+ * same tree in the same order, which allocates nothing for pre- and
+ * post-order and shows the cost of the iterators' own bookkeeping. Both trees
+ * are built from the same generated {@link TreeWorkload}.
+ * <p>
+ * Each result is the number of full traversals per second. Run with
+ * {@code -prof gc} to also measure the allocations per traversal.
+ * </p>
+ * <p>
+ * The recursive traversals of a {@link TreeShape#Chain} recurse once per
+ * node, so the benchmark is forked with a large thread stack.
+ * </p>
+ *
+ * @author Jordan
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g", "-Xss1g" })
+public class TraversalBenchmark {
+
+	/**
+	 * The order in which nodes are visited.
+	 */
+	@Param({ "BreadthFirst", "PreOrder", "PostOrder" })
+	public TreeIterationOrder order;
+
+	/**
+	 * The shape of the tree.
+	 */
+	@Param({ "Balanced", "Wide", "Chain", "Zipfian", "Caterpillar" })
+	public TreeShape shape;
+
+	/**
+	 * The number of nodes in the tree.
+	 */
+	@Param({ "1000", "100000", "1000000" })
+	public int size;
+
+	/**
+	 * The root of the {@link com.bar.foo.tree} tree.
+	 */
+	private BenchmarkTree tree;
+
+	/**
+	 * The root of the {@link com.bar.foo.wraptree} tree.
+	 */
+	private ITree<Integer> simpleTree;
+
+	/**
+	 * The {@link #order} for the {@link com.bar.foo.wraptree} iterators.
+	 */
+	private com.bar.foo.wraptree.iterator.TreeIterationOrder simpleOrder;
+
+	/**
+	 * Builds the trees.
+	 */
+	@Setup
+	public void setUp() {
+		TreeWorkload workload = shape.createWorkload(size);
+		tree = workload.createTree(BenchmarkTree.FACTORY).get(0);
+		simpleTree = (ITree<Integer>) workload.createSimpleTree().get(0);
+		simpleOrder = com.bar.foo.wraptree.iterator.TreeIterationOrder
+				.valueOf(order.name());
+	}
+
+	/**
+	 * Measures a traversal with
+	 * {@link BenchmarkTree#iterator(TreeIterationOrder)}.
+	 */
+	@Benchmark
+	public void treeIterator(Blackhole blackhole) {
+		Iterator<BenchmarkTree> iterator = tree.iterator(order);
+		while (iterator.hasNext()) {
+			blackhole.consume(iterator.next());
+		}
+	}
+
+	/**
+	 * Measures a recursive traversal of the {@link com.bar.foo.tree} tree.
+	 */
+	@Benchmark
+	public void treeRecursive(Blackhole blackhole) {
+		switch (order) {
+		case BreadthFirst:
+			List<BenchmarkTree> level = new ArrayList<BenchmarkTree>(1);
+			level.add(tree);
+			visitBreadthFirst(level, blackhole);
+			break;
+		case PreOrder:
+			visitPreOrder(tree, blackhole);
+			break;
+		case PostOrder:
+			visitPostOrder(tree, blackhole);
+			break;
+		}
+	}
+
+	/**
+	 * Measures a traversal with
+	 * {@link ITree#iterator(com.bar.foo.wraptree.iterator.TreeIterationOrder)}.
+	 */
+	@Benchmark
+	public void wraptreeIterator(Blackhole blackhole) {
+		Iterator<INode<Integer>> iterator = simpleTree.iterator(simpleOrder);
+		while (iterator.hasNext()) {
+			blackhole.consume(iterator.next());
+		}
+	}
+
+	/**
+	 * Measures a recursive traversal of the {@link com.bar.foo.wraptree} tree.
+	 */
+	@Benchmark
+	public void wraptreeRecursive(Blackhole blackhole) {
+		switch (order) {
+		case BreadthFirst:
+			List<INode<Integer>> level = new ArrayList<INode<Integer>>(1);
+			level.add(simpleTree);
+			visitSimpleBreadthFirst(level, blackhole);
+			break;
+		case PreOrder:
+			visitSimplePreOrder(simpleTree, blackhole);
+			break;
+		case PostOrder:
+			visitSimplePostOrder(simpleTree, blackhole);
+			break;
+		}
+	}
+
+	/**
+	 * Visits a level of the tree, then recursively visits the level below.
+	 */
+	private static void visitBreadthFirst(List<BenchmarkTree> level,
+			Blackhole blackhole) {
+		List<BenchmarkTree> nextLevel = new ArrayList<BenchmarkTree>();
+		for (BenchmarkTree node : level) {
+			blackhole.consume(node);
+			for (int i = 0, size = node.getNumberOfChildren(); i < size; i++) {
+				nextLevel.add(node.getChild(i));
+			}
+		}
+		if (!nextLevel.isEmpty()) {
+			visitBreadthFirst(nextLevel, blackhole);
+		}
+	}
+
+	/**
+	 * Visits a node and then recursively visits its children.
+	 */
+	private static void visitPreOrder(BenchmarkTree node, Blackhole blackhole) {
+		blackhole.consume(node);
+		for (int i = 0, size = node.getNumberOfChildren(); i < size; i++) {
+			visitPreOrder(node.getChild(i), blackhole);
+		}
+	}
+
+	/**
+	 * Recursively visits a node's children and then visits the node.
+	 */
+	private static void visitPostOrder(BenchmarkTree node,
+			Blackhole blackhole) {
+		for (int i = 0, size = node.getNumberOfChildren(); i < size; i++) {
+			visitPostOrder(node.getChild(i), blackhole);
+		}
+		blackhole.consume(node);
+	}
+
+	/**
+	 * Visits a level of the tree, then recursively visits the level below.
+	 */
+	private static void visitSimpleBreadthFirst(List<INode<Integer>> level,
+			Blackhole blackhole) {
+		List<INode<Integer>> nextLevel = new ArrayList<INode<Integer>>();
+		for (INode<Integer> node : level) {
+			blackhole.consume(node);
+			if (node instanceof ITree<?>) {
+				ITree<Integer> tree = (ITree<Integer>) node;
+				int size = tree.getNumberOfChildren();
+				for (int i = 0; i < size; i++) {
+					nextLevel.add(tree.getChild(i));
+				}
+			}
+		}
+		if (!nextLevel.isEmpty()) {
+			visitSimpleBreadthFirst(nextLevel, blackhole);
+		}
+	}
+
+	/**
+	 * Visits a node and then recursively visits its children.
+	 */
+	private static void visitSimplePreOrder(INode<Integer> node,
+			Blackhole blackhole) {
+		blackhole.consume(node);
+		if (node instanceof ITree<?>) {
+			ITree<Integer> tree = (ITree<Integer>) node;
+			for (int i = 0, size = tree.getNumberOfChildren(); i < size; i++) {
+				visitSimplePreOrder(tree.getChild(i), blackhole);
+			}
+		}
+	}
+
+	/**
+	 * Recursively visits a node's children and then visits the node.
+	 */
+	private static void visitSimplePostOrder(INode<Integer> node,
+			Blackhole blackhole) {
+		if (node instanceof ITree<?>) {
+			ITree<Integer> tree = (ITree<Integer>) node;
+			for (int i = 0, size = tree.getNumberOfChildren(); i < size; i++) {
+				visitSimplePostOrder(tree.getChild(i), blackhole);
+			}
+		}
+		blackhole.consume(node);
+	}
+}
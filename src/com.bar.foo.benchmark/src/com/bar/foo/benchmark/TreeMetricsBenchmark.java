@@ -0,0 +1,202 @@
+package com.bar.foo.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.bar.foo.tree.BasicTree;
+import com.bar.foo.tree.ITree;
+import com.bar.foo.tree.iterator.TreeIterationOrder;
+import com.bar.foo.tree.iterator.TreeIterator;
+import com.bar.foo.tree.metrics.ITreeMetrics;
+import com.bar.foo.tree.metrics.InMemoryTreeMetrics;
+import com.bar.foo.tree.metrics.TreeMetrics;
+
+/**
+ * Benchmarks for the overhead of {@link TreeMetrics}. Each operation is run
+ * without metrics and with {@link InMemoryTreeMetrics} installed, and the
+ * difference between the two is the cost of measuring it.
+ * <p>
+ * The single-node operations use sampled nodes in the same way as
+ * {@link BasicTreeBenchmark}.
+ * </p>
+ * 
+ * @author Jordan
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class TreeMetricsBenchmark {
+
+	/**
+	 * The number of parent and child pairs sampled from the tree.
+	 */
+	private static final int SAMPLES = 1024;
+
+	/**
+	 * Whether or not {@link InMemoryTreeMetrics} are installed.
+	 */
+	@Param({ "false", "true" })
+	public boolean enabled;
+
+	/**
+	 * The number of nodes in the {@link TreeShape#Balanced} tree.
+	 */
+	@Param({ "1000", "100000" })
+	public int size;
+
+	/**
+	 * The root of the tree.
+	 */
+	private BenchmarkTree root;
+
+	/**
+	 * The root of an equal copy of the tree.
+	 */
+	private BenchmarkTree copy;
+
+	/**
+	 * Sampled nodes that have children.
+	 */
+	private BenchmarkTree[] parents;
+
+	/**
+	 * A child of each of the sampled {@link #parents}.
+	 */
+	private BenchmarkTree[] children;
+
+	/**
+	 * The index of the next sample to use.
+	 */
+	private int sample = 0;
+
+	/**
+	 * A node that is not in the tree, used to add and move children.
+	 */
+	private final BenchmarkTree spare = new BenchmarkTree(-1);
+
+	/**
+	 * Builds the trees, samples the nodes and installs the metrics.
+	 */
+	@Setup
+	public void setUp() {
+		BenchmarkTree[] nodes = BenchmarkTree.create(TreeShape.Balanced, size);
+		root = nodes[0];
+		copy = BenchmarkTree.create(TreeShape.Balanced, size)[0];
+
+		parents = new BenchmarkTree[SAMPLES];
+		children = new BenchmarkTree[SAMPLES];
+		Random random = new Random(TreeShape.SEED);
+		for (int i = 0; i < SAMPLES; i++) {
+			BenchmarkTree parent;
+			do {
+				parent = nodes[random.nextInt(size)];
+			} while (!parent.hasChildren());
+			parents[i] = parent;
+			children[i] = parent.getChild(random.nextInt(parent
+					.getNumberOfChildren()));
+		}
+
+		TreeMetrics.setMetrics(enabled ? new InMemoryTreeMetrics() : null);
+	}
+
+	/**
+	 * Removes the metrics.
+	 */
+	@TearDown
+	public void tearDown() {
+		TreeMetrics.setMetrics(null);
+	}
+
+	/**
+	 * Moves to the next sample and gets its index.
+	 */
+	private int nextSample() {
+		sample = (sample + 1) & (SAMPLES - 1);
+		return sample;
+	}
+
+	/**
+	 * Measures {@link BasicTree#addChild(BasicTree)} followed by
+	 * {@link BasicTree#removeChild(int)} of the same child.
+	 */
+	@Benchmark
+	public boolean addAndRemoveChild() {
+		BenchmarkTree parent = parents[nextSample()];
+		boolean added = parent.addChild(spare);
+		parent.removeChild(parent.getNumberOfChildren() - 1);
+		return added;
+	}
+
+	/**
+	 * Measures only the reporting of a change, as done by
+	 * {@link BasicTree#addChild(BasicTree)}. The tree operations vary by more
+	 * than the cost of measuring them, so this shows the cost directly.
+	 */
+	@Benchmark
+	public void reportChange() {
+		ITreeMetrics metrics = TreeMetrics.getMetrics();
+		if (metrics != null) {
+			metrics.childAdded();
+		}
+	}
+
+	/**
+	 * Measures two moves: a child to the spare node and back to the end of
+	 * its parent's children.
+	 */
+	@Benchmark
+	public boolean moveChild() {
+		int i = nextSample();
+		spare.addChild(children[i]);
+		return parents[i].addChild(children[i]);
+	}
+
+	/**
+	 * Measures a full pre-order traversal.
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public void traverse(Blackhole blackhole) {
+		TreeIterator<BenchmarkTree> iterator = root
+				.iterator(TreeIterationOrder.PreOrder);
+		while (iterator.hasNext()) {
+			blackhole.consume(iterator.next());
+		}
+	}
+
+	/**
+	 * Measures {@link BasicTree#hashCode(boolean)} for the whole tree.
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public int hashCodeFullTree() {
+		return root.hashCode(true);
+	}
+
+	/**
+	 * Measures {@link BasicTree#equals(ITree, boolean)} for two equal trees.
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public boolean equalsFullTree() {
+		return root.equals(copy, true);
+	}
+}
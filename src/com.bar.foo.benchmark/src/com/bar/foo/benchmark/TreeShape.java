@@ -0,0 +1,137 @@
+package com.bar.foo.benchmark;
+
+import com.bar.foo.workload.test.TreeShapeSpec;
+import com.bar.foo.workload.test.TreeWorkload;
+import com.bar.foo.workload.test.TreeWorkloadGenerator;
+
+/**
+ * An enumeration of the tree shapes used by the benchmarks. Each shape
+ * describes where node {@code i} is attached for {@code i > 0}, where node 0
+ * is the root. Children are added in increasing order of {@code i}.
+ * <p>
+ * The trees are generated by the {@link TreeWorkloadGenerator} from the
+ * shape's {@link #getSpec() spec}, always with the same {@link #SEED}.
+ * </p>
+ * 
+ * @author Jordan
+ *
+ */
+public enum TreeShape {
+	/**
+	 * A complete tree where every node has {@link TreeShape#FAN_OUT} children
+	 * until the nodes run out. Nodes are added level by level.
+	 */
+	Balanced,
+
+	/**
+	 * A root with all other nodes as its children.
+	 */
+	Wide,
+
+	/**
+	 * A chain where each node is the only child of the previous one.
+	 */
+	Chain,
+
+	/**
+	 * A random recursive tree where each node is attached to a uniformly
+	 * random earlier node. The expected depth is logarithmic, but the fan-out
+	 * varies widely.
+	 */
+	Random,
+
+	/**
+	 * A tree filled level by level where the number of children of each node
+	 * follows a Zipf distribution up to {@link TreeShape#ZIPF_MAX_FAN_OUT}.
+	 * Most nodes have a few children and some have many, like real menus. The
+	 * average fan-out is close to {@link TreeShape#FAN_OUT}.
+	 */
+	Zipfian,
+
+	/**
+	 * A chain where each node on the chain also has {@link TreeShape#FAN_OUT}
+	 * leaves.
+	 */
+	Caterpillar;
+
+	/**
+	 * The number of children per node in a {@link #Balanced} tree.
+	 */
+	public static final int FAN_OUT = 8;
+
+	/**
+	 * The maximum number of children per node in a {@link #Zipfian} tree.
+	 */
+	public static final int ZIPF_MAX_FAN_OUT = 32;
+
+	/**
+	 * The exponent of the distribution for {@link #Zipfian} trees.
+	 */
+	public static final double ZIPF_EXPONENT = 1.0;
+
+	/**
+	 * The seed used for {@link #Random} and {@link #Zipfian} trees, so that
+	 * every run measures the same trees.
+	 */
+	public static final long SEED = 42L;
+
+	/**
+	 * Gets the generator's description of this shape.
+	 * 
+	 * @return The shape's spec.
+	 */
+	public TreeShapeSpec getSpec() {
+		TreeShapeSpec spec;
+		switch (this) {
+		case Balanced:
+			spec = TreeShapeSpec.balanced(FAN_OUT);
+			break;
+		case Wide:
+			// A fan-out larger than any tree puts every node under the root.
+			spec = TreeShapeSpec.balanced(Integer.MAX_VALUE);
+			break;
+		case Chain:
+			spec = TreeShapeSpec.chain();
+			break;
+		case Random:
+			spec = TreeShapeSpec.randomRecursive();
+			break;
+		case Zipfian:
+			spec = TreeShapeSpec.zipfian(ZIPF_MAX_FAN_OUT, ZIPF_EXPONENT);
+			break;
+		case Caterpillar:
+			spec = TreeShapeSpec.caterpillar(FAN_OUT);
+			break;
+		default:
+			throw new IllegalStateException("TreeShape error: "
+					+ "Unknown shape " + this + ".");
+		}
+		return spec;
+	}
+
+	/**
+	 * Generates a tree of this shape without changes.
+	 * 
+	 * @param size
+	 *            The number of nodes in the tree. If not positive, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @return The workload. Its trees can be built as often as needed.
+	 */
+	public TreeWorkload createWorkload(int size) {
+		return new TreeWorkloadGenerator(SEED).createWorkload(getSpec(), size);
+	}
+
+	/**
+	 * Gets the parent of each node in a tree of this shape.
+	 * 
+	 * @param size
+	 *            The number of nodes in the tree. If not positive, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @return An array whose element {@code i} is the index of node
+	 *         {@code i}'s parent. The root's parent is -1.
+	 */
+	public int[] createParents(int size) {
+		// The Random constant hides the class name.
+		return getSpec().createParents(size, new java.util.Random(SEED));
+	}
+}
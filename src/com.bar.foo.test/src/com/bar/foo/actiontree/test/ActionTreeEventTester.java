@@ -0,0 +1,196 @@
+package com.bar.foo.actiontree.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.eclipse.jface.action.Action;
+import org.junit.Test;
+
+import com.bar.foo.actiontree.ActionTree;
+import com.bar.foo.actiontree.ActionTreeEvent;
+import com.bar.foo.actiontree.InMemoryActionTreeTarget;
+
+/**
+ * This class tests the {@link ActionTreeEvent}s recorded by Java Flight
+ * Recorder when {@link ActionTree}s are filled and refreshed.
+ * 
+ * @author Jordan
+ *
+ */
+public class ActionTreeEventTester {
+
+	/**
+	 * Checks the events and their fields for filling and refreshing a tree.
+	 */
+	@Test
+	public void checkEvents() throws IOException {
+
+		ActionTree root = new ActionTree();
+		root.setText("root");
+		ActionTree child = new ActionTree();
+		// The label falls back to the action's text.
+		child.setAction(new Action("child") {
+			@Override
+			public void run() {
+				// Nothing to do.
+			}
+		});
+		root.addChild(child);
+
+		List<RecordedEvent> events;
+		Recording recording = new Recording();
+		try {
+			recording.enable(ActionTreeEvent.FILL);
+			recording.enable(ActionTreeEvent.REFRESH);
+			recording.enable(ActionTreeEvent.CONTRIBUTION_REFRESH);
+			recording.start();
+
+			InMemoryActionTreeTarget menuBar = new InMemoryActionTreeTarget();
+			InMemoryActionTreeTarget toolBar = new InMemoryActionTreeTarget();
+			root.fill(menuBar);
+			root.fill(toolBar);
+			child.fill(menuBar);
+			// Filling the same target again is not recorded.
+			root.fill(menuBar);
+			// Refreshing without any changes skips the contributions.
+			root.refresh();
+			root.setToolTipText("tool tip");
+			root.refresh();
+			root.removeChild(child);
+			root.refresh();
+
+			recording.stop();
+			events = readEvents(recording);
+		} finally {
+			recording.close();
+		}
+
+		// Check the fills.
+		List<RecordedEvent> fills = getEvents(events, ActionTreeEvent.FILL);
+		assertEquals(3, fills.size());
+		checkEvent(fills.get(0), "root", 1, 1, 0);
+		checkEvent(fills.get(1), "root", 1, 1, 0);
+		checkEvent(fills.get(2), "child", 0, 1, 0);
+
+		// Refreshing the root skips both of its items at first, updates them
+		// in place after its tool tip changes, and then replaces them when it
+		// loses its child.
+		List<RecordedEvent> refreshes = getEvents(events,
+				ActionTreeEvent.REFRESH);
+		assertEquals(3, refreshes.size());
+		checkEvent(refreshes.get(0), "root", 1, 0, 0);
+		checkEvent(refreshes.get(1), "root", 1, 0, 0);
+		checkEvent(refreshes.get(2), "root", 0, 2, 2);
+		List<RecordedEvent> contributionRefreshes = getEvents(events,
+				ActionTreeEvent.CONTRIBUTION_REFRESH);
+		assertEquals(4, contributionRefreshes.size());
+		for (int i = 0; i < 2; i++) {
+			checkEvent(contributionRefreshes.get(i), "root", 1, 0, 0);
+			checkEvent(contributionRefreshes.get(i + 2), "root", 0, 1, 1);
+		}
+
+		return;
+	}
+
+	/**
+	 * Checks that nothing is recorded when the events are disabled.
+	 */
+	@Test
+	public void checkDisabled() throws IOException {
+
+		ActionTree root = new ActionTree();
+		root.setText("root");
+
+		List<RecordedEvent> events;
+		Recording recording = new Recording();
+		try {
+			recording.disable(ActionTreeEvent.FILL);
+			recording.start();
+			root.fill(new InMemoryActionTreeTarget());
+			recording.stop();
+			events = readEvents(recording);
+		} finally {
+			recording.close();
+		}
+
+		assertEquals(0, getEvents(events, ActionTreeEvent.FILL).size());
+
+		return;
+	}
+
+	/**
+	 * Reads the events from a stopped recording.
+	 * 
+	 * @param recording
+	 *            The recording.
+	 * @return All events in the recording.
+	 */
+	private List<RecordedEvent> readEvents(Recording recording)
+			throws IOException {
+		Path file = Files.createTempFile("actiontree", ".jfr");
+		try {
+			recording.dump(file);
+			return RecordingFile.readAllEvents(file);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * Gets the events with a name, in the order they started.
+	 * 
+	 * @param events
+	 *            All events.
+	 * @param name
+	 *            The name of the events to get.
+	 * @return The events with the name.
+	 */
+	private List<RecordedEvent> getEvents(List<RecordedEvent> events,
+			String name) {
+		List<RecordedEvent> matches = new ArrayList<RecordedEvent>();
+		for (RecordedEvent event : events) {
+			if (name.equals(event.getEventType().getName())) {
+				matches.add(event);
+			}
+		}
+		matches.sort(new java.util.Comparator<RecordedEvent>() {
+			@Override
+			public int compare(RecordedEvent a, RecordedEvent b) {
+				return a.getStartTime().compareTo(b.getStartTime());
+			}
+		});
+		return matches;
+	}
+
+	/**
+	 * Checks the fields of an event.
+	 * 
+	 * @param event
+	 *            The event.
+	 * @param label
+	 *            The expected label.
+	 * @param children
+	 *            The expected number of children.
+	 * @param created
+	 *            The expected number of widgets created.
+	 * @param disposed
+	 *            The expected number of widgets disposed.
+	 */
+	private void checkEvent(RecordedEvent event, String label, int children,
+			int created, int disposed) {
+		assertEquals(label, event.getString("label"));
+		assertEquals(children, event.getInt("children"));
+		assertEquals(created, event.getInt("widgetsCreated"));
+		assertEquals(disposed, event.getInt("widgetsDisposed"));
+		return;
+	}
+}
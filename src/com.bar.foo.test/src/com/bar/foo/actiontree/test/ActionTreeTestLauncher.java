@@ -75,61 +75,61 @@ public class ActionTreeTestLauncher {
 
 		createLabel(content, "2 - ActionTree (defaults, no action)");
 		ActionTree tree2 = new ActionTree();
-		tree2.text = "2";
+		tree2.setText("2");
 		tree2.fill(toolBarManager);
 		tree2.fill(menuManager);
 
 		createLabel(content, "3 - ActionTree (with action)");
 		ActionTree tree3 = new ActionTree();
-		tree3.action = new Action("3") {
+		tree3.setAction(new Action("3") {
 			@Override
 			public void run() {
 				System.out.println("3 - ActionTree (with action)");
 			}
-		};
+		});
 		tree3.fill(toolBarManager);
 		tree3.fill(menuManager);
 
 		// ---- Create an ActionTree with descendants. ---- //
 		createLabel(content, "4 - ActionTree (no action, with children)");
 		ActionTree tree4 = new ActionTree();
-		tree4.text = "4";
+		tree4.setText("4");
 		tree4.fill(toolBarManager);
 		tree4.fill(menuManager);
 
 		// Add a child.
 		ActionTree child1 = new ActionTree();
-		child1.action = new Action("Child1") {
+		child1.setAction(new Action("Child1") {
 			@Override
 			public void run() {
 				System.out.println("Child1");
 			}
-		};
+		});
 		tree4.addChild(child1);
 
 		// Add another child.
 		ActionTree child2 = new ActionTree();
-		child2.text = "Child2";
+		child2.setText("Child2");
 		tree4.addChild(child2);
 
 		// Add a grandchild.
 		ActionTree grandChild1 = new ActionTree();
-		grandChild1.action = new Action("GrandChild1") {
+		grandChild1.setAction(new Action("GrandChild1") {
 			@Override
 			public void run() {
 				System.out.println("GrandChild1");
 			}
-		};
+		});
 		child2.addChild(grandChild1);
 
 		// Add another grandchild.
 		ActionTree grandChild2 = new ActionTree();
-		grandChild2.action = new Action("GrandChild2") {
+		grandChild2.setAction(new Action("GrandChild2") {
 			@Override
 			public void run() {
 				System.out.println("GrandChild2");
 			}
-		};
+		});
 		child2.addChild(grandChild2);
 
 		// Now try refreshing the tree.
@@ -139,47 +139,47 @@ public class ActionTreeTestLauncher {
 		// ---- Create another ActionTree with descendants. ---- //
 		createLabel(content, "5 - ActionTree (with action, with children)");
 		ActionTree tree5 = new ActionTree();
-		tree5.action = new Action("5") {
+		tree5.setAction(new Action("5") {
 			@Override
 			public void run() {
 				System.out
 						.println("5 - ActionTree (with action, with children)");
 			}
-		};
+		});
 
 		// Add a child.
 		child1 = new ActionTree();
-		child1.action = new Action("Child1") {
+		child1.setAction(new Action("Child1") {
 			@Override
 			public void run() {
 				System.out.println("Child1 (parent - 5)");
 			}
-		};
+		});
 		tree5.addChild(child1);
 
 		// Add another child.
 		child2 = new ActionTree();
-		child2.text = "Child2";
+		child2.setText("Child2");
 		tree5.addChild(child2);
 
 		// Add a grandchild.
 		grandChild1 = new ActionTree();
-		grandChild1.action = new Action("GrandChild1") {
+		grandChild1.setAction(new Action("GrandChild1") {
 			@Override
 			public void run() {
 				System.out.println("GrandChild1 (grandparent - 5)");
 			}
-		};
+		});
 		child2.addChild(grandChild1);
 
 		// Add another grandchild.
 		grandChild2 = new ActionTree();
-		grandChild2.action = new Action("GrandChild2") {
+		grandChild2.setAction(new Action("GrandChild2") {
 			@Override
 			public void run() {
 				System.out.println("GrandChild2 (grandparent - 5)");
 			}
-		};
+		});
 		child2.addChild(grandChild2);
 
 		// Fill the ToolBar after adding all the descendants.
@@ -190,7 +190,7 @@ public class ActionTreeTestLauncher {
 		// ---- Create a dynamic tree that can be populated via buttons. ---- //
 		createLabel(content, "6 - ActionTree (no action, dynamic)");
 		final ActionTree tree6 = new ActionTree();
-		tree6.text = "6";
+		tree6.setText("6");
 		tree6.fill(toolBarManager);
 		tree6.fill(menuManager);
 
@@ -211,12 +211,12 @@ public class ActionTreeTestLauncher {
 				String text = "Child" + Integer.toString(count + 1);
 				// Create the new child in the dynamic tree.
 				ActionTree child = new ActionTree();
-				child.action = new Action(text) {
+				child.setAction(new Action(text) {
 					@Override
 					public void run() {
 						System.out.println(getText());
 					}
-				};
+				});
 				// Add the child to the dynamic tree.
 				tree6.addChild(child);
 				tree6.refresh();
@@ -243,12 +243,12 @@ public class ActionTreeTestLauncher {
 		// ---- Create a dynamic tree that can be populated via buttons. ---- //
 		createLabel(content, "7 - ActionTree (action, dynamic)");
 		final ActionTree tree7 = new ActionTree();
-		tree7.action = new Action("7") {
+		tree7.setAction(new Action("7") {
 			@Override
 			public void run() {
 				System.out.println("7 - ActionTree (action, dynamic)");
 			}
-		};
+		});
 		tree7.fill(toolBarManager);
 		tree7.fill(menuManager);
 
@@ -269,12 +269,12 @@ public class ActionTreeTestLauncher {
 				String text = "Child" + Integer.toString(count + 1);
 				// Create the new child in the dynamic tree.
 				ActionTree child = new ActionTree();
-				child.action = new Action(text) {
+				child.setAction(new Action(text) {
 					@Override
 					public void run() {
 						System.out.println(getText());
 					}
-				};
+				});
 				// Add the child to the dynamic tree.
 				tree7.addChild(child);
 				tree7.refresh();
@@ -321,12 +321,12 @@ public class ActionTreeTestLauncher {
 				String text = "Child" + Integer.toString(count + 1);
 				// Create the new child in the dynamic tree.
 				ActionTree child = new ActionTree();
-				child.action = new Action(text) {
+				child.setAction(new Action(text) {
 					@Override
 					public void run() {
 						System.out.println(getText());
 					}
-				};
+				});
 				// Add the child to the dynamic tree.
 				tree8.addChild(child);
 				tree8.refresh();
@@ -375,7 +375,7 @@ public class ActionTreeTestLauncher {
 				index.set(i);
 
 				// Update the ActionTree's image.
-				tree8.image = images[i];
+				tree8.setImage(images[i]);
 				tree8.refresh();
 
 				return;
@@ -385,7 +385,7 @@ public class ActionTreeTestLauncher {
 		createButton(contentRow, SWT.LEFT, new Action("Toggle Action for 8") {
 			@Override
 			public void run() {
-				tree8.action = (tree8.action != null ? null : new Action(
+				tree8.setAction(tree8.getAction() != null ? null : new Action(
 						"some action") {
 					@Override
 					public void run() {
@@ -415,7 +415,7 @@ public class ActionTreeTestLauncher {
 		textText.addModifyListener(new ModifyListener() {
 			@Override
 			public void modifyText(ModifyEvent e) {
-				tree8.text = textText.getText();
+				tree8.setText(textText.getText());
 				tree8.refresh();
 			}
 		});
@@ -440,7 +440,7 @@ public class ActionTreeTestLauncher {
 		toolTipTextText.addModifyListener(new ModifyListener() {
 			@Override
 			public void modifyText(ModifyEvent e) {
-				tree8.toolTipText = toolTipTextText.getText();
+				tree8.setToolTipText(toolTipTextText.getText());
 				tree8.refresh();
 			}
 		});
@@ -6,10 +6,20 @@ import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.List;
+import java.util.Map;
+
 import org.eclipse.jface.action.Action;
+import org.eclipse.jface.action.IAction;
+import org.eclipse.jface.action.MenuManager;
+import org.eclipse.jface.resource.ImageDescriptor;
 import org.junit.Test;
 
 import com.bar.foo.actiontree.ActionTree;
+import com.bar.foo.actiontree.ActionTreeStatistics;
+import com.bar.foo.tree.InheritedAttribute;
+import com.bar.foo.tree.SynthesizedAttribute;
+import com.bar.foo.tree.test.AllocationMeter;
 
 /**
  * This class tests the {@link ActionTree} class's exposed methods.
@@ -85,15 +95,15 @@ public class ActionTreeTester {
 
 		// ---- Try a single, non-default ActionTree. ---- //
 		object = new ActionTree();
-		object.text = "text";
-		object.toolTipText = "This is a tooltip. This is helpful.";
-		object.style = Action.AS_UNSPECIFIED;
-		object.action = new Action("This is an Action.") {
+		object.setText("text");
+		object.setToolTipText("This is a tooltip. This is helpful.");
+		object.setStyle(Action.AS_UNSPECIFIED);
+		object.setAction(new Action("This is an Action.") {
 			@Override
 			public void run() {
 				// Running!
 			}
-		};
+		});
 
 		// Test the local copy constructor.
 		copy = null;
@@ -117,16 +127,16 @@ public class ActionTreeTester {
 		ActionTree tree2;
 
 		tree1 = new ActionTree();
-		tree1.toolTipText = "B";
+		tree1.setToolTipText("B");
 		object.addChild(tree1);
 		tree1 = new ActionTree();
-		tree1.style = Action.AS_CHECK_BOX;
+		tree1.setStyle(Action.AS_CHECK_BOX);
 		object.addChild(tree1);
 		tree2 = new ActionTree();
-		tree2.action = object.action;
+		tree2.setAction(object.getAction());
 		tree1.addChild(tree2);
 		// This shouldn't matter.
-		tree2.enabled = false;
+		tree2.setEnabled(false);
 
 		// Test the local copy constructor.
 		copy = null;
@@ -145,15 +155,64 @@ public class ActionTreeTester {
 		assertEquals(object, copy);
 
 		// The enabled flag of the grandchild should be true, unlike tree2!
-		assertFalse(tree2.enabled);
+		assertFalse(tree2.isEnabled());
 		ActionTree tree2Copy = copy.getChild(1).getChild(0);
-		assertTrue(tree2Copy.enabled);
+		assertTrue(tree2Copy.isEnabled());
 		assertEquals(tree2, tree2Copy);
 		// ---------------------------------------------------- //
 
 		return;
 	}
 
+	/**
+	 * Checks the allocation budget of full-tree copies. Each copied node
+	 * allocates the new {@code ActionTree} and its small collections, but the
+	 * walk over the source tree allocates nothing per node. This uses the
+	 * thread allocation counters of HotSpot-based JVMs and is skipped on other
+	 * JVMs.
+	 * 
+	 * @see ActionTree#ActionTree(ActionTree, boolean)
+	 * @see AllocationMeter
+	 */
+	@Test
+	public void checkCopyAllocation() {
+
+		AllocationMeter meter = new AllocationMeter(2000);
+
+		// Create a tree with 10 branches of 10 nodes each, and a chain of 100
+		// nodes below the last branch.
+		final ActionTree object = new ActionTree();
+		object.setText("root");
+		ActionTree parent = object;
+		for (int i = 0; i < 10; i++) {
+			ActionTree branch = new ActionTree();
+			object.addChild(branch);
+			for (int j = 0; j < 10; j++) {
+				ActionTree leaf = new ActionTree();
+				leaf.setText("leaf");
+				branch.addChild(leaf);
+			}
+			parent = branch;
+		}
+		for (int i = 0; i < 100; i++) {
+			ActionTree child = new ActionTree();
+			parent.addChild(child);
+			parent = child;
+		}
+		int size = 211;
+
+		// Each copy takes about 260 bytes. Before the walk stopped using
+		// stacks and the contribution map was sized down, it took about 450.
+		meter.assertBudget("Full-tree copy", 320 * size, new Runnable() {
+			@Override
+			public void run() {
+				new ActionTree(object, true);
+			}
+		});
+
+		return;
+	}
+
 	/**
 	 * Checks consistency and correctness for equality and hash code methods.
 	 * 
@@ -210,26 +269,26 @@ public class ActionTreeTester {
 		// TODO Add an ImageDescriptor to these objects.
 
 		// Set up the object, equalObject, and unequalObject.
-		object.text = "derp";
-		object.toolTipText = "woot";
-		object.style = Action.AS_PUSH_BUTTON;
-		object.action = new Action("Hey hey hey!") {
+		object.setText("derp");
+		object.setToolTipText("woot");
+		object.setStyle(Action.AS_PUSH_BUTTON);
+		object.setAction(new Action("Hey hey hey!") {
 			@Override
 			public void run() {
 				// Can't catch me, fast as can be!
 			}
-		};
-		equalObject.text = "derp";
-		equalObject.toolTipText = "woot";
-		equalObject.style = Action.AS_PUSH_BUTTON;
+		});
+		equalObject.setText("derp");
+		equalObject.setToolTipText("woot");
+		equalObject.setStyle(Action.AS_PUSH_BUTTON);
 		// The action must be the same reference since Action doesn't override
 		// Object.equals(Object)!
-		equalObject.action = object.action;
+		equalObject.setAction(object.getAction());
 		// TODO Add an ImageDescriptor.
-		unequalObject.text = "derp";
-		unequalObject.toolTipText = "woot!"; // Different!
-		unequalObject.style = Action.AS_PUSH_BUTTON;
-		unequalObject.action = object.action;
+		unequalObject.setText("derp");
+		unequalObject.setToolTipText("woot!"); // Different!
+		unequalObject.setStyle(Action.AS_PUSH_BUTTON);
+		unequalObject.setAction(object.getAction());
 
 		// The references are not the same.
 		assertNotSame(object, equalObject);
@@ -286,6 +345,19 @@ public class ActionTreeTester {
 		assertFalse(equalObject.hashCode(false) == unequalObject
 				.hashCode(false));
 		assertFalse(equalObject.hashCode(true) == unequalObject.hashCode(true));
+
+		// Styles are compared by value, not by reference. Integers this large
+		// are not cached, so each is a separate object.
+		Integer style = Integer.valueOf(1000);
+		Integer equalStyle = Integer.valueOf(999 + 1);
+		assertNotSame(style, equalStyle);
+		object.setStyle(style);
+		equalObject.setStyle(equalStyle);
+		assertTrue(object.equals(equalObject));
+		assertEquals(object.hashCode(), equalObject.hashCode());
+		equalObject.setStyle(null);
+		assertFalse(object.equals(equalObject));
+		assertFalse(equalObject.equals(object));
 		// -------------------------------------- //
 
 		// ---- Try a more complicated tree. ---- //
@@ -303,51 +375,51 @@ public class ActionTreeTester {
 		// Create a tree with 4 elements as follows:
 		// Breadth first order: ABCD, A has children B and C, C has child D.
 		object = new ActionTree();
-		object.text = "A";
+		object.setText("A");
 		tree1 = new ActionTree();
-		tree1.toolTipText = "B";
+		tree1.setToolTipText("B");
 		object.addChild(tree1);
 		tree1 = new ActionTree();
-		tree1.style = Action.AS_CHECK_BOX;
+		tree1.setStyle(Action.AS_CHECK_BOX);
 		object.addChild(tree1);
 		tree2 = new ActionTree();
-		tree2.action = action;
+		tree2.setAction(action);
 		tree1.addChild(tree2);
-		tree2.enabled = true;
+		tree2.setEnabled(true);
 
 		// Duplicate the tree for the equals tree.
 		equalObject = new ActionTree();
-		equalObject.text = "A";
+		equalObject.setText("A");
 		tree1 = new ActionTree();
-		tree1.toolTipText = "B";
+		tree1.setToolTipText("B");
 		equalObject.addChild(tree1);
 		tree1 = new ActionTree();
-		tree1.style = Action.AS_CHECK_BOX;
+		tree1.setStyle(Action.AS_CHECK_BOX);
 		equalObject.addChild(tree1);
 		tree2 = new ActionTree();
 		// Note: The Action must be the same object because two Actions cannot
 		// otherwise satisfy Action.equals(Object).
-		tree2.action = action;
+		tree2.setAction(action);
 		tree1.addChild(tree2);
 		// The enabled property shouldn't matter.
-		tree2.enabled = false;
+		tree2.setEnabled(false);
 
 		// For an unequal tree, create a different tree with the same
 		// breadth-first order (just add all nodes to A).
 		unequalObject = new ActionTree();
-		unequalObject.text = "A";
+		unequalObject.setText("A");
 		tree1 = new ActionTree();
-		tree1.toolTipText = "B";
+		tree1.setToolTipText("B");
 		unequalObject.addChild(tree1);
 		tree1 = new ActionTree();
-		tree1.style = Action.AS_CHECK_BOX;
+		tree1.setStyle(Action.AS_CHECK_BOX);
 		unequalObject.addChild(tree1);
 		tree2 = new ActionTree();
 		// Note: The Action must be the same object because two Actions cannot
 		// otherwise satisfy Action.equals(Object).
-		tree2.action = action;
+		tree2.setAction(action);
 		unequalObject.addChild(tree2); // Different!
-		tree2.enabled = true;
+		tree2.setEnabled(true);
 
 		// The references are not the same.
 		assertNotSame(object, equalObject);
@@ -416,4 +488,140 @@ public class ActionTreeTester {
 
 		return;
 	}
+
+	/**
+	 * Checks that {@link ActionTreeStatistics} counts the contributions made
+	 * by the nodes in a tree.
+	 */
+	@Test
+	public void checkStatistics() {
+
+		ActionTree root = new ActionTree();
+		root.setText("root");
+		ActionTree child1 = new ActionTree();
+		child1.setText("child1");
+		ActionTree child2 = new ActionTree();
+		child2.setText("child2");
+		root.addChild(child1);
+		root.addChild(child2);
+
+		// Nothing has been contributed yet.
+		ActionTreeStatistics statistics = new ActionTreeStatistics();
+		statistics.compute(root);
+		assertEquals(3, statistics.getNodeCount());
+		assertEquals(0, statistics.getContributionCount());
+		assertEquals(0, statistics.getMenuCount());
+
+		// Contribute the root to one manager and a child to two managers.
+		root.fill(new MenuManager());
+		child1.fill(new MenuManager());
+		child1.fill(new MenuManager());
+		statistics.compute(root);
+		assertEquals(3, statistics.getNodeCount());
+		assertEquals(3, statistics.getContributionCount());
+		assertEquals(0, statistics.getMenuCount());
+
+		// The counts are exported with the other statistics.
+		Map<String, Object> map = statistics.toMap();
+		assertEquals(3, map.get("nodeCount"));
+		assertEquals(3, map.get("contributionCount"));
+		assertEquals(0, map.get("menuCount"));
+		assertTrue(statistics.toJson().contains("\"contributionCount\":3"));
+
+		return;
+	}
+
+	/**
+	 * Checks that changing a property of an {@code ActionTree} clears the
+	 * cached attributes that may depend on it, and that setting a property to
+	 * its current value does not.
+	 * 
+	 * @see ActionTree#setEnabled(boolean)
+	 * @see com.bar.foo.tree.BasicTree#invalidateAttributes()
+	 */
+	@Test
+	public void checkAttributeInvalidation() {
+
+		// A node is effectively enabled if it and all its ancestors are.
+		InheritedAttribute<ActionTree, Boolean> effectiveEnabled;
+		effectiveEnabled = new InheritedAttribute<ActionTree, Boolean>() {
+			@Override
+			protected Boolean computeRoot(ActionTree root) {
+				return root.isEnabled();
+			}
+
+			@Override
+			protected Boolean compute(ActionTree node, Boolean parentValue) {
+				return parentValue && node.isEnabled();
+			}
+		};
+		// The number of nodes with text in each sub-tree.
+		SynthesizedAttribute<ActionTree, Integer> textCount;
+		textCount = new SynthesizedAttribute<ActionTree, Integer>() {
+			@Override
+			protected Integer compute(ActionTree node,
+					List<Integer> childValues) {
+				int count = (node.getText() != null ? 1 : 0);
+				for (Integer childCount : childValues) {
+					count += childCount;
+				}
+				return count;
+			}
+		};
+
+		ActionTree root = new ActionTree();
+		ActionTree child = new ActionTree();
+		ActionTree grandchild = new ActionTree();
+		root.addChild(child);
+		child.addChild(grandchild);
+
+		// Disabling a node disables its descendants.
+		assertTrue(effectiveEnabled.get(grandchild));
+		child.setEnabled(false);
+		assertFalse(effectiveEnabled.isCached(grandchild));
+		assertFalse(effectiveEnabled.get(grandchild));
+		assertTrue(effectiveEnabled.get(root));
+		child.setEnabled(true);
+		assertTrue(effectiveEnabled.get(grandchild));
+
+		// Setting text changes the counts of the node and its ancestors.
+		assertEquals(0, textCount.get(root).intValue());
+		grandchild.setText("grandchild");
+		assertFalse(textCount.isCached(root));
+		assertEquals(1, textCount.get(root).intValue());
+		assertEquals(1, textCount.get(child).intValue());
+
+		// Every property setter clears the cached values on a change.
+		IAction action = new Action("action") {
+			// Nothing to override.
+		};
+		for (int i = 0; i < 5; i++) {
+			textCount.get(root);
+			effectiveEnabled.get(grandchild);
+			if (i == 0) {
+				child.setText("child");
+			} else if (i == 1) {
+				child.setToolTipText("tool tip");
+			} else if (i == 2) {
+				child.setStyle(IAction.AS_CHECK_BOX);
+			} else if (i == 3) {
+				child.setImage(ImageDescriptor.getMissingImageDescriptor());
+			} else {
+				child.setAction(action);
+			}
+			assertFalse(textCount.isCached(root));
+			assertFalse(effectiveEnabled.isCached(grandchild));
+		}
+
+		// Setting a property to its current value keeps the cached values.
+		textCount.get(root);
+		effectiveEnabled.get(grandchild);
+		child.setText("child");
+		child.setEnabled(true);
+		child.setAction(action);
+		assertTrue(textCount.isCached(root));
+		assertTrue(effectiveEnabled.isCached(grandchild));
+
+		return;
+	}
 }
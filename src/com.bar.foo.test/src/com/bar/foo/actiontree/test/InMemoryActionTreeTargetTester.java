@@ -0,0 +1,351 @@
+package com.bar.foo.actiontree.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.action.ActionContributionItem;
+import org.eclipse.jface.action.IAction;
+import org.eclipse.jface.resource.ImageDescriptor;
+import org.junit.Test;
+
+import com.bar.foo.actiontree.ActionTree;
+import com.bar.foo.actiontree.ActionTreeStatistics;
+import com.bar.foo.actiontree.InMemoryActionTreeTarget;
+import com.bar.foo.actiontree.InMemoryActionTreeTarget.Operation;
+import com.bar.foo.actiontree.InMemoryActionTreeTarget.OperationType;
+
+/**
+ * This class tests {@link InMemoryActionTreeTarget} and the contributions made
+ * to it by {@link ActionTree#fill(com.bar.foo.actiontree.IActionTreeTarget)}.
+ *
+ * @author Jordan
+ *
+ */
+public class InMemoryActionTreeTargetTester {
+
+	/**
+	 * Checks that filling, refreshing and unfilling {@link ActionTree}s create,
+	 * update and dispose items in the target.
+	 */
+	@Test
+	public void checkContributions() {
+
+		ActionTree root = new ActionTree();
+		root.setText("root");
+		ActionTree child = new ActionTree();
+		child.setText("child");
+		root.addChild(child);
+
+		// Filling adds an item to the end of the target.
+		InMemoryActionTreeTarget target = new InMemoryActionTreeTarget();
+		root.fill(target);
+		child.fill(target);
+		assertEquals(2, target.getNumberOfItems());
+		ActionContributionItem rootItem = target.getItem(0);
+		ActionContributionItem childItem = target.getItem(1);
+		assertEquals(2, target.getOperationCount(OperationType.Create));
+
+		// Filling the same target again has no effect.
+		root.fill(target);
+		assertEquals(2, target.getNumberOfItems());
+
+		// Refreshing updates the item in place if its style is unchanged.
+		root.setText("new root");
+		root.refresh();
+		assertSame(rootItem, target.getItem(0));
+		assertEquals("new root", rootItem.getAction().getText());
+		assertEquals(0, target.getOperationCount(OperationType.Update));
+
+		// Otherwise, it replaces the item in the same place.
+		root.setAction(createAction());
+		root.refresh();
+		assertEquals(2, target.getNumberOfItems());
+		assertNotSame(rootItem, target.getItem(0));
+		assertSame(childItem, target.getItem(1));
+		assertEquals(1, target.getOperationCount(OperationType.Update));
+
+		// Unfilling removes the item, and the following items move up.
+		root.unfill(target);
+		assertEquals(1, target.getNumberOfItems());
+		assertSame(childItem, target.getItem(0));
+		child.setStyle(IAction.AS_CHECK_BOX);
+		child.refresh();
+		assertNotSame(childItem, target.getItem(0));
+		assertEquals(1, target.getNumberOfItems());
+
+		// The tree can be filled again once unfilled.
+		root.fill(target);
+		assertEquals(2, target.getNumberOfItems());
+
+		// Each operation was recorded in order.
+		List<Operation> operations = target.getOperations();
+		assertEquals(6, operations.size());
+		OperationType[] types = { OperationType.Create, OperationType.Create,
+				OperationType.Update, OperationType.Dispose,
+				OperationType.Update, OperationType.Create };
+		int[] indices = { 0, 1, 0, 0, 0, 1 };
+		for (int i = 0; i < types.length; i++) {
+			assertEquals(types[i], operations.get(i).type);
+			assertEquals(indices[i], operations.get(i).index);
+		}
+		assertSame(rootItem, operations.get(0).item);
+		assertSame(childItem, operations.get(1).item);
+		assertSame(target.getItem(0), operations.get(4).item);
+		assertSame(target.getItem(1), operations.get(5).item);
+
+		// The contributions are counted like those to widgets.
+		ActionTreeStatistics statistics = new ActionTreeStatistics();
+		statistics.compute(root);
+		assertEquals(2, statistics.getContributionCount());
+
+		// Clearing the operations keeps the items.
+		target.clearOperations();
+		assertTrue(target.getOperations().isEmpty());
+		assertEquals(0, target.getOperationCount(OperationType.Create));
+		assertEquals(2, target.getItems().size());
+
+		// Unfilling a target that was not filled has no effect.
+		root.unfill(new InMemoryActionTreeTarget());
+		assertEquals(2, target.getNumberOfItems());
+
+		return;
+	}
+
+	/**
+	 * Checks that a target can count operations without recording them.
+	 */
+	@Test
+	public void checkCountOnly() {
+
+		ActionTree tree = new ActionTree();
+		InMemoryActionTreeTarget target = new InMemoryActionTreeTarget(false);
+		tree.fill(target);
+		for (int i = 0; i < 10; i++) {
+			// Changing the style replaces the item.
+			tree.setStyle((i % 2 == 0 ? IAction.AS_CHECK_BOX
+					: IAction.AS_PUSH_BUTTON));
+			tree.refresh();
+		}
+		tree.unfill(target);
+
+		assertEquals(1, target.getOperationCount(OperationType.Create));
+		assertEquals(10, target.getOperationCount(OperationType.Update));
+		assertEquals(1, target.getOperationCount(OperationType.Dispose));
+		assertTrue(target.getOperations().isEmpty());
+		assertEquals(0, target.getNumberOfItems());
+
+		return;
+	}
+
+	/**
+	 * Checks that refreshing updates changed properties on the existing item
+	 * and only replaces the item when its style or kind must change.
+	 */
+	@Test
+	public void checkRefresh() {
+
+		ActionTree tree = new ActionTree();
+		tree.setText("text");
+		IAction action = createAction();
+		tree.setAction(action);
+		InMemoryActionTreeTarget target = new InMemoryActionTreeTarget();
+		tree.fill(target);
+		ActionContributionItem item = target.getItem(0);
+		IAction exposed = item.getAction();
+		assertEquals("text", exposed.getText());
+		assertEquals(IAction.AS_PUSH_BUTTON, exposed.getStyle());
+		assertTrue(exposed.isEnabled());
+
+		// Refreshing without any changes does nothing.
+		tree.refresh();
+		assertSame(item, target.getItem(0));
+
+		// The text, tool tip, image and enabled state are updated in place.
+		ImageDescriptor image = ImageDescriptor.getMissingImageDescriptor();
+		tree.setText(null);
+		tree.setToolTipText("tool tip");
+		tree.setImage(image);
+		tree.setEnabled(false);
+		tree.refresh();
+		assertSame(item, target.getItem(0));
+		assertSame(exposed, item.getAction());
+		assertEquals("action", exposed.getText());
+		assertEquals("tool tip", exposed.getToolTipText());
+		assertSame(image, exposed.getImageDescriptor());
+		assertFalse(exposed.isEnabled());
+
+		// A new Action is run by the existing item.
+		tree.setEnabled(true);
+		final int[] runs = new int[1];
+		tree.setAction(new Action("other") {
+			@Override
+			public void run() {
+				runs[0]++;
+			}
+		});
+		tree.refresh();
+		assertSame(item, target.getItem(0));
+		assertEquals("other", exposed.getText());
+		assertTrue(exposed.isEnabled());
+		exposed.run();
+		assertEquals(1, runs[0]);
+		assertEquals(0, target.getOperationCount(OperationType.Update));
+
+		// Changing the style replaces the item.
+		tree.setStyle(IAction.AS_CHECK_BOX);
+		tree.refresh();
+		assertNotSame(item, target.getItem(0));
+		item = target.getItem(0);
+		assertEquals(IAction.AS_CHECK_BOX, item.getAction().getStyle());
+		assertEquals(1, target.getOperationCount(OperationType.Update));
+
+		// So does removing the Action, which leaves a disabled placeholder.
+		tree.setAction(null);
+		tree.setText("placeholder");
+		tree.refresh();
+		assertNotSame(item, target.getItem(0));
+		item = target.getItem(0);
+		assertEquals("placeholder", item.getAction().getText());
+		assertFalse(item.getAction().isEnabled());
+
+		// And so does adding a child, which needs a dropdown.
+		tree.addChild(new ActionTree());
+		tree.refresh();
+		assertNotSame(item, target.getItem(0));
+		item = target.getItem(0);
+		assertEquals(IAction.AS_DROP_DOWN_MENU, item.getAction().getStyle());
+		assertTrue(item.getAction().isEnabled());
+		assertEquals(3, target.getOperationCount(OperationType.Update));
+
+		return;
+	}
+
+	/**
+	 * Checks that refreshing skips contributions when neither the tree's
+	 * properties, its children nor its {@code Action}'s properties have
+	 * changed.
+	 */
+	@Test
+	public void checkRefreshSkipped() {
+
+		ActionTree tree = new ActionTree();
+		tree.setText("text");
+		IAction action = createAction();
+		tree.setAction(action);
+		InMemoryActionTreeTarget target = new InMemoryActionTreeTarget();
+		tree.fill(target);
+		IAction exposed = target.getItem(0).getAction();
+
+		// Change the exposed Action behind the tree's back. Refreshes are
+		// skipped, so it is not corrected.
+		exposed.setToolTipText("stale");
+		tree.refresh();
+		assertEquals("stale", exposed.getToolTipText());
+		// Setting a property to its current value is not a change.
+		tree.setText("text");
+		tree.setAction(action);
+		tree.refresh();
+		assertEquals("stale", exposed.getToolTipText());
+
+		// A change to the tree's Action is picked up.
+		action.setToolTipText("tool tip");
+		tree.refresh();
+		assertEquals("tool tip", exposed.getToolTipText());
+
+		// So is a change to the tree's own properties.
+		exposed.setToolTipText("stale");
+		tree.setToolTipText("new tool tip");
+		tree.refresh();
+		assertEquals("new tool tip", exposed.getToolTipText());
+		assertEquals("text", exposed.getText());
+
+		// Once the Action is replaced, changes to the old one are ignored.
+		IAction other = createAction();
+		tree.setAction(other);
+		tree.refresh();
+		exposed.setToolTipText("stale");
+		action.setToolTipText("old tool tip");
+		tree.refresh();
+		assertEquals("stale", exposed.getToolTipText());
+		assertEquals(0, target.getOperationCount(OperationType.Update));
+
+		return;
+	}
+
+	/**
+	 * Checks that invalid operations throw exceptions.
+	 */
+	@Test
+	public void checkInvalidOperations() {
+
+		InMemoryActionTreeTarget target = new InMemoryActionTreeTarget();
+		ActionTree tree = new ActionTree();
+		tree.fill(target);
+		ActionContributionItem item = target.getItem(0);
+		ActionContributionItem otherItem = new ActionContributionItem(
+				createAction());
+
+		try {
+			target.create(null);
+			fail("InMemoryActionTreeTargetTester error: "
+					+ "A null item should not be created.");
+		} catch (IllegalArgumentException e) {
+			// Exception thrown as expected.
+		}
+		try {
+			target.create(item);
+			fail("InMemoryActionTreeTargetTester error: "
+					+ "An item should not be created twice.");
+		} catch (IllegalArgumentException e) {
+			// Exception thrown as expected.
+		}
+		try {
+			target.update(otherItem, otherItem);
+			fail("InMemoryActionTreeTargetTester error: "
+					+ "An item not in the target should not be updated.");
+		} catch (IllegalArgumentException e) {
+			// Exception thrown as expected.
+		}
+		try {
+			target.update(item, null);
+			fail("InMemoryActionTreeTargetTester error: "
+					+ "An item should not be replaced with null.");
+		} catch (IllegalArgumentException e) {
+			// Exception thrown as expected.
+		}
+		try {
+			target.dispose(otherItem);
+			fail("InMemoryActionTreeTargetTester error: "
+					+ "An item not in the target should not be disposed.");
+		} catch (IllegalArgumentException e) {
+			// Exception thrown as expected.
+		}
+
+		// The failed operations were not recorded.
+		assertEquals(1, target.getOperations().size());
+		assertEquals(1, target.getNumberOfItems());
+
+		return;
+	}
+
+	/**
+	 * Creates an {@code Action} with the text "action" that does nothing.
+	 * 
+	 * @return The new {@code Action}.
+	 */
+	private IAction createAction() {
+		return new Action("action") {
+			@Override
+			public void run() {
+				// Nothing to do.
+			}
+		};
+	}
+}
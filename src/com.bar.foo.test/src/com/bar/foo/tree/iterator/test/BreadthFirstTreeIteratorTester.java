@@ -14,6 +14,7 @@ import org.junit.Test;
 
 import com.bar.foo.tree.iterator.BreadthFirstTreeIterator;
 import com.bar.foo.tree.iterator.TreeIterationOrder;
+import com.bar.foo.tree.iterator.TreeIterator;
 import com.bar.foo.tree.test.BasicTestTree;
 
 /**
@@ -167,6 +168,40 @@ public class BreadthFirstTreeIteratorTester {
 		return;
 	}
 
+	/**
+	 * Checks that {@link TreeIterator#depth()} reports the depth of each node,
+	 * including after a sub-tree has been removed during the iteration.
+	 */
+	@Test
+	public void checkDepth() {
+
+		BasicTestTree root = BasicTestTree.createTestTree();
+		TreeIterator<BasicTestTree> iterator;
+
+		// The letter of each node's property gives its depth.
+		iterator = root.iterator(ORDER);
+		assertEquals(-1, iterator.depth());
+		while (iterator.hasNext()) {
+			BasicTestTree node = iterator.next();
+			assertEquals(node.property.charAt(0) - 'A', iterator.depth());
+		}
+
+		// Removing C3 (and D1 and D2) should not affect the other depths.
+		iterator = root.iterator(ORDER);
+		int count = 0;
+		while (iterator.hasNext()) {
+			BasicTestTree node = iterator.next();
+			assertEquals(node.property.charAt(0) - 'A', iterator.depth());
+			if ("C3".equals(node.property)) {
+				iterator.remove();
+			}
+			count++;
+		}
+		assertEquals(10, count);
+
+		return;
+	}
+
 	/**
 	 * Checks that exceptions are thrown at the appropriate times, including the
 	 * following:
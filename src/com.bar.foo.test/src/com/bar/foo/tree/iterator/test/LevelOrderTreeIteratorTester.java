@@ -0,0 +1,112 @@
+package com.bar.foo.tree.iterator.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+import com.bar.foo.tree.iterator.LevelOrderTreeIterator;
+import com.bar.foo.tree.iterator.TreeIterationOrder;
+import com.bar.foo.tree.test.BasicTestTree;
+
+/**
+ * This class tests the level-order tree iterator implementation.
+ * 
+ * @author Jordan
+ *
+ */
+public class LevelOrderTreeIteratorTester {
+
+	/**
+	 * Checks that the levels match the breadth-first order and that the level
+	 * lists are re-used.
+	 */
+	@Test
+	public void checkOrder() {
+
+		BasicTestTree root = BasicTestTree.createTestTree();
+		LevelOrderTreeIterator<BasicTestTree> iterator;
+		iterator = new LevelOrderTreeIterator<BasicTestTree>(root);
+
+		// The concatenated levels should match the breadth-first order.
+		List<BasicTestTree> expected = root
+				.getExpectedOrder(TreeIterationOrder.BreadthFirst);
+		String[] levels = { "A1", "B1B2", "C1C2C3C4", "D1D2D3D4D5" };
+		List<BasicTestTree> first = null;
+		List<BasicTestTree> second = null;
+		int index = 0;
+		assertEquals(-1, iterator.depth());
+		for (int depth = 0; depth < levels.length; depth++) {
+			assertTrue(iterator.hasNext());
+			List<BasicTestTree> level = iterator.next();
+			assertEquals(depth, iterator.depth());
+			StringBuilder builder = new StringBuilder();
+			for (BasicTestTree node : level) {
+				assertSame(expected.get(index++), node);
+				builder.append(node.property);
+			}
+			assertEquals(levels[depth], builder.toString());
+
+			// Only two lists are used.
+			if (depth == 0) {
+				first = level;
+			} else if (depth == 1) {
+				second = level;
+			} else {
+				assertSame(depth % 2 == 0 ? first : second, level);
+			}
+		}
+		assertFalse(iterator.hasNext());
+		assertEquals(expected.size(), index);
+
+		return;
+	}
+
+	/**
+	 * Checks that exceptions are thrown at the appropriate times.
+	 */
+	@Test
+	public void checkExceptions() {
+
+		BasicTestTree root = new BasicTestTree();
+		LevelOrderTreeIterator<BasicTestTree> iterator;
+		iterator = new LevelOrderTreeIterator<BasicTestTree>(root);
+		assertSame(root, iterator.next().get(0));
+
+		// The levels are read-only.
+		try {
+			iterator.remove();
+			fail("LevelOrderTreeIteratorTester error: "
+					+ "Levels should not be removable.");
+		} catch (UnsupportedOperationException e) {
+			// Exception thrown as expected.
+		}
+
+		// There are no more levels.
+		try {
+			iterator.next();
+			fail("LevelOrderTreeIteratorTester error: "
+					+ "When no levels remain, next() should throw a "
+					+ "NoSuchElementException.");
+		} catch (NoSuchElementException e) {
+			// Exception thrown as expected.
+		}
+
+		// Null trees are not allowed.
+		try {
+			new LevelOrderTreeIterator<BasicTestTree>(null);
+			fail("LevelOrderTreeIteratorTester error: "
+					+ "A null tree should not be accepted.");
+		} catch (IllegalArgumentException e) {
+			// Exception thrown as expected.
+		}
+
+		return;
+	}
+}
@@ -0,0 +1,219 @@
+package com.bar.foo.tree.iterator.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.bar.foo.tree.iterator.ILevelConsumer;
+import com.bar.foo.tree.iterator.ParallelBreadthFirstTraversal;
+import com.bar.foo.tree.iterator.TreeIterationOrder;
+import com.bar.foo.tree.test.BasicTestTree;
+
+/**
+ * This class tests {@link ParallelBreadthFirstTraversal}. The levels it
+ * produces are compared against the breadth-first iterator.
+ * 
+ * @author Jordan
+ *
+ */
+public class ParallelBreadthFirstTraversalTester {
+
+	/**
+	 * Checks the levels of the test tree.
+	 */
+	@Test
+	public void checkLevels() {
+
+		BasicTestTree root = BasicTestTree.createTestTree();
+		final List<String> levels = new ArrayList<String>();
+
+		int depth = new ParallelBreadthFirstTraversal<BasicTestTree>()
+				.traverse(root, new ILevelConsumer<BasicTestTree>() {
+					@Override
+					public void accept(int depth, List<BasicTestTree> level) {
+						assertEquals(levels.size(), depth);
+						StringBuilder builder = new StringBuilder();
+						for (BasicTestTree node : level) {
+							builder.append(node.property);
+						}
+						levels.add(builder.toString());
+					}
+				});
+		assertEquals(4, depth);
+		assertEquals("[A1, B1B2, C1C2C3C4, D1D2D3D4D5]", levels.toString());
+
+		// Null trees, consumers, and pools are not allowed.
+		try {
+			new ParallelBreadthFirstTraversal<BasicTestTree>().traverse(null,
+					(d, level) -> {
+					});
+			fail("ParallelBreadthFirstTraversalTester error: "
+					+ "A null tree should not be traversed.");
+		} catch (IllegalArgumentException e) {
+			// Exception thrown as expected.
+		}
+		try {
+			new ParallelBreadthFirstTraversal<BasicTestTree>(null);
+			fail("ParallelBreadthFirstTraversalTester error: "
+					+ "A null pool should not be accepted.");
+		} catch (IllegalArgumentException e) {
+			// Exception thrown as expected.
+		}
+
+		return;
+	}
+
+	/**
+	 * Checks that wide levels that are split across threads match the
+	 * breadth-first iterator.
+	 */
+	@Test
+	public void checkWideTree() {
+
+		// Create a tree with a few very wide levels.
+		Random random = new Random(33);
+		BasicTestTree root = new BasicTestTree();
+		List<BasicTestTree> level = new ArrayList<BasicTestTree>();
+		level.add(root);
+		int[] widths = { 50, 5000, 100000 };
+		for (int width : widths) {
+			List<BasicTestTree> next = new ArrayList<BasicTestTree>();
+			for (int i = 0; i < width; i++) {
+				BasicTestTree node = new BasicTestTree();
+				node.property = Integer.toString(i);
+				level.get(random.nextInt(level.size())).addChild(node);
+				next.add(node);
+			}
+			level = next;
+		}
+
+		// Record the order from the iterator.
+		final List<BasicTestTree> expected = new ArrayList<BasicTestTree>();
+		Iterator<BasicTestTree> iterator = root
+				.iterator(TreeIterationOrder.BreadthFirst);
+		while (iterator.hasNext()) {
+			expected.add(iterator.next());
+		}
+
+		// Check it with the default pool and a small pool.
+		ForkJoinPool[] pools = { ForkJoinPool.commonPool(),
+				new ForkJoinPool(3) };
+		for (ForkJoinPool pool : pools) {
+			final List<BasicTestTree> actual = new ArrayList<BasicTestTree>();
+			final int[] sizes = new int[widths.length + 1];
+			int depth = new ParallelBreadthFirstTraversal<BasicTestTree>(pool)
+					.traverse(root, (d, nodes) -> {
+						sizes[d] = nodes.size();
+						actual.addAll(nodes);
+					});
+			assertEquals(widths.length + 1, depth);
+			assertEquals(1, sizes[0]);
+			for (int i = 0; i < widths.length; i++) {
+				assertEquals(widths[i], sizes[i + 1]);
+			}
+			assertEquals(expected.size(), actual.size());
+			for (int i = 0; i < expected.size(); i++) {
+				assertSame(expected.get(i), actual.get(i));
+			}
+		}
+
+		return;
+	}
+
+	/**
+	 * Checks that a failing consumer stops the traversal and that the level
+	 * being built in the background is finished before the failure reaches
+	 * the caller.
+	 */
+	@Test
+	public void checkFailingConsumer() {
+
+		// Create a wide tree that counts how often its nodes are read.
+		final AtomicInteger reads = new AtomicInteger();
+		BasicTestTree root = new CountingTree(reads);
+		for (int i = 0; i < 5000; i++) {
+			BasicTestTree child = new CountingTree(reads);
+			root.addChild(child);
+			child.addChild(new CountingTree(reads));
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(3);
+		final RuntimeException failure = new RuntimeException();
+		ParallelBreadthFirstTraversal<BasicTestTree> traversal;
+		traversal = new ParallelBreadthFirstTraversal<BasicTestTree>(pool);
+		try {
+			traversal.traverse(root, new ILevelConsumer<BasicTestTree>() {
+				@Override
+				public void accept(int depth, List<BasicTestTree> level) {
+					if (depth == 1) {
+						throw failure;
+					}
+				}
+			});
+			fail("ParallelBreadthFirstTraversalTester error: "
+					+ "The consumer's exception was not thrown.");
+		} catch (RuntimeException e) {
+			assertSame(failure, e);
+		}
+
+		// Nothing may read the tree once the traversal has returned.
+		int count = reads.get();
+		pool.awaitQuiescence(1, TimeUnit.SECONDS);
+		assertEquals(count, reads.get());
+
+		// The pool can still be used.
+		assertEquals(3, traversal.traverse(root,
+				new ILevelConsumer<BasicTestTree>() {
+					@Override
+					public void accept(int depth, List<BasicTestTree> level) {
+						// Nothing to do.
+					}
+				}));
+		pool.shutdown();
+
+		return;
+	}
+
+	/**
+	 * A test tree that counts the calls to
+	 * {@link BasicTestTree#getNumberOfChildren()}.
+	 *
+	 * @author Jordan
+	 *
+	 */
+	private static class CountingTree extends BasicTestTree {
+		/**
+		 * The counter shared by the tree's nodes.
+		 */
+		private final AtomicInteger reads;
+
+		/**
+		 * The default constructor.
+		 *
+		 * @param reads
+		 *            The counter shared by the tree's nodes.
+		 */
+		public CountingTree(AtomicInteger reads) {
+			this.reads = reads;
+		}
+
+		/*
+		 * Overrides a method from BasicTree.
+		 */
+		@Override
+		public int getNumberOfChildren() {
+			reads.incrementAndGet();
+			return super.getNumberOfChildren();
+		}
+	}
+}
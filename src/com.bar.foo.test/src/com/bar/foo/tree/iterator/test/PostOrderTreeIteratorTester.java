@@ -14,6 +14,7 @@ import org.junit.Test;
 
 import com.bar.foo.tree.iterator.PostOrderTreeIterator;
 import com.bar.foo.tree.iterator.TreeIterationOrder;
+import com.bar.foo.tree.iterator.TreeIterator;
 import com.bar.foo.tree.test.BasicTestTree;
 
 /**
@@ -300,6 +301,86 @@ public class PostOrderTreeIteratorTester {
 		return;
 	}
 
+	/**
+	 * Checks that {@link TreeIterator#depth()} reports the depth of each node,
+	 * including after a sub-tree has been removed during the iteration.
+	 */
+	@Test
+	public void checkDepth() {
+
+		BasicTestTree root = BasicTestTree.createTestTree();
+		TreeIterator<BasicTestTree> iterator;
+
+		// The letter of each node's property gives its depth.
+		iterator = root.iterator(ORDER);
+		assertEquals(-1, iterator.depth());
+		while (iterator.hasNext()) {
+			BasicTestTree node = iterator.next();
+			assertEquals(node.property.charAt(0) - 'A', iterator.depth());
+		}
+
+		// Removing C3 (and D1 and D2) should not affect the other depths.
+		iterator = root.iterator(ORDER);
+		int count = 0;
+		while (iterator.hasNext()) {
+			BasicTestTree node = iterator.next();
+			assertEquals(node.property.charAt(0) - 'A', iterator.depth());
+			if ("C3".equals(node.property)) {
+				iterator.remove();
+			}
+			count++;
+		}
+		assertEquals(12, count);
+
+		return;
+	}
+
+	/**
+	 * Checks that very wide nodes are traversed in linear time, including when
+	 * nodes are removed along the way. Searching for each node's next sibling
+	 * would take quadratic time here.
+	 */
+	@Test
+	public void checkWideTree() {
+
+		final int width = 100000;
+
+		BasicTestTree root = new BasicTestTree();
+		for (int i = 0; i < width; i++) {
+			BasicTestTree child = new BasicTestTree();
+			child.property = Integer.toString(i);
+			root.addChild(child);
+		}
+
+		// Remove every other child while traversing the tree.
+		TreeIterator<BasicTestTree> iterator = root.iterator(ORDER);
+		int count = 0;
+		while (iterator.hasNext()) {
+			BasicTestTree node = iterator.next();
+			if (node != root) {
+				assertEquals(Integer.toString(count), node.property);
+				if (count % 2 == 0) {
+					iterator.remove();
+				}
+			} else {
+				assertEquals(width, count);
+			}
+			count++;
+		}
+		assertEquals(width + 1, count);
+
+		// The odd children should remain, in order.
+		assertEquals(width / 2, root.getNumberOfChildren());
+		iterator = root.iterator(ORDER);
+		for (int i = 1; i < width; i += 2) {
+			assertEquals(Integer.toString(i), iterator.next().property);
+		}
+		assertSame(root, iterator.next());
+		assertFalse(iterator.hasNext());
+
+		return;
+	}
+
 	/**
 	 * Checks that exceptions are thrown at the appropriate times, including the
 	 * following:
@@ -0,0 +1,144 @@
+package com.bar.foo.tree.iterator.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.bar.foo.tree.iterator.TreeCursor;
+import com.bar.foo.tree.iterator.TreeIterationOrder;
+import com.bar.foo.tree.test.BasicTestTree;
+
+/**
+ * This class tests {@link TreeCursor}. It uses the tree from
+ * {@link BasicTestTree#createTestTree()}.
+ * 
+ * @author Jordan
+ *
+ */
+public class TreeCursorTester {
+
+	/**
+	 * Checks moving the cursor up, down, and across the tree.
+	 */
+	@Test
+	public void checkNavigation() {
+
+		BasicTestTree root = BasicTestTree.createTestTree();
+		TreeCursor<BasicTestTree> cursor = new TreeCursor<BasicTestTree>(root);
+
+		// The root has no parent or siblings.
+		assertSame(root, cursor.getNode());
+		assertSame(root, cursor.getRoot());
+		assertEquals(0, cursor.getDepth());
+		assertEquals(-1, cursor.getIndex());
+		assertFalse(cursor.toParent());
+		assertFalse(cursor.toNextSibling());
+		assertFalse(cursor.toPreviousSibling());
+
+		// Move down to C3 and across its siblings.
+		assertTrue(cursor.toLastChild());
+		assertEquals("B2", cursor.getNode().property);
+		assertTrue(cursor.toChild(1));
+		assertEquals("C3", cursor.getNode().property);
+		assertEquals(2, cursor.getDepth());
+		assertEquals(1, cursor.getIndex());
+		assertTrue(cursor.toNextSibling());
+		assertEquals("C4", cursor.getNode().property);
+		assertFalse(cursor.toNextSibling());
+		assertEquals("C4", cursor.getNode().property);
+		assertTrue(cursor.toPreviousSibling());
+		assertTrue(cursor.toPreviousSibling());
+		assertEquals("C2", cursor.getNode().property);
+		assertFalse(cursor.toPreviousSibling());
+
+		// Leaves have no children.
+		assertFalse(cursor.toFirstChild());
+		assertFalse(cursor.toLastChild());
+		assertFalse(cursor.toChild(-1));
+
+		// Move up and down again.
+		assertTrue(cursor.toParent());
+		assertEquals("B2", cursor.getNode().property);
+		assertEquals(1, cursor.getIndex());
+		assertTrue(cursor.toPreviousSibling());
+		assertEquals("B1", cursor.getNode().property);
+		assertTrue(cursor.toFirstChild());
+		assertEquals("C1", cursor.getNode().property);
+		assertFalse(cursor.toChild(1));
+		cursor.toRoot();
+		assertSame(root, cursor.getNode());
+
+		// A cursor on a sub-tree stays in the sub-tree.
+		cursor.reset(root.getChild(1));
+		assertFalse(cursor.toParent());
+		assertFalse(cursor.toPreviousSibling());
+		assertTrue(cursor.toFirstChild());
+		assertEquals("C2", cursor.getNode().property);
+
+		// Null trees are not allowed.
+		try {
+			cursor.reset(null);
+			fail("TreeCursorTester error: "
+					+ "A null tree should not be accepted.");
+		} catch (IllegalArgumentException e) {
+			// Exception thrown as expected.
+		}
+
+		return;
+	}
+
+	/**
+	 * Checks that a pre-order traversal written with the cursor visits the
+	 * nodes in the same order as the pre-order iterator, and that depths
+	 * beyond the cursor's initial capacity work.
+	 */
+	@Test
+	public void checkTraversal() {
+
+		BasicTestTree root = BasicTestTree.createTestTree();
+		TreeCursor<BasicTestTree> cursor = new TreeCursor<BasicTestTree>(root);
+
+		List<BasicTestTree> visited = new ArrayList<BasicTestTree>();
+		boolean done = false;
+		while (!done) {
+			visited.add(cursor.getNode());
+			assertEquals(cursor.getNode().property.charAt(0) - 'A',
+					cursor.getDepth());
+			if (!cursor.toFirstChild()) {
+				while (!cursor.toNextSibling() && !done) {
+					done = !cursor.toParent();
+				}
+			}
+		}
+		assertEquals(root.getExpectedOrder(TreeIterationOrder.PreOrder),
+				visited);
+
+		// Walk down and up a long chain.
+		BasicTestTree chain = new BasicTestTree();
+		BasicTestTree node = chain;
+		for (int i = 0; i < 100; i++) {
+			BasicTestTree child = new BasicTestTree();
+			node.addChild(child);
+			node = child;
+		}
+		cursor.reset(chain);
+		while (cursor.toFirstChild()) {
+			// Keep moving down.
+		}
+		assertSame(node, cursor.getNode());
+		assertEquals(100, cursor.getDepth());
+		while (cursor.toParent()) {
+			// Keep moving up.
+		}
+		assertSame(chain, cursor.getNode());
+
+		return;
+	}
+}
@@ -0,0 +1,186 @@
+package com.bar.foo.tree.iterator.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.bar.foo.tree.iterator.TreeIterationOrder;
+import com.bar.foo.tree.iterator.TreeIterator;
+import com.bar.foo.tree.iterator.TreeIteratorPool;
+import com.bar.foo.tree.test.AllocationMeter;
+import com.bar.foo.tree.test.BasicTestTree;
+
+/**
+ * This class tests {@link TreeIteratorPool} and the resettable iterators it
+ * provides.
+ * 
+ * @author Jordan
+ *
+ */
+public class TreeIteratorPoolTester {
+
+	/**
+	 * The iteration orders. {@link TreeIterationOrder#values()} creates a new
+	 * array on each call, so it is cached.
+	 */
+	private static final TreeIterationOrder[] ORDERS = TreeIterationOrder
+			.values();
+
+	/**
+	 * Checks that pooled iterators are re-used and that reset iterators
+	 * traverse their new trees in the expected order.
+	 */
+	@Test
+	public void checkReuse() {
+
+		BasicTestTree root = BasicTestTree.createTestTree();
+
+		for (TreeIterationOrder order : TreeIterationOrder.values()) {
+			TreeIterator<BasicTestTree> iterator;
+			iterator = TreeIteratorPool.acquire(root, order);
+			checkOrder(root.getExpectedOrder(order), iterator);
+
+			// Nested traversals get their own iterators.
+			TreeIterator<BasicTestTree> nested;
+			nested = TreeIteratorPool.acquire(root, order);
+			assertNotSame(iterator, nested);
+			TreeIteratorPool.release(nested);
+
+			// The last released iterator should be handed out again, and it
+			// should start over from the new root.
+			TreeIteratorPool.release(iterator);
+			BasicTestTree subtree = root.getChild(1);
+			TreeIterator<BasicTestTree> reused;
+			reused = TreeIteratorPool.acquire(subtree, order);
+			assertSame(iterator, reused);
+			int count = 0;
+			while (reused.hasNext()) {
+				reused.next();
+				count++;
+			}
+			assertEquals(9, count);
+
+			// Resetting directly also starts over.
+			reused.reset(root);
+			checkOrder(root.getExpectedOrder(order), reused);
+			TreeIteratorPool.release(reused);
+		}
+
+		// Null trees and orders are not allowed.
+		try {
+			TreeIteratorPool.acquire(null, TreeIterationOrder.PreOrder);
+			fail("TreeIteratorPoolTester error: "
+					+ "A null tree should not be accepted.");
+		} catch (IllegalArgumentException e) {
+			// Exception thrown as expected.
+		}
+		try {
+			TreeIteratorPool.acquire(root, null);
+			fail("TreeIteratorPoolTester error: "
+					+ "A null order should not be accepted.");
+		} catch (IllegalArgumentException e) {
+			// Exception thrown as expected.
+		}
+
+		// An iterator can only be released once, or two traversals could
+		// later share it.
+		TreeIterator<BasicTestTree> iterator;
+		iterator = TreeIteratorPool.acquire(root, TreeIterationOrder.PreOrder);
+		TreeIteratorPool.release(iterator);
+		try {
+			TreeIteratorPool.release(iterator);
+			fail("TreeIteratorPoolTester error: "
+					+ "A released iterator should not be released again.");
+		} catch (IllegalStateException e) {
+			// Exception thrown as expected.
+		}
+		TreeIterator<BasicTestTree> first;
+		first = TreeIteratorPool.acquire(root, TreeIterationOrder.PreOrder);
+		TreeIterator<BasicTestTree> second;
+		second = TreeIteratorPool.acquire(root, TreeIterationOrder.PreOrder);
+		assertSame(iterator, first);
+		assertNotSame(first, second);
+		TreeIteratorPool.release(second);
+		TreeIteratorPool.release(first);
+
+		// Iterators of the pooled classes are pooled even if they were not
+		// acquired from the pool.
+		TreeIterator<BasicTestTree> created;
+		created = root.iterator(TreeIterationOrder.PostOrder);
+		TreeIteratorPool.release(created);
+		iterator = TreeIteratorPool.acquire(root, TreeIterationOrder.PostOrder);
+		assertSame(created, iterator);
+		TreeIteratorPool.release(iterator);
+
+		return;
+	}
+
+	/**
+	 * Checks that, after warming up, full traversals with pooled iterators and
+	 * full-tree hashing allocate nothing. This uses the thread allocation
+	 * counters of HotSpot-based JVMs and is skipped on other JVMs.
+	 */
+	@Test
+	public void checkAllocation() {
+
+		AllocationMeter meter = new AllocationMeter(20000);
+
+		// Create a larger tree.
+		final BasicTestTree root = BasicTestTree.createTestTree();
+		for (int i = 0; i < 200; i++) {
+			BasicTestTree child = BasicTestTree.createTestTree();
+			child.property = "E" + i;
+			root.getChild(i % 2).addChild(child);
+		}
+
+		// The warm up fills the pool and grows the iterators' arrays.
+		meter.assertBudget("Pooled traversal", 0, new Runnable() {
+			@Override
+			public void run() {
+				traverseAll(root);
+			}
+		});
+
+		return;
+	}
+
+	/**
+	 * Traverses a tree in each order with pooled iterators and hashes it.
+	 * 
+	 * @return A value computed from the traversal so that it is not removed
+	 *         by the JIT.
+	 */
+	private int traverseAll(BasicTestTree root) {
+		int result = root.hashCode(true);
+		for (TreeIterationOrder order : ORDERS) {
+			TreeIterator<BasicTestTree> iterator;
+			iterator = TreeIteratorPool.acquire(root, order);
+			try {
+				while (iterator.hasNext()) {
+					result += iterator.next().getNumberOfChildren();
+					result += iterator.depth();
+				}
+			} finally {
+				TreeIteratorPool.release(iterator);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Checks that an iterator returns the expected nodes in order.
+	 */
+	private void checkOrder(List<BasicTestTree> expected,
+			TreeIterator<BasicTestTree> iterator) {
+		for (BasicTestTree node : expected) {
+			assertSame(node, iterator.next());
+		}
+		assertFalse(iterator.hasNext());
+	}
+}
@@ -1,5 +1,6 @@
 package com.bar.foo.tree.iterator.test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
@@ -109,6 +110,86 @@ public class TreeIteratorTester {
 		return;
 	}
 
+	/**
+	 * Checks that sub-classes that do not track the depth inherit an
+	 * implementation of {@link TreeIterator#depth()} that counts the parents
+	 * of the last node up to the root.
+	 */
+	@Test
+	public void checkDepth() {
+
+		TreeIterator<BasicTestTree> iterator;
+
+		// Create a chain of nodes. The iteration starts below the top.
+		BasicTestTree top = new BasicTestTree();
+		BasicTestTree root = new BasicTestTree();
+		BasicTestTree child = new BasicTestTree();
+		BasicTestTree grandchild = new BasicTestTree();
+		top.addChild(root);
+		root.addChild(child);
+		child.addChild(grandchild);
+		final BasicTestTree[] nodes = { root, grandchild, child };
+
+		// Create an iterator that returns the nodes in the above order.
+		iterator = new FakeTreeIterator<BasicTestTree>(root) {
+			private int index = 0;
+
+			@Override
+			public boolean hasNext() {
+				return index < nodes.length;
+			}
+
+			@Override
+			protected BasicTestTree getNext() {
+				return nodes[index++];
+			}
+		};
+
+		// The depth is relative to the root of the iteration.
+		assertEquals(-1, iterator.depth());
+		iterator.next();
+		assertEquals(0, iterator.depth());
+		iterator.next();
+		assertEquals(2, iterator.depth());
+		iterator.next();
+		assertEquals(1, iterator.depth());
+
+		// A removed node is no longer below the root.
+		iterator.remove();
+		assertEquals(-1, iterator.depth());
+
+		return;
+	}
+
+	/**
+	 * Checks that sub-classes that cannot start over do not need to implement
+	 * the restart operation, but then cannot be reset.
+	 */
+	@Test
+	public void checkReset() {
+
+		TreeIterator<BasicTestTree> iterator;
+
+		// Create the iterator.
+		BasicTestTree root = new BasicTestTree();
+		BasicTestTree otherRoot = new BasicTestTree();
+		iterator = new FakeTreeIterator<BasicTestTree>(root);
+
+		// The iterator cannot start over, so it is not reset at all.
+		try {
+			iterator.reset(otherRoot);
+			fail(getClass().getName() + " error: "
+					+ "IllegalStateException was not thrown when "
+					+ "restart() is not implemented.");
+		} catch (IllegalStateException e) {
+			// The exception was thrown as expected. Do nothing.
+		}
+		assertSame(root,
+				((FakeTreeIterator<BasicTestTree>) iterator).getRoot());
+
+		return;
+	}
+
 	private class FakeTreeIterator<T extends ITree<T>> extends TreeIterator<T> {
 		public FakeTreeIterator(T root) {
 			super(root);
@@ -0,0 +1,194 @@
+package com.bar.foo.tree.iterator.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.bar.foo.tree.iterator.TreeIterationOrder;
+import com.bar.foo.tree.iterator.TreeSpliterator;
+import com.bar.foo.tree.test.BasicTestTree;
+
+/**
+ * This class tests {@link TreeSpliterator} and the streams created from it by
+ * {@link BasicTestTree}.
+ * 
+ * @author Jordan
+ *
+ */
+public class TreeSpliteratorTester {
+
+	/**
+	 * Checks that sequential and parallel streams encounter the nodes in the
+	 * expected order.
+	 */
+	@Test
+	public void checkStreamOrder() {
+
+		BasicTestTree root = BasicTestTree.createTestTree();
+
+		for (TreeIterationOrder order : TreeIterationOrder.values()) {
+			List<BasicTestTree> expected = root.getExpectedOrder(order);
+			assertEquals(expected,
+					root.stream(order).collect(Collectors.toList()));
+			assertEquals(expected, root.stream(order).parallel()
+					.collect(Collectors.toList()));
+		}
+		assertEquals(root.getExpectedOrder(TreeIterationOrder.PreOrder), root
+				.parallelStream().collect(Collectors.toList()));
+		assertTrue(root.parallelStream().isParallel());
+
+		// A single node is streamed by itself.
+		BasicTestTree leaf = new BasicTestTree();
+		assertEquals(1, leaf.stream(TreeIterationOrder.PostOrder).count());
+		assertEquals(1, leaf.parallelStream().count());
+
+		// Null orders are not allowed.
+		try {
+			root.stream(null);
+			fail("TreeSpliteratorTester error: "
+					+ "A null order should not be accepted.");
+		} catch (IllegalArgumentException e) {
+			// Exception thrown as expected.
+		}
+
+		return;
+	}
+
+	/**
+	 * Checks that splitting a spliterator divides the nodes into contiguous,
+	 * ordered parts.
+	 */
+	@Test
+	public void checkSplit() {
+
+		BasicTestTree root = createRandomTree(2000);
+
+		for (TreeIterationOrder order : new TreeIterationOrder[] {
+				TreeIterationOrder.PreOrder, TreeIterationOrder.PostOrder }) {
+			List<BasicTestTree> expected = new ArrayList<BasicTestTree>();
+			Iterator<BasicTestTree> iterator = root.iterator(order);
+			while (iterator.hasNext()) {
+				expected.add(iterator.next());
+			}
+
+			// Split the spliterator as far as it goes.
+			List<BasicTestTree> actual = new ArrayList<BasicTestTree>();
+			int splits = splitAll(new TreeSpliterator<BasicTestTree>(root,
+					order), actual);
+			assertEquals(expected, actual);
+			assertTrue(splits > 100);
+
+			// Split it after advancing part of the way.
+			actual.clear();
+			Spliterator<BasicTestTree> spliterator;
+			spliterator = new TreeSpliterator<BasicTestTree>(root, order);
+			for (int i = 0; i < 1000; i++) {
+				assertTrue(spliterator.tryAdvance(actual::add));
+			}
+			splitAll(spliterator, actual);
+			assertEquals(expected, actual);
+		}
+
+		// A chain cannot be split.
+		BasicTestTree chain = new BasicTestTree();
+		chain.addChild(new BasicTestTree());
+		assertNull(new TreeSpliterator<BasicTestTree>(chain,
+				TreeIterationOrder.PreOrder).trySplit());
+
+		// Breadth-first spliterators are not supported.
+		try {
+			new TreeSpliterator<BasicTestTree>(root,
+					TreeIterationOrder.BreadthFirst);
+			fail("TreeSpliteratorTester error: "
+					+ "Breadth-first order should not be accepted.");
+		} catch (IllegalArgumentException e) {
+			// Exception thrown as expected.
+		}
+
+		return;
+	}
+
+	/**
+	 * Checks the sizes reported by the spliterator and that parallel streams
+	 * over larger trees find all nodes.
+	 */
+	@Test
+	public void checkSize() {
+
+		BasicTestTree root = createRandomTree(100000);
+
+		// Only spliterators with a known size report SIZED.
+		Spliterator<BasicTestTree> spliterator;
+		spliterator = new TreeSpliterator<BasicTestTree>(root,
+				TreeIterationOrder.PreOrder);
+		assertFalse(spliterator.hasCharacteristics(Spliterator.SIZED));
+		assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED));
+		spliterator = new TreeSpliterator<BasicTestTree>(root,
+				TreeIterationOrder.PreOrder, 100000);
+		assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED));
+		assertEquals(100000, spliterator.getExactSizeIfKnown());
+		spliterator.tryAdvance(node -> {
+		});
+		assertEquals(99999, spliterator.getExactSizeIfKnown());
+		assertNotNull(spliterator.trySplit());
+		assertFalse(spliterator.hasCharacteristics(Spliterator.SIZED));
+
+		// Parallel streams should find the same nodes as sequential streams.
+		assertEquals(100000, root.parallelStream().count());
+		long expected = root.stream(TreeIterationOrder.PreOrder)
+				.filter(node -> node.property.endsWith("7")).count();
+		assertEquals(expected,
+				root.parallelStream()
+						.filter(node -> node.property.endsWith("7")).count());
+		assertEquals(10000, expected);
+
+		return;
+	}
+
+	/**
+	 * Recursively splits a spliterator and adds its nodes to a list in
+	 * encounter order.
+	 * 
+	 * @return The number of successful splits.
+	 */
+	private int splitAll(Spliterator<BasicTestTree> spliterator,
+			List<BasicTestTree> nodes) {
+		Spliterator<BasicTestTree> prefix = spliterator.trySplit();
+		if (prefix == null) {
+			spliterator.forEachRemaining(nodes::add);
+			return 0;
+		}
+		int splits = splitAll(prefix, nodes);
+		splits += splitAll(spliterator, nodes);
+		return splits + 1;
+	}
+
+	/**
+	 * Creates a random tree with the specified number of nodes. The nodes'
+	 * properties are their creation indexes.
+	 */
+	private BasicTestTree createRandomTree(int size) {
+		Random random = new Random(size);
+		BasicTestTree[] nodes = new BasicTestTree[size];
+		for (int i = 0; i < size; i++) {
+			nodes[i] = new BasicTestTree();
+			nodes[i].property = Integer.toString(i);
+			if (i > 0) {
+				nodes[random.nextInt(i)].addChild(nodes[i]);
+			}
+		}
+		return nodes[0];
+	}
+}
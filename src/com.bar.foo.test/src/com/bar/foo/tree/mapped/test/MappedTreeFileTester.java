@@ -0,0 +1,209 @@
+package com.bar.foo.tree.mapped.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+
+import org.junit.Test;
+
+import com.bar.foo.tree.iterator.TreeIterationOrder;
+import com.bar.foo.tree.mapped.IPayloadEncoder;
+import com.bar.foo.tree.mapped.MappedTree;
+import com.bar.foo.tree.mapped.MappedTreeFile;
+import com.bar.foo.tree.mapped.MappedTreeWriter;
+import com.bar.foo.tree.test.BasicTestTree;
+
+/**
+ * This class tests writing trees with {@link MappedTreeWriter} and reading
+ * them back through {@link MappedTreeFile} and {@link MappedTree}.
+ *
+ * @author Jordan
+ *
+ */
+public class MappedTreeFileTester {
+
+	/**
+	 * The charset used to encode the test tree properties.
+	 */
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Encodes the property of a {@link BasicTestTree}.
+	 */
+	private static final IPayloadEncoder<BasicTestTree> ENCODER = new IPayloadEncoder<BasicTestTree>() {
+		@Override
+		public byte[] encode(BasicTestTree node) {
+			return node.property != null ? node.property.getBytes(UTF8) : null;
+		}
+	};
+
+	/**
+	 * Checks that the mapped tree has the same structure and iteration orders
+	 * as the tree that was written.
+	 */
+	@Test
+	public void checkReadWrite() throws IOException {
+
+		BasicTestTree root = BasicTestTree.createTestTree();
+		MappedTreeFile file = write(root);
+
+		assertEquals(12, file.getNumberOfNodes());
+		MappedTree mappedRoot = file.getRoot();
+		assertEquals("A1", getProperty(mappedRoot));
+		assertNull(mappedRoot.getParent());
+
+		// Compare each iteration order against the expected order.
+		for (TreeIterationOrder order : TreeIterationOrder.values()) {
+			Iterator<BasicTestTree> expectedIterator = root
+					.getExpectedOrder(order).iterator();
+			Iterator<MappedTree> iterator = mappedRoot.iterator(order);
+			while (expectedIterator.hasNext()) {
+				BasicTestTree expected = expectedIterator.next();
+				assertTrue(iterator.hasNext());
+				MappedTree node = iterator.next();
+				assertEquals(expected.property, getProperty(node));
+				assertEquals(expected.getNumberOfChildren(),
+						node.getNumberOfChildren());
+				if (expected.getParent() != null) {
+					assertEquals(expected.getParent().property,
+							getProperty(node.getParent()));
+					assertTrue(node.getParent().hasChild(node));
+				}
+			}
+			assertFalse(iterator.hasNext());
+		}
+
+		// The root's stream knows the size of the tree.
+		assertEquals(12, mappedRoot.stream(TreeIterationOrder.PreOrder)
+				.spliterator().getExactSizeIfKnown());
+		assertEquals(-1, mappedRoot.getChild(1).parallelStream().spliterator()
+				.getExactSizeIfKnown());
+		assertEquals(9, mappedRoot.getChild(1).parallelStream().count());
+
+		return;
+	}
+
+	/**
+	 * Checks the sibling navigation methods.
+	 */
+	@Test
+	public void checkSiblings() throws IOException {
+
+		MappedTree root = write(BasicTestTree.createTestTree()).getRoot();
+
+		// The root has no siblings.
+		assertNull(root.getNextSibling());
+		assertNull(root.getPreviousSibling());
+
+		// Walk across C2, C3, and C4 (the children of B2).
+		MappedTree b2 = root.getChild(1);
+		MappedTree c2 = b2.getChild(0);
+		assertEquals("C2", getProperty(c2));
+		assertNull(c2.getPreviousSibling());
+		MappedTree c3 = c2.getNextSibling();
+		assertEquals("C3", getProperty(c3));
+		MappedTree c4 = c3.getNextSibling();
+		assertEquals("C4", getProperty(c4));
+		assertNull(c4.getNextSibling());
+		assertEquals("C3", getProperty(c4.getPreviousSibling()));
+
+		// B1's only child has no siblings even though B2's children follow it
+		// in the file.
+		MappedTree c1 = root.getChild(0).getChild(0);
+		assertEquals("C1", getProperty(c1));
+		assertNull(c1.getNextSibling());
+
+		// Invalid child indexes return null.
+		assertNull(b2.getChild(-1));
+		assertNull(b2.getChild(3));
+		assertFalse(root.hasChild(c2));
+
+		return;
+	}
+
+	/**
+	 * Checks equality and hashing for mapped trees.
+	 */
+	@Test
+	public void checkEquality() throws IOException {
+
+		MappedTree root = write(BasicTestTree.createTestTree()).getRoot();
+		MappedTree otherRoot = write(BasicTestTree.createTestTree()).getRoot();
+
+		assertTrue(root.equals(otherRoot));
+		assertTrue(root.equals(otherRoot, true));
+		assertEquals(root.hashCode(true), otherRoot.hashCode(true));
+		assertFalse(root.equals(root.getChild(0)));
+
+		// A different structure with the same root should not be equal.
+		BasicTestTree tree = BasicTestTree.createTestTree();
+		tree.removeChild(0);
+		MappedTree unequalRoot = write(tree).getRoot();
+		assertTrue(root.equals(unequalRoot, false));
+		assertFalse(root.equals(unequalRoot, true));
+
+		return;
+	}
+
+	/**
+	 * Checks that mapped trees cannot be modified.
+	 */
+	@Test
+	public void checkReadOnly() throws IOException {
+
+		MappedTree root = write(BasicTestTree.createTestTree()).getRoot();
+
+		try {
+			root.removeChild(0);
+			fail("MappedTreeFileTester error: "
+					+ "Mapped trees should not support removing children.");
+		} catch (UnsupportedOperationException e) {
+			// Exception thrown as expected.
+		}
+		try {
+			root.addChild(root.getChild(0));
+			fail("MappedTreeFileTester error: "
+					+ "Mapped trees should not support adding children.");
+		} catch (UnsupportedOperationException e) {
+			// Exception thrown as expected.
+		}
+
+		// A single node without a payload should work.
+		MappedTreeFile file = write(new BasicTestTree());
+		assertEquals(1, file.getNumberOfNodes());
+		assertSame(file.getRoot(), file.getNode(0));
+		assertEquals(0, file.getRoot().getPayload().remaining());
+		assertNull(file.getNode(1));
+
+		return;
+	}
+
+	/**
+	 * Writes the tree to a temporary file and maps it.
+	 */
+	private MappedTreeFile write(BasicTestTree root) throws IOException {
+		File file = File.createTempFile("tree", ".atrf");
+		file.deleteOnExit();
+		MappedTreeWriter.write(root, ENCODER, file);
+		return MappedTreeFile.open(file);
+	}
+
+	/**
+	 * Decodes the property of a mapped node.
+	 */
+	private String getProperty(MappedTree node) {
+		ByteBuffer payload = node.getPayload();
+		byte[] bytes = new byte[payload.remaining()];
+		payload.get(bytes);
+		return new String(bytes, UTF8);
+	}
+}
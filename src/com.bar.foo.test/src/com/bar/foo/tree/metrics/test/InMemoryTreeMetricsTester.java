@@ -0,0 +1,285 @@
+package com.bar.foo.tree.metrics.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.bar.foo.tree.iterator.TreeIterationOrder;
+import com.bar.foo.tree.iterator.TreeIterator;
+import com.bar.foo.tree.iterator.TreeIteratorPool;
+import com.bar.foo.tree.metrics.InMemoryTreeMetrics;
+import com.bar.foo.tree.metrics.TreeMetrics;
+import com.bar.foo.tree.test.BasicTestTree;
+
+/**
+ * This class tests {@link InMemoryTreeMetrics} and the measurements reported
+ * to the installed {@link TreeMetrics}.
+ * 
+ * @author Jordan
+ *
+ */
+public class InMemoryTreeMetricsTester {
+
+	/**
+	 * Checks that adding, moving and removing children are counted.
+	 */
+	@Test
+	public void checkMutations() {
+
+		InMemoryTreeMetrics metrics = new InMemoryTreeMetrics();
+		BasicTestTree root = new BasicTestTree();
+		BasicTestTree first = new BasicTestTree();
+		BasicTestTree second = new BasicTestTree();
+		BasicTestTree child = new BasicTestTree();
+
+		assertNull(TreeMetrics.setMetrics(metrics));
+		try {
+			root.addChild(first);
+			root.addChild(second);
+			first.addChild(child);
+			assertEquals(3, metrics.getChildrenAdded());
+
+			// Re-adding an existing child changes nothing.
+			first.addChild(child);
+			assertEquals(3, metrics.getChildrenAdded());
+			assertEquals(0, metrics.getChildrenMoved());
+
+			// A move is not also counted as a removal and an addition.
+			second.addChild(child);
+			assertEquals(1, metrics.getChildrenMoved());
+			assertEquals(0, metrics.getChildrenRemoved());
+			assertEquals(3, metrics.getChildrenAdded());
+
+			second.removeChild(child);
+			root.removeChild(0);
+			assertEquals(2, metrics.getChildrenRemoved());
+
+			// Removing a node that is not a child changes nothing.
+			root.removeChild(child);
+			assertEquals(2, metrics.getChildrenRemoved());
+		} finally {
+			assertSame(metrics, TreeMetrics.setMetrics(null));
+		}
+
+		// Nothing is counted without installed metrics.
+		root.addChild(child);
+		assertEquals(3, metrics.getChildrenAdded());
+
+		metrics.reset();
+		assertEquals(0, metrics.getChildrenRemoved());
+		assertEquals(0, metrics.getChildrenMoved());
+
+		return;
+	}
+
+	/**
+	 * Checks that changes made on other threads are counted, that a thread
+	 * always sees its own changes, and that counts read by other threads
+	 * never decrease or, after a reset, drop below zero.
+	 */
+	@Test
+	public void checkThreads() throws InterruptedException {
+
+		final InMemoryTreeMetrics metrics = new InMemoryTreeMetrics();
+		final int changes = 1000;
+		final long[] seen = new long[2];
+
+		Thread thread = new Thread() {
+			@Override
+			public void run() {
+				BasicTestTree root = new BasicTestTree();
+				for (int i = 0; i < changes; i++) {
+					root.addChild(new BasicTestTree());
+				}
+				seen[0] = metrics.getChildrenAdded();
+				for (int i = 0; i < changes; i++) {
+					root.removeChild(0);
+				}
+				seen[1] = metrics.getChildrenRemoved();
+			}
+		};
+
+		assertNull(TreeMetrics.setMetrics(metrics));
+		try {
+			// Another thread's counts may lag, but never go back.
+			long added = 0;
+			thread.start();
+			while (thread.isAlive()) {
+				long next = metrics.getChildrenAdded();
+				assertTrue(next >= added && next <= changes);
+				added = next;
+			}
+			thread.join();
+
+			// The thread saw all of its own changes when it read them, and
+			// so does this thread after it ended.
+			assertEquals(changes, seen[0]);
+			assertEquals(changes, seen[1]);
+			assertEquals(changes, metrics.getChildrenAdded());
+			assertEquals(changes, metrics.getChildrenRemoved());
+
+			// The last counts of a thread that never read them are published
+			// once it ends. Traversals are counted with their nodes.
+			metrics.reset();
+			Thread quietThread = new Thread() {
+				@Override
+				public void run() {
+					BasicTestTree root = new BasicTestTree();
+					root.addChild(new BasicTestTree());
+					root.addChild(new BasicTestTree());
+					for (BasicTestTree node : root) {
+						node.property = "visited";
+					}
+				}
+			};
+			quietThread.start();
+			quietThread.join();
+			assertEquals(2, metrics.getChildrenAdded());
+			assertEquals(1, metrics.getTraversals());
+			assertEquals(3, metrics.getNodesVisited());
+
+			// Reset while another thread counts.
+			thread = new Thread(thread);
+			thread.start();
+			while (thread.isAlive()) {
+				metrics.reset();
+				assertTrue(metrics.getChildrenAdded() >= 0);
+				assertTrue(metrics.getChildrenRemoved() >= 0);
+			}
+			thread.join();
+		} finally {
+			assertSame(metrics, TreeMetrics.setMetrics(null));
+		}
+
+		metrics.reset();
+		assertEquals(0, metrics.getChildrenAdded());
+		assertEquals(0, metrics.getChildrenRemoved());
+
+		return;
+	}
+
+	/**
+	 * Checks that traversals are counted for each order, including traversals
+	 * that stop early.
+	 */
+	@Test
+	public void checkTraversals() {
+
+		InMemoryTreeMetrics metrics = new InMemoryTreeMetrics();
+		BasicTestTree root = createTree();
+
+		TreeMetrics.setMetrics(metrics);
+		try {
+			// A full traversal is reported when it reaches the end.
+			int count = 0;
+			for (BasicTestTree node : root) {
+				count++;
+				assertTrue(node != null);
+			}
+			assertEquals(7, count);
+			assertEquals(1, metrics.getTraversals(TreeIterationOrder.PreOrder)
+					+ metrics.getTraversals(TreeIterationOrder.BreadthFirst)
+					+ metrics.getTraversals(TreeIterationOrder.PostOrder));
+			assertEquals(7, metrics.getNodesVisited());
+			metrics.reset();
+
+			TreeIterator<BasicTestTree> iterator = root
+					.iterator(TreeIterationOrder.PostOrder);
+			while (iterator.hasNext()) {
+				iterator.next();
+			}
+			assertEquals(1,
+					metrics.getTraversals(TreeIterationOrder.PostOrder));
+			assertEquals(7,
+					metrics.getNodesVisited(TreeIterationOrder.PostOrder));
+			assertTrue(metrics
+					.getTraversalTime(TreeIterationOrder.PostOrder) >= 0);
+
+			// A traversal that stops early is reported when the iterator is
+			// returned to the pool.
+			iterator = TreeIteratorPool.acquire(root,
+					TreeIterationOrder.BreadthFirst);
+			iterator.next();
+			iterator.next();
+			assertEquals(0,
+					metrics.getTraversals(TreeIterationOrder.BreadthFirst));
+			TreeIteratorPool.release(iterator);
+			assertEquals(1,
+					metrics.getTraversals(TreeIterationOrder.BreadthFirst));
+			assertEquals(2,
+					metrics.getNodesVisited(TreeIterationOrder.BreadthFirst));
+
+			// ... or when it is reset.
+			iterator = root.iterator(TreeIterationOrder.PreOrder);
+			iterator.next();
+			iterator.reset(root);
+			assertEquals(1, metrics.getTraversals(TreeIterationOrder.PreOrder));
+			assertEquals(1,
+					metrics.getNodesVisited(TreeIterationOrder.PreOrder));
+			assertEquals(3, metrics.getTraversals());
+		} finally {
+			TreeMetrics.setMetrics(null);
+		}
+
+		return;
+	}
+
+	/**
+	 * Checks that full-tree hashes and comparisons are counted, but not those
+	 * of single nodes.
+	 */
+	@Test
+	public void checkHashAndEquals() {
+
+		InMemoryTreeMetrics metrics = new InMemoryTreeMetrics();
+		BasicTestTree root = createTree();
+		BasicTestTree copy = createTree();
+
+		TreeMetrics.setMetrics(metrics);
+		try {
+			assertEquals(root.hashCode(true), copy.hashCode(true));
+			assertEquals(2, metrics.getTreeHashes());
+			assertEquals(14, metrics.getNodesHashed());
+			assertTrue(metrics.getTreeHashTime() >= 0);
+
+			assertTrue(root.equals(copy, true));
+			assertEquals(1, metrics.getTreeComparisons());
+			assertEquals(7, metrics.getNodesCompared());
+
+			// Single nodes are not counted.
+			root.hashCode(false);
+			root.equals(copy, false);
+			assertEquals(2, metrics.getTreeHashes());
+			assertEquals(1, metrics.getTreeComparisons());
+
+			// The traversals of the trees are also counted.
+			assertEquals(4,
+					metrics.getTraversals(TreeIterationOrder.BreadthFirst));
+		} finally {
+			TreeMetrics.setMetrics(null);
+		}
+
+		return;
+	}
+
+	/**
+	 * Creates a tree with 7 nodes: a root with two children, which each have
+	 * two children.
+	 * 
+	 * @return The root of the tree.
+	 */
+	private BasicTestTree createTree() {
+		BasicTestTree root = new BasicTestTree();
+		for (int i = 0; i < 2; i++) {
+			BasicTestTree child = new BasicTestTree();
+			root.addChild(child);
+			for (int j = 0; j < 2; j++) {
+				child.addChild(new BasicTestTree());
+			}
+		}
+		return root;
+	}
+}
@@ -0,0 +1,201 @@
+package com.bar.foo.tree.query.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.bar.foo.tree.query.TreeQuery;
+import com.bar.foo.tree.test.BasicTestTree;
+
+/**
+ * This class tests the selector language provided by {@link TreeQuery}. It
+ * uses the tree from {@link BasicTestTree#createTestTree()}.
+ *
+ * @author Jordan
+ *
+ */
+public class TreeQueryTester {
+
+	/**
+	 * Checks the child and descendant axes and the name test.
+	 */
+	@Test
+	public void checkAxes() {
+
+		BasicTestTree root = BasicTestTree.createTestTree();
+
+		// The first child step selects the root.
+		checkSelection(root, "/*", "A1");
+		checkSelection(root, "/BasicTestTree", "A1");
+		checkSelection(root, "/BasicTree", "A1");
+		checkSelection(root, "/ActionTree");
+
+		// Child steps select each level.
+		checkSelection(root, "/*/*", "B1", "B2");
+		checkSelection(root, "/*/*/*", "C1", "C2", "C3", "C4");
+
+		// Descendant steps select whole sub-trees in pre-order.
+		checkSelection(root, "//*", "A1", "B1", "C1", "B2", "C2", "C3", "D1",
+				"D2", "C4", "D3", "D4", "D5");
+		checkSelection(root, "/*/*//*", "C1", "C2", "C3", "D1", "D2", "C4",
+				"D3", "D4", "D5");
+
+		// Nodes reached more than once are only selected once.
+		checkSelection(root, "//*//*[property^='D']", "D1", "D2", "D3", "D4",
+				"D5");
+		checkSelection(root, "//*//*", "B1", "C1", "B2", "C2", "C3", "D1",
+				"D2", "C4", "D3", "D4", "D5");
+		checkSelection(root, "//*//*[1]", "B1", "C1", "C2", "D1", "D3");
+
+		return;
+	}
+
+	/**
+	 * Checks the field and position predicates.
+	 */
+	@Test
+	public void checkPredicates() {
+
+		BasicTestTree root = BasicTestTree.createTestTree();
+
+		// Field comparisons.
+		checkSelection(root, "//*[property='C3']/*", "D1", "D2");
+		checkSelection(root, "//*[property = \"B2\"]/*[property!='C3']", "C2",
+				"C4");
+		checkSelection(root, "//*[property$='4']", "C4", "D4");
+		checkSelection(root, "//*[property*='5']", "D5");
+		checkSelection(root, "//*[property=null]");
+		checkSelection(root, "/*[property]", "A1");
+		checkSelection(root, "/*[missing]");
+
+		// Positions are counted among the nodes selected from each node.
+		checkSelection(root, "/*/*[1]", "B1");
+		checkSelection(root, "/*/*[last]/*[2]", "C3");
+		checkSelection(root, "/*/*/*[1]", "C1", "C2");
+		checkSelection(root, "/*/*/*[last]", "C1", "C4");
+		checkSelection(root, "/*/*[5]");
+		checkSelection(root, "//*[property^='D'][2]", "D2");
+		checkSelection(root, "/*/*/*[property^='C'][2]", "C3");
+
+		// Null properties can be matched.
+		BasicTestTree child = new BasicTestTree();
+		root.getChild(0).addChild(child);
+		checkSelection(root, "//*[property=null]", (String) null);
+		assertSame(child, TreeQuery.compile("//*[property=null]")
+				.selectFirst(root));
+		assertNull(TreeQuery.compile("//*[property='Z']").selectFirst(root));
+
+		return;
+	}
+
+	/**
+	 * Checks that numbers keep their type and that errors reading a field are
+	 * reported.
+	 */
+	@Test
+	public void checkLiterals() {
+
+		BasicTestTree root = new BasicTestTree();
+		root.property = "1";
+		NumberTree child = new NumberTree();
+		child.property = "1.5";
+		root.addChild(child);
+
+		// Integers are not turned into doubles.
+		checkSelection(root, "//*[property=1]", "1");
+		checkSelection(root, "//*[property=1.5]", "1.5");
+		checkSelection(root, "//*[property^=1]", "1", "1.5");
+
+		// Numbers are compared by value.
+		checkSelection(root, "//*[number=9007199254740993]", "1.5");
+		checkSelection(root, "//*[number=9007199254740992]");
+		checkSelection(root, "//*[ratio=0.5]", "1.5");
+		checkSelection(root, "//*[ratio!=1]", "1.5");
+
+		// A failing getter is not treated as a mismatch.
+		try {
+			TreeQuery.compile("//*[broken]").select(root);
+			fail("TreeQueryTester error: "
+					+ "The failing getter should be reported.");
+		} catch (IllegalStateException e) {
+			assertTrue(e.getCause() instanceof UnsupportedOperationException);
+		}
+
+		return;
+	}
+
+	/**
+	 * Checks that invalid queries are rejected.
+	 */
+	@Test
+	public void checkSyntaxErrors() {
+
+		String[] queries = { null, "", "*", "/", "/*[", "/*[0]",
+				"/*[property='A1]", "/*[property=derp]", "/*]" };
+		for (String query : queries) {
+			try {
+				TreeQuery.compile(query);
+				fail("TreeQueryTester error: "
+						+ "The query \"" + query + "\" should be invalid.");
+			} catch (IllegalArgumentException e) {
+				// Exception thrown as expected.
+			}
+		}
+
+		// A compiled query remembers its source.
+		assertEquals("//*[1]", TreeQuery.compile("//*[1]").toString());
+
+		return;
+	}
+
+	/**
+	 * Checks that the query selects nodes with the expected properties, in
+	 * order.
+	 */
+	private void checkSelection(BasicTestTree root, String query,
+			String... expected) {
+		List<BasicTestTree> selected = TreeQuery.compile(query).select(root);
+		assertEquals(query, expected.length, selected.size());
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(query, expected[i], selected.get(i).property);
+		}
+		assertTrue(selected.size() <= 12 + 1);
+	}
+
+	/**
+	 * A test tree with numeric and failing fields.
+	 *
+	 * @author Jordan
+	 *
+	 */
+	private static class NumberTree extends BasicTestTree {
+		/**
+		 * A long that a double cannot hold exactly.
+		 */
+		public long number = 9007199254740993L;
+
+		/**
+		 * Gets a fractional number.
+		 *
+		 * @return One half.
+		 */
+		public float getRatio() {
+			return 0.5f;
+		}
+
+		/**
+		 * A getter that always fails.
+		 *
+		 * @return Nothing.
+		 */
+		public boolean isBroken() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,225 @@
+package com.bar.foo.tree.reduce.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.bar.foo.tree.iterator.TreeIterationOrder;
+import com.bar.foo.tree.reduce.TreeReducer;
+import com.bar.foo.tree.test.BasicTestTree;
+
+/**
+ * This class tests {@link TreeReducer}. Sequential and parallel reductions are
+ * compared against folds computed with the post-order iterator.
+ * 
+ * @author Jordan
+ *
+ */
+public class TreeReducerTester {
+
+	/**
+	 * Checks a reduction that depends on the order of the nodes.
+	 */
+	@Test
+	public void checkOrder() {
+
+		BasicTestTree root = BasicTestTree.createTestTree();
+		PostOrderReducer reducer = new PostOrderReducer();
+
+		// The properties should be concatenated in post-order.
+		String expected = "";
+		for (BasicTestTree node : root.getExpectedOrder(
+				TreeIterationOrder.PostOrder)) {
+			expected += node.property;
+		}
+		assertEquals(expected, reducer.reduce(root));
+		assertEquals(expected, reducer.parallelReduce(root));
+		assertEquals(expected,
+				reducer.parallelReduce(root, new ForkJoinPool(2)));
+
+		// A single node is reduced on its own.
+		BasicTestTree leaf = new BasicTestTree();
+		leaf.property = "Z";
+		assertEquals("Z", reducer.reduce(leaf));
+		assertEquals("Z", reducer.parallelReduce(leaf));
+
+		// Null trees and pools are not allowed.
+		try {
+			reducer.reduce(null);
+			fail("TreeReducerTester error: "
+					+ "A null tree should not be reduced.");
+		} catch (IllegalArgumentException e) {
+			// Exception thrown as expected.
+		}
+		try {
+			reducer.parallelReduce(root, null);
+			fail("TreeReducerTester error: "
+					+ "A null pool should not be accepted.");
+		} catch (IllegalArgumentException e) {
+			// Exception thrown as expected.
+		}
+
+		return;
+	}
+
+	/**
+	 * Checks that parallel reductions of large, skewed trees match sequential
+	 * reductions.
+	 */
+	@Test
+	public void checkParallel() {
+
+		// Create a tree where most nodes are under a few random nodes.
+		Random random = new Random(2014);
+		BasicTestTree root = new BasicTestTree();
+		root.property = "0";
+		BasicTestTree[] nodes = new BasicTestTree[50000];
+		nodes[0] = root;
+		for (int i = 1; i < nodes.length; i++) {
+			nodes[i] = new BasicTestTree();
+			nodes[i].property = Integer.toString(i % 7);
+			int parent = (random.nextInt(10) == 0 ? random.nextInt(i)
+					: random.nextInt(Math.min(i, 10)));
+			nodes[parent].addChild(nodes[i]);
+		}
+
+		// Compute the expected values with the post-order iterator.
+		long expectedSum = 0;
+		int expectedHash = 0;
+		Iterator<BasicTestTree> iterator = root
+				.iterator(TreeIterationOrder.PostOrder);
+		while (iterator.hasNext()) {
+			String property = iterator.next().property;
+			expectedSum += Integer.parseInt(property);
+			expectedHash = expectedHash * 31 + property.hashCode();
+		}
+
+		HashReducer reducer = new HashReducer();
+		long[] sequential = reducer.reduce(root);
+		assertEquals(expectedSum, sequential[0]);
+		assertEquals(expectedHash, (int) sequential[1]);
+		for (int i = 0; i < 10; i++) {
+			long[] parallel = reducer.parallelReduce(root);
+			assertEquals(expectedSum, parallel[0]);
+			assertEquals(expectedHash, (int) parallel[1]);
+		}
+
+		return;
+	}
+
+	/**
+	 * Checks that very deep trees can be reduced without overflowing the call
+	 * stack.
+	 */
+	@Test
+	public void checkDeepTree() {
+
+		final int depth = 100000;
+
+		BasicTestTree root = new BasicTestTree();
+		BasicTestTree node = root;
+		for (int i = 0; i < depth; i++) {
+			BasicTestTree child = new BasicTestTree();
+			node.addChild(child);
+			node = child;
+		}
+
+		TreeReducer<BasicTestTree, Integer> reducer;
+		reducer = new TreeReducer<BasicTestTree, Integer>() {
+			@Override
+			protected Integer map(BasicTestTree node) {
+				return 0;
+			}
+
+			@Override
+			protected Integer combineChildren(Integer left, Integer right) {
+				return Math.max(left, right);
+			}
+
+			@Override
+			protected Integer combineWithParent(BasicTestTree node,
+					Integer nodeValue, Integer childrenValue) {
+				return childrenValue == null ? 0 : childrenValue + 1;
+			}
+		};
+		assertEquals(depth, (int) reducer.reduce(root));
+		assertEquals(depth, (int) reducer.parallelReduce(root));
+
+		return;
+	}
+
+	/**
+	 * Concatenates the node properties in post-order.
+	 */
+	private static class PostOrderReducer extends
+			TreeReducer<BasicTestTree, String> {
+
+		/*
+		 * Implements a method from TreeReducer.
+		 */
+		@Override
+		protected String map(BasicTestTree node) {
+			return node.property;
+		}
+
+		/*
+		 * Implements a method from TreeReducer.
+		 */
+		@Override
+		protected String combineChildren(String left, String right) {
+			return left + right;
+		}
+
+		/*
+		 * Implements a method from TreeReducer.
+		 */
+		@Override
+		protected String combineWithParent(BasicTestTree node,
+				String nodeValue, String childrenValue) {
+			return childrenValue == null ? nodeValue : childrenValue
+					+ nodeValue;
+		}
+	}
+
+	/**
+	 * Computes the sum of the node properties and a post-order polynomial hash
+	 * of them. The hash is a pair of the hash value and 31 raised to the
+	 * number of nodes, which makes concatenation associative.
+	 */
+	private static class HashReducer extends TreeReducer<BasicTestTree, long[]> {
+
+		/*
+		 * Implements a method from TreeReducer.
+		 */
+		@Override
+		protected long[] map(BasicTestTree node) {
+			return new long[] { Integer.parseInt(node.property),
+					node.property.hashCode(), 31 };
+		}
+
+		/*
+		 * Implements a method from TreeReducer.
+		 */
+		@Override
+		protected long[] combineChildren(long[] left, long[] right) {
+			return new long[] { left[0] + right[0],
+					(int) left[1] * (int) right[2] + (int) right[1],
+					(int) left[2] * (int) right[2] };
+		}
+
+		/*
+		 * Implements a method from TreeReducer.
+		 */
+		@Override
+		protected long[] combineWithParent(BasicTestTree node,
+				long[] nodeValue, long[] childrenValue) {
+			return childrenValue == null ? nodeValue : combineChildren(
+					childrenValue, nodeValue);
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package com.bar.foo.tree.statistics.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedMap;
+
+import org.junit.Test;
+
+import com.bar.foo.tree.statistics.TreeStatistics;
+import com.bar.foo.tree.test.BasicTestTree;
+
+/**
+ * This class tests {@link TreeStatistics}. It uses the tree from
+ * {@link BasicTestTree#createTestTree()}.
+ *
+ * @author Jordan
+ *
+ */
+public class TreeStatisticsTester {
+
+	/**
+	 * Checks the shape statistics of the test tree.
+	 */
+	@Test
+	public void checkShape() {
+
+		BasicTestTree root = BasicTestTree.createTestTree();
+		TreeStatistics<BasicTestTree> statistics = new TreeStatistics<BasicTestTree>();
+		assertEquals(0, statistics.getNodeCount());
+		assertEquals(-1, statistics.getMaxDepth());
+		statistics.compute(root);
+
+		assertEquals(12, statistics.getNodeCount());
+		assertEquals(7, statistics.getLeafCount());
+		assertEquals(7.0 / 12.0, statistics.getLeafRatio(), 1e-9);
+		assertEquals(3, statistics.getMaxDepth());
+		assertEquals(3, statistics.getMaxFanOut());
+		assertArrayEquals(new int[] { 1, 2, 4, 5 },
+				statistics.getDepthHistogram());
+
+		SortedMap<Integer, Integer> fanOuts = statistics.getFanOutHistogram();
+		assertEquals(Arrays.asList(0, 1, 2, 3),
+				Arrays.asList(fanOuts.keySet().toArray()));
+		assertEquals(Arrays.asList(7, 1, 2, 2),
+				Arrays.asList(fanOuts.values().toArray()));
+
+		// D1 is the first node at depth 3, and B2 the first with 3 children.
+		assertArrayEquals(new int[] { 1, 1, 0 }, statistics.getDeepestPath());
+		assertArrayEquals(new int[] { 1 }, statistics.getWidestPath());
+
+		// Computing again replaces the results.
+		statistics.compute(root.getChild(0));
+		assertEquals(2, statistics.getNodeCount());
+		assertArrayEquals(new int[] { 0 }, statistics.getDeepestPath());
+		assertArrayEquals(new int[0], statistics.getWidestPath());
+
+		try {
+			statistics.compute(null);
+			fail("TreeStatisticsTester error: "
+					+ "A null tree should not be measured.");
+		} catch (IllegalArgumentException e) {
+			// Exception thrown as expected.
+		}
+
+		return;
+	}
+
+	/**
+	 * Checks the size estimates and the exported results.
+	 */
+	@Test
+	public void checkExport() {
+
+		BasicTestTree root = BasicTestTree.createTestTree();
+		TreeStatistics<BasicTestTree> statistics = new TreeStatistics<BasicTestTree>();
+		statistics.compute(root);
+
+		// All nodes are of one type, and each has an object and a child list.
+		Map<Class<?>, Integer> counts = statistics.getNodeTypeCounts();
+		assertEquals(1, counts.size());
+		assertEquals(12, counts.get(BasicTestTree.class).intValue());
+		long size = statistics.getEstimatedSize();
+		assertEquals(size, statistics.getEstimatedSizes()
+				.get(BasicTestTree.class).longValue());
+		assertTrue(size > 12 * 24);
+		assertEquals(0, size % 8);
+
+		// The map holds simple values.
+		Map<String, Object> map = statistics.toMap();
+		assertEquals(12, map.get("nodeCount"));
+		assertEquals(Arrays.asList(1, 2, 4, 5), map.get("depthHistogram"));
+		assertEquals(Arrays.asList(1, 1, 0), map.get("deepestPath"));
+		assertTrue(map.get("nodeTypes") instanceof Map);
+
+		// The JSON contains the same values.
+		String json = statistics.toJson();
+		assertTrue(json.startsWith("{\"nodeCount\":12,\"leafCount\":7,"));
+		assertTrue(json.contains("\"depthHistogram\":[1,2,4,5]"));
+		assertTrue(json.contains("\"fanOutHistogram\":{\"0\":7,\"1\":1,"
+				+ "\"2\":2,\"3\":2}"));
+		assertTrue(json.contains("\"widestPath\":[1]"));
+		assertTrue(json.contains("\"" + BasicTestTree.class.getName()
+				+ "\":{\"count\":12,\"estimatedBytes\":" + size + "}"));
+
+		return;
+	}
+
+	/**
+	 * Checks that deep trees are measured without recursion and that paths
+	 * are recorded in linear time.
+	 */
+	@Test
+	public void checkDeepTree() {
+
+		// Each node on a long spine gets a leaf first, so the deepest path
+		// changes at every level.
+		final int length = 100000;
+		BasicTestTree root = new BasicTestTree();
+		root.property = "0";
+		BasicTestTree spine = root;
+		for (int i = 1; i < length; i++) {
+			BasicTestTree leaf = new BasicTestTree();
+			leaf.property = "leaf" + i;
+			spine.addChild(leaf);
+			BasicTestTree next = new BasicTestTree();
+			next.property = Integer.toString(i);
+			spine.addChild(next);
+			spine = next;
+		}
+
+		TreeStatistics<BasicTestTree> statistics = new TreeStatistics<BasicTestTree>();
+		statistics.compute(root);
+		assertEquals(2 * length - 1, statistics.getNodeCount());
+		assertEquals(length - 1, statistics.getMaxDepth());
+
+		int[] deepest = statistics.getDeepestPath();
+		assertEquals(length - 1, deepest.length);
+		for (int i = 0; i < deepest.length - 1; i++) {
+			assertEquals(1, deepest[i]);
+		}
+		// The first node at the last level is the last leaf.
+		assertEquals(0, deepest[deepest.length - 1]);
+
+		return;
+	}
+}
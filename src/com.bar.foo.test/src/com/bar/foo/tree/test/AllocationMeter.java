@@ -0,0 +1,113 @@
+package com.bar.foo.tree.test;
+
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.junit.Assume;
+
+/**
+ * This class measures the bytes allocated by an operation on the current
+ * thread with the thread allocation counters of HotSpot-based JVMs. Tests use
+ * it to check allocation budgets, so that paths that allocate nothing keep
+ * allocating nothing.
+ * <p>
+ * Each operation is run several times first so that pools are filled,
+ * arrays have grown and the JIT has compiled it. It is then measured a few
+ * times and the smallest result is used, so that one-time allocations, such
+ * as those of class loading, are ignored.
+ * </p>
+ * 
+ * @author Jordan
+ *
+ */
+public class AllocationMeter {
+
+	/**
+	 * The number of times an operation is measured.
+	 */
+	private static final int ATTEMPTS = 5;
+
+	/**
+	 * The allocation counters.
+	 */
+	private final com.sun.management.ThreadMXBean bean;
+
+	/**
+	 * The number of times each operation is run before it is measured.
+	 */
+	private final int warmups;
+
+	/**
+	 * The bytes allocated by reading the counter, which are subtracted from
+	 * each measurement.
+	 */
+	private final long overhead;
+
+	/**
+	 * The default constructor. If the JVM does not count allocations, the
+	 * current test is skipped.
+	 * 
+	 * @param warmups
+	 *            The number of times each operation is run before it is
+	 *            measured.
+	 */
+	public AllocationMeter(int warmups) {
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(
+				threadBean instanceof com.sun.management.ThreadMXBean);
+		bean = (com.sun.management.ThreadMXBean) threadBean;
+		Assume.assumeTrue(bean.isThreadAllocatedMemorySupported());
+		bean.setThreadAllocatedMemoryEnabled(true);
+		this.warmups = warmups;
+
+		// Measure the cost of measuring so that it can be discounted.
+		long thread = Thread.currentThread().getId();
+		long before = bean.getThreadAllocatedBytes(thread);
+		overhead = bean.getThreadAllocatedBytes(thread) - before;
+	}
+
+	/**
+	 * Measures the bytes allocated by one run of an operation.
+	 * 
+	 * @param operation
+	 *            The operation to measure.
+	 * @return The smallest number of bytes allocated by a run after warming
+	 *         up.
+	 */
+	public long measure(Runnable operation) {
+		for (int i = 0; i < warmups; i++) {
+			operation.run();
+		}
+
+		long thread = Thread.currentThread().getId();
+		long allocated = Long.MAX_VALUE;
+		for (int attempt = 0; attempt < ATTEMPTS && allocated > 0; attempt++) {
+			long before = bean.getThreadAllocatedBytes(thread);
+			operation.run();
+			long after = bean.getThreadAllocatedBytes(thread);
+			allocated = Math.min(allocated, after - before - overhead);
+		}
+		return Math.max(allocated, 0L);
+	}
+
+	/**
+	 * Checks that an operation allocates no more than a budget.
+	 * 
+	 * @param name
+	 *            The name of the operation, for the failure message.
+	 * @param budget
+	 *            The most bytes the operation may allocate.
+	 * @param operation
+	 *            The operation to measure.
+	 * @return The bytes allocated by the operation.
+	 */
+	public long assertBudget(String name, long budget, Runnable operation) {
+		long allocated = measure(operation);
+		assertTrue("AllocationMeter failure: " + name + " allocated "
+				+ allocated + " bytes, but its budget is " + budget + ".",
+				allocated <= budget);
+		return allocated;
+	}
+}
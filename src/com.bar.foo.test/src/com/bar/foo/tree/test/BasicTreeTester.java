@@ -3,16 +3,21 @@ package com.bar.foo.tree.test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.lang.ref.Reference;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
 import org.junit.Test;
 
 import com.bar.foo.tree.BasicTree;
+import com.bar.foo.tree.IChildLoader;
 import com.bar.foo.tree.ITree;
 import com.bar.foo.tree.iterator.TreeIterationOrder;
 
@@ -33,22 +38,30 @@ public class BasicTreeTester {
 	@Test
 	public void checkAddChild() {
 
-		// TODO Check that the same child can't be added twice.
-
 		// Add a child and check the connections between child and parent.
 		BasicTestTree parent = new BasicTestTree();
 		BasicTestTree newParent = new BasicTestTree();
 		BasicTestTree child = new BasicTestTree();
 
 		// Add the child to the first parent and check the connections.
-		parent.addChild(child);
+		assertTrue(parent.addChild(child));
 		checkConnected(parent, child, 0);
 		checkSevered(newParent, child);
 
+		// The same child can't be added twice.
+		assertFalse(parent.addChild(child));
+		assertEquals(1, parent.getNumberOfChildren());
+
+		// A different but equal child can be added.
+		BasicTestTree equalChild = new BasicTestTree();
+		assertTrue(parent.addChild(equalChild));
+		checkConnected(parent, equalChild, 1);
+
 		// Add the child to the second parent and check the connections.
-		newParent.addChild(child);
+		assertTrue(newParent.addChild(child));
 		checkSevered(parent, child);
 		checkConnected(newParent, child, 0);
+		checkConnected(parent, equalChild, 0);
 
 		return;
 	}
@@ -62,8 +75,6 @@ public class BasicTreeTester {
 	@Test
 	public void checkRemoveChild() {
 
-		// TODO Check that the same child can't be removed twice.
-
 		// Add a child, remove it, then make sure all connections are severed.
 		BasicTestTree parent = new BasicTestTree();
 		BasicTestTree child = new BasicTestTree();
@@ -75,12 +86,132 @@ public class BasicTreeTester {
 
 		// Check removeChild(T)
 		parent.addChild(child);
-		parent.removeChild(child);
+		assertTrue(parent.removeChild(child));
 		checkSevered(parent, child);
 
+		// The same child can't be removed twice.
+		assertFalse(parent.removeChild(child));
+
+		// An equal child that is not in the tree is not removed.
+		parent.addChild(child);
+		assertFalse(parent.removeChild(new BasicTestTree()));
+		checkConnected(parent, child, 0);
+
+		return;
+	}
+
+	/**
+	 * Checks that each node's index in its parent and its siblings are kept
+	 * up to date as children are added, removed, and moved.
+	 * 
+	 * @see BasicTree#indexInParent()
+	 * @see BasicTree#getNextSibling()
+	 * @see BasicTree#getPreviousSibling()
+	 */
+	@Test
+	public void checkSiblings() {
+
+		BasicTestTree parent = new BasicTestTree();
+		BasicTestTree newParent = new BasicTestTree();
+		BasicTestTree[] children = new BasicTestTree[5];
+		for (int i = 0; i < children.length; i++) {
+			children[i] = new BasicTestTree();
+			children[i].property = Integer.toString(i);
+			parent.addChild(children[i]);
+		}
+
+		// Nodes without parents have no index or siblings.
+		assertEquals(-1, parent.indexInParent());
+		assertNull(parent.getNextSibling());
+		assertNull(parent.getPreviousSibling());
+
+		// Check the initial indexes and siblings.
+		checkSiblings(parent);
+		assertNull(children[0].getPreviousSibling());
+		assertSame(children[1], children[0].getNextSibling());
+		assertSame(children[3], children[4].getPreviousSibling());
+		assertNull(children[4].getNextSibling());
+
+		// Remove a child from the middle by index and by reference.
+		parent.removeChild(1);
+		assertEquals(-1, children[1].indexInParent());
+		checkSiblings(parent);
+		parent.removeChild(children[3]);
+		checkSiblings(parent);
+		assertSame(children[4], children[2].getNextSibling());
+
+		// Move a child to another parent.
+		newParent.addChild(children[1]);
+		newParent.addChild(children[0]);
+		checkSiblings(parent);
+		checkSiblings(newParent);
+		assertEquals(1, children[0].indexInParent());
+		assertSame(children[2], parent.getChild(0));
+		assertNull(children[2].getPreviousSibling());
+
+		return;
+	}
+
+	/**
+	 * Checks that removing many children from a wide node takes linear time.
+	 * If every removal renumbered the following siblings, removing half of
+	 * 200,000 children would take far longer than the timeout.
+	 * 
+	 * @see BasicTree#removeChild(BasicTree)
+	 * @see BasicTree#indexInParent()
+	 */
+	@Test(timeout = 5000)
+	public void checkWideRemoval() {
+
+		final int width = 200000;
+
+		BasicTestTree parent = new BasicTestTree();
+		BasicTestTree[] children = new BasicTestTree[width];
+		for (int i = 0; i < width; i++) {
+			children[i] = new BasicTestTree();
+			parent.addChild(children[i]);
+		}
+
+		// Remove every other child in order, starting with the first.
+		for (int i = 0; i < width; i += 2) {
+			assertTrue(parent.removeChild(children[i]));
+			assertEquals(-1, children[i].indexInParent());
+		}
+		assertEquals(width / 2, parent.getNumberOfChildren());
+
+		// The remaining children should know their new indexes and siblings.
+		for (int i = 1; i < width; i += 2) {
+			assertEquals(i / 2, children[i].indexInParent());
+			assertSame(i + 2 < width ? children[i + 2] : null,
+					children[i].getNextSibling());
+		}
+
+		// Remove the remaining children from the end.
+		for (int i = width - 1; i > 0; i -= 2) {
+			assertTrue(parent.removeChild(children[i]));
+		}
+		assertEquals(0, parent.getNumberOfChildren());
+
 		return;
 	}
 
+	/**
+	 * Checks that each child of a node reports the correct index and
+	 * siblings.
+	 */
+	private void checkSiblings(BasicTestTree parent) {
+		int size = parent.getNumberOfChildren();
+		for (int i = 0; i < size; i++) {
+			BasicTestTree child = parent.getChild(i);
+			assertEquals(i, child.indexInParent());
+			assertTrue(parent.hasChild(child));
+			assertSame(i > 0 ? parent.getChild(i - 1) : null,
+					child.getPreviousSibling());
+			assertSame(i + 1 < size ? parent.getChild(i + 1) : null,
+					child.getNextSibling());
+		}
+	}
+
 	/**
 	 * Checks that the breadth-first traversal of the tree works properly.
 	 * 
@@ -404,6 +535,95 @@ public class BasicTreeTester {
 		return;
 	}
 
+	/**
+	 * Checks that children provided by an {@link IChildLoader} are only loaded
+	 * when first requested and can be unloaded and loaded again.
+	 * 
+	 * @see BasicTree#setChildLoader(IChildLoader)
+	 * @see BasicTree#unloadChildren()
+	 */
+	@Test
+	public void checkLazyChildren() {
+
+		// Create a loader that adds two children and counts its calls.
+		final int[] loads = new int[1];
+		IChildLoader<BasicTestTree> loader = new IChildLoader<BasicTestTree>() {
+			@Override
+			public boolean hasChildren(BasicTestTree parent) {
+				return true;
+			}
+
+			@Override
+			public List<BasicTestTree> loadChildren(BasicTestTree parent) {
+				loads[0]++;
+				List<BasicTestTree> children = new ArrayList<BasicTestTree>();
+				for (int i = 1; i <= 2; i++) {
+					BasicTestTree child = new BasicTestTree();
+					child.property = parent.property + "." + i;
+					children.add(child);
+				}
+				return children;
+			}
+		};
+
+		// Set up a root with a normal child and a lazy child.
+		BasicTestTree root = new BasicTestTree();
+		root.property = "A";
+		BasicTestTree normalChild = new BasicTestTree();
+		normalChild.property = "B";
+		root.addChild(normalChild);
+		BasicTestTree lazyChild = new BasicTestTree();
+		lazyChild.property = "C";
+		lazyChild.setChildLoader(loader);
+		root.addChild(lazyChild);
+
+		// Nothing should be loaded until the lazy children are requested.
+		assertFalse(lazyChild.isChildrenLoaded());
+		assertTrue(lazyChild.hasChildren());
+		assertEquals(2, root.getNumberOfChildren());
+		assertSame(lazyChild, root.getChild(1));
+		assertEquals(0, loads[0]);
+
+		// Requesting the number of children should load them once.
+		assertEquals(2, lazyChild.getNumberOfChildren());
+		assertTrue(lazyChild.isChildrenLoaded());
+		assertEquals(1, loads[0]);
+		checkConnected(lazyChild, lazyChild.getChild(0), 0);
+		assertEquals("C.1", lazyChild.getChild(0).property);
+		assertEquals("C.2", lazyChild.getChild(1).property);
+		lazyChild.getChildren();
+		assertEquals(1, loads[0]);
+
+		// Unloading the children should detach them. Checking the connections
+		// requests the children again, so they are reloaded.
+		BasicTestTree oldChild = lazyChild.getChild(0);
+		assertTrue(lazyChild.unloadChildren());
+		assertFalse(lazyChild.isChildrenLoaded());
+		checkSevered(lazyChild, oldChild);
+		assertEquals(2, loads[0]);
+		assertFalse(normalChild.unloadChildren());
+
+		// A traversal should load the children on the way.
+		lazyChild.unloadChildren();
+		int count = 0;
+		Iterator<BasicTestTree> iterator = root
+				.iterator(TreeIterationOrder.PreOrder);
+		while (iterator.hasNext()) {
+			iterator.next();
+			count++;
+		}
+		assertEquals(5, count);
+		assertEquals(3, loads[0]);
+
+		// Removing the loader should leave the loaded children in place.
+		lazyChild.setChildLoader(null);
+		assertTrue(lazyChild.isChildrenLoaded());
+		assertEquals(2, lazyChild.getNumberOfChildren());
+		assertFalse(lazyChild.unloadChildren());
+
+		return;
+	}
+
 	/**
 	 * Checks that the copy constructors correctly copy the contents of the tree
 	 * node and (if applicable) its subtrees.
@@ -496,6 +716,163 @@ public class BasicTreeTester {
 		return;
 	}
 
+	/**
+	 * Checks that a loader that fails leaves the children unloaded, and that
+	 * the automatic unloading only replaces unchanged loaded children.
+	 * 
+	 * @see BasicTree#setChildLoader(IChildLoader, boolean)
+	 */
+	@Test
+	public void checkUnloadableChildren() throws Exception {
+
+		// Create a loader that adds one child and fails when told to.
+		final boolean[] fail = { true };
+		IChildLoader<BasicTestTree> loader = new IChildLoader<BasicTestTree>() {
+			@Override
+			public boolean hasChildren(BasicTestTree parent) {
+				return true;
+			}
+
+			@Override
+			public List<BasicTestTree> loadChildren(BasicTestTree parent) {
+				if (fail[0]) {
+					throw new IllegalStateException("Load failed.");
+				}
+				List<BasicTestTree> children = new ArrayList<BasicTestTree>();
+				children.add(new BasicTestTree());
+				return children;
+			}
+		};
+
+		BasicTestTree root = new BasicTestTree();
+		BasicTestTree direct = new BasicTestTree();
+		root.addChild(direct);
+		root.setChildLoader(loader, true);
+
+		// A failed load can be retried.
+		try {
+			root.getNumberOfChildren();
+			fail("BasicTreeTester error: "
+					+ "The loader's exception should be thrown.");
+		} catch (IllegalStateException e) {
+			// Exception thrown as expected.
+		}
+		assertFalse(root.isChildrenLoaded());
+		fail[0] = false;
+		assertEquals(2, root.getNumberOfChildren());
+		assertTrue(root.isChildrenLoaded());
+		assertSame(direct, root.getChild(0));
+
+		// Simulate low memory. Only the loaded child is replaced.
+		BasicTestTree loaded = root.getChild(1);
+		clearUnloadReference(root);
+		assertEquals(2, root.getNumberOfChildren());
+		assertSame(direct, root.getChild(0));
+		assertNotSame(loaded, root.getChild(1));
+		assertNull(loaded.getParent());
+		checkConnected(root, root.getChild(1), 1);
+
+		// Once the children change, they are never unloaded automatically.
+		BasicTestTree added = new BasicTestTree();
+		root.addChild(added);
+		loaded = root.getChild(1);
+		clearUnloadReference(root);
+		assertEquals(3, root.getNumberOfChildren());
+		assertSame(loaded, root.getChild(1));
+		assertSame(added, root.getChild(2));
+
+		return;
+	}
+
+	/**
+	 * Clears the soft reference that signals low memory to a node with
+	 * unloadable children, as the garbage collector would.
+	 * 
+	 * @param tree
+	 *            The node.
+	 */
+	private void clearUnloadReference(BasicTestTree tree) throws Exception {
+		Field field = BasicTree.class.getDeclaredField("unloadReference");
+		field.setAccessible(true);
+		Reference<?> reference = (Reference<?>) field.get(tree);
+		if (reference != null) {
+			reference.clear();
+		}
+	}
+
+	/**
+	 * Checks the allocation budgets of traversals, hashing and equality. After
+	 * warming up, full-tree hashing and equality allocate nothing, and a new
+	 * iterator allocates nothing for each node it visits. This uses the thread
+	 * allocation counters of HotSpot-based JVMs and is skipped on other JVMs.
+	 * 
+	 * @see AllocationMeter
+	 */
+	@Test
+	public void checkAllocation() {
+
+		AllocationMeter meter = new AllocationMeter(20000);
+
+		// Create two equal trees with a few hundred nodes.
+		final BasicTestTree tree = createLargeTestTree();
+		final BasicTestTree copy = createLargeTestTree();
+		assertTrue(tree.equals(copy, true));
+
+		// Hashing and equality use pooled iterators.
+		meter.assertBudget("Full-tree hash", 0, new Runnable() {
+			@Override
+			public void run() {
+				tree.hashCode(true);
+			}
+		});
+		meter.assertBudget("Full-tree equality", 0, new Runnable() {
+			@Override
+			public void run() {
+				tree.equals(copy, true);
+			}
+		});
+
+		// A new iterator allocates itself and arrays that can hold the widest
+		// part of the tree. Any object allocated per node, such as a boxed
+		// depth or a linked list node, takes at least 16 bytes, so the budget
+		// is half of that per node.
+		int size = 0;
+		Iterator<BasicTestTree> nodes = tree.iterator();
+		while (nodes.hasNext()) {
+			nodes.next();
+			size++;
+		}
+		for (final TreeIterationOrder order : TreeIterationOrder.values()) {
+			meter.assertBudget(order + " traversal", 8 * size, new Runnable() {
+				@Override
+				public void run() {
+					Iterator<BasicTestTree> iterator = tree.iterator(order);
+					while (iterator.hasNext()) {
+						iterator.next();
+					}
+				}
+			});
+		}
+
+		return;
+	}
+
+	/**
+	 * Creates a test tree with 200 extra nodes added below the children of
+	 * the root.
+	 * 
+	 * @return The root of the new tree.
+	 */
+	private BasicTestTree createLargeTestTree() {
+		BasicTestTree root = BasicTestTree.createTestTree();
+		for (int i = 0; i < 200; i++) {
+			BasicTestTree child = BasicTestTree.createTestTree();
+			child.property = "E" + i;
+			root.getChild(i % 2).addChild(child);
+		}
+		return root;
+	}
+
 	/**
 	 * A fake {@link BasicTestTree} with no properties.
 	 * 
@@ -0,0 +1,220 @@
+package com.bar.foo.tree.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.bar.foo.tree.BasicTree;
+import com.bar.foo.tree.InheritedAttribute;
+import com.bar.foo.tree.SynthesizedAttribute;
+import com.bar.foo.tree.TreeAttribute;
+
+/**
+ * This class tests {@link TreeAttribute}s and their invalidation by
+ * {@link BasicTree}. It uses the tree from
+ * {@link BasicTestTree#createTestTree()}.
+ *
+ * @author Jordan
+ *
+ */
+public class TreeAttributeTester {
+
+	/**
+	 * The number of times {@link #size} has computed a value.
+	 */
+	private int sizeComputations = 0;
+
+	/**
+	 * The number of nodes in each sub-tree.
+	 */
+	private final SynthesizedAttribute<BasicTestTree, Integer> size = new SynthesizedAttribute<BasicTestTree, Integer>() {
+		@Override
+		protected Integer compute(BasicTestTree node, List<Integer> childValues) {
+			sizeComputations++;
+			int size = 1;
+			for (Integer childSize : childValues) {
+				size += childSize;
+			}
+			return size;
+		}
+	};
+
+	/**
+	 * The number of times {@link #path} has computed a value.
+	 */
+	private int pathComputations = 0;
+
+	/**
+	 * The properties of each node's ancestors and itself, separated by "/".
+	 */
+	private final InheritedAttribute<BasicTestTree, String> path = new InheritedAttribute<BasicTestTree, String>() {
+		@Override
+		protected String computeRoot(BasicTestTree root) {
+			pathComputations++;
+			return root.property;
+		}
+
+		@Override
+		protected String compute(BasicTestTree node, String parentValue) {
+			pathComputations++;
+			return parentValue + "/" + node.property;
+		}
+	};
+
+	/**
+	 * Checks that synthesized values are computed from the children, cached,
+	 * and recomputed only on the path above a change.
+	 */
+	@Test
+	public void checkSynthesizedAttribute() {
+
+		BasicTestTree root = BasicTestTree.createTestTree();
+		BasicTestTree b1 = root.getChild(0);
+		BasicTestTree b2 = root.getChild(1);
+		BasicTestTree c3 = b2.getChild(1);
+
+		// Each node is computed once.
+		assertEquals(12, size.get(root).intValue());
+		assertEquals(12, sizeComputations);
+		assertEquals(3, size.get(c3).intValue());
+		assertEquals(9, size.get(b2).intValue());
+		assertEquals(12, sizeComputations);
+		assertTrue(size.isCached(c3));
+
+		// Adding a child only clears the path from its parent to the root.
+		BasicTestTree child = new BasicTestTree();
+		child.property = "E1";
+		c3.addChild(child);
+		assertFalse(size.isCached(c3));
+		assertFalse(size.isCached(b2));
+		assertFalse(size.isCached(root));
+		assertTrue(size.isCached(b1));
+		assertTrue(size.isCached(b2.getChild(2)));
+		assertEquals(13, size.get(root).intValue());
+		assertEquals(12 + 4, sizeComputations);
+
+		// Moving a sub-tree clears both paths.
+		b1.addChild(c3);
+		assertFalse(size.isCached(b1));
+		assertFalse(size.isCached(b2));
+		assertTrue(size.isCached(c3));
+		assertEquals(6, size.get(b1).intValue());
+		assertEquals(6, size.get(b2).intValue());
+		assertEquals(13, size.get(root).intValue());
+
+		// Removing a child clears the path.
+		b1.removeChild(c3);
+		assertEquals(9, size.get(root).intValue());
+
+		// Invalidating the attribute for a node clears the path.
+		size.invalidate(b1.getChild(0));
+		assertFalse(size.isCached(b1.getChild(0)));
+		assertFalse(size.isCached(root));
+		assertTrue(size.isCached(b2));
+
+		return;
+	}
+
+	/**
+	 * Checks that inherited values are computed from the parent, cached, and
+	 * recomputed only in the sub-tree below a change.
+	 */
+	@Test
+	public void checkInheritedAttribute() {
+
+		BasicTestTree root = BasicTestTree.createTestTree();
+		BasicTestTree b1 = root.getChild(0);
+		BasicTestTree b2 = root.getChild(1);
+		BasicTestTree c3 = b2.getChild(1);
+		BasicTestTree d1 = c3.getChild(0);
+
+		// Only the path from the root to the node is computed.
+		assertEquals("A1/B2/C3/D1", path.get(d1));
+		assertEquals(4, pathComputations);
+		assertEquals("A1/B2/C3/D2", path.get(c3.getChild(1)));
+		assertEquals(5, pathComputations);
+		assertFalse(path.isCached(b1));
+
+		// Moving a sub-tree clears the values in the sub-tree only.
+		b1.addChild(c3);
+		assertFalse(path.isCached(c3));
+		assertFalse(path.isCached(d1));
+		assertTrue(path.isCached(b2));
+		assertEquals("A1/B1/C3/D1", path.get(d1));
+		assertEquals(5 + 3, pathComputations);
+
+		// A removed node becomes a root.
+		b1.removeChild(c3);
+		assertEquals("C3/D1", path.get(d1));
+
+		// Changing a property requires invalidating the node's attributes.
+		c3.property = "X";
+		assertEquals("C3/D1", path.get(d1));
+		c3.invalidateAttributes();
+		assertEquals("X/D1", path.get(d1));
+
+		return;
+	}
+
+	/**
+	 * Checks that null values are cached and that attributes do not recurse
+	 * on deep trees.
+	 */
+	@Test
+	public void checkNullAndDeepTrees() {
+
+		// Null values are cached like any other value.
+		final int[] computations = new int[1];
+		SynthesizedAttribute<BasicTestTree, Object> nothing = new SynthesizedAttribute<BasicTestTree, Object>() {
+			@Override
+			protected Object compute(BasicTestTree node,
+					List<Object> childValues) {
+				computations[0]++;
+				return null;
+			}
+		};
+		BasicTestTree root = BasicTestTree.createTestTree();
+		assertNull(nothing.get(root));
+		assertNull(nothing.get(root));
+		assertTrue(nothing.isCached(root));
+		assertEquals(12, computations[0]);
+
+		// A long chain of nodes does not overflow the stack.
+		InheritedAttribute<BasicTestTree, Integer> depth = new InheritedAttribute<BasicTestTree, Integer>() {
+			@Override
+			protected Integer computeRoot(BasicTestTree root) {
+				return 0;
+			}
+
+			@Override
+			protected Integer compute(BasicTestTree node, Integer parentValue) {
+				return parentValue + 1;
+			}
+		};
+		final int length = 100000;
+		BasicTestTree top = new BasicTestTree();
+		top.property = "0";
+		BasicTestTree bottom = top;
+		for (int i = 1; i < length; i++) {
+			BasicTestTree child = new BasicTestTree();
+			child.property = "0";
+			bottom.addChild(child);
+			bottom = child;
+		}
+		assertEquals(length, size.get(top).intValue());
+		assertEquals(length - 1, depth.get(bottom).intValue());
+
+		// Changing the bottom of the chain clears every synthesized value.
+		bottom.invalidateAttributes();
+		assertFalse(size.isCached(top));
+		assertTrue(depth.isCached(top));
+		assertEquals(length, size.get(top).intValue());
+
+		return;
+	}
+}
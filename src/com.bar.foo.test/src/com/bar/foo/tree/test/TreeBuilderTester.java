@@ -0,0 +1,167 @@
+package com.bar.foo.tree.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+
+import javax.xml.parsers.SAXParserFactory;
+
+import org.junit.Test;
+import org.xml.sax.Attributes;
+
+import com.bar.foo.tree.SAXTreeHandler;
+import com.bar.foo.tree.TreeBuilder;
+
+/**
+ * This class tests the streaming {@link TreeBuilder} and the
+ * {@link SAXTreeHandler} built on it.
+ *
+ * @author Jordan
+ *
+ */
+public class TreeBuilderTester {
+
+	/**
+	 * Checks that the builder creates the same tree as
+	 * {@link BasicTestTree#createTestTree()}.
+	 */
+	@Test
+	public void checkBuild() {
+
+		TreeBuilder<BasicTestTree> builder = new TreeBuilder<BasicTestTree>();
+		assertNull(builder.getRoot());
+		assertNull(builder.getCurrentNode());
+		assertFalse(builder.isComplete());
+
+		// Stream the events for the test tree.
+		builder.startNode(createNode("A1"), 2);
+		builder.startNode(createNode("B1"));
+		builder.startNode(createNode("C1"));
+		builder.endNode();
+		builder.endNode();
+		builder.startNode(createNode("B2"), 3);
+		builder.startNode(createNode("C2"));
+		builder.endNode();
+		builder.startNode(createNode("C3"));
+		builder.startNode(createNode("D1"));
+		builder.endNode();
+		builder.startNode(createNode("D2"));
+		assertEquals(4, builder.getDepth());
+		assertEquals("D2", builder.getCurrentNode().property);
+		builder.endNode();
+		builder.endNode();
+		builder.startNode(createNode("C4"));
+		builder.startNode(createNode("D3"));
+		builder.endNode();
+		builder.startNode(createNode("D4"));
+		builder.endNode();
+		builder.startNode(createNode("D5"));
+		builder.endNode();
+		builder.endNode();
+		builder.endNode();
+		BasicTestTree root = builder.endNode();
+
+		assertTrue(builder.isComplete());
+		assertSame(root, builder.getRoot());
+		assertTrue(root.equals(BasicTestTree.createTestTree(), true));
+
+		// A second root cannot be started.
+		try {
+			builder.startNode(createNode("A2"));
+			fail("TreeBuilderTester error: "
+					+ "A second root node should not be allowed.");
+		} catch (IllegalStateException e) {
+			// Exception thrown as expected.
+		}
+
+		// There is nothing left to end.
+		try {
+			builder.endNode();
+			fail("TreeBuilderTester error: "
+					+ "Ending a node when none is open should fail.");
+		} catch (IllegalStateException e) {
+			// Exception thrown as expected.
+		}
+
+		// After a reset, a new tree can be built.
+		builder.reset();
+		assertNull(builder.getRoot());
+		builder.startNode(createNode("A2"));
+		assertEquals("A2", builder.getRoot().property);
+
+		return;
+	}
+
+	/**
+	 * Checks that equal siblings are all kept by the builder.
+	 */
+	@Test
+	public void checkEqualSiblings() {
+
+		TreeBuilder<BasicTestTree> builder = new TreeBuilder<BasicTestTree>();
+		builder.startNode(createNode("A"));
+		for (int i = 0; i < 3; i++) {
+			builder.startNode(createNode("B"));
+			builder.endNode();
+		}
+		BasicTestTree root = builder.endNode();
+
+		assertEquals(3, root.getNumberOfChildren());
+		for (int i = 0; i < 3; i++) {
+			assertSame(root, root.getChild(i).getParent());
+		}
+
+		return;
+	}
+
+	/**
+	 * Checks that an XML document can be streamed into a tree.
+	 */
+	@Test
+	public void checkSAXHandler() throws Exception {
+
+		String xml = "<A1><B1><C1/></B1><B2><C2/><C3><D1/><D2/></C3>"
+				+ "<skip><Z/></skip><C4><D3/><D4>text</D4><D5/></C4></B2></A1>";
+
+		// Create a handler that skips the "skip" elements and records the text.
+		final StringBuilder text = new StringBuilder();
+		SAXTreeHandler<BasicTestTree> handler = new SAXTreeHandler<BasicTestTree>() {
+			@Override
+			protected BasicTestTree createNode(String uri, String localName,
+					String qName, Attributes attributes) {
+				return "skip".equals(qName) ? null
+						: TreeBuilderTester.this.createNode(qName);
+			}
+
+			@Override
+			protected void addText(BasicTestTree node, char[] ch, int start,
+					int length) {
+				text.append(node.property).append('=').append(ch, start,
+						length);
+			}
+		};
+
+		SAXParserFactory.newInstance().newSAXParser().parse(
+				new ByteArrayInputStream(xml.getBytes("UTF-8")), handler);
+
+		assertTrue(handler.getRoot().equals(BasicTestTree.createTestTree(),
+				true));
+		assertEquals("D4=text", text.toString());
+
+		return;
+	}
+
+	/**
+	 * Creates a test node with the specified property.
+	 */
+	private BasicTestTree createNode(String property) {
+		BasicTestTree node = new BasicTestTree();
+		node.property = property;
+		return node;
+	}
+}
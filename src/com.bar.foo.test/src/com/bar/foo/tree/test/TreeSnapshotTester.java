@@ -0,0 +1,301 @@
+package com.bar.foo.tree.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import com.bar.foo.tree.BasicTree;
+import com.bar.foo.tree.IChildLoader;
+import com.bar.foo.tree.TreeSnapshot;
+import com.bar.foo.tree.iterator.TreeIterationOrder;
+
+/**
+ * This class tests {@link TreeSnapshot} and {@link BasicTree#snapshot()}.
+ *
+ * @author Jordan
+ *
+ */
+public class TreeSnapshotTester {
+
+	/**
+	 * Checks that a snapshot's iterators see the tree as it was when the
+	 * snapshot was taken.
+	 */
+	@Test
+	public void checkIsolation() {
+
+		BasicTestTree root = BasicTestTree.createTestTree();
+		TreeSnapshot<BasicTestTree> snapshot = root.snapshot();
+		assertSame(root, snapshot.getRoot());
+		assertFalse(snapshot.isClosed());
+
+		// Change the tree: add a node, remove a leaf, and move a sub-tree.
+		BasicTestTree b1 = root.getChild(0);
+		BasicTestTree b2 = root.getChild(1);
+		BasicTestTree c3 = b2.getChild(1);
+		BasicTestTree newChild = new BasicTestTree();
+		newChild.property = "E1";
+		root.addChild(newChild);
+		b2.removeChild(0);
+		b1.addChild(c3);
+
+		// The snapshot is unchanged in every order.
+		for (TreeIterationOrder order : TreeIterationOrder.values()) {
+			assertEquals(root.getExpectedOrder(order),
+					toList(snapshot.iterator(order)));
+		}
+		assertEquals(2, snapshot.getNumberOfChildren(root));
+		assertEquals(3, snapshot.getChildren(b2).size());
+		assertSame(c3, snapshot.getChild(b2, 1));
+
+		// The tree itself has changed.
+		assertEquals(3, root.getNumberOfChildren());
+		assertEquals(2, b1.getNumberOfChildren());
+		assertEquals(1, b2.getNumberOfChildren());
+
+		// A new snapshot sees the changes.
+		TreeSnapshot<BasicTestTree> newSnapshot = root.snapshot();
+		assertEquals(toList(root.iterator(TreeIterationOrder.PreOrder)),
+				toList(newSnapshot.iterator(TreeIterationOrder.PreOrder)));
+		newSnapshot.close();
+
+		// A closed snapshot cannot be used.
+		Iterator<BasicTestTree> iterator = snapshot
+				.iterator(TreeIterationOrder.PreOrder);
+		iterator.next();
+		snapshot.close();
+		assertTrue(snapshot.isClosed());
+		try {
+			iterator.next();
+			fail("TreeSnapshotTester error: "
+					+ "A closed snapshot should not be readable.");
+		} catch (IllegalStateException e) {
+			// Exception thrown as expected.
+		}
+		try {
+			snapshot.iterator(TreeIterationOrder.PreOrder);
+			fail("TreeSnapshotTester error: "
+					+ "A closed snapshot should not be iterable.");
+		} catch (IllegalStateException e) {
+			// Exception thrown as expected.
+		}
+		// Closing again has no effect.
+		snapshot.close();
+
+		return;
+	}
+
+	/**
+	 * Checks that several open snapshots each see their own version of the
+	 * tree, including after other snapshots are closed.
+	 */
+	@Test
+	public void checkMultipleSnapshots() {
+
+		BasicTestTree root = new BasicTestTree();
+		List<TreeSnapshot<BasicTestTree>> snapshots = new ArrayList<TreeSnapshot<BasicTestTree>>();
+
+		// Take a snapshot before each of several changes to the same node.
+		for (int i = 0; i < 5; i++) {
+			snapshots.add(root.snapshot());
+			BasicTestTree child = new BasicTestTree();
+			child.property = Integer.toString(i);
+			root.addChild(child);
+			root.addChild(new BasicTestTree());
+			root.removeChild(root.getNumberOfChildren() - 1);
+		}
+
+		// Close every other snapshot. The rest still see their versions.
+		for (int i = 1; i < snapshots.size(); i += 2) {
+			snapshots.get(i).close();
+		}
+		for (int i = 0; i < snapshots.size(); i += 2) {
+			TreeSnapshot<BasicTestTree> snapshot = snapshots.get(i);
+			assertEquals(i, snapshot.getNumberOfChildren(root));
+			List<BasicTestTree> nodes = toList(snapshot
+					.iterator(TreeIterationOrder.BreadthFirst));
+			assertEquals(i + 1, nodes.size());
+			for (int j = 0; j < i; j++) {
+				assertEquals(Integer.toString(j), nodes.get(j + 1).property);
+			}
+			snapshot.close();
+		}
+
+		return;
+	}
+
+	/**
+	 * Checks that snapshot iterators do not support removal.
+	 */
+	@Test
+	public void checkRemove() {
+
+		BasicTestTree root = BasicTestTree.createTestTree();
+		TreeSnapshot<BasicTestTree> snapshot = root.snapshot();
+		for (TreeIterationOrder order : TreeIterationOrder.values()) {
+			Iterator<BasicTestTree> iterator = snapshot.iterator(order);
+			iterator.next();
+			iterator.next();
+			try {
+				iterator.remove();
+				fail("TreeSnapshotTester error: "
+						+ "Snapshot iterators should not remove nodes.");
+			} catch (UnsupportedOperationException e) {
+				// Exception thrown as expected.
+			}
+		}
+		assertNull(snapshot.iterator(null));
+		snapshot.close();
+
+		// The tree was not changed.
+		assertEquals(root.getExpectedOrder(TreeIterationOrder.PreOrder),
+				toList(root.iterator(TreeIterationOrder.PreOrder)));
+
+		return;
+	}
+
+	/**
+	 * Checks that lazily loaded children are loaded by a snapshot and that a
+	 * snapshot still sees children that are unloaded after it was taken.
+	 */
+	@Test
+	public void checkLazyChildren() {
+
+		IChildLoader<BasicTestTree> loader = new IChildLoader<BasicTestTree>() {
+			@Override
+			public boolean hasChildren(BasicTestTree parent) {
+				return true;
+			}
+
+			@Override
+			public List<BasicTestTree> loadChildren(BasicTestTree parent) {
+				List<BasicTestTree> children = new ArrayList<BasicTestTree>();
+				for (int i = 1; i <= 2; i++) {
+					BasicTestTree child = new BasicTestTree();
+					child.property = parent.property + "." + i;
+					children.add(child);
+				}
+				return children;
+			}
+		};
+
+		BasicTestTree root = new BasicTestTree();
+		root.property = "A";
+		root.setChildLoader(loader);
+
+		// The snapshot loads the children when it reads them.
+		TreeSnapshot<BasicTestTree> snapshot = root.snapshot();
+		assertFalse(root.isChildrenLoaded());
+		List<BasicTestTree> nodes = toList(snapshot
+				.iterator(TreeIterationOrder.PreOrder));
+		assertTrue(root.isChildrenLoaded());
+		assertEquals(3, nodes.size());
+		assertEquals("A.2", nodes.get(2).property);
+
+		// Unloading the children does not change the snapshot.
+		assertTrue(root.unloadChildren());
+		assertEquals(nodes,
+				toList(snapshot.iterator(TreeIterationOrder.PreOrder)));
+		snapshot.close();
+
+		return;
+	}
+
+	/**
+	 * Checks that snapshots taken and read on one thread are consistent
+	 * while another thread adds and removes children.
+	 */
+	@Test
+	public void checkConcurrentWriter() throws InterruptedException {
+
+		final BasicTestTree root = new BasicTestTree();
+		final AtomicBoolean done = new AtomicBoolean();
+		final AtomicReference<Throwable> writerError = new AtomicReference<Throwable>();
+
+		// The writer appends nodes at random places and occasionally removes
+		// a node's first child.
+		Thread writer = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Random random = new Random(42);
+					List<BasicTestTree> nodes = new ArrayList<BasicTestTree>();
+					nodes.add(root);
+					while (!done.get()) {
+						BasicTestTree parent = nodes.get(random.nextInt(nodes
+								.size()));
+						if (random.nextInt(8) == 0 && parent.hasChildren()) {
+							parent.removeChild(0);
+						} else if (nodes.size() < 20000) {
+							BasicTestTree child = new BasicTestTree();
+							parent.addChild(child);
+							nodes.add(child);
+						}
+					}
+				} catch (Throwable e) {
+					writerError.set(e);
+				}
+			}
+		};
+		writer.start();
+
+		// Each snapshot must return the same nodes every time it is read, and
+		// each order must agree on the number of nodes.
+		try {
+			long end = System.currentTimeMillis() + 500;
+			int snapshots = 0;
+			while (System.currentTimeMillis() < end || snapshots < 10) {
+				TreeSnapshot<BasicTestTree> snapshot = root.snapshot();
+				try {
+					List<BasicTestTree> first = toList(snapshot
+							.iterator(TreeIterationOrder.PreOrder));
+					assertSame(root, first.get(0));
+					// Nodes are compared by identity, since they are all equal.
+					List<BasicTestTree> second = toList(snapshot
+							.iterator(TreeIterationOrder.PreOrder));
+					assertEquals(first.size(), second.size());
+					for (int i = 0; i < first.size(); i++) {
+						assertSame(first.get(i), second.get(i));
+					}
+					assertEquals(first.size(), toList(snapshot
+							.iterator(TreeIterationOrder.PostOrder)).size());
+					assertEquals(first.size(), toList(snapshot
+							.iterator(TreeIterationOrder.BreadthFirst))
+							.size());
+				} finally {
+					snapshot.close();
+				}
+				snapshots++;
+			}
+		} finally {
+			done.set(true);
+			writer.join();
+		}
+		assertNull(writerError.get());
+
+		return;
+	}
+
+	/**
+	 * Reads all nodes from an iterator into a list.
+	 */
+	private List<BasicTestTree> toList(Iterator<BasicTestTree> iterator) {
+		List<BasicTestTree> list = new ArrayList<BasicTestTree>();
+		while (iterator.hasNext()) {
+			list.add(iterator.next());
+		}
+		return list;
+	}
+}
@@ -0,0 +1,271 @@
+package com.bar.foo.tree.visitor.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.bar.foo.tree.iterator.TreeIterationOrder;
+import com.bar.foo.tree.test.BasicTestTree;
+import com.bar.foo.tree.visitor.ITreeVisitor;
+import com.bar.foo.tree.visitor.TreeVisitResult;
+import com.bar.foo.tree.visitor.TreeWalker;
+
+/**
+ * This class tests the {@link TreeWalker} and the pruning provided by
+ * {@link TreeVisitResult}. It uses the tree from
+ * {@link BasicTestTree#createTestTree()}.
+ * 
+ * @author Jordan
+ *
+ */
+public class TreeWalkerTester {
+
+	/**
+	 * Checks that a full walk enters nodes in pre-order and exits them in
+	 * post-order.
+	 */
+	@Test
+	public void checkOrder() {
+
+		BasicTestTree root = BasicTestTree.createTestTree();
+		RecordingVisitor visitor = new RecordingVisitor(null, null);
+
+		assertTrue(new TreeWalker<BasicTestTree>().walk(root, visitor));
+		List<String> expected = new ArrayList<String>();
+		for (BasicTestTree node : root
+				.getExpectedOrder(TreeIterationOrder.PreOrder)) {
+			expected.add(node.property);
+		}
+		assertEquals(expected, visitor.entered);
+		expected.clear();
+		for (BasicTestTree node : root
+				.getExpectedOrder(TreeIterationOrder.PostOrder)) {
+			expected.add(node.property);
+		}
+		assertEquals(expected, visitor.exited);
+
+		// The depths should match the tree structure.
+		assertEquals("A1:0 B1:1 C1:2 B2:1 C2:2 C3:2 D1:3 D2:3 C4:2 D3:3 "
+				+ "D4:3 D5:3 ", visitor.depths.toString());
+
+		// Null trees and visitors are not allowed.
+		TreeWalker<BasicTestTree> walker = new TreeWalker<BasicTestTree>();
+		try {
+			walker.walk(null, visitor);
+			fail("TreeWalkerTester error: "
+					+ "A null root should not be walked.");
+		} catch (IllegalArgumentException e) {
+			// Exception thrown as expected.
+		}
+		try {
+			walker.walk(root, null);
+			fail("TreeWalkerTester error: "
+					+ "A null visitor should not be accepted.");
+		} catch (IllegalArgumentException e) {
+			// Exception thrown as expected.
+		}
+
+		return;
+	}
+
+	/**
+	 * Checks that {@link TreeVisitResult#SKIP_SUBTREE} and
+	 * {@link TreeVisitResult#SKIP_SIBLINGS} prune the walk.
+	 */
+	@Test
+	public void checkSkip() {
+
+		BasicTestTree root = BasicTestTree.createTestTree();
+		TreeWalker<BasicTestTree> walker = new TreeWalker<BasicTestTree>();
+		RecordingVisitor visitor;
+
+		// Skipping C3's sub-tree skips D1 and D2, and C3 is not exited.
+		visitor = new RecordingVisitor("C3", TreeVisitResult.SKIP_SUBTREE);
+		assertTrue(walker.walk(root, visitor));
+		assertEquals("[A1, B1, C1, B2, C2, C3, C4, D3, D4, D5]",
+				visitor.entered.toString());
+		assertEquals("[C1, B1, C2, D3, D4, D5, C4, B2, A1]",
+				visitor.exited.toString());
+
+		// Skipping C3's siblings skips its sub-tree and C4, but B2 is exited.
+		visitor = new RecordingVisitor("C3", TreeVisitResult.SKIP_SIBLINGS);
+		assertTrue(walker.walk(root, visitor));
+		assertEquals("[A1, B1, C1, B2, C2, C3]", visitor.entered.toString());
+		assertEquals("[C1, B1, C2, B2, A1]", visitor.exited.toString());
+
+		// Skipping the root's sub-tree only enters the root.
+		visitor = new RecordingVisitor("A1", TreeVisitResult.SKIP_SUBTREE);
+		assertTrue(walker.walk(root, visitor));
+		assertEquals("[A1]", visitor.entered.toString());
+		assertEquals("[]", visitor.exited.toString());
+
+		// Skipping siblings when exiting a node skips the node's remaining
+		// siblings.
+		visitor = new RecordingVisitor(null, null) {
+			@Override
+			public TreeVisitResult exit(BasicTestTree node, int depth) {
+				super.exit(node, depth);
+				return "D1".equals(node.property) ? TreeVisitResult.SKIP_SIBLINGS
+						: TreeVisitResult.CONTINUE;
+			}
+		};
+		assertTrue(walker.walk(root, visitor));
+		assertEquals("[A1, B1, C1, B2, C2, C3, D1, C4, D3, D4, D5]",
+				visitor.entered.toString());
+		assertEquals("[C1, B1, C2, D1, C3, D3, D4, D5, C4, B2, A1]",
+				visitor.exited.toString());
+
+		return;
+	}
+
+	/**
+	 * Checks that {@link TreeVisitResult#TERMINATE} ends the walk.
+	 */
+	@Test
+	public void checkTerminate() {
+
+		BasicTestTree root = BasicTestTree.createTestTree();
+		TreeWalker<BasicTestTree> walker = new TreeWalker<BasicTestTree>();
+		RecordingVisitor visitor;
+
+		// Terminate when entering a node.
+		visitor = new RecordingVisitor("D1", TreeVisitResult.TERMINATE);
+		assertFalse(walker.walk(root, visitor));
+		assertEquals("[A1, B1, C1, B2, C2, C3, D1]",
+				visitor.entered.toString());
+		assertEquals("[C1, B1, C2]", visitor.exited.toString());
+
+		// Terminate when exiting a node.
+		visitor = new RecordingVisitor(null, null) {
+			@Override
+			public TreeVisitResult exit(BasicTestTree node, int depth) {
+				super.exit(node, depth);
+				return "B1".equals(node.property) ? TreeVisitResult.TERMINATE
+						: TreeVisitResult.CONTINUE;
+			}
+		};
+		assertFalse(walker.walk(root, visitor));
+		assertEquals("[A1, B1, C1]", visitor.entered.toString());
+		assertEquals("[C1, B1]", visitor.exited.toString());
+
+		// The walker can be re-used after terminating.
+		visitor = new RecordingVisitor(null, null);
+		assertTrue(walker.walk(root, visitor));
+		assertEquals(12, visitor.entered.size());
+
+		return;
+	}
+
+	/**
+	 * Checks that very deep trees can be walked without overflowing the call
+	 * stack.
+	 */
+	@Test
+	public void checkDeepTree() {
+
+		final int depth = 100000;
+
+		// Create a chain of nodes.
+		BasicTestTree root = new BasicTestTree();
+		BasicTestTree node = root;
+		for (int i = 0; i < depth; i++) {
+			BasicTestTree child = new BasicTestTree();
+			node.addChild(child);
+			node = child;
+		}
+
+		final int[] counts = new int[2];
+		assertTrue(new TreeWalker<BasicTestTree>().walk(root,
+				new ITreeVisitor<BasicTestTree>() {
+					@Override
+					public TreeVisitResult enter(BasicTestTree node, int depth) {
+						counts[0]++;
+						return TreeVisitResult.CONTINUE;
+					}
+
+					@Override
+					public TreeVisitResult exit(BasicTestTree node, int depth) {
+						counts[1] = Math.max(counts[1], depth);
+						return TreeVisitResult.CONTINUE;
+					}
+				}));
+		assertEquals(depth + 1, counts[0]);
+		assertEquals(depth, counts[1]);
+
+		return;
+	}
+
+	/**
+	 * A visitor that records the nodes it enters and exits. It returns a
+	 * specific result when entering the node with a specific property.
+	 */
+	private static class RecordingVisitor implements
+			ITreeVisitor<BasicTestTree> {
+
+		/**
+		 * The properties of the nodes entered, in order.
+		 */
+		public final List<String> entered = new ArrayList<String>();
+
+		/**
+		 * The properties of the nodes exited, in order.
+		 */
+		public final List<String> exited = new ArrayList<String>();
+
+		/**
+		 * The property and depth of each entered node.
+		 */
+		public final StringBuilder depths = new StringBuilder();
+
+		/**
+		 * The property of the node for which {@link #result} is returned.
+		 */
+		private final String property;
+
+		/**
+		 * The result returned when entering the node with the
+		 * {@link #property}.
+		 */
+		private final TreeVisitResult result;
+
+		/**
+		 * The default constructor.
+		 * 
+		 * @param property
+		 *            The property of the node for which the result is
+		 *            returned.
+		 * @param result
+		 *            The result to return when entering that node.
+		 */
+		public RecordingVisitor(String property, TreeVisitResult result) {
+			this.property = property;
+			this.result = result;
+		}
+
+		/*
+		 * Implements a method from ITreeVisitor.
+		 */
+		@Override
+		public TreeVisitResult enter(BasicTestTree node, int depth) {
+			entered.add(node.property);
+			depths.append(node.property).append(':').append(depth).append(' ');
+			return property != null && property.equals(node.property) ? result
+					: TreeVisitResult.CONTINUE;
+		}
+
+		/*
+		 * Implements a method from ITreeVisitor.
+		 */
+		@Override
+		public TreeVisitResult exit(BasicTestTree node, int depth) {
+			exited.add(node.property);
+			return TreeVisitResult.CONTINUE;
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package com.bar.foo.workload.test;
+
+import com.bar.foo.tree.BasicTree;
+
+/**
+ * This interface creates the nodes of a {@link TreeWorkload} and sets their
+ * payloads, so that workloads can be built from any {@link BasicTree}.
+ *
+ * @author Jordan
+ *
+ * @param <T>
+ *            The type of tree node.
+ */
+public interface ITreeNodeFactory<T extends BasicTree<T>> {
+
+	/**
+	 * Creates a node with no children.
+	 *
+	 * @param id
+	 *            The index of the node in the workload.
+	 * @param payload
+	 *            The node's payload.
+	 * @return A new node.
+	 */
+	public T create(int id, int payload);
+
+	/**
+	 * Changes a node's payload.
+	 *
+	 * @param node
+	 *            The node to change.
+	 * @param payload
+	 *            The new payload.
+	 */
+	public void setPayload(T node, int payload);
+}
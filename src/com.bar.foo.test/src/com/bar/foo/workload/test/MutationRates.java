@@ -0,0 +1,90 @@
+package com.bar.foo.workload.test;
+
+/**
+ * This class holds the relative rates of each {@link TreeMutation.Type} in a
+ * mutation trace. The rates are weights, so {@code (2, 1, 1, 0)} and
+ * {@code (0.5, 0.25, 0.25, 0)} describe the same traces.
+ *
+ * @author Jordan
+ *
+ */
+public final class MutationRates {
+
+	/**
+	 * The cumulative probability of each type, indexed by ordinal.
+	 */
+	private final double[] distribution = new double[TreeMutation.Type
+			.values().length];
+
+	/**
+	 * The default constructor.
+	 *
+	 * @param add
+	 *            The rate of {@link TreeMutation.Type#Add}.
+	 * @param remove
+	 *            The rate of {@link TreeMutation.Type#Remove}.
+	 * @param move
+	 *            The rate of {@link TreeMutation.Type#Move}.
+	 * @param payloadChange
+	 *            The rate of {@link TreeMutation.Type#PayloadChange}.
+	 * @throws IllegalArgumentException
+	 *             If a rate is negative or not a number, or if all are zero.
+	 */
+	public MutationRates(double add, double remove, double move,
+			double payloadChange) {
+		double[] rates = { add, remove, move, payloadChange };
+		double total = 0.0;
+		for (int i = 0; i < rates.length; i++) {
+			if (!(rates[i] >= 0.0)) {
+				throw new IllegalArgumentException("MutationRates error: "
+						+ "Rates cannot be negative.");
+			}
+			total += rates[i];
+			distribution[i] = total;
+		}
+		if (!(total > 0.0) || Double.isInfinite(total)) {
+			throw new IllegalArgumentException("MutationRates error: "
+					+ "At least one rate must be positive and finite.");
+		}
+		for (int i = 0; i < distribution.length; i++) {
+			distribution[i] /= total;
+		}
+	}
+
+	/**
+	 * Gets the probability of a type of change.
+	 *
+	 * @param type
+	 *            The type of change.
+	 * @return The probability, from 0 to 1.
+	 */
+	public double getProbability(TreeMutation.Type type) {
+		int i = type.ordinal();
+		return distribution[i] - (i > 0 ? distribution[i - 1] : 0.0);
+	}
+
+	/**
+	 * Chooses a type of change.
+	 *
+	 * @param value
+	 *            A uniformly random number from 0 (inclusive) to 1
+	 *            (exclusive).
+	 * @return The type with the cumulative probability that covers the value.
+	 */
+	TreeMutation.Type choose(double value) {
+		TreeMutation.Type[] types = TreeMutation.Type.values();
+		TreeMutation.Type type = null;
+		for (int i = 0; i < types.length && type == null; i++) {
+			if (value < distribution[i]) {
+				type = types[i];
+			}
+		}
+		// Rounding can leave the last cumulative probability just below 1.
+		for (int i = types.length - 1; type == null; i--) {
+			if (getProbability(types[i]) > 0.0) {
+				type = types[i];
+			}
+		}
+		return type;
+	}
+}
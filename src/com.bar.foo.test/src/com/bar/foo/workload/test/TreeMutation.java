@@ -0,0 +1,118 @@
+package com.bar.foo.workload.test;
+
+/**
+ * This class describes one change in a mutation trace from a
+ * {@link TreeWorkloadGenerator}. Nodes are identified by their index in the
+ * {@link TreeWorkload}. New nodes get the next unused index.
+ *
+ * @author Jordan
+ *
+ */
+public final class TreeMutation {
+
+	/**
+	 * An enumeration of the types of changes.
+	 *
+	 * @author Jordan
+	 *
+	 */
+	public enum Type {
+		/**
+		 * A new node is added as the last child of a parent.
+		 */
+		Add,
+
+		/**
+		 * A node and its sub-tree are removed from the node's parent.
+		 */
+		Remove,
+
+		/**
+		 * A node and its sub-tree are moved to the end of a new parent's
+		 * children.
+		 */
+		Move,
+
+		/**
+		 * A node's payload is changed.
+		 */
+		PayloadChange;
+	}
+
+	/**
+	 * The type of change.
+	 */
+	public final Type type;
+
+	/**
+	 * The index of the node that is added, removed, moved or changed.
+	 */
+	public final int node;
+
+	/**
+	 * The index of the new parent for {@link Type#Add} and {@link Type#Move},
+	 * the old parent for {@link Type#Remove}, or -1.
+	 */
+	public final int parent;
+
+	/**
+	 * The new payload for {@link Type#Add} and {@link Type#PayloadChange}, or
+	 * 0.
+	 */
+	public final int payload;
+
+	/**
+	 * The default constructor.
+	 *
+	 * @param type
+	 *            The type of change.
+	 * @param node
+	 *            The index of the node.
+	 * @param parent
+	 *            The index of the parent, or -1.
+	 * @param payload
+	 *            The payload, or 0.
+	 */
+	TreeMutation(Type type, int node, int parent, int payload) {
+		this.type = type;
+		this.node = node;
+		this.parent = parent;
+		this.payload = payload;
+	}
+
+	/*
+	 * Overrides a method from Object.
+	 */
+	@Override
+	public boolean equals(Object object) {
+		boolean equals = (this == object);
+		if (!equals && object instanceof TreeMutation) {
+			TreeMutation mutation = (TreeMutation) object;
+			equals = type == mutation.type && node == mutation.node
+					&& parent == mutation.parent
+					&& payload == mutation.payload;
+		}
+		return equals;
+	}
+
+	/*
+	 * Overrides a method from Object.
+	 */
+	@Override
+	public int hashCode() {
+		int hash = type.hashCode();
+		hash = hash * 31 + node;
+		hash = hash * 31 + parent;
+		hash = hash * 31 + payload;
+		return hash;
+	}
+
+	/*
+	 * Overrides a method from Object.
+	 */
+	@Override
+	public String toString() {
+		return type + " " + node + " (parent " + parent + ", payload "
+				+ payload + ")";
+	}
+}
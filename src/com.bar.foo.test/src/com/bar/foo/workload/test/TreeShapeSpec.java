@@ -0,0 +1,301 @@
+package com.bar.foo.workload.test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This class describes the shape of a generated tree. Shapes are created with
+ * the static factory methods, and a shape produces the parent of each node in
+ * a tree of any size with {@link #createParents(int, Random)}.
+ * <p>
+ * In every shape, node 0 is the root and each other node's parent has a
+ * smaller index. Children are added in increasing order of their index.
+ * </p>
+ *
+ * @author Jordan
+ *
+ */
+public final class TreeShapeSpec {
+
+	/**
+	 * An enumeration of the kinds of shapes.
+	 *
+	 * @author Jordan
+	 *
+	 */
+	public enum Kind {
+		/**
+		 * A complete k-ary tree filled level by level.
+		 */
+		Balanced,
+
+		/**
+		 * A tree filled level by level, where each node's number of children
+		 * follows a Zipf distribution.
+		 */
+		Zipfian,
+
+		/**
+		 * A chain where each node is the only child of the previous one.
+		 */
+		Chain,
+
+		/**
+		 * A chain (the spine) where each spine node also has a fixed number of
+		 * leaves (the legs).
+		 */
+		Caterpillar,
+
+		/**
+		 * A random recursive tree, where each node is attached to a uniformly
+		 * random earlier node.
+		 */
+		RandomRecursive;
+	}
+
+	/**
+	 * The kind of shape.
+	 */
+	private final Kind kind;
+
+	/**
+	 * The number of children per node for {@link Kind#Balanced}, the maximum
+	 * number for {@link Kind#Zipfian}, or the number of legs per spine node
+	 * for {@link Kind#Caterpillar}.
+	 */
+	private final int fanOut;
+
+	/**
+	 * The exponent of the distribution for {@link Kind#Zipfian}.
+	 */
+	private final double exponent;
+
+	/**
+	 * The default constructor. Use the static factory methods instead.
+	 *
+	 * @param kind
+	 *            The kind of shape.
+	 * @param fanOut
+	 *            The fan-out parameter, if any.
+	 * @param exponent
+	 *            The exponent, if any.
+	 */
+	private TreeShapeSpec(Kind kind, int fanOut, double exponent) {
+		this.kind = kind;
+		this.fanOut = fanOut;
+		this.exponent = exponent;
+	}
+
+	/**
+	 * Creates a balanced k-ary shape.
+	 *
+	 * @param fanOut
+	 *            The number of children of each node. If less than 1, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @return The shape.
+	 */
+	public static TreeShapeSpec balanced(int fanOut) {
+		if (fanOut < 1) {
+			throw new IllegalArgumentException("TreeShapeSpec error: "
+					+ "The fan-out must be at least 1.");
+		}
+		return new TreeShapeSpec(Kind.Balanced, fanOut, 0.0);
+	}
+
+	/**
+	 * Creates a shape whose fan-outs follow a Zipf distribution. Nodes are
+	 * given children level by level, and the probability that a node has
+	 * {@code k} children is proportional to {@code 1 / k^exponent} for
+	 * {@code k} from 1 to the maximum. Most nodes have few children, and a
+	 * few have many, like the menus of a typical application.
+	 *
+	 * @param maxFanOut
+	 *            The maximum number of children of a node. If less than 1, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @param exponent
+	 *            The exponent of the distribution. If not positive, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @return The shape.
+	 */
+	public static TreeShapeSpec zipfian(int maxFanOut, double exponent) {
+		if (maxFanOut < 1 || !(exponent > 0.0)) {
+			throw new IllegalArgumentException("TreeShapeSpec error: "
+					+ "The maximum fan-out must be at least 1 and the "
+					+ "exponent must be positive.");
+		}
+		return new TreeShapeSpec(Kind.Zipfian, maxFanOut, exponent);
+	}
+
+	/**
+	 * Creates a deep chain shape.
+	 *
+	 * @return The shape.
+	 */
+	public static TreeShapeSpec chain() {
+		return new TreeShapeSpec(Kind.Chain, 1, 0.0);
+	}
+
+	/**
+	 * Creates a caterpillar shape. Each node on the spine gets its legs
+	 * before the next spine node.
+	 *
+	 * @param legs
+	 *            The number of leaves on each spine node. If negative, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @return The shape.
+	 */
+	public static TreeShapeSpec caterpillar(int legs) {
+		if (legs < 0) {
+			throw new IllegalArgumentException("TreeShapeSpec error: "
+					+ "The number of legs cannot be negative.");
+		}
+		return new TreeShapeSpec(Kind.Caterpillar, legs, 0.0);
+	}
+
+	/**
+	 * Creates a random recursive shape. The expected depth is logarithmic,
+	 * but the fan-out varies widely.
+	 *
+	 * @return The shape.
+	 */
+	public static TreeShapeSpec randomRecursive() {
+		return new TreeShapeSpec(Kind.RandomRecursive, 0, 0.0);
+	}
+
+	/**
+	 * Gets the kind of shape.
+	 *
+	 * @return The kind.
+	 */
+	public Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * Gets the parent of each node in a tree of this shape.
+	 *
+	 * @param size
+	 *            The number of nodes in the tree. If not positive, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @param random
+	 *            The source of random numbers for the random shapes.
+	 * @return An array whose element {@code i} is the index of node
+	 *         {@code i}'s parent. The root's parent is -1.
+	 */
+	public int[] createParents(int size, Random random) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("TreeShapeSpec error: "
+					+ "A tree must have at least one node.");
+		}
+		int[] parents = new int[size];
+		parents[0] = -1;
+
+		switch (kind) {
+		case Balanced:
+			for (int i = 1; i < size; i++) {
+				parents[i] = (i - 1) / fanOut;
+			}
+			break;
+		case Zipfian:
+			// Give each node in turn a random number of children.
+			double[] distribution = createZipfDistribution();
+			int parent = 0;
+			int remaining = drawFanOut(distribution, random);
+			for (int i = 1; i < size; i++) {
+				parents[i] = parent;
+				if (--remaining == 0) {
+					parent++;
+					remaining = drawFanOut(distribution, random);
+				}
+			}
+			break;
+		case Chain:
+			for (int i = 1; i < size; i++) {
+				parents[i] = i - 1;
+			}
+			break;
+		case Caterpillar:
+			int spine = 0;
+			int legs = 0;
+			for (int i = 1; i < size; i++) {
+				parents[i] = spine;
+				if (legs < fanOut) {
+					legs++;
+				} else {
+					spine = i;
+					legs = 0;
+				}
+			}
+			break;
+		case RandomRecursive:
+			for (int i = 1; i < size; i++) {
+				parents[i] = random.nextInt(i);
+			}
+			break;
+		}
+
+		return parents;
+	}
+
+	/**
+	 * Creates the cumulative Zipf distribution over the fan-outs from 1 to
+	 * the maximum.
+	 *
+	 * @return An array whose element {@code k - 1} is the probability of a
+	 *         fan-out of at most {@code k}.
+	 */
+	private double[] createZipfDistribution() {
+		double[] distribution = new double[fanOut];
+		double total = 0.0;
+		for (int k = 1; k <= fanOut; k++) {
+			total += 1.0 / Math.pow(k, exponent);
+			distribution[k - 1] = total;
+		}
+		for (int k = 0; k < fanOut; k++) {
+			distribution[k] /= total;
+		}
+		return distribution;
+	}
+
+	/**
+	 * Draws a fan-out from a cumulative distribution.
+	 *
+	 * @param distribution
+	 *            The distribution from {@link #createZipfDistribution()}.
+	 * @param random
+	 *            The source of random numbers.
+	 * @return A fan-out from 1 to the maximum.
+	 */
+	private static int drawFanOut(double[] distribution, Random random) {
+		int index = Arrays.binarySearch(distribution, random.nextDouble());
+		// A missing value gives the insertion point, the first larger value.
+		index = (index >= 0 ? index : -index - 1);
+		return Math.min(index, distribution.length - 1) + 1;
+	}
+
+	/*
+	 * Overrides a method from Object.
+	 */
+	@Override
+	public String toString() {
+		String string;
+		switch (kind) {
+		case Balanced:
+			string = "balanced(" + fanOut + ")";
+			break;
+		case Zipfian:
+			string = "zipfian(" + fanOut + ", " + exponent + ")";
+			break;
+		case Caterpillar:
+			string = "caterpillar(" + fanOut + ")";
+			break;
+		case Chain:
+			string = "chain()";
+			break;
+		default:
+			string = "randomRecursive()";
+			break;
+		}
+		return string;
+	}
+}
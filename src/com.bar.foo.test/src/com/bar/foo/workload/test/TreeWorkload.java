@@ -0,0 +1,320 @@
+package com.bar.foo.workload.test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.bar.foo.actiontree.ActionTree;
+import com.bar.foo.tree.BasicTree;
+import com.bar.foo.wraptree.INode;
+import com.bar.foo.wraptree.ITree;
+import com.bar.foo.wraptree.SimpleNode;
+import com.bar.foo.wraptree.SimpleTree;
+
+/**
+ * This class holds a tree and a trace of changes to it, created by a
+ * {@link TreeWorkloadGenerator}. The tree is stored as the parent and payload
+ * of each node, so the same workload can be built from any kind of tree any
+ * number of times. Nodes are identified by their index.
+ * <p>
+ * The expected structure after the whole trace has been applied is also
+ * stored, so that a tree can be checked after the changes.
+ * </p>
+ *
+ * @author Jordan
+ *
+ */
+public final class TreeWorkload {
+
+	/**
+	 * The parent of a node that has been removed, in
+	 * {@link #getFinalParents()}.
+	 */
+	public static final int REMOVED = -2;
+
+	/**
+	 * A factory for {@link ActionTree}s. The payload is used as the text.
+	 */
+	public static final ITreeNodeFactory<ActionTree> ACTION_TREE_FACTORY = new ITreeNodeFactory<ActionTree>() {
+		@Override
+		public ActionTree create(int id, int payload) {
+			ActionTree tree = new ActionTree();
+			tree.setText(Integer.toString(payload));
+			return tree;
+		}
+
+		@Override
+		public void setPayload(ActionTree node, int payload) {
+			node.setText(Integer.toString(payload));
+		}
+	};
+
+	/**
+	 * The shape of the initial tree.
+	 */
+	private final TreeShapeSpec shape;
+
+	/**
+	 * The seed that the workload was generated from.
+	 */
+	private final long seed;
+
+	/**
+	 * The parent of each node in the initial tree.
+	 */
+	private final int[] parents;
+
+	/**
+	 * The payload of each node in the initial tree.
+	 */
+	private final int[] payloads;
+
+	/**
+	 * The changes, in order.
+	 */
+	private final List<TreeMutation> mutations;
+
+	/**
+	 * The parent of each node after all changes, or {@link #REMOVED}.
+	 */
+	private final int[] finalParents;
+
+	/**
+	 * The payload of each node after all changes.
+	 */
+	private final int[] finalPayloads;
+
+	/**
+	 * The default constructor. The arrays and list are not copied.
+	 *
+	 * @param shape
+	 *            The shape of the initial tree.
+	 * @param seed
+	 *            The seed that the workload was generated from.
+	 * @param parents
+	 *            The parent of each node in the initial tree.
+	 * @param payloads
+	 *            The payload of each node in the initial tree.
+	 * @param mutations
+	 *            The changes, in order.
+	 * @param finalParents
+	 *            The parent of each node after all changes.
+	 * @param finalPayloads
+	 *            The payload of each node after all changes.
+	 */
+	TreeWorkload(TreeShapeSpec shape, long seed, int[] parents,
+			int[] payloads, List<TreeMutation> mutations, int[] finalParents,
+			int[] finalPayloads) {
+		this.shape = shape;
+		this.seed = seed;
+		this.parents = parents;
+		this.payloads = payloads;
+		this.mutations = mutations;
+		this.finalParents = finalParents;
+		this.finalPayloads = finalPayloads;
+	}
+
+	/**
+	 * Gets the shape of the initial tree.
+	 *
+	 * @return The shape.
+	 */
+	public TreeShapeSpec getShape() {
+		return shape;
+	}
+
+	/**
+	 * Gets the seed that the workload was generated from.
+	 *
+	 * @return The seed.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Gets the number of nodes in the initial tree.
+	 *
+	 * @return The size of the initial tree.
+	 */
+	public int getSize() {
+		return parents.length;
+	}
+
+	/**
+	 * Gets the parent of each node in the initial tree.
+	 *
+	 * @return A new array whose element {@code i} is the index of node
+	 *         {@code i}'s parent. The root's parent is -1.
+	 */
+	public int[] getParents() {
+		return parents.clone();
+	}
+
+	/**
+	 * Gets the payload of each node in the initial tree.
+	 *
+	 * @return A new array whose element {@code i} is node {@code i}'s payload.
+	 */
+	public int[] getPayloads() {
+		return payloads.clone();
+	}
+
+	/**
+	 * Gets the changes to apply to the initial tree.
+	 *
+	 * @return An unmodifiable list of the changes, in order.
+	 */
+	public List<TreeMutation> getMutations() {
+		return Collections.unmodifiableList(mutations);
+	}
+
+	/**
+	 * Gets the parent of each node after all changes. This includes the nodes
+	 * added by the changes.
+	 *
+	 * @return A new array whose element {@code i} is the index of node
+	 *         {@code i}'s parent, -1 for the root, or {@link #REMOVED} if the
+	 *         node or one of its ancestors was removed.
+	 */
+	public int[] getFinalParents() {
+		return finalParents.clone();
+	}
+
+	/**
+	 * Gets the payload of each node after all changes.
+	 *
+	 * @return A new array whose element {@code i} is node {@code i}'s payload.
+	 */
+	public int[] getFinalPayloads() {
+		return finalPayloads.clone();
+	}
+
+	/**
+	 * Builds the initial tree.
+	 *
+	 * @param factory
+	 *            The factory that creates the nodes.
+	 * @return A new list of all nodes, indexed by ID. The root is at index 0.
+	 */
+	public <T extends BasicTree<T>> List<T> createTree(
+			ITreeNodeFactory<T> factory) {
+		List<T> nodes = new ArrayList<T>(parents.length);
+		for (int i = 0; i < parents.length; i++) {
+			T node = factory.create(i, payloads[i]);
+			nodes.add(node);
+			if (i > 0) {
+				nodes.get(parents[i]).addChild(node);
+			}
+		}
+		return nodes;
+	}
+
+	/**
+	 * Builds the initial tree from {@link ActionTree}s with the
+	 * {@link #ACTION_TREE_FACTORY}.
+	 *
+	 * @return A new list of all nodes, indexed by ID. The root is at index 0.
+	 */
+	public List<ActionTree> createActionTree() {
+		return createTree(ACTION_TREE_FACTORY);
+	}
+
+	/**
+	 * Builds the initial tree from {@link com.bar.foo.wraptree} nodes. Nodes
+	 * with children are {@link SimpleTree}s, and leaves are
+	 * {@link SimpleNode}s. Each node's value is its payload. Since these nodes
+	 * cannot be moved, the changes cannot be applied to them.
+	 *
+	 * @return A new list of all nodes, indexed by ID. The root is at index 0
+	 *         and is always a {@link SimpleTree}.
+	 */
+	@SuppressWarnings("unchecked")
+	public List<INode<Integer>> createSimpleTree() {
+		boolean[] hasChildren = new boolean[parents.length];
+		hasChildren[0] = true;
+		for (int i = 1; i < parents.length; i++) {
+			hasChildren[parents[i]] = true;
+		}
+
+		List<INode<Integer>> nodes = new ArrayList<INode<Integer>>(
+				parents.length);
+		nodes.add(new SimpleTree<Integer>(payloads[0], null));
+		for (int i = 1; i < parents.length; i++) {
+			ITree<Integer> parent = (ITree<Integer>) nodes.get(parents[i]);
+			INode<Integer> node;
+			if (hasChildren[i]) {
+				node = new SimpleTree<Integer>(payloads[i], parent);
+			} else {
+				node = new SimpleNode<Integer>(payloads[i], parent);
+			}
+			nodes.add(node);
+			parent.addChild(node);
+		}
+		return nodes;
+	}
+
+	/**
+	 * Applies a change to a tree built by {@link #createTree(ITreeNodeFactory)}.
+	 * Changes must be applied in order. Removed nodes stay in the list.
+	 *
+	 * @param nodes
+	 *            All nodes of the tree, indexed by ID. Added nodes are
+	 *            appended to the list.
+	 * @param mutation
+	 *            The change to apply.
+	 * @param factory
+	 *            The factory that creates nodes and sets payloads.
+	 */
+	public <T extends BasicTree<T>> void apply(List<T> nodes,
+			TreeMutation mutation, ITreeNodeFactory<T> factory) {
+		switch (mutation.type) {
+		case Add:
+			if (mutation.node != nodes.size()) {
+				throw new IllegalArgumentException("TreeWorkload error: "
+						+ "Changes must be applied in order.");
+			}
+			T node = factory.create(mutation.node, mutation.payload);
+			nodes.add(node);
+			nodes.get(mutation.parent).addChild(node);
+			break;
+		case Remove:
+			nodes.get(mutation.parent).removeChild(nodes.get(mutation.node));
+			break;
+		case Move:
+			nodes.get(mutation.parent).addChild(nodes.get(mutation.node));
+			break;
+		case PayloadChange:
+			factory.setPayload(nodes.get(mutation.node), mutation.payload);
+			break;
+		}
+		return;
+	}
+
+	/**
+	 * Applies all changes, in order, to a tree built by
+	 * {@link #createTree(ITreeNodeFactory)}.
+	 *
+	 * @param nodes
+	 *            All nodes of the tree, indexed by ID. Added nodes are
+	 *            appended to the list.
+	 * @param factory
+	 *            The factory that creates nodes and sets payloads.
+	 */
+	public <T extends BasicTree<T>> void applyAll(List<T> nodes,
+			ITreeNodeFactory<T> factory) {
+		for (TreeMutation mutation : mutations) {
+			apply(nodes, mutation, factory);
+		}
+		return;
+	}
+
+	/*
+	 * Overrides a method from Object.
+	 */
+	@Override
+	public String toString() {
+		return "TreeWorkload[shape=" + shape + ", size=" + parents.length
+				+ ", mutations=" + mutations.size() + ", seed=" + seed + "]";
+	}
+}
@@ -0,0 +1,356 @@
+package com.bar.foo.workload.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class generates {@link TreeWorkload}s: trees of a
+ * {@link TreeShapeSpec shape} with random payloads, and random traces of
+ * changes to them. A generator with the same seed always generates the same
+ * workload for the same arguments, so tests and benchmarks can be repeated
+ * exactly.
+ * <p>
+ * The trace is generated by applying each change to a simulated tree, so
+ * every change is valid when the changes are applied in order. Removed nodes
+ * are never changed again, a node is never moved into its own sub-tree, and
+ * the root is never removed or moved.
+ * </p>
+ *
+ * @author Jordan
+ *
+ */
+public class TreeWorkloadGenerator {
+
+	/**
+	 * The largest payload, exclusive.
+	 */
+	private static final int MAX_PAYLOAD = 1000000;
+
+	/**
+	 * The number of new parents tried for a move before the change becomes a
+	 * payload change.
+	 */
+	private static final int MOVE_ATTEMPTS = 16;
+
+	/**
+	 * The seed for every workload.
+	 */
+	private final long seed;
+
+	/**
+	 * The default constructor.
+	 *
+	 * @param seed
+	 *            The seed for every workload.
+	 */
+	public TreeWorkloadGenerator(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Gets the seed for every workload.
+	 *
+	 * @return The seed.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Generates a tree without changes.
+	 *
+	 * @param shape
+	 *            The shape of the tree.
+	 * @param size
+	 *            The number of nodes in the tree.
+	 * @return The workload.
+	 */
+	public TreeWorkload createWorkload(TreeShapeSpec shape, int size) {
+		return createWorkload(shape, size, null, 0);
+	}
+
+	/**
+	 * Generates a tree and a trace of changes to it.
+	 *
+	 * @param shape
+	 *            The shape of the tree.
+	 * @param size
+	 *            The number of nodes in the tree.
+	 * @param rates
+	 *            The rates of each type of change. This may only be
+	 *            {@code null} if there are no changes.
+	 * @param length
+	 *            The number of changes. If negative, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @return The workload.
+	 */
+	public TreeWorkload createWorkload(TreeShapeSpec shape, int size,
+			MutationRates rates, int length) {
+		if (shape == null || length < 0 || (rates == null && length > 0)) {
+			throw new IllegalArgumentException("TreeWorkloadGenerator error: "
+					+ "The shape and rates must not be null, and the length "
+					+ "must not be negative.");
+		}
+
+		// The shape and the trace use separate sources, so that the initial
+		// tree does not depend on the trace.
+		Random random = new Random(seed);
+		int[] parents = shape.createParents(size, random);
+		int[] payloads = new int[size];
+		for (int i = 0; i < size; i++) {
+			payloads[i] = random.nextInt(MAX_PAYLOAD);
+		}
+
+		Simulation simulation = new Simulation(parents, payloads, length);
+		List<TreeMutation> mutations = new ArrayList<TreeMutation>(length);
+		Random traceRandom = new Random(~seed);
+		for (int i = 0; i < length; i++) {
+			TreeMutation.Type type = rates.choose(traceRandom.nextDouble());
+			mutations.add(simulation.mutate(type, traceRandom));
+		}
+
+		return new TreeWorkload(shape, seed, parents, payloads, mutations,
+				Arrays.copyOf(simulation.parents, simulation.size),
+				Arrays.copyOf(simulation.payloads, simulation.size));
+	}
+
+	/**
+	 * A tree of node IDs that the changes are applied to as they are
+	 * generated.
+	 */
+	private static class Simulation {
+
+		/**
+		 * The parent of each node, -1 for the root, or
+		 * {@link TreeWorkload#REMOVED}.
+		 */
+		private final int[] parents;
+
+		/**
+		 * The payload of each node.
+		 */
+		private final int[] payloads;
+
+		/**
+		 * The children of each node.
+		 */
+		private final List<List<Integer>> children;
+
+		/**
+		 * The nodes that have not been removed, in any order, so that one can
+		 * be picked at random.
+		 */
+		private final int[] alive;
+
+		/**
+		 * The index of each node in {@link #alive}.
+		 */
+		private final int[] positions;
+
+		/**
+		 * The number of nodes in {@link #alive}.
+		 */
+		private int aliveCount;
+
+		/**
+		 * The number of nodes, including removed nodes.
+		 */
+		private int size;
+
+		/**
+		 * The default constructor.
+		 *
+		 * @param parents
+		 *            The parent of each node in the initial tree.
+		 * @param payloads
+		 *            The payload of each node in the initial tree.
+		 * @param length
+		 *            The number of changes, which is the most nodes that can
+		 *            be added.
+		 */
+		public Simulation(int[] parents, int[] payloads, int length) {
+			int capacity = parents.length + length;
+			this.parents = Arrays.copyOf(parents, capacity);
+			this.payloads = Arrays.copyOf(payloads, capacity);
+			children = new ArrayList<List<Integer>>(capacity);
+			alive = new int[capacity];
+			positions = new int[capacity];
+
+			size = parents.length;
+			aliveCount = size;
+			for (int i = 0; i < size; i++) {
+				children.add(new ArrayList<Integer>());
+				alive[i] = i;
+				positions[i] = i;
+				if (i > 0) {
+					children.get(parents[i]).add(i);
+				}
+			}
+		}
+
+		/**
+		 * Generates a change and applies it. A remove or move when only the
+		 * root is left becomes an add.
+		 *
+		 * @param type
+		 *            The type of change.
+		 * @param random
+		 *            The source of random numbers.
+		 * @return The change.
+		 */
+		public TreeMutation mutate(TreeMutation.Type type, Random random) {
+			if (aliveCount == 1 && (type == TreeMutation.Type.Remove
+					|| type == TreeMutation.Type.Move)) {
+				type = TreeMutation.Type.Add;
+			}
+
+			TreeMutation mutation;
+			switch (type) {
+			case Add:
+				mutation = add(pick(random), random.nextInt(MAX_PAYLOAD));
+				break;
+			case Remove:
+				mutation = remove(pickNonRoot(random));
+				break;
+			case Move:
+				mutation = move(pickNonRoot(random), random);
+				break;
+			default:
+				mutation = setPayload(pick(random), random.nextInt(MAX_PAYLOAD));
+				break;
+			}
+			return mutation;
+		}
+
+		/**
+		 * Picks a random node that has not been removed.
+		 *
+		 * @param random
+		 *            The source of random numbers.
+		 * @return The node.
+		 */
+		private int pick(Random random) {
+			return alive[random.nextInt(aliveCount)];
+		}
+
+		/**
+		 * Picks a random node other than the root that has not been removed.
+		 * There must be at least one.
+		 *
+		 * @param random
+		 *            The source of random numbers.
+		 * @return The node.
+		 */
+		private int pickNonRoot(Random random) {
+			int node;
+			do {
+				node = pick(random);
+			} while (node == 0);
+			return node;
+		}
+
+		/**
+		 * Adds a new node.
+		 *
+		 * @param parent
+		 *            The parent of the new node.
+		 * @param payload
+		 *            The payload of the new node.
+		 * @return The change.
+		 */
+		private TreeMutation add(int parent, int payload) {
+			int node = size++;
+			parents[node] = parent;
+			payloads[node] = payload;
+			children.add(new ArrayList<Integer>());
+			children.get(parent).add(node);
+			alive[aliveCount] = node;
+			positions[node] = aliveCount++;
+			return new TreeMutation(TreeMutation.Type.Add, node, parent,
+					payload);
+		}
+
+		/**
+		 * Removes a node and its sub-tree.
+		 *
+		 * @param node
+		 *            The node to remove.
+		 * @return The change.
+		 */
+		private TreeMutation remove(int node) {
+			int parent = parents[node];
+			children.get(parent).remove(Integer.valueOf(node));
+
+			List<Integer> subtree = new ArrayList<Integer>();
+			subtree.add(node);
+			for (int i = 0; i < subtree.size(); i++) {
+				int removed = subtree.get(i);
+				subtree.addAll(children.get(removed));
+				parents[removed] = TreeWorkload.REMOVED;
+				// Fill the removed node's place with the last alive node.
+				int last = alive[--aliveCount];
+				alive[positions[removed]] = last;
+				positions[last] = positions[removed];
+			}
+			return new TreeMutation(TreeMutation.Type.Remove, node, parent, 0);
+		}
+
+		/**
+		 * Moves a node to a random new parent outside its sub-tree. If none is
+		 * found after a few attempts, the node's payload is changed instead.
+		 *
+		 * @param node
+		 *            The node to move.
+		 * @param random
+		 *            The source of random numbers.
+		 * @return The change.
+		 */
+		private TreeMutation move(int node, Random random) {
+			for (int i = 0; i < MOVE_ATTEMPTS; i++) {
+				int parent = pick(random);
+				if (parent != parents[node] && !isInSubtree(parent, node)) {
+					children.get(parents[node]).remove(Integer.valueOf(node));
+					children.get(parent).add(node);
+					parents[node] = parent;
+					return new TreeMutation(TreeMutation.Type.Move, node,
+							parent, 0);
+				}
+			}
+			return setPayload(node, random.nextInt(MAX_PAYLOAD));
+		}
+
+		/**
+		 * Changes the payload of a node.
+		 *
+		 * @param node
+		 *            The node to change.
+		 * @param payload
+		 *            The new payload.
+		 * @return The change.
+		 */
+		private TreeMutation setPayload(int node, int payload) {
+			payloads[node] = payload;
+			return new TreeMutation(TreeMutation.Type.PayloadChange, node, -1,
+					payload);
+		}
+
+		/**
+		 * Determines whether a node is in the sub-tree of another node.
+		 *
+		 * @param node
+		 *            The node to look for.
+		 * @param root
+		 *            The root of the sub-tree.
+		 * @return True if {@code node} is {@code root} or one of its
+		 *         descendants, false otherwise.
+		 */
+		private boolean isInSubtree(int node, int root) {
+			while (node >= 0 && node != root) {
+				node = parents[node];
+			}
+			return node == root;
+		}
+	}
+}
@@ -0,0 +1,369 @@
+package com.bar.foo.workload.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.bar.foo.actiontree.ActionTree;
+import com.bar.foo.tree.BasicTree;
+import com.bar.foo.tree.test.BasicTestTree;
+import com.bar.foo.wraptree.INode;
+import com.bar.foo.wraptree.ITree;
+
+/**
+ * This class tests {@link TreeWorkloadGenerator}, the {@link TreeShapeSpec}s it
+ * builds trees from and the {@link TreeWorkload}s it generates.
+ *
+ * @author Jordan
+ *
+ */
+public class TreeWorkloadGeneratorTester {
+
+	/**
+	 * A factory for {@link BasicTestTree}s. The payload is used as the
+	 * property.
+	 */
+	private static final ITreeNodeFactory<BasicTestTree> factory = new ITreeNodeFactory<BasicTestTree>() {
+		@Override
+		public BasicTestTree create(int id, int payload) {
+			BasicTestTree tree = new BasicTestTree();
+			tree.property = Integer.toString(payload);
+			return tree;
+		}
+
+		@Override
+		public void setPayload(BasicTestTree node, int payload) {
+			node.property = Integer.toString(payload);
+		}
+	};
+
+	/**
+	 * Checks the parents created by each kind of shape.
+	 */
+	@Test
+	public void checkShapes() {
+
+		final int size = 1000;
+		Random random = new Random(1);
+
+		// Every node after the root has an earlier parent.
+		TreeShapeSpec[] shapes = new TreeShapeSpec[] {
+				TreeShapeSpec.balanced(3), TreeShapeSpec.zipfian(10, 1.5),
+				TreeShapeSpec.chain(), TreeShapeSpec.caterpillar(4),
+				TreeShapeSpec.randomRecursive() };
+		for (TreeShapeSpec shape : shapes) {
+			int[] parents = shape.createParents(size, random);
+			assertEquals(size, parents.length);
+			assertEquals(-1, parents[0]);
+			for (int i = 1; i < size; i++) {
+				assertTrue(parents[i] >= 0 && parents[i] < i);
+			}
+		}
+
+		// Balanced nodes have exactly the fan-out, except the last parent.
+		int[] fanOuts = countChildren(TreeShapeSpec.balanced(3).createParents(
+				size, random));
+		for (int i = 0; i < (size - 1) / 3; i++) {
+			assertEquals(3, fanOuts[i]);
+		}
+
+		// A chain has one child per node.
+		int[] parents = TreeShapeSpec.chain().createParents(size, random);
+		for (int i = 1; i < size; i++) {
+			assertEquals(i - 1, parents[i]);
+		}
+
+		// Each caterpillar spine node has its legs and the next spine node.
+		parents = TreeShapeSpec.caterpillar(4).createParents(size, random);
+		fanOuts = countChildren(parents);
+		for (int spine = 0; spine + 5 < size; spine += 5) {
+			assertEquals(5, fanOuts[spine]);
+			assertEquals(spine, parents[spine + 5]);
+			for (int leg = spine + 1; leg < spine + 5; leg++) {
+				assertEquals(0, fanOuts[leg]);
+			}
+		}
+
+		// Zipfian fan-outs never exceed the maximum, and mostly small.
+		fanOuts = countChildren(TreeShapeSpec.zipfian(10, 1.5).createParents(
+				size, random));
+		int ones = 0;
+		int tens = 0;
+		for (int fanOut : fanOuts) {
+			assertTrue(fanOut <= 10);
+			ones += (fanOut == 1 ? 1 : 0);
+			tens += (fanOut == 10 ? 1 : 0);
+		}
+		assertTrue(ones > tens);
+
+		// Invalid shapes are rejected.
+		try {
+			TreeShapeSpec.balanced(0);
+			fail("TreeShapeSpec failure: "
+					+ "Zero fan-out did not throw an exception.");
+		} catch (IllegalArgumentException e) {
+			// Exception thrown as expected.
+		}
+		try {
+			TreeShapeSpec.zipfian(10, 0.0);
+			fail("TreeShapeSpec failure: "
+					+ "Zero exponent did not throw an exception.");
+		} catch (IllegalArgumentException e) {
+			// Exception thrown as expected.
+		}
+		try {
+			TreeShapeSpec.chain().createParents(0, random);
+			fail("TreeShapeSpec failure: "
+					+ "Empty tree did not throw an exception.");
+		} catch (IllegalArgumentException e) {
+			// Exception thrown as expected.
+		}
+
+		return;
+	}
+
+	/**
+	 * Checks that the same seed generates the same workload, and that a
+	 * different seed does not.
+	 */
+	@Test
+	public void checkReproducible() {
+
+		MutationRates rates = new MutationRates(1.0, 1.0, 1.0, 1.0);
+		TreeShapeSpec shape = TreeShapeSpec.randomRecursive();
+
+		TreeWorkload workload = new TreeWorkloadGenerator(42L)
+				.createWorkload(shape, 500, rates, 500);
+		TreeWorkload same = new TreeWorkloadGenerator(42L).createWorkload(
+				shape, 500, rates, 500);
+		TreeWorkload other = new TreeWorkloadGenerator(43L).createWorkload(
+				shape, 500, rates, 500);
+
+		assertTrue(Arrays.equals(workload.getParents(), same.getParents()));
+		assertTrue(Arrays.equals(workload.getPayloads(), same.getPayloads()));
+		assertEquals(workload.getMutations(), same.getMutations());
+		assertFalse(Arrays.equals(workload.getParents(), other.getParents()));
+		assertNotEquals(workload.getMutations(), other.getMutations());
+
+		// The initial tree does not depend on the trace.
+		TreeWorkload noTrace = new TreeWorkloadGenerator(42L).createWorkload(
+				shape, 500);
+		assertTrue(Arrays.equals(workload.getParents(), noTrace.getParents()));
+		assertTrue(Arrays.equals(workload.getPayloads(),
+				noTrace.getPayloads()));
+		assertTrue(noTrace.getMutations().isEmpty());
+
+		return;
+	}
+
+	/**
+	 * Checks that a workload builds the same initial tree from each kind of
+	 * node.
+	 */
+	@Test
+	public void checkCreateTree() {
+
+		TreeWorkload workload = new TreeWorkloadGenerator(7L).createWorkload(
+				TreeShapeSpec.zipfian(8, 1.0), 300);
+		int[] parents = workload.getParents();
+		int[] payloads = workload.getPayloads();
+
+		List<BasicTestTree> nodes = workload.createTree(factory);
+		checkTree(nodes, parents);
+		for (int i = 0; i < parents.length; i++) {
+			assertEquals(Integer.toString(payloads[i]), nodes.get(i).property);
+		}
+
+		List<ActionTree> actionNodes = workload.createActionTree();
+		checkTree(actionNodes, parents);
+		for (int i = 0; i < parents.length; i++) {
+			assertEquals(Integer.toString(payloads[i]),
+					actionNodes.get(i).getText());
+		}
+
+		List<INode<Integer>> simpleNodes = workload.createSimpleTree();
+		assertNull(simpleNodes.get(0).getParent());
+		for (int i = 0; i < parents.length; i++) {
+			INode<Integer> node = simpleNodes.get(i);
+			assertEquals(payloads[i], node.getValue().intValue());
+			if (i > 0) {
+				ITree<Integer> parent = node.getParent();
+				assertSame(simpleNodes.get(parents[i]), parent);
+				assertTrue(parent.getChildren().contains(node));
+			}
+		}
+
+		return;
+	}
+
+	/**
+	 * Checks that applying a trace to each kind of node gives the final tree
+	 * of the simulation.
+	 */
+	@Test
+	public void checkApplyMutations() {
+
+		MutationRates rates = new MutationRates(4.0, 1.0, 3.0, 2.0);
+		TreeShapeSpec[] shapes = new TreeShapeSpec[] {
+				TreeShapeSpec.balanced(4), TreeShapeSpec.chain(),
+				TreeShapeSpec.caterpillar(2), TreeShapeSpec.randomRecursive() };
+
+		for (TreeShapeSpec shape : shapes) {
+			TreeWorkload workload = new TreeWorkloadGenerator(3L)
+					.createWorkload(shape, 200, rates, 1000);
+			int[] finalParents = workload.getFinalParents();
+			int[] finalPayloads = workload.getFinalPayloads();
+
+			// Every type of change is generated.
+			boolean[] types = new boolean[TreeMutation.Type.values().length];
+			for (TreeMutation mutation : workload.getMutations()) {
+				types[mutation.type.ordinal()] = true;
+			}
+			for (boolean type : types) {
+				assertTrue(type);
+			}
+
+			List<BasicTestTree> nodes = workload.createTree(factory);
+			workload.applyAll(nodes, factory);
+			checkTree(nodes, finalParents);
+			for (int i = 0; i < finalParents.length; i++) {
+				if (finalParents[i] != TreeWorkload.REMOVED) {
+					assertEquals(Integer.toString(finalPayloads[i]),
+							nodes.get(i).property);
+				}
+			}
+
+			List<ActionTree> actionNodes = workload.createActionTree();
+			workload.applyAll(actionNodes,
+					TreeWorkload.ACTION_TREE_FACTORY);
+			checkTree(actionNodes, finalParents);
+		}
+
+		// Changes cannot be applied out of order.
+		TreeWorkload workload = new TreeWorkloadGenerator(3L).createWorkload(
+				TreeShapeSpec.chain(), 10, new MutationRates(1.0, 0.0, 0.0,
+						0.0), 2);
+		List<BasicTestTree> nodes = workload.createTree(factory);
+		try {
+			workload.apply(nodes, workload.getMutations().get(1), factory);
+			fail("TreeWorkload failure: "
+					+ "Out-of-order add did not throw an exception.");
+		} catch (IllegalArgumentException e) {
+			// Exception thrown as expected.
+		}
+
+		return;
+	}
+
+	/**
+	 * Checks the rates of each type of change.
+	 */
+	@Test
+	public void checkMutationRates() {
+
+		// Rates are normalized.
+		MutationRates rates = new MutationRates(2.0, 0.0, 1.0, 1.0);
+		assertEquals(0.5, rates.getProbability(TreeMutation.Type.Add), 1e-9);
+		assertEquals(0.0, rates.getProbability(TreeMutation.Type.Remove),
+				1e-9);
+		assertEquals(0.25, rates.getProbability(TreeMutation.Type.Move), 1e-9);
+
+		// A type with no rate is never generated.
+		TreeWorkload workload = new TreeWorkloadGenerator(5L).createWorkload(
+				TreeShapeSpec.balanced(2), 100, rates, 500);
+		for (TreeMutation mutation : workload.getMutations()) {
+			assertNotEquals(TreeMutation.Type.Remove, mutation.type);
+		}
+
+		// Invalid rates are rejected.
+		double[][] invalidRates = new double[][] { { -1.0, 1.0, 1.0, 1.0 },
+				{ 0.0, 0.0, 0.0, 0.0 }, { Double.NaN, 1.0, 1.0, 1.0 },
+				{ Double.POSITIVE_INFINITY, 1.0, 1.0, 1.0 } };
+		for (double[] invalid : invalidRates) {
+			try {
+				new MutationRates(invalid[0], invalid[1], invalid[2],
+						invalid[3]);
+				fail("MutationRates failure: " + Arrays.toString(invalid)
+						+ " did not throw an exception.");
+			} catch (IllegalArgumentException e) {
+				// Exception thrown as expected.
+			}
+		}
+
+		// A trace needs rates.
+		try {
+			new TreeWorkloadGenerator(5L).createWorkload(
+					TreeShapeSpec.chain(), 10, null, 1);
+			fail("TreeWorkloadGenerator failure: "
+					+ "Null rates did not throw an exception.");
+		} catch (IllegalArgumentException e) {
+			// Exception thrown as expected.
+		}
+
+		return;
+	}
+
+	/**
+	 * Counts the children of each node.
+	 *
+	 * @param parents
+	 *            The parent of each node.
+	 * @return The number of children of each node.
+	 */
+	private static int[] countChildren(int[] parents) {
+		int[] counts = new int[parents.length];
+		for (int i = 1; i < parents.length; i++) {
+			counts[parents[i]]++;
+		}
+		return counts;
+	}
+
+	/**
+	 * Checks that a tree has the expected parents. Removed nodes must not be
+	 * connected to the root.
+	 *
+	 * @param nodes
+	 *            All nodes of the tree, indexed by ID.
+	 * @param parents
+	 *            The expected parent of each node, -1 for the root, or
+	 *            {@link TreeWorkload#REMOVED}.
+	 */
+	private static <T extends BasicTree<T>> void checkTree(List<T> nodes,
+			int[] parents) {
+		assertEquals(parents.length, nodes.size());
+		int[] expectedCounts = new int[parents.length];
+		for (int i = 0; i < parents.length; i++) {
+			if (parents[i] >= 0) {
+				expectedCounts[parents[i]]++;
+			}
+		}
+
+		T root = nodes.get(0);
+		assertNull(root.getParent());
+		for (int i = 0; i < parents.length; i++) {
+			T node = nodes.get(i);
+			if (parents[i] == TreeWorkload.REMOVED) {
+				while (node.getParent() != null) {
+					node = node.getParent();
+				}
+				assertFalse(node == root);
+			} else {
+				if (i > 0) {
+					assertSame(nodes.get(parents[i]), node.getParent());
+				}
+				assertEquals(expectedCounts[i], node.getNumberOfChildren());
+			}
+		}
+		return;
+	}
+}
@@ -0,0 +1,246 @@
+package com.bar.foo.wraptree.iterator.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+import com.bar.foo.wraptree.INode;
+import com.bar.foo.wraptree.ITree;
+import com.bar.foo.wraptree.SimpleNode;
+import com.bar.foo.wraptree.SimpleTree;
+import com.bar.foo.wraptree.iterator.PostOrderTreeIterator;
+import com.bar.foo.wraptree.iterator.TreeIterationOrder;
+
+/**
+ * This class tests the wrapped tree's post-order iterator implementation. To
+ * do this, it uses {@link SimpleTree}s for the inner nodes and
+ * {@link SimpleNode}s for the leaves, so that the
+ * {@link PostOrderTreeIterator} sees both kinds of {@link INode}.
+ * 
+ * @author Jordan
+ *
+ */
+public class PostOrderTreeIteratorTester {
+
+	/**
+	 * The {@link TreeIterationOrder} for this test class.
+	 */
+	private static final TreeIterationOrder ORDER = TreeIterationOrder.PostOrder;
+
+	/**
+	 * Checks the iteration order for the base case (one node) and a more
+	 * complex case (several nodes).
+	 */
+	@Test
+	public void checkOrder() {
+
+		// A single node is visited alone.
+		SimpleTree<String> single = new SimpleTree<String>("A1", null);
+		Iterator<INode<String>> iterator = single.iterator(ORDER);
+		assertTrue(iterator.hasNext());
+		assertSame(single, iterator.next());
+		assertFalse(iterator.hasNext());
+
+		// Children are visited before their parents, from left to right.
+		checkValues(createTestTree().iterator(ORDER), "C1", "B1", "C2", "D1",
+				"D2", "C3", "D3", "D4", "D5", "C4", "E1", "B2", "A1");
+
+		return;
+	}
+
+	/**
+	 * Checks that removing nodes during the iteration removes their sub-trees
+	 * from the tree without disturbing the rest of the iteration.
+	 */
+	@Test
+	public void checkRemove() {
+
+		ITree<String> root = createTestTree();
+		ITree<String> b2 = (ITree<String>) root.getChild(1);
+
+		// Remove C3 and its sub-tree, then C4 and its sub-tree.
+		Iterator<INode<String>> iterator = root.iterator(ORDER);
+		StringBuilder visited = new StringBuilder();
+		while (iterator.hasNext()) {
+			INode<String> node = iterator.next();
+			visited.append(node.getValue()).append(' ');
+			if ("C3".equals(node.getValue()) || "C4".equals(node.getValue())) {
+				iterator.remove();
+				// It cannot be removed twice.
+				try {
+					iterator.remove();
+					fail(ORDER + " failure: "
+							+ "A node should only be removed once.");
+				} catch (IllegalStateException e) {
+					// Exception thrown as expected.
+				}
+			}
+		}
+		assertEquals("C1 B1 C2 D1 D2 C3 D3 D4 D5 C4 E1 B2 A1 ",
+				visited.toString());
+
+		// Only the removed sub-trees are gone.
+		assertEquals(2, b2.getNumberOfChildren());
+		checkValues(root.iterator(ORDER), "C1", "B1", "C2", "E1", "B2", "A1");
+
+		return;
+	}
+
+	/**
+	 * Checks that very wide nodes are traversed in linear time, including when
+	 * nodes are removed along the way. Searching for each node's next sibling
+	 * would take quadratic time here.
+	 */
+	@Test
+	public void checkWideTree() {
+
+		final int width = 100000;
+
+		SimpleTree<String> root = new SimpleTree<String>("root", null);
+		for (int i = 0; i < width; i++) {
+			root.addChild(new SimpleNode<String>(Integer.toString(i), root));
+		}
+
+		// Remove every other child while traversing the tree.
+		Iterator<INode<String>> iterator = root.iterator(ORDER);
+		int count = 0;
+		while (iterator.hasNext()) {
+			INode<String> node = iterator.next();
+			if (node != root) {
+				assertEquals(Integer.toString(count), node.getValue());
+				if (count % 2 == 0) {
+					iterator.remove();
+				}
+			} else {
+				assertEquals(width, count);
+			}
+			count++;
+		}
+		assertEquals(width + 1, count);
+
+		// The odd children should remain, in order.
+		assertEquals(width / 2, root.getNumberOfChildren());
+		iterator = root.iterator(ORDER);
+		for (int i = 1; i < width; i += 2) {
+			assertEquals(Integer.toString(i), iterator.next().getValue());
+		}
+		assertSame(root, iterator.next());
+		assertFalse(iterator.hasNext());
+
+		return;
+	}
+
+	/**
+	 * Checks that exceptions are thrown at the appropriate times, including the
+	 * following:
+	 * <ul>
+	 * <li>A {@link NoSuchElementException} is thrown when
+	 * {@link Iterator#next()} is called with no remaining elements.</li>
+	 * <li>An {@link IllegalStateException} is thrown when
+	 * {@link Iterator#remove()} is called before {@link Iterator#next()}.</li>
+	 * <li>An {@link IllegalStateException} is thrown when
+	 * {@link Iterator#remove()} is called after {@link Iterator#next()}
+	 * returned the root, since the root has no parent.</li>
+	 * </ul>
+	 */
+	@Test
+	public void checkExceptions() {
+
+		SimpleTree<String> root = new SimpleTree<String>("A1", null);
+		Iterator<INode<String>> iterator = root.iterator(ORDER);
+
+		try {
+			iterator.remove();
+			fail(ORDER + " failure: "
+					+ "remove() should not be allowed before next().");
+		} catch (IllegalStateException e) {
+			// Exception thrown as expected.
+		}
+
+		assertSame(root, iterator.next());
+		try {
+			iterator.remove();
+			fail(ORDER + " failure: The root should not be removable.");
+		} catch (IllegalStateException e) {
+			// Exception thrown as expected.
+		}
+		try {
+			iterator.next();
+			fail(ORDER + " failure: "
+					+ "When no elements remain, next() should throw a NoSuchElementException.");
+		} catch (NoSuchElementException e) {
+			// Exception thrown as expected.
+		}
+
+		return;
+	}
+
+	/**
+	 * Creates the following tree, where B1, B2, C3, and C4 are
+	 * {@link SimpleTree}s, E1 is a {@link SimpleTree} without children, and
+	 * the other leaves are {@link SimpleNode}s:
+	 * 
+	 * <pre>
+	 * A1
+	 * |-- B1
+	 * |   |-- C1
+	 * |-- B2
+	 *     |-- C2
+	 *     |-- C3
+	 *     |   |-- D1
+	 *     |   |-- D2
+	 *     |-- C4
+	 *     |   |-- D3
+	 *     |   |-- D4
+	 *     |   |-- D5
+	 *     |-- E1
+	 * </pre>
+	 * 
+	 * @return The root of the tree.
+	 */
+	private static SimpleTree<String> createTestTree() {
+		SimpleTree<String> a1 = new SimpleTree<String>("A1", null);
+		SimpleTree<String> b1 = new SimpleTree<String>("B1", a1);
+		SimpleTree<String> b2 = new SimpleTree<String>("B2", a1);
+		SimpleTree<String> c3 = new SimpleTree<String>("C3", b2);
+		SimpleTree<String> c4 = new SimpleTree<String>("C4", b2);
+		a1.addChild(b1);
+		a1.addChild(b2);
+		b1.addChild(new SimpleNode<String>("C1", b1));
+		b2.addChild(new SimpleNode<String>("C2", b2));
+		b2.addChild(c3);
+		b2.addChild(c4);
+		b2.addChild(new SimpleTree<String>("E1", b2));
+		c3.addChild(new SimpleNode<String>("D1", c3));
+		c3.addChild(new SimpleNode<String>("D2", c3));
+		c4.addChild(new SimpleNode<String>("D3", c4));
+		c4.addChild(new SimpleNode<String>("D4", c4));
+		c4.addChild(new SimpleNode<String>("D5", c4));
+		return a1;
+	}
+
+	/**
+	 * Checks that an iterator returns nodes with the expected values, in
+	 * order, and nothing else.
+	 * 
+	 * @param iterator
+	 *            The iterator to check.
+	 * @param expected
+	 *            The expected values.
+	 */
+	private static void checkValues(Iterator<INode<String>> iterator,
+			String... expected) {
+		for (String value : expected) {
+			assertTrue(iterator.hasNext());
+			assertEquals(value, iterator.next().getValue());
+		}
+		assertFalse(iterator.hasNext());
+	}
+}
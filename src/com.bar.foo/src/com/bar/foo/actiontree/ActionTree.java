@@ -1,9 +1,8 @@
 package com.bar.foo.actiontree;
 
+import java.util.Arrays;
 import java.util.IdentityHashMap;
-import java.util.Iterator;
 import java.util.Map;
-import java.util.Stack;
 
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.action.ContributionManager;
@@ -12,9 +11,12 @@ import org.eclipse.jface.action.IMenuCreator;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.swt.widgets.Menu;
 import org.eclipse.swt.widgets.ToolBar;
+import org.eclipse.swt.widgets.Widget;
 
 import com.bar.foo.tree.BasicTree;
 import com.bar.foo.tree.iterator.TreeIterationOrder;
+import com.bar.foo.tree.iterator.TreeIterator;
+import com.bar.foo.tree.iterator.TreeIteratorPool;
 
 /**
  * An {@code ActionTree} is a {@link BasicTree tree}-based structure that
@@ -32,6 +34,12 @@ import com.bar.foo.tree.iterator.TreeIterationOrder;
  * </p>
  * 
  * <p>
+ * Each property is changed with its setter, which counts the change. When
+ * nothing has changed since the {@code ActionTree} was last contributed or
+ * refreshed, {@link #refresh()} skips its contributions.
+ * </p>
+ * 
+ * <p>
  * The below list describes the behavior of {@code ActionTree}s when added to
  * supported widgets like {@link ToolBar}s, {@link Menu}s, and JFace
  * {@link ContributionManager}s.
@@ -75,17 +83,12 @@ public class ActionTree extends BasicTree<ActionTree> {
 	 * The string displayed for the {@code ActionTree}'s contributions to
 	 * widgets.
 	 */
-	public String text = null;
+	private String text = null;
 	/**
 	 * The string displayed for the tool tip of the {@code ActionTree}'s
 	 * contributions to widgets, if applicable.
 	 */
-	public String toolTipText = null;
-	// TODO Simply having the style as an Integer will not suffice, as the
-	// hashCode will be the same for style == null and style == 0, even though
-	// these do not imply the same thing. We must wrap the value instead of
-	// making it publicly accessible so we can enforce the allowed values, or we
-	// can use an enum.
+	private String toolTipText = null;
 	/**
 	 * The style of the {@code ActionTree}'s contributions to widgets. This
 	 * should be set based on the styles set in the class {@link Action}, e.g.,
@@ -93,17 +96,17 @@ public class ActionTree extends BasicTree<ActionTree> {
 	 * {@code Integer} so we can use {@code null} to represent no preferred
 	 * style.
 	 */
-	public Integer style = null;
+	private Integer style = null;
 	/**
 	 * The image used for the {@code ActionTree}'s contributions to widgets.
 	 */
-	public ImageDescriptor image = null;
+	private ImageDescriptor image = null;
 	/**
 	 * The default {@link Action} associated with this {@code ActionTree}. If
 	 * null, then the {@link ActionTree default behavior of the ActionTree} will
 	 * take effect.
 	 */
-	public IAction action = null;
+	private IAction action = null;
 
 	/**
 	 * Whether or not the {@code ActionTree} should be disabled.
@@ -113,13 +116,20 @@ public class ActionTree extends BasicTree<ActionTree> {
 	 * regardless of this flag.
 	 * </p>
 	 */
-	public boolean enabled = true;
+	private boolean enabled = true;
+
+	/**
+	 * The number of times the properties above have changed. Contributions
+	 * compare it with the value when they were last updated so that they can
+	 * skip refreshes when nothing has changed.
+	 */
+	private long version = 0L;
 
 	/**
 	 * A map containing the {@code ActionTree}'s contributions--stored as
 	 * {@link ActionTreeContribution}s--to widgets, keyed on the widgets.
 	 */
-	private final Map<Object, ActionTreeContribution> contributions = new IdentityHashMap<Object, ActionTreeContribution>();
+	private final Map<Object, ActionTreeContribution> contributions = new IdentityHashMap<Object, ActionTreeContribution>(4);
 
 	/**
 	 * The {@link IMenuCreator} used to create context and sub-menus filled with
@@ -184,48 +194,206 @@ public class ActionTree extends BasicTree<ActionTree> {
 
 		// If necessary, walk the other tree and copy all child nodes.
 		if (tree != null && fullTree) {
-			// Get a pre-order iterator to walk the other tree.
-			Iterator<ActionTree> iterator;
-			iterator = tree.iterator(TreeIterationOrder.PreOrder);
-			// Skip the root node since it's already been copied.
-			ActionTree node = iterator.next();
-			ActionTree child;
-
-			// Create two stacks: one to contain the current parent, and one to
-			// contain how many children remain to be copied.
-			Stack<ActionTree> parents = new Stack<ActionTree>();
-			parents.push(getValue());
-			Stack<Integer> childCounts = new Stack<Integer>();
-			childCounts.push(node.getNumberOfChildren());
-
-			while (iterator.hasNext()) {
-				// Get the next node and copy it.
-				node = iterator.next();
-				child = new ActionTree(node);
-
-				// Add the child to its parent and decrement the number of
-				// children remaining to be copied for the current parent. If no
-				// children are left, remove the parent and its remaining count.
-				parents.peek().addChild(child);
-				int remainingChildren = childCounts.pop() - 1;
-				if (remainingChildren > 0) {
-					childCounts.push(remainingChildren);
-				} else {
-					parents.pop();
-				}
-
-				// If the copied node has children, we need to update the two
-				// stacks so its children are added.
-				if (node.hasChildren()) {
-					parents.push(child);
-					childCounts.push(node.getNumberOfChildren());
+			// Get a pooled pre-order iterator to walk the other tree. Skip the
+			// root node since it's already been copied.
+			TreeIterator<ActionTree> iterator = TreeIteratorPool.acquire(tree,
+					TreeIterationOrder.PreOrder);
+			try {
+				iterator.next();
+
+				// The copies of the current node's ancestors, indexed by depth.
+				// In a pre-order walk, a node's parent is always the last node
+				// copied at the depth above it.
+				ActionTree[] parents = new ActionTree[16];
+				parents[0] = getValue();
+
+				while (iterator.hasNext()) {
+					// Get the next node and copy it.
+					ActionTree node = iterator.next();
+					ActionTree child = new ActionTree(node);
+					int depth = iterator.depth();
+
+					// Add the child to its parent. If the copied node has
+					// children, it is the parent of the next nodes copied.
+					parents[depth - 1].addChild(child);
+					if (node.hasChildren()) {
+						if (depth == parents.length) {
+							parents = Arrays.copyOf(parents, depth * 2);
+						}
+						parents[depth] = child;
+					}
 				}
+			} finally {
+				TreeIteratorPool.release(iterator);
 			}
 		}
 
 		return;
 	}
 
+	/**
+	 * Gets the string displayed for the {@code ActionTree}'s contributions to
+	 * widgets.
+	 * 
+	 * @return The text, or {@code null} if the {@link #action}'s text is used.
+	 */
+	public String getText() {
+		return text;
+	}
+
+	/**
+	 * Sets the string displayed for the {@code ActionTree}'s contributions to
+	 * widgets.
+	 * 
+	 * @param text
+	 *            The new text, or {@code null} to use the {@link #action}'s
+	 *            text.
+	 */
+	public void setText(String text) {
+		if (text == null ? this.text != null : !text.equals(this.text)) {
+			this.text = text;
+			version++;
+			invalidateAttributes();
+		}
+	}
+
+	/**
+	 * Gets the string displayed for the tool tip of the {@code ActionTree}'s
+	 * contributions to widgets.
+	 * 
+	 * @return The tool tip, or {@code null} if the {@link #action}'s tool tip
+	 *         is used.
+	 */
+	public String getToolTipText() {
+		return toolTipText;
+	}
+
+	/**
+	 * Sets the string displayed for the tool tip of the {@code ActionTree}'s
+	 * contributions to widgets.
+	 * 
+	 * @param toolTipText
+	 *            The new tool tip, or {@code null} to use the {@link #action}
+	 *            's tool tip.
+	 */
+	public void setToolTipText(String toolTipText) {
+		if (toolTipText == null ? this.toolTipText != null : !toolTipText
+				.equals(this.toolTipText)) {
+			this.toolTipText = toolTipText;
+			version++;
+			invalidateAttributes();
+		}
+	}
+
+	/**
+	 * Gets the style of the {@code ActionTree}'s contributions to widgets.
+	 * 
+	 * @return The style, or {@code null} if there is no preferred style.
+	 */
+	public Integer getStyle() {
+		return style;
+	}
+
+	/**
+	 * Sets the style of the {@code ActionTree}'s contributions to widgets.
+	 * 
+	 * @param style
+	 *            The new style, e.g., {@link IAction#AS_PUSH_BUTTON}, or
+	 *            {@code null} for no preferred style.
+	 */
+	public void setStyle(Integer style) {
+		if (style == null ? this.style != null : !style.equals(this.style)) {
+			this.style = style;
+			version++;
+			invalidateAttributes();
+		}
+	}
+
+	/**
+	 * Gets the image used for the {@code ActionTree}'s contributions to
+	 * widgets.
+	 * 
+	 * @return The image, or {@code null} if the {@link #action}'s image is
+	 *         used.
+	 */
+	public ImageDescriptor getImage() {
+		return image;
+	}
+
+	/**
+	 * Sets the image used for the {@code ActionTree}'s contributions to
+	 * widgets.
+	 * 
+	 * @param image
+	 *            The new image, or {@code null} to use the {@link #action}'s
+	 *            image.
+	 */
+	public void setImage(ImageDescriptor image) {
+		// ImageDescriptor does not override Object.equals(Object).
+		if (image != this.image) {
+			this.image = image;
+			version++;
+			invalidateAttributes();
+		}
+	}
+
+	/**
+	 * Gets the default {@link Action} associated with this {@code ActionTree}.
+	 * 
+	 * @return The {@code Action}, or {@code null} if none is set.
+	 */
+	public IAction getAction() {
+		return action;
+	}
+
+	/**
+	 * Sets the default {@link Action} associated with this {@code ActionTree}.
+	 * 
+	 * @param action
+	 *            The new {@code Action}, or {@code null} for the
+	 *            {@link ActionTree default behavior of the ActionTree}.
+	 */
+	public void setAction(IAction action) {
+		if (action != this.action) {
+			this.action = action;
+			version++;
+			invalidateAttributes();
+		}
+	}
+
+	/**
+	 * Gets whether or not the {@code ActionTree} is enabled.
+	 * 
+	 * @return True if the {@code ActionTree} is enabled, false otherwise.
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Sets whether or not the {@code ActionTree} is enabled.
+	 * 
+	 * @param enabled
+	 *            If false, the {@code ActionTree} will be disabled.
+	 */
+	public void setEnabled(boolean enabled) {
+		if (enabled != this.enabled) {
+			this.enabled = enabled;
+			version++;
+			invalidateAttributes();
+		}
+	}
+
+	/**
+	 * Gets the number of times the {@code ActionTree}'s properties have
+	 * changed.
+	 * 
+	 * @return The version of the properties.
+	 */
+	long getVersion() {
+		return version;
+	}
+
 	/**
 	 * Gets the {@link IMenuCreator} used to create context and sub-menus filled
 	 * with the {@code ActionTree}'s child {@code ActionTree}s.
@@ -239,15 +407,54 @@ public class ActionTree extends BasicTree<ActionTree> {
 		return menuCreator;
 	}
 
+	/**
+	 * Gets the number of contributions this {@code ActionTree} has made to
+	 * widgets that have not been disposed.
+	 * 
+	 * @return The number of live {@link ActionTreeContribution}s.
+	 */
+	int getNumberOfContributions() {
+		int count = 0;
+		for (Object widget : contributions.keySet()) {
+			if (!(widget instanceof Widget) || !((Widget) widget).isDisposed()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the number of {@code Menu}s currently created for this
+	 * {@code ActionTree}'s children. This does not create the
+	 * {@link #menuCreator}.
+	 * 
+	 * @return The number of live {@code Menu}s.
+	 */
+	int getNumberOfMenus() {
+		return menuCreator != null ? menuCreator.getNumberOfMenus() : 0;
+	}
+
 	/**
 	 * Refreshes all of the contributions made by this {@code ActionTree}. This
 	 * should be called after one or more of the {@code ActionTree}'s properties
-	 * has been changed.
+	 * has been changed. Changed properties are updated in place on the existing
+	 * widgets, which are only replaced when their style must change.
+	 * Contributions are skipped if nothing has changed since they were last
+	 * updated.
+	 * 
+	 * @see ActionTreeContribution#refresh()
 	 */
 	public void refresh() {
+		ActionTreeEvent event = ActionTreeEvents
+				.start(ActionTreeEvents.REFRESH);
+		int replaced = 0;
 		for (ActionTreeContribution contribution : contributions.values()) {
-			contribution.refresh();
+			if (contribution.refresh()) {
+				replaced++;
+			}
 		}
+		// The other contributions were updated in place.
+		ActionTreeEvents.finish(event, this, replaced, replaced);
 	}
 
 	/**
@@ -302,6 +509,44 @@ public class ActionTree extends BasicTree<ActionTree> {
 		return;
 	}
 
+	/**
+	 * Populates an {@link IActionTreeTarget} with the {@code ActionTree}'s
+	 * actions. This can be used for targets other than the supported widgets,
+	 * like an {@link InMemoryActionTreeTarget}.
+	 * 
+	 * @param target
+	 *            The {@code IActionTreeTarget} to fill.
+	 */
+	public void fill(IActionTreeTarget target) {
+		if (target != null && !contributions.containsKey(target)) {
+			ActionTreeContribution contribution;
+			contribution = new ActionTreeContribution(this);
+			contributions.put(target, contribution);
+			contribution.fill(target);
+		}
+
+		return;
+	}
+
+	/**
+	 * Removes and disposes the {@code ActionTree}'s contribution to a widget or
+	 * {@link IActionTreeTarget} that was populated with one of the fill
+	 * methods. This has no effect if the {@code ActionTree} has not been
+	 * contributed to it.
+	 * 
+	 * @param target
+	 *            The {@code Menu}, {@code ToolBar}, {@code ContributionManager}
+	 *            or {@code IActionTreeTarget} that was filled.
+	 */
+	public void unfill(Object target) {
+		ActionTreeContribution contribution = contributions.remove(target);
+		if (contribution != null) {
+			contribution.dispose();
+		}
+
+		return;
+	}
+
 	/*
 	 * Overrides a method from BasicTree.
 	 */
@@ -317,7 +562,8 @@ public class ActionTree extends BasicTree<ActionTree> {
 			equals = (text == null ? tree.text == null : text.equals(tree.text))
 					&& (toolTipText == null ? tree.toolTipText == null
 							: toolTipText.equals(tree.toolTipText))
-					&& style == tree.style && image == tree.image
+					&& (style == null ? tree.style == null : style
+							.equals(tree.style)) && image == tree.image
 					&& action == tree.action;
 		}
 		return equals;
@@ -8,6 +8,8 @@ import org.eclipse.jface.action.IContributionItem;
 import org.eclipse.jface.action.IMenuCreator;
 import org.eclipse.jface.action.MenuManager;
 import org.eclipse.jface.resource.ImageDescriptor;
+import org.eclipse.jface.util.IPropertyChangeListener;
+import org.eclipse.jface.util.PropertyChangeEvent;
 import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.graphics.Rectangle;
 import org.eclipse.swt.widgets.Menu;
@@ -23,7 +25,9 @@ import org.eclipse.swt.widgets.ToolItem;
  * {@code ActionTreeContribution} and call {@link #fill(Menu)}, passing in the
  * target {@code Menu}. You could also use a {@link MenuManager} with
  * {@link #fill(ContributionManager)} or embed the {@code ActionTree} into a
- * {@code ToolBar} with {@link #fill(ToolBar)}.
+ * {@code ToolBar} with {@link #fill(ToolBar)}. Each of these wraps its widget
+ * in an {@link IActionTreeTarget}, and other targets can be used with
+ * {@link #fill(IActionTreeTarget)}.
  * </p>
  * 
  * @author Jordan
@@ -38,10 +42,10 @@ public class ActionTreeContribution {
 	private final ActionTree actionTree;
 
 	/**
-	 * An object that manages contributing the {@link #item} to a widget, like a
-	 * {@code Menu} or {@code ToolBar}, depending on the fill method called.
+	 * The target that the {@link #item} is contributed to, like a {@code Menu}
+	 * or {@code ToolBar}, depending on the fill method called.
 	 */
-	private FillManager fillManager;
+	private IActionTreeTarget target;
 
 	/**
 	 * The contribution to a widget, like a {@code Menu} or {@code ToolBar}.
@@ -49,11 +53,40 @@ public class ActionTreeContribution {
 	private ActionContributionItem item;
 
 	/**
-	 * The index of the {@link #item} in its container. The default value is -1,
-	 * or the end of the list. However, when refreshed, the index will be
-	 * preserved so the item will not lose its place in its parent container.
+	 * The {@link ActionTree}'s {@code Action} when the {@link #item} was
+	 * created or last refreshed, or {@code null} if it had none. This is the
+	 * {@code Action} run by the exposed {@code Action}.
 	 */
-	private int index = -1;
+	private IAction delegate;
+
+	/**
+	 * The {@link ActionTree#getVersion() version} of the {@link #actionTree}'s
+	 * properties when the {@link #item} was created or last refreshed.
+	 */
+	private long version;
+
+	/**
+	 * Whether the {@link #actionTree} had children when the {@link #item} was
+	 * created or last refreshed.
+	 */
+	private boolean hadChildren;
+
+	/**
+	 * Whether a property of the {@link #delegate} has changed since the
+	 * {@link #item} was created or last refreshed. The exposed {@code Action}
+	 * may use the {@code delegate}'s text, tool tip, image and style.
+	 */
+	private boolean delegateChanged;
+
+	/**
+	 * Listens to the {@link #delegate} for property changes.
+	 */
+	private final IPropertyChangeListener delegateListener = new IPropertyChangeListener() {
+		@Override
+		public void propertyChange(PropertyChangeEvent event) {
+			delegateChanged = true;
+		}
+	};
 
 	/**
 	 * The default constructor.
@@ -83,24 +116,33 @@ public class ActionTreeContribution {
 	 *            The {@code Menu} which will get a new item.
 	 */
 	public void fill(final Menu menu) {
-		if (menu != null && fillManager == null) {
-			fillManager = new FillManager() {
+		if (menu != null && target == null) {
+			fill(new IActionTreeTarget() {
+				/**
+				 * The index of the item in the {@code Menu}. The default value
+				 * is -1, or the end of the list. However, when refreshed, the
+				 * index will be preserved so the item will not lose its place
+				 * in the {@code Menu}.
+				 */
+				private int index = -1;
+
 				@Override
-				public void fill() {
-					item = getActionContributionItem();
+				public void create(ActionContributionItem item) {
 					item.fill(menu, index);
 				}
 
 				@Override
-				public void update() {
+				public void update(ActionContributionItem oldItem,
+						ActionContributionItem newItem) {
 					// Determine the index of the MenuItem currently used by the
 					// ActionContributionItem so that the Menu is not reordered.
-					MenuItem menuItem = (MenuItem) item.getWidget();
+					MenuItem menuItem = (MenuItem) oldItem.getWidget();
 					MenuItem[] items = menu.getItems();
 
 					// Make sure the index matches the MenuItem's location in
 					// the Menu.
-					if (index >= items.length || menuItem != items[index]) {
+					if (index < 0 || index >= items.length
+							|| menuItem != items[index]) {
 						for (int i = 0; i < items.length; i++) {
 							if (items[i] == menuItem) {
 								index = i;
@@ -110,16 +152,19 @@ public class ActionTreeContribution {
 					}
 
 					// Dispose the old ActionContributionItem.
-					item.dispose();
-					item = null;
+					oldItem.dispose();
 
 					// Add the new ActionContributionItem to the Menu.
-					fill();
+					create(newItem);
 
 					return;
 				}
-			};
-			fillManager.fill();
+
+				@Override
+				public void dispose(ActionContributionItem item) {
+					item.dispose();
+				}
+			});
 		}
 
 		return;
@@ -133,26 +178,35 @@ public class ActionTreeContribution {
 	 *            The {@code ToolBar} which will get a new item.
 	 */
 	public void fill(final ToolBar toolBar) {
-		if (toolBar != null && fillManager == null) {
-			fillManager = new FillManager() {
+		if (toolBar != null && target == null) {
+			fill(new IActionTreeTarget() {
+				/**
+				 * The index of the item in the {@code ToolBar}. The default
+				 * value is -1, or the end of the list. However, when
+				 * refreshed, the index will be preserved so the item will not
+				 * lose its place in the {@code ToolBar}.
+				 */
+				private int index = -1;
+
 				@Override
-				public void fill() {
+				public void create(ActionContributionItem item) {
 					// Add the new ActionContributionItem to the ToolBar.
-					item = getActionContributionItem();
 					item.fill(toolBar, index);
 				}
 
 				@Override
-				public void update() {
+				public void update(ActionContributionItem oldItem,
+						ActionContributionItem newItem) {
 					// Determine the index of the ToolItem currently used by the
 					// ActionContributionItem so that the ToolBar is not
 					// reordered.
-					ToolItem toolItem = (ToolItem) item.getWidget();
+					ToolItem toolItem = (ToolItem) oldItem.getWidget();
 					ToolItem[] items = toolBar.getItems();
 
 					// Make sure the index matches the ToolItem's location in
 					// the ToolBar.
-					if (index >= items.length || toolItem != items[index]) {
+					if (index < 0 || index >= items.length
+							|| toolItem != items[index]) {
 						for (int i = 0; i < items.length; i++) {
 							if (items[i] == toolItem) {
 								index = i;
@@ -162,16 +216,19 @@ public class ActionTreeContribution {
 					}
 
 					// Dispose the old ActionContributionItem.
-					item.dispose();
-					item = null;
+					oldItem.dispose();
 
 					// Add the new ActionContributionItem to the ToolBar.
-					fill();
+					create(newItem);
 
 					return;
 				}
-			};
-			fillManager.fill();
+
+				@Override
+				public void dispose(ActionContributionItem item) {
+					item.dispose();
+				}
+			});
 		}
 
 		return;
@@ -185,13 +242,20 @@ public class ActionTreeContribution {
 	 *            The {@code ContributionManager} which will get a new item.
 	 */
 	public void fill(final ContributionManager manager) {
-		if (manager != null && fillManager == null) {
-			fillManager = new FillManager() {
+		if (manager != null && target == null) {
+			fill(new IActionTreeTarget() {
+				/**
+				 * The index of the item in the {@code ContributionManager}, or
+				 * -1 if it has not been added yet. When refreshed, the index
+				 * will be preserved so the item will not lose its place in the
+				 * {@code ContributionManager}.
+				 */
+				private int index = -1;
+
 				@Override
-				public void fill() {
+				public void create(ActionContributionItem item) {
 					// Add the new ActionContributionItem to the
 					// ContributionManager.
-					item = getActionContributionItem();
 					// You can't use -1 as an index for ContributionManagers,
 					// so we need to set it on the first pass.
 					if (index >= 0) {
@@ -207,16 +271,17 @@ public class ActionTreeContribution {
 				}
 
 				@Override
-				public void update() {
+				public void update(ActionContributionItem oldItem,
+						ActionContributionItem newItem) {
 					// Determine the index of the ActionContributionItem in the
 					// ContributionManager so the items are not reordered.
 					IContributionItem[] items = manager.getItems();
 
 					// Make sure the index matches the item's location in
 					// the ContributionManager.
-					if (index >= items.length || item != items[index]) {
+					if (index >= items.length || oldItem != items[index]) {
 						for (int i = 0; i < items.length; i++) {
-							if (items[i] == item) {
+							if (items[i] == oldItem) {
 								index = i;
 								break;
 							}
@@ -224,18 +289,43 @@ public class ActionTreeContribution {
 					}
 
 					// Dispose the old ActionContributionItem.
-					manager.remove(item);
-					item.dispose();
-					item = null;
+					manager.remove(oldItem);
+					oldItem.dispose();
 
 					// Add the new ActionContributionItem to the
 					// ContributionManager.
-					fill();
+					create(newItem);
 
 					return;
 				}
-			};
-			fillManager.fill();
+
+				@Override
+				public void dispose(ActionContributionItem item) {
+					manager.remove(item);
+					item.dispose();
+					manager.update(true);
+				}
+			});
+		}
+
+		return;
+	}
+
+	/**
+	 * Adds a new {@code ActionContributionItem} representing the
+	 * {@code ActionTree} to an {@link IActionTreeTarget}. The fill methods for
+	 * widgets use this method with a target that wraps the widget.
+	 * 
+	 * @param target
+	 *            The target which will get a new item.
+	 */
+	public void fill(IActionTreeTarget target) {
+		if (target != null && this.target == null) {
+			ActionTreeEvent event = ActionTreeEvents
+					.start(ActionTreeEvents.FILL);
+			this.target = target;
+			target.create(getActionContributionItem());
+			ActionTreeEvents.finish(event, actionTree, 1, 0);
 		}
 
 		return;
@@ -254,34 +344,18 @@ public class ActionTreeContribution {
 
 		// If the item is uninitialized, we need to create it.
 		if (item == null) {
-			// Get the current Action for the ActionTree.
-			IAction action = actionTree.action;
-
-			// Load the current Action properties.
-			String text = actionTree.text;
-			String toolTipText = actionTree.toolTipText;
-			Integer style = actionTree.style;
-			ImageDescriptor image = actionTree.image;
-
-			// If the Action is set and any property unset, try to set the
-			// property based on the ones available in the Action.
-			if (action != null) {
-				text = (text == null ? action.getText() : text);
-				toolTipText = (toolTipText == null ? action.getToolTipText()
-						: toolTipText);
-				style = (style == null ? action.getStyle() : style);
-				image = (image == null ? action.getImageDescriptor() : image);
-			}
+			// Get the current Action for the ActionTree. The wrapper Actions
+			// below run whichever Action is current, so that it can be
+			// changed without replacing the item.
+			setDelegate(actionTree.getAction());
 
-			// We cannot have a null style! Default to a button style.
-			if (style == null) {
-				style = IAction.AS_PUSH_BUTTON;
-			}
+			// Load the effective text and style of the exposed Action.
+			String text = getText();
+			int style = getStyle();
 
+			IAction action;
 			if (actionTree.hasChildren()) {
-				// The style is overridden so we can get a dropdown/sub-menu.
-				style = IAction.AS_DROP_DOWN_MENU;
-				if (action == null) {
+				if (delegate == null) {
 					// Create a dropdown-style Action whose default click brings
 					// up the child Menu.
 					action = new Action(text, style) {
@@ -310,18 +384,17 @@ public class ActionTreeContribution {
 				} else {
 					// Create a dropdown-style Action whose default click action
 					// re-directs to the ActionTree.
-					final IAction defaultAction = action;
 					action = new Action(text, style) {
 						@Override
 						public void run() {
-							defaultAction.run();
+							delegate.run();
 						}
 					};
 				}
 				// Add a MenuCreator so that a dropdown- or sub-menu will show.
 				action.setMenuCreator(actionTree.getMenuCreator());
 
-			} else if (action == null) {
+			} else if (delegate == null) {
 				// If no action is set, we need to create a dummy Action.
 				action = new Action(text, style) {
 					@Override
@@ -329,75 +402,249 @@ public class ActionTreeContribution {
 						// Do nothing.
 					}
 				};
-				// No Action is set and there are no children, so disable the
-				// placeholder action.
-				action.setEnabled(false);
 			} else {
 				// Lastly, the ActionTree has no children, but does have an
 				// Action. Create a wrapper action that has the style/properties
 				// of the ActionTree.
-				final IAction defaultAction = action;
 				action = new Action(text, style) {
 					@Override
 					public void run() {
-						defaultAction.run();
+						delegate.run();
 					}
 				};
 			}
 
-			// If the ActionTree is disabled, disable the exposed Action.
-			if (!actionTree.enabled) {
-				action.setEnabled(false);
-			}
-
 			// Update the unset properties of the exposed Action.
 			// Text and style are already set!
-			action.setToolTipText(toolTipText);
-			action.setImageDescriptor(image);
+			updateAction(action);
 
 			// We can now create the ActionContributionItem. Note that
 			// ActionTrees without children will not have a Menu.
 			item = new ActionContributionItem(action);
+			setUpdated();
 		}
 
 		return item;
 	}
 
+	/**
+	 * Sets the {@link #delegate} and moves the {@link #delegateListener} to it.
+	 * 
+	 * @param action
+	 *            The new delegate, or {@code null} to remove it.
+	 */
+	private void setDelegate(IAction action) {
+		if (action != delegate) {
+			if (delegate != null) {
+				delegate.removePropertyChangeListener(delegateListener);
+			}
+			delegate = action;
+			if (delegate != null) {
+				delegate.addPropertyChangeListener(delegateListener);
+			}
+		}
+		return;
+	}
+
+	/**
+	 * Records that the {@link #item} matches the current state of the
+	 * {@link #actionTree}, so that refreshes can be skipped until it changes.
+	 */
+	private void setUpdated() {
+		version = actionTree.getVersion();
+		hadChildren = actionTree.hasChildren();
+		delegateChanged = false;
+	}
+
+	/**
+	 * Determines whether the {@link #actionTree} may have changed since the
+	 * {@link #item} was created or last refreshed.
+	 * 
+	 * @return True if the {@code ActionTree}'s properties, its children or
+	 *         its {@code Action}'s properties have changed, false otherwise.
+	 */
+	private boolean isOutdated() {
+		return version != actionTree.getVersion()
+				|| hadChildren != actionTree.hasChildren() || delegateChanged;
+	}
+
+	/**
+	 * Gets the effective text of the exposed {@code Action}. If the
+	 * {@link #actionTree}'s text is unset, its {@code Action}'s text is used.
+	 * 
+	 * @return The text, or {@code null} if neither is set.
+	 */
+	private String getText() {
+		IAction action = actionTree.getAction();
+		String text = actionTree.getText();
+		return (text == null && action != null ? action.getText() : text);
+	}
+
+	/**
+	 * Gets the effective tool tip of the exposed {@code Action}. If the
+	 * {@link #actionTree}'s tool tip is unset, its {@code Action}'s tool tip
+	 * is used.
+	 * 
+	 * @return The tool tip, or {@code null} if neither is set.
+	 */
+	private String getToolTipText() {
+		IAction action = actionTree.getAction();
+		String toolTipText = actionTree.getToolTipText();
+		return (toolTipText == null && action != null ? action
+				.getToolTipText() : toolTipText);
+	}
+
+	/**
+	 * Gets the effective image of the exposed {@code Action}. If the
+	 * {@link #actionTree}'s image is unset, its {@code Action}'s image is
+	 * used.
+	 * 
+	 * @return The image, or {@code null} if neither is set.
+	 */
+	private ImageDescriptor getImage() {
+		IAction action = actionTree.getAction();
+		ImageDescriptor image = actionTree.getImage();
+		return (image == null && action != null ? action.getImageDescriptor()
+				: image);
+	}
+
+	/**
+	 * Gets the effective style of the exposed {@code Action}. If the
+	 * {@link #actionTree} has children, this is always a dropdown style.
+	 * Otherwise, if the {@code ActionTree}'s style is unset, its
+	 * {@code Action}'s style is used, and if neither is set, the style is a
+	 * push button.
+	 * 
+	 * @return The style.
+	 */
+	private int getStyle() {
+		int style;
+		if (actionTree.hasChildren()) {
+			// The style is overridden so we can get a dropdown/sub-menu.
+			style = IAction.AS_DROP_DOWN_MENU;
+		} else if (actionTree.getStyle() != null) {
+			style = actionTree.getStyle();
+		} else if (actionTree.getAction() != null) {
+			style = actionTree.getAction().getStyle();
+		} else {
+			// We cannot have a null style! Default to a button style.
+			style = IAction.AS_PUSH_BUTTON;
+		}
+		return style;
+	}
+
+	/**
+	 * Gets whether the exposed {@code Action} is enabled. It is disabled if
+	 * the {@link #actionTree} is disabled or if it is a placeholder, which has
+	 * no {@code Action} and no children.
+	 * 
+	 * @return True if the exposed {@code Action} is enabled, false otherwise.
+	 */
+	private boolean isEnabled() {
+		return actionTree.isEnabled()
+				&& (actionTree.getAction() != null || actionTree.hasChildren());
+	}
+
+	/**
+	 * Determines whether the exposed {@code Action} can be updated in place to
+	 * match the {@link #actionTree}. This is only possible if its style and
+	 * its kind of wrapper, which depends on whether the {@code ActionTree} has
+	 * children and an {@code Action}, are unchanged. SWT cannot change the
+	 * style of an existing widget.
+	 * 
+	 * @param action
+	 *            The exposed {@code Action}.
+	 * @return True if the {@code Action} can be updated in place, false if the
+	 *         item must be replaced.
+	 */
+	private boolean canUpdateAction(IAction action) {
+		return action.getStyle() == getStyle()
+				&& actionTree.hasChildren() == (action.getMenuCreator() != null)
+				&& (actionTree.getAction() == null) == (delegate == null);
+	}
+
+	/**
+	 * Updates the properties of the exposed {@code Action} that differ from
+	 * the {@link #actionTree}'s effective properties. Each change is applied
+	 * by the {@code ActionContributionItem} to its existing widget. The style
+	 * is not updated.
+	 * 
+	 * @param action
+	 *            The exposed {@code Action}.
+	 */
+	private void updateAction(IAction action) {
+		String text = getText();
+		if (text == null ? action.getText() != null : !text.equals(action
+				.getText())) {
+			action.setText(text);
+		}
+		String toolTipText = getToolTipText();
+		if (toolTipText == null ? action.getToolTipText() != null
+				: !toolTipText.equals(action.getToolTipText())) {
+			action.setToolTipText(toolTipText);
+		}
+		// ImageDescriptor does not override Object.equals(Object).
+		ImageDescriptor image = getImage();
+		if (image != action.getImageDescriptor()) {
+			action.setImageDescriptor(image);
+		}
+		boolean enabled = isEnabled();
+		if (enabled != action.isEnabled()) {
+			action.setEnabled(enabled);
+		}
+		return;
+	}
+
 	/**
 	 * If the {@code ActionTreeContribution} has been attached to a widget via
 	 * one of the fill methods, this method refreshes that contribution to sync
 	 * it with any changes to the associated {@link #actionTree}.
+	 * <p>
+	 * Changed properties are updated in place on the existing item and its
+	 * widget. The item is only replaced if its style must change or if the
+	 * {@code ActionTree} gained or lost its children or its {@code Action}. If
+	 * neither the {@code ActionTree}'s properties, its children nor its
+	 * {@code Action}'s properties have changed, nothing is done.
+	 * </p>
+	 * 
+	 * @return True if the item was replaced, false if it was updated in place
+	 *         or the contribution is not attached to a widget.
 	 */
-	public void refresh() {
-		if (fillManager != null) {
-			fillManager.update();
+	public boolean refresh() {
+		boolean replaced = false;
+		if (target != null && isOutdated()) {
+			ActionTreeEvent event = ActionTreeEvents
+					.start(ActionTreeEvents.CONTRIBUTION_REFRESH);
+			IAction action = item.getAction();
+			if (canUpdateAction(action)) {
+				setDelegate(actionTree.getAction());
+				updateAction(action);
+				setUpdated();
+			} else {
+				// Replace the old ActionContributionItem with a new one.
+				ActionContributionItem oldItem = item;
+				item = null;
+				target.update(oldItem, getActionContributionItem());
+				replaced = true;
+			}
+			int count = (replaced ? 1 : 0);
+			ActionTreeEvents.finish(event, actionTree, count, count);
 		}
+		return replaced;
 	}
 
 	/**
-	 * This is an interface used to link (or <i>contribute</i>) the
-	 * {@code ActionTreeContribution} to a widget. Instances are to be
-	 * initialized in the fill methods and used to enforce changes to the
-	 * associated {@link ActionTreeContribution#actionTree actionTree} to the
-	 * already contributed {@link ActionTreeContribution#item item}s.
-	 * 
-	 * @author Jordan
-	 * 
+	 * If the {@code ActionTreeContribution} has been attached to a widget via
+	 * one of the fill methods, this method removes and disposes the
+	 * contribution. The {@code ActionTreeContribution} can then be filled
+	 * again.
 	 */
-	private interface FillManager {
-		/**
-		 * Adds the {@link ActionTreeContribution#item item} to a widget at the
-		 * specified {@link ActionTreeContribution#index index}. If the index is
-		 * -1, then the item should be appended to the widget (this is normally
-		 * the default SWT behavior).
-		 */
-		public void fill();
-
-		/**
-		 * Replaces the existing {@link ActionTreeContribution#item item} with a
-		 * new one to enforce changes to the associated
-		 * {@link ActionTreeContribution#actionTree actionTree}.
-		 */
-		public void update();
+	public void dispose() {
+		if (target != null) {
+			target.dispose(item);
+			item = null;
+			target = null;
+			setDelegate(null);
+		}
 	}
 }
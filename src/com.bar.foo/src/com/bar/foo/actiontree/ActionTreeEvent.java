@@ -0,0 +1,206 @@
+package com.bar.foo.actiontree;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * This class provides the Java Flight Recorder events for {@link ActionTree}
+ * contributions. Each event records the label of the node, its number of
+ * children, the number of widgets or items created and disposed, and the
+ * duration. Events for a node's children are nested inside the events of
+ * their parent, so a recording shows which sub-tree made a menu slow to open.
+ * <p>
+ * The events are recorded by every recording unless they are disabled in
+ * its settings. A threshold can be set, for example with
+ * {@code recording.enable(ActionTreeEvent.GET_MENU).withThreshold(...)}, to
+ * keep only the slow operations. Trees only create events through
+ * {@link ActionTreeEvents}, which does nothing if the JVM does not support
+ * Java Flight Recorder.
+ * </p>
+ * 
+ * @author Jordan
+ *
+ */
+@Category("ActionTree")
+public abstract class ActionTreeEvent extends Event {
+
+	/**
+	 * The name of the event for {@link ActionTreeContribution#fill}.
+	 */
+	public static final String FILL = "com.bar.foo.actiontree.Fill";
+
+	/**
+	 * The name of the event for {@link ActionTree#refresh()}.
+	 */
+	public static final String REFRESH = "com.bar.foo.actiontree.Refresh";
+
+	/**
+	 * The name of the event for {@link ActionTreeContribution#refresh()}.
+	 */
+	public static final String CONTRIBUTION_REFRESH = "com.bar.foo.actiontree.ContributionRefresh";
+
+	/**
+	 * The name of the event for the {@code getMenu} methods of
+	 * {@link ActionTreeMenuCreator}.
+	 */
+	public static final String GET_MENU = "com.bar.foo.actiontree.GetMenu";
+
+	/**
+	 * The name of the event for filling a {@code Menu} in
+	 * {@link ActionTreeMenuCreator}.
+	 */
+	public static final String FILL_MENU = "com.bar.foo.actiontree.FillMenu";
+
+	/**
+	 * The text of the node, or of its action if the node has no text.
+	 */
+	@Label("Label")
+	String label;
+
+	/**
+	 * The number of children of the node.
+	 */
+	@Label("Children")
+	int children;
+
+	/**
+	 * The number of widgets or contribution items created.
+	 */
+	@Label("Widgets Created")
+	int widgetsCreated;
+
+	/**
+	 * The number of widgets or contribution items disposed.
+	 */
+	@Label("Widgets Disposed")
+	int widgetsDisposed;
+
+	/**
+	 * Ends the event and commits it if it lasted longer than the recording's
+	 * threshold.
+	 * 
+	 * @param node
+	 *            The node that the event is for.
+	 * @param created
+	 *            The number of widgets or items created.
+	 * @param disposed
+	 *            The number of widgets or items disposed.
+	 */
+	void finish(ActionTree node, int created, int disposed) {
+		end();
+		if (shouldCommit()) {
+			label = node.getText();
+			if (label == null && node.getAction() != null) {
+				label = node.getAction().getText();
+			}
+			children = node.getNumberOfChildren();
+			widgetsCreated = created;
+			widgetsDisposed = disposed;
+			commit();
+		}
+	}
+
+	/**
+	 * Creates the events. Java Flight Recorder cannot instrument an event
+	 * class that creates its own sub-classes, so this is a separate class.
+	 */
+	static final class Factory {
+
+		/**
+		 * This class only has static methods.
+		 */
+		private Factory() {
+			// Nothing to do.
+		}
+
+		/**
+		 * Creates and begins an event if its type is enabled in a recording.
+		 * 
+		 * @param type
+		 *            The type of event, one of the constants in
+		 *            {@link ActionTreeEvents}.
+		 * @return The started event, or {@code null} if it is not enabled.
+		 */
+		static ActionTreeEvent start(int type) {
+			ActionTreeEvent event;
+			switch (type) {
+			case ActionTreeEvents.FILL:
+				event = new Fill();
+				break;
+			case ActionTreeEvents.REFRESH:
+				event = new Refresh();
+				break;
+			case ActionTreeEvents.CONTRIBUTION_REFRESH:
+				event = new ContributionRefresh();
+				break;
+			case ActionTreeEvents.GET_MENU:
+				event = new GetMenu();
+				break;
+			default:
+				event = new FillMenu();
+				break;
+			}
+			if (event.isEnabled()) {
+				event.begin();
+			} else {
+				event = null;
+			}
+			return event;
+		}
+	}
+
+	/**
+	 * An {@link ActionTree} was filled into a {@code Menu}, {@code ToolBar} or
+	 * other {@link IActionTreeTarget}.
+	 */
+	@Name(FILL)
+	@Label("ActionTree Fill")
+	@Description("An ActionTree was added to a Menu, ToolBar or other target.")
+	static final class Fill extends ActionTreeEvent {
+		// Nothing to add.
+	}
+
+	/**
+	 * All contributions of an {@link ActionTree} were refreshed.
+	 */
+	@Name(REFRESH)
+	@Label("ActionTree Refresh")
+	@Description("All contributions of an ActionTree were refreshed.")
+	static final class Refresh extends ActionTreeEvent {
+		// Nothing to add.
+	}
+
+	/**
+	 * One contribution of an {@link ActionTree} was refreshed.
+	 */
+	@Name(CONTRIBUTION_REFRESH)
+	@Label("ActionTree Contribution Refresh")
+	@Description("One contribution of an ActionTree was refreshed.")
+	static final class ContributionRefresh extends ActionTreeEvent {
+		// Nothing to add.
+	}
+
+	/**
+	 * A {@code Menu} for an {@link ActionTree}'s children was requested. The
+	 * counts include the {@code Menu} and its items if it was rebuilt.
+	 */
+	@Name(GET_MENU)
+	@Label("ActionTree Get Menu")
+	@Description("A Menu for the children of an ActionTree was requested.")
+	static final class GetMenu extends ActionTreeEvent {
+		// Nothing to add.
+	}
+
+	/**
+	 * A {@code Menu} was filled with an {@link ActionTree}'s children.
+	 */
+	@Name(FILL_MENU)
+	@Label("ActionTree Fill Menu")
+	@Description("A Menu was filled with the children of an ActionTree.")
+	static final class FillMenu extends ActionTreeEvent {
+		// Nothing to add.
+	}
+}
@@ -0,0 +1,111 @@
+package com.bar.foo.actiontree;
+
+/**
+ * This class creates {@link ActionTreeEvent}s for Java Flight Recorder. The
+ * event classes depend on the {@code jdk.jfr} package, which older Java 8
+ * runtimes do not have, so they are only loaded if it is available. This
+ * class does not refer to them in a way that loads them.
+ * <p>
+ * Events are used as follows, where the event is {@code null} if it is not
+ * recorded:
+ * </p>
+ * 
+ * <pre>
+ * <code>
+ * ActionTreeEvent event = ActionTreeEvents.start(ActionTreeEvents.FILL);
+ * ...
+ * ActionTreeEvents.finish(event, node, created, disposed);
+ * </code>
+ * </pre>
+ * 
+ * @author Jordan
+ *
+ */
+final class ActionTreeEvents {
+
+	/**
+	 * The type of {@link ActionTreeEvent#FILL} events.
+	 */
+	static final int FILL = 0;
+
+	/**
+	 * The type of {@link ActionTreeEvent#REFRESH} events.
+	 */
+	static final int REFRESH = 1;
+
+	/**
+	 * The type of {@link ActionTreeEvent#CONTRIBUTION_REFRESH} events.
+	 */
+	static final int CONTRIBUTION_REFRESH = 2;
+
+	/**
+	 * The type of {@link ActionTreeEvent#GET_MENU} events.
+	 */
+	static final int GET_MENU = 3;
+
+	/**
+	 * The type of {@link ActionTreeEvent#FILL_MENU} events.
+	 */
+	static final int FILL_MENU = 4;
+
+	/**
+	 * Whether or not Java Flight Recorder is available.
+	 */
+	private static final boolean available = isAvailable();
+
+	/**
+	 * This class only has static methods.
+	 */
+	private ActionTreeEvents() {
+		// Nothing to do.
+	}
+
+	/**
+	 * Determines whether Java Flight Recorder events can be created.
+	 * 
+	 * @return True if the {@code jdk.jfr} package can be loaded, false
+	 *         otherwise.
+	 */
+	private static boolean isAvailable() {
+		boolean available;
+		try {
+			Class.forName("jdk.jfr.Event", false,
+					ActionTreeEvents.class.getClassLoader());
+			available = true;
+		} catch (ClassNotFoundException | LinkageError e) {
+			available = false;
+		}
+		return available;
+	}
+
+	/**
+	 * Starts an event if it is being recorded.
+	 * 
+	 * @param type
+	 *            The type of event, one of the constants in this class.
+	 * @return The started event, or {@code null} if it is not being recorded.
+	 */
+	static ActionTreeEvent start(int type) {
+		return available ? ActionTreeEvent.Factory.start(type) : null;
+	}
+
+	/**
+	 * Ends and commits an event.
+	 * 
+	 * @param event
+	 *            The event from {@link #start(int)}. If {@code null}, nothing
+	 *            is done.
+	 * @param node
+	 *            The node that the event is for.
+	 * @param created
+	 *            The number of widgets or items created.
+	 * @param disposed
+	 *            The number of widgets or items disposed.
+	 */
+	static void finish(ActionTreeEvent event, ActionTree node, int created,
+			int disposed) {
+		if (event != null) {
+			event.finish(node, created, disposed);
+		}
+	}
+}
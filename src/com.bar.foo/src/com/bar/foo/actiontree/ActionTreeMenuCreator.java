@@ -1,5 +1,7 @@
 package com.bar.foo.actiontree;
 
+import java.util.List;
+
 import org.eclipse.jface.action.IMenuCreator;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Menu;
@@ -25,6 +27,10 @@ public class ActionTreeMenuCreator implements IMenuCreator {
 	 * The popup or context {@code Menu}.
 	 */
 	private Menu popupMenu = null;
+	/**
+	 * The child {@code ActionTree}s that filled the {@link #popupMenu}.
+	 */
+	private List<ActionTree> popupChildren = null;
 	/**
 	 * Whether or not the {@link #popupMenu} needs to be refreshed.
 	 */
@@ -39,6 +45,10 @@ public class ActionTreeMenuCreator implements IMenuCreator {
 	 * The sub-{@code Menu}.
 	 */
 	private Menu subMenu = null;
+	/**
+	 * The child {@code ActionTree}s that filled the {@link #subMenu}.
+	 */
+	private List<ActionTree> subMenuChildren = null;
 	/**
 	 * Whether or not the {@link #subMenu} needs to be refreshed.
 	 */
@@ -82,12 +92,14 @@ public class ActionTreeMenuCreator implements IMenuCreator {
 	 */
 	@Override
 	public void dispose() {
-		dispose(popupMenu);
+		dispose(popupMenu, popupChildren);
 		popupMenu = null;
+		popupChildren = null;
 		popupDirty = true;
 
-		dispose(subMenu);
+		dispose(subMenu, subMenuChildren);
 		subMenu = null;
+		subMenuChildren = null;
 		subMenuDirty = true;
 
 		return;
@@ -99,15 +111,21 @@ public class ActionTreeMenuCreator implements IMenuCreator {
 	 */
 	@Override
 	public Menu getMenu(Control parent) {
+		ActionTreeEvent event = ActionTreeEvents
+				.start(ActionTreeEvents.GET_MENU);
+		int created = 0;
+		int disposed = 0;
 
 		if (parent != null && (popupDirty || parent != popupParent)) {
-			dispose(popupMenu);
+			disposed = dispose(popupMenu, popupChildren);
 			popupMenu = new Menu(parent);
-			fillMenu(popupMenu);
+			popupChildren = actionTree.getChildren();
+			created = 1 + fillMenu(popupMenu, popupChildren);
 			popupParent = parent;
 			popupDirty = false;
 		}
 
+		ActionTreeEvents.finish(event, actionTree, created, disposed);
 		return popupMenu;
 	}
 
@@ -117,44 +135,93 @@ public class ActionTreeMenuCreator implements IMenuCreator {
 	 */
 	@Override
 	public Menu getMenu(Menu parent) {
+		ActionTreeEvent event = ActionTreeEvents
+				.start(ActionTreeEvents.GET_MENU);
+		int created = 0;
+		int disposed = 0;
 
 		if (parent != null && (subMenuDirty || parent != subMenuParent)) {
-			dispose(subMenu);
+			disposed = dispose(subMenu, subMenuChildren);
 			subMenu = new Menu(parent);
-			fillMenu(subMenu);
+			subMenuChildren = actionTree.getChildren();
+			created = 1 + fillMenu(subMenu, subMenuChildren);
 			subMenuParent = parent;
 			subMenuDirty = false;
 		}
 
+		ActionTreeEvents.finish(event, actionTree, created, disposed);
 		return subMenu;
 	}
 
 	// --------------------------------- //
 
+	/**
+	 * Gets the number of {@code Menu}s currently created and not disposed.
+	 * 
+	 * @return The number of live {@code Menu}s, from 0 to 2.
+	 */
+	int getNumberOfMenus() {
+		int menus = 0;
+		if (popupMenu != null && !popupMenu.isDisposed()) {
+			menus++;
+		}
+		if (subMenu != null && !subMenu.isDisposed()) {
+			menus++;
+		}
+		return menus;
+	}
+
 	/**
 	 * Convenience method for disposing a {@code Menu} without throwing a null
-	 * pointer or widget disposed exception.
+	 * pointer or widget disposed exception. The children's contributions to
+	 * the {@code Menu} are removed first, even if it was already disposed, so
+	 * that they no longer listen to their actions.
 	 * 
 	 * @param menu
 	 *            The menu to dispose.
+	 * @param children
+	 *            The child {@code ActionTree}s that filled the menu.
+	 * @return The number of widgets disposed: the {@code Menu} and its items,
+	 *         or 0 if it was already disposed.
 	 */
-	private void dispose(Menu menu) {
-		if (menu != null && !menu.isDisposed()) {
-			menu.dispose();
+	private int dispose(Menu menu, List<ActionTree> children) {
+		int disposed = 0;
+		if (menu != null) {
+			if (!menu.isDisposed()) {
+				disposed = 1 + menu.getItemCount();
+			}
+			if (children != null) {
+				for (ActionTree childTree : children) {
+					childTree.unfill(menu);
+				}
+			}
+			if (!menu.isDisposed()) {
+				menu.dispose();
+			}
 		}
+		return disposed;
 	}
 
 	/**
 	 * Convenience method for filling a {@code Menu} with the {@code ActionTree}
-	 * 's {@link #contributions}.
+	 * 's children.
 	 * 
 	 * @param menu
 	 *            The {@code Menu} to fill.
+	 * @param children
+	 *            The child {@code ActionTree}s to add to the {@code Menu}.
+	 * @return The number of items added to the {@code Menu}.
 	 */
-	private void fillMenu(Menu menu) {
-		for (ActionTree childTree : actionTree.getChildren()) {
+	private int fillMenu(Menu menu, List<ActionTree> children) {
+		ActionTreeEvent event = ActionTreeEvents
+				.start(ActionTreeEvents.FILL_MENU);
+		int oldCount = menu.getItemCount();
+		for (ActionTree childTree : children) {
 			childTree.fill(menu);
 		}
+		int created = menu.getItemCount() - oldCount;
+		ActionTreeEvents.finish(event, actionTree, created, 0);
+		return created;
 	}
 
 }
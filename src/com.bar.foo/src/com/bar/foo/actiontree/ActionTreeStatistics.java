@@ -0,0 +1,75 @@
+package com.bar.foo.actiontree;
+
+import java.util.Map;
+
+import com.bar.foo.tree.statistics.TreeStatistics;
+
+/**
+ * This class extends {@link TreeStatistics} with the widget resources held by
+ * an {@link ActionTree}: the number of live {@link ActionTreeContribution}s
+ * and the number of live {@code Menu}s created for sub-menus and dropdowns.
+ * Contributions to disposed widgets and disposed menus are not counted.
+ * 
+ * @author Jordan
+ * 
+ */
+public class ActionTreeStatistics extends TreeStatistics<ActionTree> {
+
+	/**
+	 * The number of live contributions in the tree.
+	 */
+	private int contributionCount = 0;
+
+	/**
+	 * The number of live menus in the tree.
+	 */
+	private int menuCount = 0;
+
+	/*
+	 * Overrides a method from TreeStatistics.
+	 */
+	@Override
+	public void compute(ActionTree root) {
+		contributionCount = 0;
+		menuCount = 0;
+		super.compute(root);
+	}
+
+	/*
+	 * Overrides a method from TreeStatistics.
+	 */
+	@Override
+	protected void visit(ActionTree node, int depth, int children) {
+		contributionCount += node.getNumberOfContributions();
+		menuCount += node.getNumberOfMenus();
+	}
+
+	/**
+	 * Gets the number of live contributions made by the nodes in the tree.
+	 * 
+	 * @return The contribution count.
+	 */
+	public int getContributionCount() {
+		return contributionCount;
+	}
+
+	/**
+	 * Gets the number of live menus created for the nodes in the tree.
+	 * 
+	 * @return The menu count.
+	 */
+	public int getMenuCount() {
+		return menuCount;
+	}
+
+	/*
+	 * Overrides a method from TreeStatistics.
+	 */
+	@Override
+	public Map<String, Object> toMap() {
+		Map<String, Object> map = super.toMap();
+		map.put("contributionCount", contributionCount);
+		map.put("menuCount", menuCount);
+		return map;
+	}
+}
@@ -0,0 +1,47 @@
+package com.bar.foo.actiontree;
+
+import org.eclipse.jface.action.ActionContributionItem;
+
+/**
+ * This interface describes something, usually a widget like a {@code Menu} or
+ * {@code ToolBar}, that an {@link ActionTreeContribution} can add its
+ * {@link ActionContributionItem} to. The built-in fill methods of
+ * {@link ActionTree} wrap their widgets in an {@code IActionTreeTarget}.
+ * Other implementations can be passed to
+ * {@link ActionTree#fill(IActionTreeTarget)}, like the
+ * {@link InMemoryActionTreeTarget}, which does not need a display.
+ *
+ * @author Jordan
+ *
+ */
+public interface IActionTreeTarget {
+
+	/**
+	 * Adds a new item to the end of the target.
+	 *
+	 * @param item
+	 *            The item to add.
+	 */
+	public void create(ActionContributionItem item);
+
+	/**
+	 * Replaces an item that was added to the target with a new one in the
+	 * same position, then disposes the old item. This is used to refresh an
+	 * item after its {@link ActionTree} has changed.
+	 *
+	 * @param oldItem
+	 *            The item currently in the target.
+	 * @param newItem
+	 *            The item that replaces it.
+	 */
+	public void update(ActionContributionItem oldItem,
+			ActionContributionItem newItem);
+
+	/**
+	 * Removes an item from the target and disposes it.
+	 *
+	 * @param item
+	 *            The item to remove.
+	 */
+	public void dispose(ActionContributionItem item);
+}
@@ -0,0 +1,276 @@
+package com.bar.foo.actiontree;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jface.action.ActionContributionItem;
+
+/**
+ * This class provides an {@link IActionTreeTarget} that keeps its items in a
+ * list instead of a widget. It needs no display, so it can be used to test and
+ * measure {@link ActionTree} contributions without SWT widgets.
+ * <p>
+ * Every create, update and dispose operation is counted. If enabled, each
+ * operation is also recorded with its item and the index of the item in the
+ * target.
+ * </p>
+ *
+ * @author Jordan
+ *
+ */
+public class InMemoryActionTreeTarget implements IActionTreeTarget {
+
+	/**
+	 * An enumeration of the operations performed on an
+	 * {@link IActionTreeTarget}.
+	 *
+	 * @author Jordan
+	 *
+	 */
+	public enum OperationType {
+		/**
+		 * An item was added with {@link IActionTreeTarget#create}.
+		 */
+		Create,
+
+		/**
+		 * An item was replaced with {@link IActionTreeTarget#update}.
+		 */
+		Update,
+
+		/**
+		 * An item was removed with {@link IActionTreeTarget#dispose}.
+		 */
+		Dispose;
+	}
+
+	/**
+	 * An operation recorded by an {@link InMemoryActionTreeTarget}.
+	 *
+	 * @author Jordan
+	 *
+	 */
+	public static final class Operation {
+
+		/**
+		 * The type of operation.
+		 */
+		public final OperationType type;
+
+		/**
+		 * The item that was created or disposed, or the new item for an
+		 * update.
+		 */
+		public final ActionContributionItem item;
+
+		/**
+		 * The index of the item in the target. For a disposed item, this is
+		 * the index it had before it was removed.
+		 */
+		public final int index;
+
+		/**
+		 * The default constructor.
+		 *
+		 * @param type
+		 *            The type of operation.
+		 * @param item
+		 *            The item that was created, updated or disposed.
+		 * @param index
+		 *            The index of the item in the target.
+		 */
+		private Operation(OperationType type, ActionContributionItem item,
+				int index) {
+			this.type = type;
+			this.item = item;
+			this.index = index;
+		}
+	}
+
+	/**
+	 * The items in the target, in order.
+	 */
+	private final List<ActionContributionItem> items = new ArrayList<ActionContributionItem>();
+
+	/**
+	 * The index of each item in {@link #items}, so that an item can be found
+	 * without searching the list.
+	 */
+	private final Map<ActionContributionItem, Integer> indices = new IdentityHashMap<ActionContributionItem, Integer>();
+
+	/**
+	 * Whether or not each operation is added to the {@link #operations}.
+	 */
+	private final boolean recordOperations;
+
+	/**
+	 * The recorded operations, or {@code null} if operations are only
+	 * counted.
+	 */
+	private final List<Operation> operations;
+
+	/**
+	 * The number of operations of each type, indexed by ordinal.
+	 */
+	private final int[] operationCounts = new int[OperationType.values().length];
+
+	/**
+	 * The default constructor. Creates a target that records all operations.
+	 */
+	public InMemoryActionTreeTarget() {
+		this(true);
+	}
+
+	/**
+	 * Creates a target that may only count its operations. This is useful for
+	 * long-running measurements, which would otherwise keep every operation.
+	 *
+	 * @param recordOperations
+	 *            If true, each operation is recorded. If false, operations are
+	 *            only counted.
+	 */
+	public InMemoryActionTreeTarget(boolean recordOperations) {
+		this.recordOperations = recordOperations;
+		operations = recordOperations ? new ArrayList<Operation>() : null;
+	}
+
+	/*
+	 * Implements a method from IActionTreeTarget.
+	 */
+	@Override
+	public void create(ActionContributionItem item) {
+		if (item == null || indices.containsKey(item)) {
+			throw new IllegalArgumentException(
+					"InMemoryActionTreeTarget error: "
+							+ "Cannot create a null or existing item.");
+		}
+		int index = items.size();
+		items.add(item);
+		indices.put(item, index);
+		record(OperationType.Create, item, index);
+	}
+
+	/*
+	 * Implements a method from IActionTreeTarget.
+	 */
+	@Override
+	public void update(ActionContributionItem oldItem,
+			ActionContributionItem newItem) {
+		Integer index = (oldItem != null ? indices.get(oldItem) : null);
+		if (index == null || newItem == null || indices.containsKey(newItem)) {
+			throw new IllegalArgumentException(
+					"InMemoryActionTreeTarget error: "
+							+ "The old item must be in the target, and the "
+							+ "new item must not be null or in the target.");
+		}
+		items.set(index, newItem);
+		indices.remove(oldItem);
+		indices.put(newItem, index);
+		oldItem.dispose();
+		record(OperationType.Update, newItem, index);
+	}
+
+	/*
+	 * Implements a method from IActionTreeTarget.
+	 */
+	@Override
+	public void dispose(ActionContributionItem item) {
+		Integer index = (item != null ? indices.remove(item) : null);
+		if (index == null) {
+			throw new IllegalArgumentException(
+					"InMemoryActionTreeTarget error: "
+							+ "Cannot dispose an item not in the target.");
+		}
+		items.remove(index.intValue());
+		// The following items have moved down by one.
+		for (int i = index; i < items.size(); i++) {
+			indices.put(items.get(i), i);
+		}
+		item.dispose();
+		record(OperationType.Dispose, item, index);
+	}
+
+	/**
+	 * Counts an operation and records it if enabled.
+	 *
+	 * @param type
+	 *            The type of operation.
+	 * @param item
+	 *            The item that was created, updated or disposed.
+	 * @param index
+	 *            The index of the item in the target.
+	 */
+	private void record(OperationType type, ActionContributionItem item,
+			int index) {
+		operationCounts[type.ordinal()]++;
+		if (recordOperations) {
+			operations.add(new Operation(type, item, index));
+		}
+	}
+
+	/**
+	 * Gets the number of items in the target.
+	 *
+	 * @return The number of items.
+	 */
+	public int getNumberOfItems() {
+		return items.size();
+	}
+
+	/**
+	 * Gets an item in the target.
+	 *
+	 * @param index
+	 *            The index of the item.
+	 * @return The item at the index.
+	 */
+	public ActionContributionItem getItem(int index) {
+		return items.get(index);
+	}
+
+	/**
+	 * Gets the items in the target.
+	 *
+	 * @return A new list containing the items, in order.
+	 */
+	public List<ActionContributionItem> getItems() {
+		return new ArrayList<ActionContributionItem>(items);
+	}
+
+	/**
+	 * Gets the number of operations of a type since the target was created or
+	 * the operations were last cleared.
+	 *
+	 * @param type
+	 *            The type of operation.
+	 * @return The number of operations of that type.
+	 */
+	public int getOperationCount(OperationType type) {
+		return operationCounts[type.ordinal()];
+	}
+
+	/**
+	 * Gets the recorded operations.
+	 *
+	 * @return A new list containing the operations in the order they were
+	 *         performed. This is empty if operations are only counted.
+	 */
+	public List<Operation> getOperations() {
+		return recordOperations ? new ArrayList<Operation>(operations)
+				: new ArrayList<Operation>();
+	}
+
+	/**
+	 * Clears the recorded operations and their counts. The items are kept.
+	 */
+	public void clearOperations() {
+		if (recordOperations) {
+			operations.clear();
+		}
+		for (int i = 0; i < operationCounts.length; i++) {
+			operationCounts[i] = 0;
+		}
+	}
+}
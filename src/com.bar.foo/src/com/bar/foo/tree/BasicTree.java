@@ -1,13 +1,18 @@
 package com.bar.foo.tree;
 
+import java.lang.ref.SoftReference;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
 
 import com.bar.foo.tree.iterator.BreadthFirstTreeIterator;
 import com.bar.foo.tree.iterator.PostOrderTreeIterator;
 import com.bar.foo.tree.iterator.PreOrderTreeIterator;
 import com.bar.foo.tree.iterator.TreeIterationOrder;
+import com.bar.foo.tree.iterator.TreeIterator;
+import com.bar.foo.tree.iterator.TreeIteratorPool;
+import com.bar.foo.tree.metrics.ITreeMetrics;
+import com.bar.foo.tree.metrics.TreeMetrics;
 
 /**
  * This class provides a basic implementation of {@link ITree}. It implements
@@ -31,6 +36,12 @@ import com.bar.foo.tree.iterator.TreeIterationOrder;
  * 
  * The end result of this example class is a tree of {@code Foo} nodes where
  * each node maintains an integer value {@code bar}.
+ * <p>
+ * The children of a node may also be loaded lazily by setting an
+ * {@link IChildLoader} with {@link #setChildLoader(IChildLoader)}. The loader
+ * is not called until the children are first requested, so traversals that
+ * never enter the node's sub-tree never pay for loading it.
+ * </p>
  * 
  * @author Jordan
  *
@@ -46,9 +57,79 @@ public abstract class BasicTree<T extends BasicTree<T>> implements ITree<T> {
 	private T parent = null;
 
 	/**
-	 * The children of this tree node.
+	 * The cached index of this node in its {@link #parent}'s children, or -1
+	 * if it has no parent. This is only correct if it is less than the
+	 * parent's {@link #indexedChildren}. Otherwise, the parent updates it the
+	 * next time this node's index is requested.
 	 */
-	private final List<T> children = new ArrayList<T>();
+	private int indexInParent = -1;
+
+	/**
+	 * The children of this tree node. Changes to the list are made while
+	 * holding its lock so that {@link TreeSnapshot}s on other threads can read
+	 * it safely.
+	 */
+	private final ArrayList<T> children = new ArrayList<T>();
+
+	/**
+	 * The number of leading {@link #children} whose {@link #indexInParent}
+	 * is known to be correct. Removing a child only lowers this value instead
+	 * of updating every following sibling, so removing many children from a
+	 * wide node takes linear rather than quadratic time.
+	 */
+	private int indexedChildren = 0;
+
+	/**
+	 * The previous versions of the {@link #children} that are still visible
+	 * to open {@link TreeSnapshot}s, newest first, or {@code null} if there
+	 * are none. This is guarded by the lock on the {@code children}.
+	 */
+	private ChildVersion childVersions = null;
+
+	/**
+	 * The cached values of the {@link SynthesizedAttribute}s for this node,
+	 * indexed by attribute, or {@code null} if none have been cached. A
+	 * {@code null} element means the value is not cached.
+	 */
+	private Object[] synthesizedAttributes = null;
+
+	/**
+	 * The cached values of the {@link InheritedAttribute}s for this node,
+	 * indexed by attribute, or {@code null} if none have been cached. A
+	 * {@code null} element means the value is not cached.
+	 */
+	private Object[] inheritedAttributes = null;
+
+	/**
+	 * The loader used to lazily create the children of this tree node, or
+	 * {@code null} if the children are managed directly.
+	 */
+	private IChildLoader<T> childLoader = null;
+
+	/**
+	 * Whether or not the children from the {@link #childLoader} have been
+	 * loaded. This is always true if there is no loader.
+	 */
+	private boolean childrenLoaded = true;
+
+	/**
+	 * Whether or not the loaded children may be unloaded when memory is low.
+	 */
+	private boolean unloadable = false;
+
+	/**
+	 * A soft reference that is cleared by the garbage collector when memory is
+	 * low. This is only set when unloadable children have been loaded, and it
+	 * is dropped as soon as the children are changed, so that only unchanged
+	 * loaded children are ever unloaded automatically.
+	 */
+	private SoftReference<Object> unloadReference = null;
+
+	/**
+	 * The index of the first child added by the {@link #childLoader}. The
+	 * children before it were added directly.
+	 */
+	private int loadedIndex = 0;
 
 	/**
 	 * The default constructor. Creates a new {@code BasicTree} with no
@@ -91,25 +172,78 @@ public abstract class BasicTree<T extends BasicTree<T>> implements ITree<T> {
 	 */
 	@Override
 	public boolean addChild(T child) {
+		ensureChildrenLoaded();
 		boolean added = false;
 		if (child != null && !hasChild(child)) {
-			if (children.add(child)) {
-				added = true;
-				T parent = child.getParent();
-				if (parent != null) {
-					parent.removeChild(child);
-				}
-				child.setParent(getValue());
-			}
+			appendChild(child);
+			added = true;
 		}
 		return added;
 	}
 
+	/**
+	 * Appends a child to this tree node without checking whether it is
+	 * already a child. This is used by {@link TreeBuilder}, which only appends
+	 * new nodes. If the child has another parent, it is moved from that
+	 * parent.
+	 *
+	 * @param child
+	 *            The child node to append. Assumed not to be null.
+	 */
+	final void appendChild(T child) {
+		ensureChildrenLoaded();
+		// Remove the child from its old parent while its old index is known.
+		// This is part of a move, so it is not reported as a removal.
+		BasicTree<T> parent = child.getParent();
+		int index = (parent != null ? parent.indexOf(child) : -1);
+		if (index >= 0) {
+			parent.detachChild(index);
+		}
+		synchronized (children) {
+			saveChildVersion();
+			((BasicTree<T>) child).indexInParent = children.size();
+			if (indexedChildren == children.size()) {
+				indexedChildren++;
+			}
+			children.add(child);
+			// The children have changed, so they must not be unloaded.
+			unloadReference = null;
+		}
+		child.setParent(getValue());
+		invalidateAttribute(false, -1);
+		((BasicTree<T>) child).invalidateAttribute(true, -1);
+
+		ITreeMetrics metrics = TreeMetrics.getMetrics();
+		if (metrics != null) {
+			if (parent != null) {
+				metrics.childMoved();
+			} else {
+				metrics.childAdded();
+			}
+		}
+	}
+
+	/**
+	 * Increases the capacity of this node's list of children, if necessary, so
+	 * that it can hold the specified number of children without growing. This
+	 * is useful when the number of children is known before they are added.
+	 *
+	 * @param capacity
+	 *            The desired minimum capacity.
+	 */
+	public void ensureChildCapacity(int capacity) {
+		ensureChildrenLoaded();
+		synchronized (children) {
+			children.ensureCapacity(capacity);
+		}
+	}
+
 	/*
 	 * Implements a method from ITree.
 	 */
 	@Override
 	public T getChild(int index) {
+		ensureChildrenLoaded();
 		return children.get(index);
 	}
 
@@ -118,6 +252,7 @@ public abstract class BasicTree<T extends BasicTree<T>> implements ITree<T> {
 	 */
 	@Override
 	public List<T> getChildren() {
+		ensureChildrenLoaded();
 		return new ArrayList<T>(children);
 	}
 
@@ -126,6 +261,7 @@ public abstract class BasicTree<T extends BasicTree<T>> implements ITree<T> {
 	 */
 	@Override
 	public int getNumberOfChildren() {
+		ensureChildrenLoaded();
 		return children.size();
 	}
 
@@ -137,12 +273,64 @@ public abstract class BasicTree<T extends BasicTree<T>> implements ITree<T> {
 		return parent;
 	}
 
+	/**
+	 * Gets the index of this node in its parent's list of children. This takes
+	 * constant amortized time when siblings are visited or removed in order.
+	 * 
+	 * @return The index of this node among its siblings, or -1 if it has no
+	 *         parent.
+	 */
+	public int indexInParent() {
+		int index = -1;
+		if (parent != null) {
+			index = ((BasicTree<T>) parent).indexOf(getValue());
+		}
+		return index;
+	}
+
+	/**
+	 * Gets the next sibling of this node, i.e., the child of its parent that
+	 * follows it. This takes constant amortized time when siblings are
+	 * visited in order.
+	 * 
+	 * @return The next sibling, or {@code null} if this node is the last child
+	 *         or has no parent.
+	 */
+	public T getNextSibling() {
+		T sibling = null;
+		int index = indexInParent();
+		if (index >= 0) {
+			List<T> siblings = ((BasicTree<T>) parent).children;
+			if (index + 1 < siblings.size()) {
+				sibling = siblings.get(index + 1);
+			}
+		}
+		return sibling;
+	}
+
+	/**
+	 * Gets the previous sibling of this node, i.e., the child of its parent
+	 * that precedes it. This takes constant amortized time when siblings are
+	 * visited in order.
+	 * 
+	 * @return The previous sibling, or {@code null} if this node is the first
+	 *         child or has no parent.
+	 */
+	public T getPreviousSibling() {
+		T sibling = null;
+		int index = indexInParent();
+		if (index > 0) {
+			sibling = ((BasicTree<T>) parent).children.get(index - 1);
+		}
+		return sibling;
+	}
+
 	/*
 	 * Implements a method from ITree.
 	 */
 	@Override
 	public boolean hasChild(T child) {
-		return children.contains(child);
+		return indexOf(child) >= 0;
 	}
 
 	/*
@@ -150,6 +338,12 @@ public abstract class BasicTree<T extends BasicTree<T>> implements ITree<T> {
 	 */
 	@Override
 	public boolean hasChildren() {
+		// Ask the loader instead of loading the children just to see if there
+		// are any.
+		if (!childrenLoaded && children.isEmpty()) {
+			return childLoader.hasChildren(getValue());
+		}
+		ensureChildrenLoaded();
 		return !children.isEmpty();
 	}
 
@@ -157,7 +351,7 @@ public abstract class BasicTree<T extends BasicTree<T>> implements ITree<T> {
 	 * Implements a method from Iterable.
 	 */
 	@Override
-	public Iterator<T> iterator() {
+	public TreeIterator<T> iterator() {
 		return iterator(TreeIterationOrder.BreadthFirst);
 	}
 
@@ -165,8 +359,8 @@ public abstract class BasicTree<T extends BasicTree<T>> implements ITree<T> {
 	 * Implements a method from ITree.
 	 */
 	@Override
-	public Iterator<T> iterator(TreeIterationOrder order) {
-		Iterator<T> iterator = null;
+	public TreeIterator<T> iterator(TreeIterationOrder order) {
+		TreeIterator<T> iterator = null;
 
 		if (order != null) {
 			switch (order) {
@@ -185,14 +379,67 @@ public abstract class BasicTree<T extends BasicTree<T>> implements ITree<T> {
 		return iterator;
 	}
 
+	/**
+	 * Takes a snapshot of the sub-tree rooted at this node. The snapshot's
+	 * iterators see the children of each node as they were when the snapshot
+	 * was taken, even while other threads add or remove children. Nothing is
+	 * copied up front. Instead, the first change to a node's children after
+	 * the snapshot is taken saves a copy of them for the snapshot to read.
+	 * <p>
+	 * The snapshot should be closed when it is no longer needed so that the
+	 * saved copies can be dropped.
+	 * </p>
+	 * 
+	 * @return A new, open snapshot of this node's sub-tree.
+	 */
+	public TreeSnapshot<T> snapshot() {
+		return new TreeSnapshot<T>(getValue());
+	}
+
 	/*
 	 * Implements a method from ITree.
 	 */
 	@Override
 	public T removeChild(int index) {
-		T child = children.remove(index);
+		T child = detachChild(index);
+		if (child != null) {
+			ITreeMetrics metrics = TreeMetrics.getMetrics();
+			if (metrics != null) {
+				metrics.childRemoved();
+			}
+		}
+		return child;
+	}
+
+	/**
+	 * Removes a child from this node without reporting it to the
+	 * {@link TreeMetrics}.
+	 * 
+	 * @param index
+	 *            The index of the child to remove.
+	 * @return The removed child.
+	 */
+	private T detachChild(int index) {
+		ensureChildrenLoaded();
+		T child;
+		synchronized (children) {
+			if (index >= 0 && index < children.size()) {
+				saveChildVersion();
+			}
+			child = children.remove(index);
+			// The following children move down by one. Their indices are
+			// updated lazily by indexOf(T).
+			if (indexedChildren > index) {
+				indexedChildren = index;
+			}
+			// The children have changed, so they must not be unloaded.
+			unloadReference = null;
+		}
 		if (child != null) {
 			child.setParent(null);
+			((BasicTree<T>) child).indexInParent = -1;
+			invalidateAttribute(false, -1);
+			((BasicTree<T>) child).invalidateAttribute(true, -1);
 		}
 		return child;
 	}
@@ -202,11 +449,11 @@ public abstract class BasicTree<T extends BasicTree<T>> implements ITree<T> {
 	 */
 	@Override
 	public boolean removeChild(T child) {
-		boolean removed = children.remove(child);
-		if (removed) {
-			child.setParent(null);
+		int index = indexOf(child);
+		if (index >= 0) {
+			removeChild(index);
 		}
-		return removed;
+		return index >= 0;
 	}
 
 	/*
@@ -216,6 +463,470 @@ public abstract class BasicTree<T extends BasicTree<T>> implements ITree<T> {
 		this.parent = parent;
 	}
 
+	/**
+	 * Sets the loader used to lazily create the children of this node. The
+	 * loader will be called the first time the node's children are requested.
+	 * Any children already added to the node are kept, and the loaded children
+	 * are added after them.
+	 * 
+	 * @param loader
+	 *            The loader for the node's children, or {@code null} to manage
+	 *            the children directly.
+	 * @see #setChildLoader(IChildLoader, boolean)
+	 */
+	public void setChildLoader(IChildLoader<T> loader) {
+		setChildLoader(loader, false);
+	}
+
+	/**
+	 * Sets the loader used to lazily create the children of this node. The
+	 * loader will be called the first time the node's children are requested.
+	 * Any children already added to the node are kept, and the loaded children
+	 * are added after them.
+	 * <p>
+	 * If the children are unloadable, the garbage collector may report that
+	 * memory is low, starting with the least recently accessed nodes. The next
+	 * time this node's children are requested, the loaded children are then
+	 * replaced with newly loaded ones, which releases any sub-trees loaded
+	 * below them. Only this node's own requests do this, and only if its
+	 * children have not been added, removed or moved since they were loaded.
+	 * Children added directly are never unloaded automatically. Note that
+	 * references held elsewhere to unloaded children will refer to detached
+	 * sub-trees.
+	 * </p>
+	 * 
+	 * @param loader
+	 *            The loader for the node's children, or {@code null} to manage
+	 *            the children directly.
+	 * @param unloadable
+	 *            Whether or not the loaded children may be unloaded when memory
+	 *            is low.
+	 */
+	public void setChildLoader(IChildLoader<T> loader, boolean unloadable) {
+		childLoader = loader;
+		childrenLoaded = (loader == null);
+		this.unloadable = (loader != null && unloadable);
+		unloadReference = null;
+	}
+
+	/**
+	 * Gets whether or not the children of this node have been loaded. This is
+	 * always true if the node does not have an {@link IChildLoader}.
+	 * 
+	 * @return True if the children are loaded, false if they will be loaded on
+	 *         the next request.
+	 */
+	public boolean isChildrenLoaded() {
+		return childrenLoaded;
+	}
+
+	/**
+	 * Removes the loaded children of this node so that they will be loaded
+	 * again from its {@link IChildLoader} the next time they are requested.
+	 * All of the node's children are removed, including any that were added
+	 * directly. This has no effect if the node does not have a loader or if
+	 * its children are not loaded.
+	 * 
+	 * @return True if the children were unloaded, false otherwise.
+	 */
+	public boolean unloadChildren() {
+		boolean unloaded = false;
+		if (childLoader != null && childrenLoaded) {
+			List<T> unloadedChildren;
+			synchronized (children) {
+				saveChildVersion();
+				unloadedChildren = new ArrayList<T>(children);
+				children.clear();
+				indexedChildren = 0;
+				loadedIndex = 0;
+				childrenLoaded = false;
+			}
+			for (T child : unloadedChildren) {
+				child.setParent(null);
+				((BasicTree<T>) child).indexInParent = -1;
+				((BasicTree<T>) child).invalidateAttribute(true, -1);
+			}
+			invalidateAttribute(false, -1);
+			unloadReference = null;
+			unloaded = true;
+		}
+		return unloaded;
+	}
+
+	/**
+	 * Clears the cached attribute values that depend on this node. This must
+	 * be called when a property of the node used by an attribute changes.
+	 * Changes to the children of a node invalidate the attributes
+	 * automatically.
+	 * <p>
+	 * The {@link SynthesizedAttribute}s of this node and its ancestors are
+	 * cleared, as are the {@link InheritedAttribute}s of this node and its
+	 * descendants. Nodes whose values were never cached are skipped, so only
+	 * the affected path is visited.
+	 * </p>
+	 */
+	public void invalidateAttributes() {
+		invalidateAttribute(false, -1);
+		invalidateAttribute(true, -1);
+	}
+
+	/**
+	 * Gets the cached value of an attribute.
+	 * 
+	 * @param inherited
+	 *            Whether the attribute is an {@link InheritedAttribute} or a
+	 *            {@link SynthesizedAttribute}.
+	 * @param index
+	 *            The index of the attribute.
+	 * @return The cached value, or {@code null} if it is not cached.
+	 */
+	final Object getAttribute(boolean inherited, int index) {
+		Object[] values = (inherited ? inheritedAttributes
+				: synthesizedAttributes);
+		return values != null && index < values.length ? values[index] : null;
+	}
+
+	/**
+	 * Caches the value of an attribute.
+	 * 
+	 * @param inherited
+	 *            Whether the attribute is an {@link InheritedAttribute} or a
+	 *            {@link SynthesizedAttribute}.
+	 * @param index
+	 *            The index of the attribute.
+	 * @param value
+	 *            The value to cache. Assumed not to be null.
+	 */
+	final void setAttribute(boolean inherited, int index, Object value) {
+		Object[] values = (inherited ? inheritedAttributes
+				: synthesizedAttributes);
+		if (values == null || index >= values.length) {
+			values = (values == null ? new Object[index + 1] : Arrays.copyOf(
+					values, index + 1));
+			if (inherited) {
+				inheritedAttributes = values;
+			} else {
+				synthesizedAttributes = values;
+			}
+		}
+		values[index] = value;
+	}
+
+	/**
+	 * Clears a cached attribute value and the values that depend on it.
+	 * Synthesized values depend on the descendants of a node, so they are
+	 * cleared on the path to the root. Inherited values depend on the
+	 * ancestors, so they are cleared in the node's sub-tree. Since a value is
+	 * only cached after the values it depends on are cached, the search stops
+	 * at nodes that do not have a cached value.
+	 * 
+	 * @param inherited
+	 *            Whether to clear {@link InheritedAttribute}s or
+	 *            {@link SynthesizedAttribute}s.
+	 * @param index
+	 *            The index of the attribute, or -1 to clear all attributes of
+	 *            the kind.
+	 */
+	final void invalidateAttribute(boolean inherited, int index) {
+		if (inherited) {
+			if (clearAttribute(inheritedAttributes, index)) {
+				// Loaded children are read directly so nothing is loaded.
+				List<BasicTree<T>> stack = new ArrayList<BasicTree<T>>(children);
+				while (!stack.isEmpty()) {
+					BasicTree<T> node = stack.remove(stack.size() - 1);
+					if (clearAttribute(node.inheritedAttributes, index)) {
+						stack.addAll(node.children);
+					}
+				}
+			}
+		} else {
+			BasicTree<T> node = this;
+			while (node != null
+					&& clearAttribute(node.synthesizedAttributes, index)) {
+				node = node.parent;
+			}
+		}
+	}
+
+	/**
+	 * Clears cached attribute values.
+	 * 
+	 * @param values
+	 *            The cached values of a node. May be null.
+	 * @param index
+	 *            The index of the value to clear, or -1 to clear all values.
+	 * @return True if a cached value was cleared, false otherwise.
+	 */
+	private static boolean clearAttribute(Object[] values, int index) {
+		boolean cleared = false;
+		if (values != null) {
+			int from = (index >= 0 ? index : 0);
+			int to = (index >= 0 ? Math.min(index + 1, values.length)
+					: values.length);
+			for (int i = from; i < to; i++) {
+				if (values[i] != null) {
+					values[i] = null;
+					cleared = true;
+				}
+			}
+		}
+		return cleared;
+	}
+
+	/**
+	 * Gets the index of a child of this node using the child's cached
+	 * {@link #indexInParent}. If the cached index may be out of date, the
+	 * children from the first unknown index up to the child are renumbered.
+	 * When children are removed or visited in order, each child is renumbered
+	 * at most once per removal before it, so this takes constant amortized
+	 * time.
+	 * 
+	 * @param child
+	 *            The child to find.
+	 * @return The index of the child, or -1 if it is not a child of this node.
+	 */
+	private int indexOf(T child) {
+		int index = -1;
+		if (child != null && child.getParent() == this) {
+			ensureChildrenLoaded();
+			int i = ((BasicTree<T>) child).indexInParent;
+			if (i >= 0 && i < indexedChildren) {
+				index = i;
+			} else {
+				// Removals only move children down, so the child is found
+				// after the last known index.
+				int size = children.size();
+				for (i = indexedChildren; i < size && index < 0; i++) {
+					T sibling = children.get(i);
+					((BasicTree<T>) sibling).indexInParent = i;
+					if (sibling == child) {
+						index = i;
+					}
+				}
+				indexedChildren = i;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Loads the children from the {@link #childLoader} if necessary. This must
+	 * be called before the {@link #children} are accessed.
+	 */
+	private void ensureChildrenLoaded() {
+		// The common case of a node without a loader is a single check.
+		if (!childrenLoaded || unloadReference != null) {
+			// Reading the soft reference marks it as recently used, so the
+			// least recently used children are unloaded first.
+			SoftReference<Object> reference = unloadReference;
+			if (reference != null && reference.get() == null) {
+				unloadLoadedChildren(reference);
+			}
+			if (!childrenLoaded) {
+				loadChildren();
+			}
+		}
+	}
+
+	/**
+	 * Removes the children added by the {@link #childLoader} after memory ran
+	 * low, so that they are loaded again. Nothing is removed if the children
+	 * have changed since they were loaded.
+	 * 
+	 * @param reference
+	 *            The cleared {@link #unloadReference}.
+	 */
+	private void unloadLoadedChildren(SoftReference<Object> reference) {
+		List<T> unloadedChildren = null;
+		synchronized (children) {
+			// Any change to the children drops the reference.
+			if (unloadReference == reference && childrenLoaded) {
+				saveChildVersion();
+				List<T> loaded = children.subList(loadedIndex, children.size());
+				unloadedChildren = new ArrayList<T>(loaded);
+				loaded.clear();
+				if (indexedChildren > loadedIndex) {
+					indexedChildren = loadedIndex;
+				}
+				childrenLoaded = false;
+				unloadReference = null;
+			}
+		}
+		if (unloadedChildren != null) {
+			for (T child : unloadedChildren) {
+				child.setParent(null);
+				((BasicTree<T>) child).indexInParent = -1;
+				((BasicTree<T>) child).invalidateAttribute(true, -1);
+			}
+			invalidateAttribute(false, -1);
+		}
+		return;
+	}
+
+	/**
+	 * Loads the children from the {@link #childLoader} if they have not been
+	 * loaded. The loaded children are treated as if they had always been
+	 * there, so loading them does not save a {@link ChildVersion}.
+	 * <p>
+	 * The loader is called without holding the lock on the {@link #children},
+	 * and the children are only marked as loaded once it succeeds. If it
+	 * throws an exception, the children will be loaded again on the next
+	 * request. If two threads load the children at once, the children of the
+	 * first one to finish are kept.
+	 * </p>
+	 */
+	private void loadChildren() {
+		IChildLoader<T> loader = childLoader;
+		if (childrenLoaded || loader == null) {
+			return;
+		}
+
+		List<T> loadedChildren = loader.loadChildren(getValue());
+		if (loadedChildren == null) {
+			loadedChildren = new ArrayList<T>(0);
+		}
+		// Detach loaded children from their old parents first. This locks the
+		// old parents, so it cannot be done while holding the lock below.
+		for (T child : loadedChildren) {
+			BasicTree<T> parent = (child != null ? child.getParent() : null);
+			if (parent != null && parent != this) {
+				int index = parent.indexOf(child);
+				if (index >= 0) {
+					parent.detachChild(index);
+				}
+			}
+		}
+
+		List<T> addedChildren = new ArrayList<T>(loadedChildren.size());
+		synchronized (children) {
+			if (!childrenLoaded) {
+				loadedIndex = children.size();
+				for (T child : loadedChildren) {
+					// Skip duplicates and children claimed by another parent.
+					if (child != null && child.getParent() == null) {
+						((BasicTree<T>) child).indexInParent = children.size();
+						if (indexedChildren == children.size()) {
+							indexedChildren++;
+						}
+						children.add(child);
+						child.setParent(getValue());
+						addedChildren.add(child);
+					}
+				}
+				if (unloadable) {
+					unloadReference = new SoftReference<Object>(new Object());
+				}
+				childrenLoaded = true;
+			}
+		}
+
+		if (!addedChildren.isEmpty()) {
+			invalidateAttribute(false, -1);
+			ITreeMetrics metrics = TreeMetrics.getMetrics();
+			for (T child : addedChildren) {
+				((BasicTree<T>) child).invalidateAttribute(true, -1);
+				if (metrics != null) {
+					metrics.childAdded();
+				}
+			}
+		}
+		return;
+	}
+
+	/**
+	 * Saves the current children before they are changed if an open
+	 * {@link TreeSnapshot} may still need to read them. Only the first change
+	 * after a snapshot is taken saves a copy, and versions that no open
+	 * snapshot can see are dropped. This must be called while holding the
+	 * lock on the {@link #children}.
+	 */
+	private void saveChildVersion() {
+		// The current version must be read first. See TreeSnapshot.
+		long version = TreeSnapshot.getCurrentVersion();
+		long oldest = TreeSnapshot.getOldestOpenVersion();
+		if (oldest > version) {
+			// No snapshot is open.
+			childVersions = null;
+		} else if (childVersions == null || childVersions.version < version) {
+			// Drop the saved versions that are older than every snapshot.
+			ChildVersion previous = childVersions;
+			if (previous != null && previous.version < oldest) {
+				previous = null;
+			}
+			ChildVersion saved = previous;
+			while (saved != null) {
+				if (saved.previous != null && saved.previous.version < oldest) {
+					saved.previous = null;
+				}
+				saved = saved.previous;
+			}
+			childVersions = new ChildVersion(version, children.toArray(),
+					previous);
+		}
+	}
+
+	/**
+	 * Gets the saved children visible to a snapshot. These are the children
+	 * saved by the oldest change made after the snapshot was taken. This must
+	 * be called while holding the lock on the {@link #children}.
+	 * 
+	 * @param version
+	 *            The version of the snapshot.
+	 * @return The saved children, or {@code null} if the children have not
+	 *         changed since the snapshot was taken.
+	 */
+	private ChildVersion getChildVersion(long version) {
+		ChildVersion match = null;
+		ChildVersion saved = childVersions;
+		while (saved != null && saved.version >= version) {
+			match = saved;
+			saved = saved.previous;
+		}
+		return match;
+	}
+
+	/**
+	 * Gets the number of children this node had when a {@link TreeSnapshot}
+	 * was taken.
+	 * 
+	 * @param version
+	 *            The version of the snapshot.
+	 * @return The number of children in the snapshot.
+	 */
+	final int getNumberOfChildren(long version) {
+		// The loader must not be called while holding the lock.
+		loadChildren();
+		synchronized (children) {
+			ChildVersion saved = getChildVersion(version);
+			if (saved != null) {
+				return saved.children.length;
+			}
+			return children.size();
+		}
+	}
+
+	/**
+	 * Gets a child this node had when a {@link TreeSnapshot} was taken.
+	 * 
+	 * @param version
+	 *            The version of the snapshot.
+	 * @param index
+	 *            The index of the child in the snapshot.
+	 * @return The child at the index.
+	 */
+	@SuppressWarnings("unchecked")
+	final T getChild(long version, int index) {
+		// The loader must not be called while holding the lock.
+		loadChildren();
+		synchronized (children) {
+			ChildVersion saved = getChildVersion(version);
+			if (saved != null) {
+				return (T) saved.children[index];
+			}
+			return children.get(index);
+		}
+	}
+
 	/**
 	 * Performs a simple equality check with another object. Since no
 	 * information except tree structure is maintained in {@code BasicTree},
@@ -270,29 +981,43 @@ public abstract class BasicTree<T extends BasicTree<T>> implements ITree<T> {
 
 		if (equals && fullTree && object instanceof BasicTree<?>) {
 			BasicTree<T> tree = (BasicTree<T>) object;
+			ITreeMetrics metrics = TreeMetrics.getMetrics();
+			long startTime = (metrics != null ? System.nanoTime() : 0L);
+			int nodes = 1;
 
-			// Grab breadth-first iterators for these trees.
-			Iterator<T> iterator = tree
-					.iterator(TreeIterationOrder.BreadthFirst);
-			Iterator<T> treeIterator = iterator(
-					TreeIterationOrder.BreadthFirst);
+			// Grab pooled breadth-first iterators for these trees.
+			TreeIterator<T> iterator = TreeIteratorPool.acquire(
+					tree.getValue(), TreeIterationOrder.BreadthFirst);
+			TreeIterator<T> treeIterator = TreeIteratorPool.acquire(
+					getValue(), TreeIterationOrder.BreadthFirst);
+			try {
+				// Skip the first node, which is this one, since it's already
+				// been compared above.
+				T subtree = iterator.next();
+				T treeSubtree = treeIterator.next();
 
-			// Skip the first node, which is this one, since it's already been
-			// compared above.
-			T subtree = iterator.next();
-			T treeSubtree = treeIterator.next();
-
-			// Loop over all of the values in the tree and look for
-			// inconsistencies between the iterators.
-			while (equals && iterator.hasNext() && treeIterator.hasNext()) {
-				subtree = iterator.next();
-				treeSubtree = treeIterator.next();
-				// We need to compare both the number of children and the node
-				// data to determine if the two nodes are the same. We must
-				// check the number of children to satisfy equality for
-				// non-recursive breadth first search.
-				equals = (subtree.getNumberOfChildren() == treeSubtree
-						.getNumberOfChildren() && subtree.equals(treeSubtree));
+				// Loop over all of the values in the tree and look for
+				// inconsistencies between the iterators.
+				while (equals && iterator.hasNext()
+						&& treeIterator.hasNext()) {
+					subtree = iterator.next();
+					treeSubtree = treeIterator.next();
+					// We need to compare both the number of children and the
+					// node data to determine if the two nodes are the same. We
+					// must check the number of children to satisfy equality
+					// for non-recursive breadth first search.
+					equals = (subtree.getNumberOfChildren() == treeSubtree
+							.getNumberOfChildren() && subtree
+							.equals(treeSubtree));
+					nodes++;
+				}
+			} finally {
+				TreeIteratorPool.release(iterator);
+				TreeIteratorPool.release(treeIterator);
+			}
+
+			if (metrics != null) {
+				metrics.treeCompared(nodes, System.nanoTime() - startTime);
 			}
 		}
 
@@ -336,19 +1061,74 @@ public abstract class BasicTree<T extends BasicTree<T>> implements ITree<T> {
 		int hash = hashCode();
 
 		if (fullTree) {
+			ITreeMetrics metrics = TreeMetrics.getMetrics();
+			long startTime = (metrics != null ? System.nanoTime() : 0L);
+			int nodes = 1;
+
 			// Loop over all descendants and add their hashes to the hash.
-			Iterator<T> iterator = new BreadthFirstTreeIterator<T>(getValue());
-			T subtree = iterator.next();
-			while (iterator.hasNext()) {
-				subtree = iterator.next();
-				// We have to hash the number of children because we use a
-				// breadth-first traversal instead of recursion.
-				hash = hash * 31 + subtree.getNumberOfChildren();
-				hash = hash * 31 + subtree.hashCode();
+			TreeIterator<T> iterator = TreeIteratorPool.acquire(getValue(),
+					TreeIterationOrder.BreadthFirst);
+			try {
+				T subtree = iterator.next();
+				while (iterator.hasNext()) {
+					subtree = iterator.next();
+					// We have to hash the number of children because we use a
+					// breadth-first traversal instead of recursion.
+					hash = hash * 31 + subtree.getNumberOfChildren();
+					hash = hash * 31 + subtree.hashCode();
+					nodes++;
+				}
+			} finally {
+				TreeIteratorPool.release(iterator);
+			}
+
+			if (metrics != null) {
+				metrics.treeHashed(nodes, System.nanoTime() - startTime);
 			}
 		}
 
 		return hash;
 	}
 
+	/**
+	 * A copy of a node's children saved for the {@link TreeSnapshot}s taken
+	 * before they were changed.
+	 */
+	private static class ChildVersion {
+
+		/**
+		 * The version of the newest snapshot that can see these children.
+		 * Older snapshots see these children unless an older version was
+		 * also saved.
+		 */
+		private final long version;
+
+		/**
+		 * The saved children.
+		 */
+		private final Object[] children;
+
+		/**
+		 * The next older saved version, or {@code null} if there is none.
+		 */
+		private ChildVersion previous;
+
+		/**
+		 * The default constructor.
+		 * 
+		 * @param version
+		 *            The version of the newest snapshot that can see the
+		 *            children.
+		 * @param children
+		 *            The saved children.
+		 * @param previous
+		 *            The next older saved version, or {@code null}.
+		 */
+		public ChildVersion(long version, Object[] children,
+				ChildVersion previous) {
+			this.version = version;
+			this.children = children;
+			this.previous = previous;
+		}
+	}
 }
@@ -0,0 +1,40 @@
+package com.bar.foo.tree;
+
+import java.util.List;
+
+/**
+ * This interface provides the children of a lazily loaded tree node. A loader
+ * is attached to a node with {@link BasicTree#setChildLoader(IChildLoader)},
+ * and it is not called until the node's children are first requested.
+ *
+ * @author Jordan
+ *
+ * @param <T>
+ *            The type of tree node.
+ */
+public interface IChildLoader<T extends ITree<T>> {
+
+	/**
+	 * Determines whether or not the node will have any children once loaded.
+	 * This is used to answer {@link ITree#hasChildren()} without loading the
+	 * children, so it should be cheap.
+	 *
+	 * @param parent
+	 *            The node whose children have not been loaded.
+	 * @return True if {@link #loadChildren(ITree)} may return children, false
+	 *         if it will certainly return none.
+	 */
+	public boolean hasChildren(T parent);
+
+	/**
+	 * Creates the children of the specified node. The returned nodes will be
+	 * added to the parent in the returned order, so they should not be added
+	 * to the parent here.
+	 *
+	 * @param parent
+	 *            The node whose children are being loaded.
+	 * @return The list of children, or {@code null} or an empty list if there
+	 *         are no children.
+	 */
+	public List<T> loadChildren(T parent);
+}
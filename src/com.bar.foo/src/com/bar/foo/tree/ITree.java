@@ -2,8 +2,13 @@ package com.bar.foo.tree;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.bar.foo.tree.iterator.TreeIterationOrder;
+import com.bar.foo.tree.iterator.TreeSpliterator;
 
 /**
  * This interface provides a tree structure that uses Java generics to enforce a
@@ -130,6 +135,18 @@ public interface ITree<T extends ITree<T>> extends Iterable<T> {
 	 */
 	public Iterator<T> iterator(TreeIterationOrder order);
 
+	/**
+	 * Gets a parallel stream of the nodes in the tree. The nodes are
+	 * encountered in pre-order, and the work is split at sub-tree boundaries.
+	 * 
+	 * @return A parallel stream of the nodes in the tree.
+	 */
+	public default Stream<T> parallelStream() {
+		return StreamSupport.stream(
+				new TreeSpliterator<T>(getValue(), TreeIterationOrder.PreOrder),
+				true);
+	}
+
 	/**
 	 * Removes the child node at the specified index.
 	 * 
@@ -148,4 +165,29 @@ public interface ITree<T extends ITree<T>> extends Iterable<T> {
 	 *         (including if it was not in the tree).
 	 */
 	public boolean removeChild(T child);
+
+	/**
+	 * Gets a sequential stream of the nodes in the tree. Pre-order and
+	 * post-order streams can be made parallel with {@link Stream#parallel()}.
+	 * Breadth-first streams cannot be split at sub-tree boundaries, so they
+	 * gain little from being made parallel.
+	 * 
+	 * @param order
+	 *            The iteration order to be used for the stream. If null, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @return A stream of the nodes in the tree based on the specified
+	 *         iteration order.
+	 */
+	public default Stream<T> stream(TreeIterationOrder order) {
+		Spliterator<T> spliterator;
+		if (order == TreeIterationOrder.BreadthFirst) {
+			// Breadth-first order cannot be split at sub-tree boundaries.
+			spliterator = Spliterators.spliteratorUnknownSize(
+					iterator(order), Spliterator.ORDERED
+							| Spliterator.NONNULL);
+		} else {
+			spliterator = new TreeSpliterator<T>(getValue(), order);
+		}
+		return StreamSupport.stream(spliterator, false);
+	}
 }
@@ -0,0 +1,102 @@
+package com.bar.foo.tree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class provides a {@link TreeAttribute} whose value for a node is
+ * computed from the node and the value of its parent. For example, the
+ * following attribute is true only if a node and all of its ancestors are
+ * enabled:
+ *
+ * <pre>
+ * <code>
+ * {@literal InheritedAttribute<Foo, Boolean>} enabled = new {@literal InheritedAttribute<Foo, Boolean>}() {
+ *     {@literal @Override}
+ *     protected Boolean computeRoot(Foo root) {
+ *         return root.enabled;
+ *     }
+ *
+ *     {@literal @Override}
+ *     protected Boolean compute(Foo node, Boolean parentValue) {
+ *         return parentValue {@literal &&} node.enabled;
+ *     }
+ * };
+ * </code>
+ * </pre>
+ * <p>
+ * Values are computed top-down from the nearest ancestor whose value is
+ * cached. When a node is added to or removed from a parent, the values in its
+ * sub-tree are cleared.
+ * </p>
+ *
+ * @author Jordan
+ *
+ * @param <T>
+ *            The type of tree node.
+ * @param <V>
+ *            The type of value computed for each node.
+ */
+public abstract class InheritedAttribute<T extends BasicTree<T>, V> extends
+		TreeAttribute<T, V> {
+
+	/**
+	 * The default constructor.
+	 */
+	public InheritedAttribute() {
+		super(true);
+	}
+
+	/**
+	 * Computes the value of the attribute for a node without a parent.
+	 *
+	 * @param root
+	 *            The root node.
+	 * @return The value for the root. May be null.
+	 */
+	protected abstract V computeRoot(T root);
+
+	/**
+	 * Computes the value of the attribute for a node with a parent.
+	 *
+	 * @param node
+	 *            The node.
+	 * @param parentValue
+	 *            The value of the node's parent.
+	 * @return The value for the node. May be null.
+	 */
+	protected abstract V compute(T node, V parentValue);
+
+	/*
+	 * Implements a method from TreeAttribute.
+	 */
+	@Override
+	public final V get(T node) {
+		Object value = getCached(node);
+		if (value == null) {
+			// Find the nearest ancestor with a cached value.
+			List<T> path = new ArrayList<T>();
+			T ancestor = node;
+			while (ancestor != null && getCached(ancestor) == null) {
+				path.add(ancestor);
+				ancestor = ancestor.getParent();
+			}
+
+			// Compute the values down the path to the node.
+			int i = path.size() - 1;
+			V parentValue;
+			if (ancestor != null) {
+				parentValue = decode(getCached(ancestor));
+			} else {
+				parentValue = computeRoot(path.get(i));
+				cache(path.get(i--), parentValue);
+			}
+			for (; i >= 0; i--) {
+				parentValue = compute(path.get(i), parentValue);
+				cache(path.get(i), parentValue);
+			}
+			value = getCached(node);
+		}
+		return decode(value);
+	}
+}
@@ -0,0 +1,130 @@
+package com.bar.foo.tree;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * This class is a SAX handler that builds a {@link BasicTree} from an XML
+ * document as it is parsed. Each XML element becomes a tree node, and nested
+ * elements become children. Elements are fed to a {@link TreeBuilder}, so no
+ * intermediate document model is created.
+ * <p>
+ * Sub-classes create the node for each element in
+ * {@link #createNode(String, String, String, Attributes)}. Text content is
+ * ignored unless {@link #addText(BasicTree, char[], int, int)} is overridden.
+ * </p>
+ *
+ * @author Jordan
+ *
+ * @param <T>
+ *            The type of tree node.
+ */
+public abstract class SAXTreeHandler<T extends BasicTree<T>>
+		extends DefaultHandler {
+
+	/**
+	 * The builder that receives the nodes as elements are parsed.
+	 */
+	private final TreeBuilder<T> builder = new TreeBuilder<T>();
+
+	/**
+	 * The number of open elements being skipped because
+	 * {@link #createNode(String, String, String, Attributes)} returned
+	 * {@code null} for them or one of their ancestors.
+	 */
+	private int skippedDepth = 0;
+
+	/**
+	 * Creates the tree node for an XML element.
+	 *
+	 * @param uri
+	 *            The namespace URI of the element, or an empty string.
+	 * @param localName
+	 *            The local name of the element, or an empty string.
+	 * @param qName
+	 *            The qualified name of the element, or an empty string.
+	 * @param attributes
+	 *            The attributes of the element.
+	 * @return The new node, or {@code null} to skip the element and all of its
+	 *         content.
+	 */
+	protected abstract T createNode(String uri, String localName, String qName,
+			Attributes attributes);
+
+	/**
+	 * Adds text content to the node for the element that contains it. The
+	 * parser may report the text of one element in several pieces. By default,
+	 * text is ignored.
+	 *
+	 * @param node
+	 *            The node for the element containing the text.
+	 * @param ch
+	 *            The characters from the XML document.
+	 * @param start
+	 *            The start position in the array.
+	 * @param length
+	 *            The number of characters to read from the array.
+	 */
+	protected void addText(T node, char[] ch, int start, int length) {
+		// Nothing to do.
+	}
+
+	/**
+	 * Gets the root of the tree built from the parsed document.
+	 *
+	 * @return The root node, or {@code null} if no element has been parsed.
+	 */
+	public T getRoot() {
+		return builder.getRoot();
+	}
+
+	/*
+	 * Overrides a method from DefaultHandler.
+	 */
+	@Override
+	public void startDocument() {
+		builder.reset();
+		skippedDepth = 0;
+	}
+
+	/*
+	 * Overrides a method from DefaultHandler.
+	 */
+	@Override
+	public void startElement(String uri, String localName, String qName,
+			Attributes attributes) {
+		if (skippedDepth > 0) {
+			skippedDepth++;
+		} else {
+			T node = createNode(uri, localName, qName, attributes);
+			if (node != null) {
+				builder.startNode(node);
+			} else {
+				skippedDepth = 1;
+			}
+		}
+	}
+
+	/*
+	 * Overrides a method from DefaultHandler.
+	 */
+	@Override
+	public void endElement(String uri, String localName, String qName) {
+		if (skippedDepth > 0) {
+			skippedDepth--;
+		} else {
+			builder.endNode();
+		}
+	}
+
+	/*
+	 * Overrides a method from DefaultHandler.
+	 */
+	@Override
+	public void characters(char[] ch, int start, int length) {
+		T node = builder.getCurrentNode();
+		if (skippedDepth == 0 && node != null) {
+			addText(node, ch, start, length);
+		}
+	}
+}
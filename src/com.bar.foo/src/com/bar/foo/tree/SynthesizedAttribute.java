@@ -0,0 +1,109 @@
+package com.bar.foo.tree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class provides a {@link TreeAttribute} whose value for a node is
+ * computed from the node and the values of its children. For example, the
+ * following attribute counts the nodes in each sub-tree:
+ *
+ * <pre>
+ * <code>
+ * {@literal SynthesizedAttribute<Foo, Integer>} size = new {@literal SynthesizedAttribute<Foo, Integer>}() {
+ *     {@literal @Override}
+ *     protected Integer compute(Foo node, {@literal List<Integer>} childValues) {
+ *         int size = 1;
+ *         for (Integer childSize : childValues) {
+ *             size += childSize;
+ *         }
+ *         return size;
+ *     }
+ * };
+ * </code>
+ * </pre>
+ * <p>
+ * Values are computed bottom-up without recursion, and sub-trees whose
+ * values are already cached are not visited. When a node's children change,
+ * the values of the node and its ancestors are cleared.
+ * </p>
+ *
+ * @author Jordan
+ *
+ * @param <T>
+ *            The type of tree node.
+ * @param <V>
+ *            The type of value computed for each node.
+ */
+public abstract class SynthesizedAttribute<T extends BasicTree<T>, V> extends
+		TreeAttribute<T, V> {
+
+	/**
+	 * The default constructor.
+	 */
+	public SynthesizedAttribute() {
+		super(false);
+	}
+
+	/**
+	 * Computes the value of the attribute for a node.
+	 *
+	 * @param node
+	 *            The node.
+	 * @param childValues
+	 *            The values of the node's children, in order. This list is
+	 *            read-only and empty for leaf nodes.
+	 * @return The value for the node. May be null.
+	 */
+	protected abstract V compute(T node, List<V> childValues);
+
+	/*
+	 * Implements a method from TreeAttribute.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public final V get(T root) {
+		Object value = getCached(root);
+		if (value == null) {
+			// Compute the values in post-order with a stack of (node, next
+			// child) frames, skipping the children whose values are cached.
+			Object[] stack = new Object[16];
+			int[] nextChild = new int[16];
+			int size = 0;
+			stack[size] = root;
+			nextChild[size++] = 0;
+			while (size > 0) {
+				T node = (T) stack[size - 1];
+				int children = node.getNumberOfChildren();
+				int index = nextChild[size - 1];
+				while (index < children
+						&& getCached(node.getChild(index)) != null) {
+					index++;
+				}
+				if (index < children) {
+					// Compute the child's value before the node's.
+					nextChild[size - 1] = index + 1;
+					if (size == stack.length) {
+						stack = Arrays.copyOf(stack, size * 2);
+						nextChild = Arrays.copyOf(nextChild, size * 2);
+					}
+					stack[size] = node.getChild(index);
+					nextChild[size++] = 0;
+				} else {
+					// All of the children have values.
+					List<V> childValues = new ArrayList<V>(children);
+					for (int i = 0; i < children; i++) {
+						childValues.add(decode(getCached(node.getChild(i))));
+					}
+					cache(node, compute(node,
+							Collections.unmodifiableList(childValues)));
+					stack[--size] = null;
+				}
+			}
+			value = getCached(root);
+		}
+		return decode(value);
+	}
+}
@@ -0,0 +1,150 @@
+package com.bar.foo.tree;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class is the base for derived values, or attributes, that are computed
+ * from the nodes of a {@link BasicTree} and cached on each node. This is the
+ * attribute grammar pattern applied to trees. There are two kinds of
+ * attributes:
+ * <ul>
+ * <li>A {@link SynthesizedAttribute} is computed from a node and the values
+ * of its children, e.g., the number of enabled nodes in a sub-tree.</li>
+ * <li>An {@link InheritedAttribute} is computed from a node and the value of
+ * its parent, e.g., whether a node and all of its ancestors are enabled.</li>
+ * </ul>
+ * <p>
+ * Values are computed on demand by {@link #get(BasicTree)} and cached on the
+ * node. When children are added or removed, only the values that depend on
+ * the change are cleared: synthesized values on the path to the root and
+ * inherited values in the affected sub-tree. Changes to other properties of
+ * a node must be reported with {@link BasicTree#invalidateAttributes()}.
+ * </p>
+ * <p>
+ * Each attribute reserves a slot on every node that caches one of its values,
+ * so attributes should be created once and kept, e.g., as constants. Like
+ * {@code BasicTree}, attributes are not thread-safe.
+ * </p>
+ *
+ * @author Jordan
+ *
+ * @param <T>
+ *            The type of tree node.
+ * @param <V>
+ *            The type of value computed for each node.
+ */
+public abstract class TreeAttribute<T extends BasicTree<T>, V> {
+
+	/**
+	 * The value cached for a node when the computed value is {@code null},
+	 * since a {@code null} slot means that no value is cached.
+	 */
+	private static final Object NULL = new Object();
+
+	/**
+	 * The number of {@link SynthesizedAttribute}s created so far, used to
+	 * assign their indexes.
+	 */
+	private static final AtomicInteger synthesizedCount = new AtomicInteger();
+
+	/**
+	 * The number of {@link InheritedAttribute}s created so far, used to assign
+	 * their indexes.
+	 */
+	private static final AtomicInteger inheritedCount = new AtomicInteger();
+
+	/**
+	 * Whether this is an {@link InheritedAttribute}.
+	 */
+	private final boolean inherited;
+
+	/**
+	 * The index of this attribute's values on each node.
+	 */
+	private final int index;
+
+	/**
+	 * The default constructor. Only the sub-classes in this package can be
+	 * extended.
+	 *
+	 * @param inherited
+	 *            Whether the attribute is an {@link InheritedAttribute}.
+	 */
+	TreeAttribute(boolean inherited) {
+		this.inherited = inherited;
+		index = (inherited ? inheritedCount : synthesizedCount)
+				.getAndIncrement();
+	}
+
+	/**
+	 * Gets the value of the attribute for a node, computing and caching it if
+	 * necessary.
+	 *
+	 * @param node
+	 *            The node. If null, a {@link NullPointerException} will be
+	 *            thrown.
+	 * @return The value of the attribute for the node.
+	 */
+	public abstract V get(T node);
+
+	/**
+	 * Gets whether or not the value of the attribute is cached for a node.
+	 *
+	 * @param node
+	 *            The node.
+	 * @return True if the value is cached, false if it will be computed by
+	 *         the next call to {@link #get(BasicTree)}.
+	 */
+	public final boolean isCached(T node) {
+		return getCached(node) != null;
+	}
+
+	/**
+	 * Clears the cached value of the attribute for a node and the values that
+	 * depend on it. Use {@link BasicTree#invalidateAttributes()} to clear all
+	 * attributes of a node.
+	 *
+	 * @param node
+	 *            The node whose value is no longer valid.
+	 */
+	public final void invalidate(T node) {
+		node.invalidateAttribute(inherited, index);
+	}
+
+	/**
+	 * Gets the cached value for a node.
+	 *
+	 * @param node
+	 *            The node.
+	 * @return The cached value, which must be passed to
+	 *         {@link #decode(Object)}, or {@code null} if it is not cached.
+	 */
+	final Object getCached(T node) {
+		return node.getAttribute(inherited, index);
+	}
+
+	/**
+	 * Caches the value for a node.
+	 *
+	 * @param node
+	 *            The node.
+	 * @param value
+	 *            The value to cache. May be null.
+	 */
+	final void cache(T node, V value) {
+		node.setAttribute(inherited, index, value != null ? value : NULL);
+	}
+
+	/**
+	 * Converts a value returned by {@link #getCached(BasicTree)} back to the
+	 * attribute's value.
+	 *
+	 * @param value
+	 *            The cached value.
+	 * @return The attribute's value.
+	 */
+	@SuppressWarnings("unchecked")
+	final V decode(Object value) {
+		return value != NULL ? (V) value : null;
+	}
+}
@@ -0,0 +1,180 @@
+package com.bar.foo.tree;
+
+import java.util.Arrays;
+
+/**
+ * This class builds a {@link BasicTree} from a stream of events, much like a
+ * SAX content handler. Each node is opened with {@link #startNode(BasicTree)}
+ * and closed with {@link #endNode()}. Nodes started while another node is open
+ * are appended to it as children, so the events map directly onto nested data
+ * such as XML elements (see {@link SAXTreeHandler}) or JSON objects.
+ * <p>
+ * For example, the following events build a root with two children:
+ * </p>
+ *
+ * <pre>
+ * <code>
+ * {@literal TreeBuilder<Foo>} builder = new {@literal TreeBuilder<Foo>}();
+ * builder.startNode(root, 2);
+ * builder.startNode(child1);
+ * builder.endNode();
+ * builder.startNode(child2);
+ * builder.endNode();
+ * builder.endNode();
+ * Foo tree = builder.getRoot();
+ * </code>
+ * </pre>
+ * <p>
+ * Nodes are appended directly to their parents as they arrive. The only other
+ * state kept by the builder is the path of open nodes, so the memory used
+ * while building is essentially the size of the final tree.
+ * </p>
+ *
+ * @author Jordan
+ *
+ * @param <T>
+ *            The type of tree node.
+ */
+public class TreeBuilder<T extends BasicTree<T>> {
+
+	/**
+	 * The root of the tree being built, or {@code null} if no node has been
+	 * started.
+	 */
+	private T root = null;
+
+	/**
+	 * The path of open nodes from the {@link #root}. Only the first
+	 * {@link #depth} elements are used.
+	 */
+	private Object[] openNodes = new Object[16];
+
+	/**
+	 * The number of open nodes.
+	 */
+	private int depth = 0;
+
+	/**
+	 * The default constructor. Creates a builder for a new tree.
+	 */
+	public TreeBuilder() {
+		// Nothing to do.
+	}
+
+	/**
+	 * Starts a new node. If no node is open, the node becomes the root of the
+	 * tree. Otherwise, it is appended as the last child of the current node.
+	 *
+	 * @param node
+	 *            The node to start. If null, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @see #startNode(BasicTree, int)
+	 */
+	public void startNode(T node) {
+		startNode(node, 0);
+	}
+
+	/**
+	 * Starts a new node. If no node is open, the node becomes the root of the
+	 * tree. Otherwise, it is appended as the last child of the current node.
+	 *
+	 * @param node
+	 *            The node to start. If null, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @param expectedChildren
+	 *            The number of children the node is expected to have. If
+	 *            positive, room for the children is allocated up front.
+	 */
+	public void startNode(T node, int expectedChildren) {
+		if (node == null) {
+			throw new IllegalArgumentException("TreeBuilder error: "
+					+ "Cannot start a null node.");
+		}
+
+		// Add the node to its parent, or make it the root.
+		if (depth > 0) {
+			getCurrentNode().appendChild(node);
+		} else if (root == null) {
+			root = node;
+		} else {
+			throw new IllegalStateException("TreeBuilder error: "
+					+ "The root node has already been ended.");
+		}
+
+		if (expectedChildren > 0) {
+			node.ensureChildCapacity(expectedChildren);
+		}
+
+		// Open the node.
+		if (depth == openNodes.length) {
+			openNodes = Arrays.copyOf(openNodes, depth * 2);
+		}
+		openNodes[depth++] = node;
+
+		return;
+	}
+
+	/**
+	 * Ends the current node. Nodes started afterward will be added to its
+	 * parent.
+	 *
+	 * @return The node that was ended.
+	 */
+	public T endNode() {
+		if (depth == 0) {
+			throw new IllegalStateException("TreeBuilder error: "
+					+ "There is no node to end.");
+		}
+		T node = getCurrentNode();
+		openNodes[--depth] = null;
+		return node;
+	}
+
+	/**
+	 * Gets the node that was most recently started and has not been ended.
+	 *
+	 * @return The current node, or {@code null} if no node is open.
+	 */
+	@SuppressWarnings("unchecked")
+	public T getCurrentNode() {
+		return depth > 0 ? (T) openNodes[depth - 1] : null;
+	}
+
+	/**
+	 * Gets the number of nodes that have been started but not ended.
+	 *
+	 * @return The depth of the current node, or 0 if no node is open.
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Gets the root of the tree being built.
+	 *
+	 * @return The root node, or {@code null} if no node has been started.
+	 */
+	public T getRoot() {
+		return root;
+	}
+
+	/**
+	 * Gets whether or not the tree is complete, i.e., the root node has been
+	 * started and all nodes have been ended.
+	 *
+	 * @return True if the tree is complete, false otherwise.
+	 */
+	public boolean isComplete() {
+		return root != null && depth == 0;
+	}
+
+	/**
+	 * Resets the builder so that it can be used to build a new tree. The
+	 * previously built tree is not affected.
+	 */
+	public void reset() {
+		Arrays.fill(openNodes, 0, depth, null);
+		depth = 0;
+		root = null;
+	}
+}
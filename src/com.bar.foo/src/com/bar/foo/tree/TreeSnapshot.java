@@ -0,0 +1,362 @@
+package com.bar.foo.tree;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.bar.foo.tree.iterator.BreadthFirstTreeIterator;
+import com.bar.foo.tree.iterator.PostOrderTreeIterator;
+import com.bar.foo.tree.iterator.PreOrderTreeIterator;
+import com.bar.foo.tree.iterator.TreeIterationOrder;
+import com.bar.foo.tree.iterator.TreeIterator;
+
+/**
+ * This class provides a consistent view of a {@link BasicTree} as it was when
+ * the snapshot was taken with {@link BasicTree#snapshot()}. Its iterators can
+ * be used on one thread while another thread adds or removes children. They
+ * never throw because of those changes, and they visit exactly the nodes that
+ * were in the tree when the snapshot was taken.
+ * <p>
+ * Nothing is copied when the snapshot is taken. Each snapshot gets a new
+ * version number, and the first change to a node's children after a snapshot
+ * is taken saves a copy of the old children tagged with that version. The
+ * snapshot reads the saved copy if there is one and the node's current
+ * children otherwise, so the cost of a snapshot is proportional to the nodes
+ * it reads and the nodes that change while it is open.
+ * </p>
+ * <p>
+ * Only the structure of the tree is versioned. The nodes themselves are
+ * shared with the tree, so changes to their other properties are visible.
+ * </p>
+ *
+ * <pre>
+ * <code>
+ * {@literal TreeSnapshot<Foo>} snapshot = root.snapshot();
+ * try {
+ *     {@literal Iterator<Foo>} iterator = snapshot.iterator(TreeIterationOrder.PreOrder);
+ *     ...
+ * } finally {
+ *     snapshot.close();
+ * }
+ * </code>
+ * </pre>
+ *
+ * @author Jordan
+ *
+ * @param <T>
+ *            The type of tree node.
+ */
+public final class TreeSnapshot<T extends BasicTree<T>> implements
+		AutoCloseable {
+
+	/**
+	 * The lock used when opening or closing snapshots.
+	 */
+	private static final Object lock = new Object();
+
+	/**
+	 * The version of the most recently taken snapshot, or 0 if none has been
+	 * taken.
+	 */
+	private static volatile long currentVersion = 0;
+
+	/**
+	 * The version of the oldest open snapshot, or {@link Long#MAX_VALUE} if no
+	 * snapshot is open. This is always updated before the
+	 * {@link #currentVersion}, so a thread that reads the current version
+	 * first will see an oldest version that includes it.
+	 */
+	private static volatile long oldestOpenVersion = Long.MAX_VALUE;
+
+	/**
+	 * The references to all open snapshots. This is guarded by the
+	 * {@link #lock}.
+	 */
+	private static final List<SnapshotReference> openSnapshots = new ArrayList<SnapshotReference>();
+
+	/**
+	 * The queue that receives the references to snapshots that were collected
+	 * without being closed.
+	 */
+	private static final ReferenceQueue<Object> collectedSnapshots = new ReferenceQueue<Object>();
+
+	/**
+	 * The root of the snapshot.
+	 */
+	private final T root;
+
+	/**
+	 * The version of this snapshot.
+	 */
+	private final long version;
+
+	/**
+	 * The reference that keeps this snapshot open, or {@code null} if it has
+	 * been closed. This is only changed while holding the {@link #lock}.
+	 */
+	private volatile SnapshotReference reference;
+
+	/**
+	 * The default constructor. Opens a new snapshot of the sub-tree rooted at
+	 * the node.
+	 *
+	 * @param root
+	 *            The root of the snapshot. Assumed not to be null.
+	 */
+	TreeSnapshot(T root) {
+		this.root = root;
+		synchronized (lock) {
+			removeCollectedSnapshots();
+			long version = currentVersion + 1;
+			reference = new SnapshotReference(this, version);
+			openSnapshots.add(reference);
+			oldestOpenVersion = Math.min(oldestOpenVersion, version);
+			currentVersion = version;
+			this.version = version;
+		}
+	}
+
+	/**
+	 * Gets the version of the most recently taken snapshot.
+	 *
+	 * @return The current version.
+	 */
+	static long getCurrentVersion() {
+		return currentVersion;
+	}
+
+	/**
+	 * Gets the version of the oldest open snapshot. Snapshots that were
+	 * collected without being closed are closed first.
+	 *
+	 * @return The oldest open version, or {@link Long#MAX_VALUE} if no
+	 *         snapshot is open.
+	 */
+	static long getOldestOpenVersion() {
+		Object collected = collectedSnapshots.poll();
+		if (collected != null) {
+			synchronized (lock) {
+				openSnapshots.remove(collected);
+				removeCollectedSnapshots();
+			}
+		}
+		return oldestOpenVersion;
+	}
+
+	/**
+	 * Removes the references to all collected snapshots and updates the
+	 * {@link #oldestOpenVersion}. This must be called while holding the
+	 * {@link #lock}.
+	 */
+	private static void removeCollectedSnapshots() {
+		Object collected;
+		while ((collected = collectedSnapshots.poll()) != null) {
+			openSnapshots.remove(collected);
+		}
+		long oldest = Long.MAX_VALUE;
+		for (SnapshotReference reference : openSnapshots) {
+			oldest = Math.min(oldest, reference.version);
+		}
+		oldestOpenVersion = oldest;
+	}
+
+	/**
+	 * Gets the root of the snapshot.
+	 *
+	 * @return The node the snapshot was taken from.
+	 */
+	public T getRoot() {
+		return root;
+	}
+
+	/**
+	 * Gets the number of children a node had when the snapshot was taken.
+	 *
+	 * @param node
+	 *            A node in the snapshot.
+	 * @return The number of children of the node in the snapshot.
+	 */
+	public int getNumberOfChildren(T node) {
+		checkOpen();
+		return node.getNumberOfChildren(version);
+	}
+
+	/**
+	 * Gets a child a node had when the snapshot was taken.
+	 *
+	 * @param node
+	 *            A node in the snapshot.
+	 * @param index
+	 *            The index of the child in the snapshot.
+	 * @return The child at the index.
+	 */
+	public T getChild(T node, int index) {
+		checkOpen();
+		return node.getChild(version, index);
+	}
+
+	/**
+	 * Gets the children a node had when the snapshot was taken.
+	 *
+	 * @param node
+	 *            A node in the snapshot.
+	 * @return A new list containing the node's children in the snapshot.
+	 */
+	public List<T> getChildren(T node) {
+		int size = getNumberOfChildren(node);
+		List<T> children = new ArrayList<T>(size);
+		for (int i = 0; i < size; i++) {
+			children.add(node.getChild(version, i));
+		}
+		return children;
+	}
+
+	/**
+	 * Gets an iterator over the nodes in the snapshot. The iterator does not
+	 * support {@code remove()}.
+	 *
+	 * @param order
+	 *            The order in which nodes will be visited.
+	 * @return A new iterator, or {@code null} if the order is null.
+	 */
+	public TreeIterator<T> iterator(TreeIterationOrder order) {
+		checkOpen();
+		TreeIterator<T> iterator = null;
+
+		if (order != null) {
+			switch (order) {
+			case BreadthFirst:
+				iterator = new BreadthFirstTreeIterator<T>(root) {
+					@Override
+					protected int getNumberOfChildren(T node) {
+						return TreeSnapshot.this.getNumberOfChildren(node);
+					}
+
+					@Override
+					protected T getChild(T node, int index) {
+						return TreeSnapshot.this.getChild(node, index);
+					}
+
+					@Override
+					protected void removeFromIteration(T subtree) {
+						throw createRemoveException();
+					}
+				};
+				break;
+			case PreOrder:
+				iterator = new PreOrderTreeIterator<T>(root) {
+					@Override
+					protected int getNumberOfChildren(T node) {
+						return TreeSnapshot.this.getNumberOfChildren(node);
+					}
+
+					@Override
+					protected T getChild(T node, int index) {
+						return TreeSnapshot.this.getChild(node, index);
+					}
+
+					@Override
+					protected void removeFromIteration(T subtree) {
+						throw createRemoveException();
+					}
+				};
+				break;
+			case PostOrder:
+				iterator = new PostOrderTreeIterator<T>(root) {
+					@Override
+					protected int getNumberOfChildren(T node) {
+						return TreeSnapshot.this.getNumberOfChildren(node);
+					}
+
+					@Override
+					protected T getChild(T node, int index) {
+						return TreeSnapshot.this.getChild(node, index);
+					}
+
+					@Override
+					protected void removeFromIteration(T subtree) {
+						throw createRemoveException();
+					}
+				};
+				break;
+			}
+		}
+
+		return iterator;
+	}
+
+	/**
+	 * Gets whether or not the snapshot has been closed.
+	 *
+	 * @return True if the snapshot is closed, false otherwise.
+	 */
+	public boolean isClosed() {
+		return reference == null;
+	}
+
+	/**
+	 * Closes the snapshot so that the children saved for it can be dropped.
+	 * The snapshot and its iterators cannot be used afterward. This has no
+	 * effect if the snapshot is already closed.
+	 */
+	@Override
+	public void close() {
+		synchronized (lock) {
+			if (reference != null) {
+				openSnapshots.remove(reference);
+				reference.clear();
+				reference = null;
+				removeCollectedSnapshots();
+			}
+		}
+	}
+
+	/**
+	 * Throws an {@link IllegalStateException} if the snapshot is closed, since
+	 * the children saved for it may have been dropped.
+	 */
+	private void checkOpen() {
+		if (isClosed()) {
+			throw new IllegalStateException("TreeSnapshot error: "
+					+ "The snapshot has been closed.");
+		}
+	}
+
+	/**
+	 * Creates the exception thrown when an iterator's {@code remove()} is
+	 * called. Snapshots cannot be changed.
+	 *
+	 * @return The exception to throw.
+	 */
+	private static UnsupportedOperationException createRemoveException() {
+		return new UnsupportedOperationException("TreeSnapshot error: "
+				+ "Nodes cannot be removed from a snapshot.");
+	}
+
+	/**
+	 * A weak reference to an open snapshot. If the snapshot is collected
+	 * without being closed, the reference is queued so that the snapshot can
+	 * be closed.
+	 */
+	private static class SnapshotReference extends WeakReference<Object> {
+
+		/**
+		 * The version of the snapshot.
+		 */
+		private final long version;
+
+		/**
+		 * The default constructor.
+		 *
+		 * @param snapshot
+		 *            The open snapshot.
+		 * @param version
+		 *            The version of the snapshot.
+		 */
+		public SnapshotReference(TreeSnapshot<?> snapshot, long version) {
+			super(snapshot, collectedSnapshots);
+			this.version = version;
+		}
+	}
+}
@@ -1,7 +1,5 @@
 package com.bar.foo.tree.iterator;
 
-import java.util.LinkedList;
-
 import com.bar.foo.tree.ITree;
 
 /**
@@ -36,10 +34,36 @@ public class BreadthFirstTreeIterator<T extends ITree<T>>
 		extends TreeIterator<T> {
 
 	/**
-	 * A queue used to maintain state information about the position of the
-	 * iterator. If empty, there is no remaining tree nodes to visit.
+	 * A circular queue used to maintain state information about the position
+	 * of the iterator. Its length is always a power of two. If empty, there are
+	 * no remaining tree nodes to visit.
+	 */
+	private Object[] queue = new Object[16];
+
+	/**
+	 * The position of the first node in the {@link #queue}.
+	 */
+	private int head = 0;
+
+	/**
+	 * The number of nodes in the {@link #queue}.
+	 */
+	private int size = 0;
+
+	/**
+	 * The depth of the last node returned by {@link #next()}.
+	 */
+	private int depth = -1;
+
+	/**
+	 * The number of nodes in the queue at the current {@link #depth}.
+	 */
+	private int levelRemaining = 0;
+
+	/**
+	 * The number of nodes in the queue at the next depth.
 	 */
-	private final LinkedList<T> queue = new LinkedList<T>();
+	private int nextLevelCount = 0;
 
 	/**
 	 * The default constructor. Requires a root node. The root node and all
@@ -53,11 +77,9 @@ public class BreadthFirstTreeIterator<T extends ITree<T>>
 	public BreadthFirstTreeIterator(T root) {
 		super(root);
 
-		// If the root is not null, we need to start the iteration with it by
-		// adding it to the queue.
-		if (root != null) {
-			queue.add(root);
-		}
+		// We need to start the iteration with the root by adding it to the
+		// queue.
+		restart();
 	}
 
 	/*
@@ -65,22 +87,46 @@ public class BreadthFirstTreeIterator<T extends ITree<T>>
 	 */
 	@Override
 	public boolean hasNext() {
-		return !queue.isEmpty();
+		return size > 0;
 	}
 
 	/*
 	 * Overrides a method from TreeIterator.
 	 */
 	@Override
+	@SuppressWarnings("unchecked")
 	protected T getNext() {
 		// If we have another tree node to iterate over, proceed.
-		T next = queue.poll();
-		for (T child : next.getChildren()) {
-			queue.add(child);
+		T next = (T) queue[head];
+		queue[head] = null;
+		head = (head + 1) & (queue.length - 1);
+		size--;
+
+		int children = getNumberOfChildren(next);
+		for (int i = 0; i < children; i++) {
+			add(getChild(next, i));
+		}
+
+		// Move to the next level once all nodes at this level are visited.
+		if (levelRemaining == 0) {
+			depth++;
+			levelRemaining = nextLevelCount;
+			nextLevelCount = 0;
 		}
+		levelRemaining--;
+		nextLevelCount += children;
+
 		return next;
 	}
 
+	/*
+	 * Implements a method from TreeIterator.
+	 */
+	@Override
+	public int depth() {
+		return depth;
+	}
+
 	/*
 	 * Overrides a method from TreeIterator.
 	 */
@@ -88,8 +134,56 @@ public class BreadthFirstTreeIterator<T extends ITree<T>>
 	protected void removeFromIteration(T subtree) {
 		// The last node visited simply pushed all of its children to the back
 		// of the queue. Remove all of them from the end of the queue.
-		for (int i = 0; i < subtree.getNumberOfChildren(); i++) {
-			queue.removeLast();
+		for (int i = 0; i < getNumberOfChildren(subtree); i++) {
+			queue[(head + --size) & (queue.length - 1)] = null;
+		}
+		nextLevelCount -= getNumberOfChildren(subtree);
+	}
+
+	/*
+	 * Overrides a method from TreeIterator.
+	 */
+	@Override
+	protected boolean canRestart() {
+		return true;
+	}
+
+	/*
+	 * Overrides a method from TreeIterator.
+	 */
+	@Override
+	protected void restart() {
+		while (size > 0) {
+			queue[head] = null;
+			head = (head + 1) & (queue.length - 1);
+			size--;
+		}
+		head = 0;
+		depth = -1;
+		levelRemaining = 0;
+		nextLevelCount = 0;
+		if (root != null) {
+			add(root);
+			nextLevelCount = 1;
+		}
+	}
+
+	/**
+	 * Adds a node to the back of the queue, doubling its capacity if needed.
+	 * 
+	 * @param node
+	 *            The node to add.
+	 */
+	private void add(T node) {
+		if (size == queue.length) {
+			// Unwrap the queue into a larger array.
+			Object[] larger = new Object[queue.length * 2];
+			int first = queue.length - head;
+			System.arraycopy(queue, head, larger, 0, first);
+			System.arraycopy(queue, 0, larger, first, head);
+			queue = larger;
+			head = 0;
 		}
+		queue[(head + size++) & (queue.length - 1)] = node;
 	}
 }
@@ -0,0 +1,29 @@
+package com.bar.foo.tree.iterator;
+
+import java.util.List;
+
+import com.bar.foo.tree.ITree;
+
+/**
+ * This interface receives the levels of a tree, one at a time and in order,
+ * from a level-by-level traversal such as
+ * {@link ParallelBreadthFirstTraversal}.
+ * 
+ * @author Jordan
+ *
+ * @param <T>
+ *            The type of tree node.
+ */
+public interface ILevelConsumer<T extends ITree<T>> {
+
+	/**
+	 * Receives a complete level of the tree.
+	 * 
+	 * @param depth
+	 *            The depth of the level. The root is at depth 0.
+	 * @param level
+	 *            The nodes in the level, in breadth-first order. The list is
+	 *            read-only and is only valid until this method returns.
+	 */
+	public void accept(int depth, List<T> level);
+}
@@ -0,0 +1,145 @@
+package com.bar.foo.tree.iterator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.bar.foo.tree.ITree;
+
+/**
+ * This class provides an iterator over the levels of a tree. Each call to
+ * {@link #next()} returns all nodes at the next depth, in the same order as
+ * {@link BreadthFirstTreeIterator}.
+ * <p>
+ * For instance, for a tree with the following nodes (assume insertion order
+ * goes from top to bottom):
+ * </p>
+ * 
+ * <pre>
+ *   A
+ *   |--B
+ *   |  |--D
+ *   |  \--E
+ *   |
+ *   \--C
+ *      |--F
+ *      \--G
+ * </pre>
+ * <p>
+ * The iteration order will be {@literal [A]-[B-C]-[D-E-F-G]}.
+ * </p>
+ * <p>
+ * Only two lists are used for the whole iteration, so the list returned by
+ * {@link #next()} is re-used and is only valid until the following call to
+ * {@link #next()}. The lists are read-only.
+ * </p>
+ * 
+ * @author Jordan
+ *
+ * @param <T>
+ *            The type of tree node.
+ */
+public class LevelOrderTreeIterator<T extends ITree<T>> implements
+		Iterator<List<T>> {
+
+	/**
+	 * The level most recently returned by {@link #next()}.
+	 */
+	private ArrayList<T> level = new ArrayList<T>();
+	/**
+	 * A read-only view of {@link #level}.
+	 */
+	private List<T> levelView = Collections.unmodifiableList(level);
+
+	/**
+	 * The level that will be returned by the next call to {@link #next()}. If
+	 * empty, there are no levels left.
+	 */
+	private ArrayList<T> nextLevel = new ArrayList<T>();
+	/**
+	 * A read-only view of {@link #nextLevel}.
+	 */
+	private List<T> nextLevelView = Collections.unmodifiableList(nextLevel);
+
+	/**
+	 * The depth of the level most recently returned by {@link #next()}.
+	 */
+	private int depth = -1;
+
+	/**
+	 * The default constructor. Requires a root node.
+	 * 
+	 * @param root
+	 *            The root of the tree to iteratively traverse. If null, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 */
+	public LevelOrderTreeIterator(T root) {
+		if (root == null) {
+			throw new IllegalArgumentException("LevelOrderTreeIterator error: "
+					+ "Cannot construct an iterator from a null tree!");
+		}
+		nextLevel.add(root);
+	}
+
+	/*
+	 * Implements a method from Iterator.
+	 */
+	@Override
+	public boolean hasNext() {
+		return !nextLevel.isEmpty();
+	}
+
+	/*
+	 * Implements a method from Iterator.
+	 */
+	@Override
+	public List<T> next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException("LevelOrderTreeIterator error: "
+					+ "No levels remaining in iterative traversal.");
+		}
+
+		// The pending level becomes the current level, and the previous level's
+		// list is re-used for the children of the current level.
+		ArrayList<T> list = level;
+		level = nextLevel;
+		nextLevel = list;
+		List<T> view = levelView;
+		levelView = nextLevelView;
+		nextLevelView = view;
+
+		nextLevel.clear();
+		for (int i = 0; i < level.size(); i++) {
+			T node = level.get(i);
+			int children = node.getNumberOfChildren();
+			for (int j = 0; j < children; j++) {
+				nextLevel.add(node.getChild(j));
+			}
+		}
+		depth++;
+
+		return levelView;
+	}
+
+	/**
+	 * Gets the depth of the level most recently returned by {@link #next()}.
+	 * 
+	 * @return The depth of the current level (the root is at depth 0), or -1
+	 *         if {@link #next()} has not been called.
+	 */
+	public int depth() {
+		return depth;
+	}
+
+	/**
+	 * Levels cannot be removed, so this method always throws an
+	 * {@link UnsupportedOperationException}.
+	 */
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("LevelOrderTreeIterator error: "
+				+ "Levels cannot be removed.");
+	}
+}
@@ -0,0 +1,372 @@
+package com.bar.foo.tree.iterator;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import com.bar.foo.tree.ITree;
+
+/**
+ * This class traverses a tree breadth-first, one level at a time, using
+ * several threads. It is intended for wide, shallow trees where a single
+ * level may contain millions of nodes.
+ * <p>
+ * Each level (the frontier) is stored in an array. The next level is built
+ * from it in two parallel passes over contiguous chunks of the frontier:
+ * </p>
+ * <ol>
+ * <li>Each chunk counts the children of its nodes.</li>
+ * <li>A prefix sum of the counts gives each chunk its offset in the next
+ * level, and each chunk then copies its nodes' children into place.</li>
+ * </ol>
+ * <p>
+ * The next level is therefore in the same order as with
+ * {@link BreadthFirstTreeIterator}, and no locking is needed. While it is
+ * being built, the current level is handed to the {@link ILevelConsumer} on
+ * the calling thread. Levels are always handed to the consumer in order.
+ * Small levels are expanded on the calling thread.
+ * </p>
+ * <p>
+ * The tree should not be modified during a traversal.
+ * </p>
+ * 
+ * @author Jordan
+ *
+ * @param <T>
+ *            The type of tree node.
+ */
+public class ParallelBreadthFirstTraversal<T extends ITree<T>> {
+
+	/**
+	 * The minimum number of frontier nodes handled by one chunk. Levels with
+	 * fewer than twice this many nodes are expanded on the calling thread.
+	 */
+	private static final int MIN_CHUNK_SIZE = 1024;
+
+	/**
+	 * The pool that expands the levels.
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * The default constructor. Levels are expanded in the common
+	 * {@link ForkJoinPool}.
+	 */
+	public ParallelBreadthFirstTraversal() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * A constructor that uses a specific {@link ForkJoinPool}.
+	 * 
+	 * @param pool
+	 *            The pool that expands the levels. If null, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 */
+	public ParallelBreadthFirstTraversal(ForkJoinPool pool) {
+		if (pool == null) {
+			throw new IllegalArgumentException(
+					"ParallelBreadthFirstTraversal error: "
+							+ "The pool cannot be null.");
+		}
+		this.pool = pool;
+	}
+
+	/**
+	 * Traverses the tree rooted at the specified node.
+	 * 
+	 * @param root
+	 *            The root of the tree. If null, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @param consumer
+	 *            The consumer that receives each level. If null, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @return The number of levels in the tree.
+	 */
+	public int traverse(T root, ILevelConsumer<T> consumer) {
+		if (root == null || consumer == null) {
+			throw new IllegalArgumentException(
+					"ParallelBreadthFirstTraversal error: "
+							+ "Cannot traverse a null tree or "
+							+ "with a null consumer.");
+		}
+
+		Object[] level = new Object[] { root };
+		int size = 1;
+		// The array used by the level before the current one. It is re-used
+		// for the next level when large enough.
+		Object[] spare = null;
+		int depth = 0;
+
+		while (size > 0) {
+			Expansion expansion = new Expansion(level, size, spare);
+
+			// Build the next level while the consumer reads this one.
+			ForkJoinTask<Void> task = null;
+			if (expansion.chunks > 1) {
+				task = pool.submit(expansion);
+			}
+			boolean accepted = false;
+			try {
+				consumer.accept(depth++, new LevelList<T>(level, size));
+				accepted = true;
+			} finally {
+				// If the consumer failed, the expansion is abandoned, but it
+				// must not keep reading the tree after this method returns.
+				// Cancelling would not stop it once started, so wait for it.
+				if (task != null && !accepted) {
+					task.quietlyJoin();
+				}
+			}
+			if (task != null) {
+				task.join();
+			} else {
+				expansion.compute();
+			}
+
+			spare = level;
+			level = expansion.target;
+			size = expansion.targetSize;
+		}
+
+		return depth;
+	}
+
+	/**
+	 * Builds the next level from the current one.
+	 */
+	private class Expansion extends RecursiveAction {
+
+		/**
+		 * Required for serializable classes.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The current level.
+		 */
+		private final Object[] source;
+		/**
+		 * The number of nodes in the current level.
+		 */
+		private final int sourceSize;
+		/**
+		 * The number of chunks the current level is divided into.
+		 */
+		private final int chunks;
+		/**
+		 * For each chunk, the number of children and then the offset of the
+		 * chunk's children in the next level.
+		 */
+		private final int[] offsets;
+
+		/**
+		 * The next level. This is set by {@link #compute()}.
+		 */
+		private Object[] target;
+		/**
+		 * The number of nodes in the next level.
+		 */
+		private int targetSize;
+
+		/**
+		 * The default constructor.
+		 * 
+		 * @param source
+		 *            The current level.
+		 * @param sourceSize
+		 *            The number of nodes in the current level.
+		 * @param spare
+		 *            An array that may be re-used for the next level, or
+		 *            {@code null}.
+		 */
+		public Expansion(Object[] source, int sourceSize, Object[] spare) {
+			this.source = source;
+			this.sourceSize = sourceSize;
+			this.target = spare;
+			int parallelism = pool.getParallelism() * 4;
+			chunks = Math.max(1,
+					Math.min(parallelism, sourceSize / MIN_CHUNK_SIZE));
+			offsets = new int[chunks];
+		}
+
+		/*
+		 * Overrides a method from RecursiveAction.
+		 */
+		@Override
+		protected void compute() {
+			// Count the children in each chunk.
+			if (chunks > 1) {
+				new ChunkAction(this, 0, chunks, false).invoke();
+			} else {
+				count(0);
+			}
+
+			// Convert the counts into offsets.
+			int total = 0;
+			for (int i = 0; i < chunks; i++) {
+				int count = offsets[i];
+				offsets[i] = total;
+				total += count;
+			}
+
+			// Allocate the next level, or clear the unused end of the spare
+			// array so that it does not keep old nodes reachable.
+			if (target == null || target.length < total) {
+				target = new Object[Math.max(total, 16)];
+			} else {
+				Arrays.fill(target, total, target.length, null);
+			}
+			targetSize = total;
+
+			// Copy the children into place.
+			if (total > 0) {
+				if (chunks > 1) {
+					new ChunkAction(this, 0, chunks, true).invoke();
+				} else {
+					fill(0);
+				}
+			}
+		}
+
+		/**
+		 * Gets the first node of a chunk.
+		 */
+		private int getChunkStart(int chunk) {
+			return (int) ((long) sourceSize * chunk / chunks);
+		}
+
+		/**
+		 * Counts the children of the nodes in a chunk.
+		 */
+		@SuppressWarnings("unchecked")
+		private void count(int chunk) {
+			int count = 0;
+			int end = getChunkStart(chunk + 1);
+			for (int i = getChunkStart(chunk); i < end; i++) {
+				count += ((T) source[i]).getNumberOfChildren();
+			}
+			offsets[chunk] = count;
+		}
+
+		/**
+		 * Copies the children of the nodes in a chunk into the next level.
+		 */
+		@SuppressWarnings("unchecked")
+		private void fill(int chunk) {
+			int position = offsets[chunk];
+			int end = getChunkStart(chunk + 1);
+			for (int i = getChunkStart(chunk); i < end; i++) {
+				T node = (T) source[i];
+				int children = node.getNumberOfChildren();
+				for (int j = 0; j < children; j++) {
+					target[position++] = node.getChild(j);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Counts or fills a range of chunks, splitting the range in half until
+	 * only one chunk is left.
+	 */
+	private class ChunkAction extends RecursiveAction {
+
+		/**
+		 * Required for serializable classes.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The expansion that owns the chunks.
+		 */
+		private final Expansion expansion;
+		/**
+		 * The first chunk in the range.
+		 */
+		private final int from;
+		/**
+		 * The end (exclusive) of the range.
+		 */
+		private final int to;
+		/**
+		 * Whether to fill (true) or count (false) the chunks.
+		 */
+		private final boolean fill;
+
+		/**
+		 * The default constructor.
+		 */
+		public ChunkAction(Expansion expansion, int from, int to, boolean fill) {
+			this.expansion = expansion;
+			this.from = from;
+			this.to = to;
+			this.fill = fill;
+		}
+
+		/*
+		 * Overrides a method from RecursiveAction.
+		 */
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new ChunkAction(expansion, from, mid, fill),
+						new ChunkAction(expansion, mid, to, fill));
+			} else if (fill) {
+				expansion.fill(from);
+			} else {
+				expansion.count(from);
+			}
+		}
+	}
+
+	/**
+	 * A read-only list view of a level stored in an array.
+	 */
+	private static class LevelList<T> extends AbstractList<T> implements
+			RandomAccess {
+
+		/**
+		 * The array containing the level.
+		 */
+		private final Object[] nodes;
+		/**
+		 * The number of nodes in the level.
+		 */
+		private final int size;
+
+		/**
+		 * The default constructor.
+		 */
+		public LevelList(Object[] nodes, int size) {
+			this.nodes = nodes;
+			this.size = size;
+		}
+
+		/*
+		 * Implements a method from AbstractList.
+		 */
+		@Override
+		@SuppressWarnings("unchecked")
+		public T get(int index) {
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException("Index: " + index
+						+ ", Size: " + size);
+			}
+			return (T) nodes[index];
+		}
+
+		/*
+		 * Implements a method from AbstractList.
+		 */
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+}
@@ -1,6 +1,6 @@
 package com.bar.foo.tree.iterator;
 
-import java.util.Stack;
+import java.util.Arrays;
 
 import com.bar.foo.tree.ITree;
 
@@ -35,16 +35,27 @@ import com.bar.foo.tree.ITree;
 public class PostOrderTreeIterator<T extends ITree<T>> extends TreeIterator<T> {
 
 	/**
-	 * A queue used to maintain state information about the position of the
-	 * iterator. If empty, there is no remaining tree nodes to visit.
+	 * The nodes on the path from the root to the next node to visit. Only the
+	 * first {@link #size} elements are used. If empty, there is no remaining
+	 * tree nodes to visit.
 	 */
-	private final Stack<T> stack = new Stack<T>();
+	private Object[] stack = new Object[16];
 
 	/**
-	 * A reference to the last node returned by {@link #next()}. This is null
-	 * only at the beginning of the traversal.
+	 * The index of the next child to visit for each node in the
+	 * {@link #stack}.
 	 */
-	private T lastNodeVisited = null;
+	private int[] nextChild = new int[16];
+
+	/**
+	 * The number of nodes in the {@link #stack}.
+	 */
+	private int size = 0;
+
+	/**
+	 * The depth of the last node returned by {@link #next()}.
+	 */
+	private int depth = -1;
 
 	/**
 	 * The default constructor. Requires a root node. The root node and all
@@ -59,11 +70,9 @@ public class PostOrderTreeIterator<T extends ITree<T>> extends TreeIterator<T> {
 	public PostOrderTreeIterator(T root) {
 		super(root);
 
-		// If the root is not null, we need to start the iteration with it by
-		// adding it to the stack.
-		if (root != null) {
-			stack.push(root);
-		}
+		// We need to start the iteration with the root by adding it to the
+		// stack.
+		restart();
 	}
 
 	/*
@@ -71,86 +80,92 @@ public class PostOrderTreeIterator<T extends ITree<T>> extends TreeIterator<T> {
 	 */
 	@Override
 	public boolean hasNext() {
-		return !stack.isEmpty();
+		return size > 0;
 	}
 
 	/*
 	 * Overrides a method from TreeIterator.
 	 */
 	@Override
+	@SuppressWarnings("unchecked")
 	protected T getNext() {
-		// Take a peek at the top node in the stack.
-		T node = stack.peek();
-
-		// If this is the first node visited or the last node visited was not
-		// the right-most child, then we need to find the next sibling and add
-		// all of its left-descendants to the stack.
-		if (node.hasChildren() && lastNodeVisited != node
-				.getChild(node.getNumberOfChildren() - 1)) {
-			// Note that we must handle the case where no node has yet been
-			// visited.
-			if (lastNodeVisited == null) {
-				node = node.getChild(0);
-			}
-			// Otherwise, we need to find the next sibling of the last node
-			// visited.
-			else {
-				for (int i = 0; i < node.getNumberOfChildren(); i++) {
-					T child = node.getChild(i);
-					if (child == lastNodeVisited) {
-						node = node.getChild(i + 1);
-						break;
-					}
-				}
-			}
-
-			// Add all left-descendants.
-			stack.push(node);
-			while (node.getNumberOfChildren() > 0) {
-				node = node.getChild(0);
-				stack.push(node);
-			}
+		// Descend into the next unvisited child of each node on the stack until
+		// a node whose children have all been visited is found. Each node's
+		// next child index is kept on the stack, so siblings are never
+		// searched and a full traversal takes linear time.
+		int top = size - 1;
+		T next = (T) stack[top];
+		while (nextChild[top] < getNumberOfChildren(next)) {
+			next = getChild(next, nextChild[top]++);
+			push(next);
+			top++;
 		}
 
 		// Pop the top node on the stack, as it is the next node to traverse.
-		T next = stack.pop();
-		lastNodeVisited = next;
+		stack[--size] = null;
+
+		// The stack holds the ancestors of the next node, so its size is the
+		// node's depth.
+		depth = size;
 
 		return next;
 	}
 
+	/*
+	 * Implements a method from TreeIterator.
+	 */
+	@Override
+	public int depth() {
+		return depth;
+	}
+
 	/*
 	 * Overrides a method from TreeIterator.
 	 */
 	@Override
 	protected void removeFromIteration(T subtree) {
-		// Because we keep track of the last visited node, it needs to be
-		// updated to the proper value as if the sub-tree never existed.
-
-		// Unset the last node visited.
-		lastNodeVisited = null;
-
-		// Find the previous left-sibling in the ancestor tree if possible.
-		T node = subtree;
-		T ancestor = node.getParent();
-		int i = 0;
-		while (ancestor != null && i == 0) {
-			for (i = 0; i < ancestor.getNumberOfChildren(); i++) {
-				if (ancestor.getChild(i) == node) {
-					break;
-				}
-			}
-			node = ancestor;
-			ancestor = node.getParent();
+		// The sub-tree has already been traversed. Its parent is on top of the
+		// stack, and the parent's next child index points just past it. Once
+		// the node is removed, the following siblings shift down by one.
+		if (size > 0) {
+			nextChild[size - 1]--;
 		}
+		return;
+	}
 
-		// If a previous left-sibling was found among the ancestors, mark it as
-		// the last visited node.
-		if (i > 0) {
-			lastNodeVisited = node.getChild(i - 1);
-		}
+	/*
+	 * Overrides a method from TreeIterator.
+	 */
+	@Override
+	protected boolean canRestart() {
+		return true;
+	}
 
-		return;
+	/*
+	 * Overrides a method from TreeIterator.
+	 */
+	@Override
+	protected void restart() {
+		Arrays.fill(stack, 0, size, null);
+		size = 0;
+		depth = -1;
+		if (root != null) {
+			push(root);
+		}
 	}
 
+	/**
+	 * Pushes a node onto the stack, doubling its capacity if needed.
+	 * 
+	 * @param node
+	 *            The node to push.
+	 */
+	private void push(T node) {
+		if (size == stack.length) {
+			stack = Arrays.copyOf(stack, size * 2);
+			nextChild = Arrays.copyOf(nextChild, size * 2);
+		}
+		stack[size] = node;
+		nextChild[size++] = 0;
+	}
 }
@@ -1,6 +1,6 @@
 package com.bar.foo.tree.iterator;
 
-import java.util.Stack;
+import java.util.Arrays;
 
 import com.bar.foo.tree.ITree;
 
@@ -35,9 +35,25 @@ public class PreOrderTreeIterator<T extends ITree<T>> extends TreeIterator<T> {
 
 	/**
 	 * A stack used to maintain state information about the position of the
-	 * iterator. If empty, there is no remaining tree node to visit.
+	 * iterator. Only the first {@link #size} elements are used. If empty, there
+	 * is no remaining tree node to visit.
 	 */
-	private final Stack<T> stack = new Stack<T>();
+	private Object[] stack = new Object[16];
+
+	/**
+	 * The depth of each node in the {@link #stack}, by position.
+	 */
+	private int[] depths = new int[16];
+
+	/**
+	 * The number of nodes in the {@link #stack}.
+	 */
+	private int size = 0;
+
+	/**
+	 * The depth of the last node returned by {@link #next()}.
+	 */
+	private int depth = -1;
 
 	/**
 	 * The default constructor. Requires a root node. The root node and all
@@ -51,11 +67,9 @@ public class PreOrderTreeIterator<T extends ITree<T>> extends TreeIterator<T> {
 	public PreOrderTreeIterator(T root) {
 		super(root);
 
-		// If the root is not null, we need to start the iteration with it by
-		// adding it to the stack.
-		if (root != null) {
-			stack.push(root);
-		}
+		// We need to start the iteration with the root by adding it to the
+		// stack.
+		restart();
 	}
 
 	/*
@@ -63,22 +77,42 @@ public class PreOrderTreeIterator<T extends ITree<T>> extends TreeIterator<T> {
 	 */
 	@Override
 	public boolean hasNext() {
-		return !stack.isEmpty();
+		return size > 0;
 	}
 
 	/*
 	 * Overrides a method from TreeIterator.
 	 */
 	@Override
+	@SuppressWarnings("unchecked")
 	protected T getNext() {
 		// If we have another tree node to iterate over, proceed.
-		T next = stack.pop();
-		for (int i = next.getNumberOfChildren() - 1; i >= 0; i--) {
-			stack.push(next.getChild(i));
+		T next = (T) stack[--size];
+		stack[size] = null;
+		depth = depths[size];
+
+		// Push the children in reverse order so the first child is on top.
+		int children = getNumberOfChildren(next);
+		if (size + children > stack.length) {
+			int length = Math.max(size + children, stack.length * 2);
+			stack = Arrays.copyOf(stack, length);
+			depths = Arrays.copyOf(depths, length);
+		}
+		for (int i = children - 1; i >= 0; i--) {
+			stack[size] = getChild(next, i);
+			depths[size++] = depth + 1;
 		}
 		return next;
 	}
 
+	/*
+	 * Implements a method from TreeIterator.
+	 */
+	@Override
+	public int depth() {
+		return depth;
+	}
+
 	/*
 	 * Overrides a method from TreeIterator.
 	 */
@@ -86,8 +120,30 @@ public class PreOrderTreeIterator<T extends ITree<T>> extends TreeIterator<T> {
 	protected void removeFromIteration(T subtree) {
 		// The last node visited simply pushed all of its children to the stack.
 		// Remove all of them from the top of the stack.
-		for (int i = 0; i < subtree.getNumberOfChildren(); i++) {
-			stack.pop();
+		for (int i = 0; i < getNumberOfChildren(subtree); i++) {
+			stack[--size] = null;
+		}
+	}
+
+	/*
+	 * Overrides a method from TreeIterator.
+	 */
+	@Override
+	protected boolean canRestart() {
+		return true;
+	}
+
+	/*
+	 * Overrides a method from TreeIterator.
+	 */
+	@Override
+	protected void restart() {
+		Arrays.fill(stack, 0, size, null);
+		size = 0;
+		depth = -1;
+		if (root != null) {
+			stack[size] = root;
+			depths[size++] = 0;
 		}
 	}
 }
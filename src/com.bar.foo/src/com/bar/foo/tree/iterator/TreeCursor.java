@@ -0,0 +1,222 @@
+package com.bar.foo.tree.iterator;
+
+import java.util.Arrays;
+
+import com.bar.foo.tree.ITree;
+
+/**
+ * This class provides a cursor that can be moved freely around a tree: up to
+ * the parent, down to a child, and across to a sibling. Unlike the tree
+ * iterators, the cursor can move in any direction and always knows where it
+ * is.
+ * <p>
+ * The cursor keeps the path from its root to the current node along with the
+ * index of each node in its parent. Moving to a sibling is therefore a single
+ * {@link ITree#getChild(int)} call instead of a search through the parent's
+ * children, and moving to the parent does not lose the position among its
+ * siblings. The path is stored in arrays that only grow with the depth of the
+ * tree, so moving the cursor does not allocate anything.
+ * </p>
+ * <p>
+ * Each move returns {@code false} and leaves the cursor where it was if the
+ * move is not possible. The cursor never leaves the sub-tree of its root, so
+ * the root has no parent or siblings as far as the cursor is concerned.
+ * </p>
+ * <p>
+ * The cursor does not notice changes to the tree. If nodes on its path are
+ * added or removed, it should be {@link #reset(ITree) reset}.
+ * </p>
+ * 
+ * @author Jordan
+ *
+ * @param <T>
+ *            The type of tree node.
+ */
+public class TreeCursor<T extends ITree<T>> {
+
+	/**
+	 * The nodes on the path from the root to the current node.
+	 */
+	private Object[] path = new Object[16];
+
+	/**
+	 * The index of each node on the {@link #path} in its parent. The root's
+	 * index is -1.
+	 */
+	private int[] indexes = new int[16];
+
+	/**
+	 * The depth of the current node. The root is at depth 0.
+	 */
+	private int depth = 0;
+
+	/**
+	 * The default constructor. The cursor starts at the specified root.
+	 * 
+	 * @param root
+	 *            The root of the tree. If null, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 */
+	public TreeCursor(T root) {
+		reset(root);
+	}
+
+	/**
+	 * Moves the cursor to the root of a tree. The cursor's storage is kept,
+	 * so it may be re-used for other trees.
+	 * 
+	 * @param root
+	 *            The root of the tree. If null, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 */
+	public void reset(T root) {
+		if (root == null) {
+			throw new IllegalArgumentException("TreeCursor error: "
+					+ "Cannot navigate a null tree!");
+		}
+		Arrays.fill(path, 1, depth + 1, null);
+		path[0] = root;
+		indexes[0] = -1;
+		depth = 0;
+	}
+
+	/**
+	 * Gets the node at the cursor.
+	 * 
+	 * @return The current node.
+	 */
+	@SuppressWarnings("unchecked")
+	public T getNode() {
+		return (T) path[depth];
+	}
+
+	/**
+	 * Gets the root of the cursor's tree.
+	 * 
+	 * @return The root node.
+	 */
+	@SuppressWarnings("unchecked")
+	public T getRoot() {
+		return (T) path[0];
+	}
+
+	/**
+	 * Gets the depth of the node at the cursor.
+	 * 
+	 * @return The depth of the current node. The root is at depth 0.
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Gets the index of the node at the cursor in its parent.
+	 * 
+	 * @return The index of the current node among its siblings, or -1 if the
+	 *         cursor is at the root.
+	 */
+	public int getIndex() {
+		return indexes[depth];
+	}
+
+	/**
+	 * Moves the cursor to the parent of the current node.
+	 * 
+	 * @return True if the cursor moved, false if it is at the root.
+	 */
+	public boolean toParent() {
+		if (depth == 0) {
+			return false;
+		}
+		path[depth--] = null;
+		return true;
+	}
+
+	/**
+	 * Moves the cursor back to the root.
+	 */
+	public void toRoot() {
+		Arrays.fill(path, 1, depth + 1, null);
+		depth = 0;
+	}
+
+	/**
+	 * Moves the cursor to a child of the current node.
+	 * 
+	 * @param index
+	 *            The index of the child.
+	 * @return True if the cursor moved, false if the index is invalid.
+	 */
+	public boolean toChild(int index) {
+		T node = getNode();
+		if (index < 0 || index >= node.getNumberOfChildren()) {
+			return false;
+		}
+		if (depth + 1 == path.length) {
+			path = Arrays.copyOf(path, path.length * 2);
+			indexes = Arrays.copyOf(indexes, indexes.length * 2);
+		}
+		path[++depth] = node.getChild(index);
+		indexes[depth] = index;
+		return true;
+	}
+
+	/**
+	 * Moves the cursor to the first child of the current node.
+	 * 
+	 * @return True if the cursor moved, false if the node has no children.
+	 */
+	public boolean toFirstChild() {
+		return toChild(0);
+	}
+
+	/**
+	 * Moves the cursor to the last child of the current node.
+	 * 
+	 * @return True if the cursor moved, false if the node has no children.
+	 */
+	public boolean toLastChild() {
+		return toChild(getNode().getNumberOfChildren() - 1);
+	}
+
+	/**
+	 * Moves the cursor to the next sibling of the current node.
+	 * 
+	 * @return True if the cursor moved, false if the node is the last child
+	 *         of its parent or is the root.
+	 */
+	public boolean toNextSibling() {
+		return toSibling(indexes[depth] + 1);
+	}
+
+	/**
+	 * Moves the cursor to the previous sibling of the current node.
+	 * 
+	 * @return True if the cursor moved, false if the node is the first child
+	 *         of its parent or is the root.
+	 */
+	public boolean toPreviousSibling() {
+		return toSibling(indexes[depth] - 1);
+	}
+
+	/**
+	 * Moves the cursor to a sibling of the current node.
+	 * 
+	 * @param index
+	 *            The index of the sibling in the parent.
+	 * @return True if the cursor moved, false otherwise.
+	 */
+	@SuppressWarnings("unchecked")
+	private boolean toSibling(int index) {
+		if (depth == 0) {
+			return false;
+		}
+		T parent = (T) path[depth - 1];
+		if (index < 0 || index >= parent.getNumberOfChildren()) {
+			return false;
+		}
+		path[depth] = parent.getChild(index);
+		indexes[depth] = index;
+		return true;
+	}
+}
@@ -4,16 +4,51 @@ import java.util.Iterator;
 import java.util.NoSuchElementException;
 
 import com.bar.foo.tree.ITree;
+import com.bar.foo.tree.metrics.ITreeMetrics;
+import com.bar.foo.tree.metrics.TreeMetrics;
 
 public abstract class TreeIterator<T extends ITree<T>> implements Iterator<T> {
 
 	/**
-	 * The root of the tree.
+	 * The root of the tree. This changes when the iterator is
+	 * {@link #reset(ITree) reset}, and it is {@code null} while the iterator is
+	 * kept in a {@link TreeIteratorPool}.
 	 */
-	protected final T root;
+	protected T root;
 
 	private T current = null;
 
+	/**
+	 * The node most recently returned by {@link #next()}, or {@code null} if
+	 * it has not been called. Unlike {@link #current}, this is kept when the
+	 * node is removed.
+	 */
+	private T last = null;
+
+	/**
+	 * The metrics that the current traversal is reported to, or {@code null}
+	 * if there are none or the traversal has been reported.
+	 */
+	private ITreeMetrics metrics = null;
+
+	/**
+	 * The number of nodes visited by the current traversal. This is only
+	 * counted while there are {@link #metrics}.
+	 */
+	private int visited = 0;
+
+	/**
+	 * The value of {@link System#nanoTime()} when the current traversal
+	 * started.
+	 */
+	private long startTime = 0L;
+
+	/**
+	 * Whether the iterator has been released to a {@link TreeIteratorPool}
+	 * and not yet reset.
+	 */
+	boolean released = false;
+
 	/**
 	 * The default constructor. Requires a root node. The root node and all
 	 * descendants will be traversed.
@@ -28,6 +63,7 @@ public abstract class TreeIterator<T extends ITree<T>> implements Iterator<T> {
 			throw new IllegalArgumentException("TreeIterator error: "
 					+ "Cannot construct an iterator from a null tree!");
 		}
+		startMetrics();
 	}
 
 	/*
@@ -44,6 +80,13 @@ public abstract class TreeIterator<T extends ITree<T>> implements Iterator<T> {
 
 		// Get the next item to be traversed from the sub-class.
 		current = getNext();
+		last = current;
+		if (metrics != null) {
+			visited++;
+			if (!hasNext()) {
+				reportMetrics();
+			}
+		}
 		return current;
 	}
 
@@ -54,6 +97,61 @@ public abstract class TreeIterator<T extends ITree<T>> implements Iterator<T> {
 	 */
 	protected abstract T getNext();
 
+	/**
+	 * Gets the depth of the node most recently returned by {@link #next()}.
+	 * The iterators in this package track the depth as they go, so this takes
+	 * constant time. Sub-classes that do not track it inherit this
+	 * implementation, which counts the parents between the node and the root,
+	 * so it takes time proportional to the depth.
+	 * 
+	 * @return The depth of the current node relative to the root of the
+	 *         iteration (the root is at depth 0), or -1 if {@link #next()} has
+	 *         not been called or the node is no longer below the root.
+	 */
+	public int depth() {
+		int depth = -1;
+		T node = last;
+		if (node != null) {
+			int steps = 0;
+			while (node != null && node != root) {
+				node = node.getParent();
+				steps++;
+			}
+			if (node != null) {
+				depth = steps;
+			}
+		}
+		return depth;
+	}
+
+	/**
+	 * Gets the number of children of a node as seen by this iteration.
+	 * Sub-classes use this and {@link #getChild(ITree, int)} instead of
+	 * reading the node directly, so that an iteration can present a different
+	 * view of the tree, such as a snapshot.
+	 * 
+	 * @param node
+	 *            The node whose children will be counted.
+	 * @return The number of children of the node.
+	 */
+	protected int getNumberOfChildren(T node) {
+		return node.getNumberOfChildren();
+	}
+
+	/**
+	 * Gets a child of a node as seen by this iteration.
+	 * 
+	 * @param node
+	 *            The parent node.
+	 * @param index
+	 *            The index of the child.
+	 * @return The child at the index.
+	 * @see #getNumberOfChildren(ITree)
+	 */
+	protected T getChild(T node, int index) {
+		return node.getChild(index);
+	}
+
 	/*
 	 * Implements a method from Iterator.
 	 */
@@ -82,6 +180,100 @@ public abstract class TreeIterator<T extends ITree<T>> implements Iterator<T> {
 		return;
 	}
 
+	/**
+	 * Resets the iterator so that it traverses the tree rooted at the specified
+	 * node from the beginning. The iterator's internal storage is kept, so a
+	 * reset iterator does not need to grow again to traverse a tree of similar
+	 * shape.
+	 * 
+	 * @param root
+	 *            The root of the tree to iteratively traverse. If null, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @throws IllegalStateException
+	 *             If the iterator cannot start over, i.e., if
+	 *             {@link #canRestart()} returns false. The iteration is left
+	 *             unchanged.
+	 */
+	public final void reset(T root) {
+		if (root == null) {
+			throw new IllegalArgumentException("TreeIterator error: "
+					+ "Cannot reset an iterator to a null tree!");
+		} else if (!canRestart()) {
+			throw new IllegalStateException(getClass().getName() + " error: "
+					+ "This iterator cannot be reset.");
+		}
+		reportMetrics();
+		this.root = root;
+		current = null;
+		last = null;
+		restart();
+		released = false;
+		startMetrics();
+	}
+
+	/**
+	 * Clears the iterator so that it holds no references to tree nodes. This
+	 * is used when the iterator is returned to a {@link TreeIteratorPool}.
+	 */
+	final void release() {
+		reportMetrics();
+		root = null;
+		current = null;
+		last = null;
+		restart();
+		released = true;
+	}
+
+	/**
+	 * Starts measuring a traversal if there are installed {@link TreeMetrics}.
+	 */
+	private void startMetrics() {
+		metrics = TreeMetrics.getMetrics();
+		if (metrics != null) {
+			visited = 0;
+			startTime = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Reports the current traversal to its {@link #metrics}, if any. A
+	 * traversal is only reported once, and only if it visited a node.
+	 */
+	private void reportMetrics() {
+		if (metrics != null) {
+			if (visited > 0) {
+				metrics.traversalCompleted(this, visited, System.nanoTime()
+						- startTime);
+			}
+			metrics = null;
+		}
+	}
+
+	/**
+	 * Gets whether the iterator can start over with {@link #restart()}, and so
+	 * whether it can be {@link #reset(ITree) reset}. The iterators in this
+	 * package can. Sub-classes that cannot start over inherit this
+	 * implementation, which returns false.
+	 * 
+	 * @return True if {@link #restart()} is implemented, false otherwise.
+	 */
+	protected boolean canRestart() {
+		return false;
+	}
+
+	/**
+	 * Clears the state of the iteration and, if the {@link #root} is not
+	 * null, starts the iteration over from it. References to nodes from the
+	 * previous iteration should be cleared. This is only called if
+	 * {@link #canRestart()} returns true, so sub-classes that override one
+	 * must override both. The inherited implementation throws an
+	 * {@link UnsupportedOperationException}.
+	 */
+	protected void restart() {
+		throw new UnsupportedOperationException(getClass().getName()
+				+ " error: This iterator cannot be restarted.");
+	}
+
 	/**
 	 * Removes the sub-tree of the specified node from the iteration order.
 	 * 
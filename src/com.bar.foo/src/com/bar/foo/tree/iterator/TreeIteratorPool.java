@@ -0,0 +1,164 @@
+package com.bar.foo.tree.iterator;
+
+import com.bar.foo.tree.ITree;
+
+/**
+ * This class keeps a small pool of {@link TreeIterator}s for each thread so
+ * that traversals can re-use iterators instead of creating new ones. The
+ * iterators are backed by growable arrays, so once an iterator has grown to
+ * fit a tree, traversing that tree (or one like it) again allocates nothing.
+ * <p>
+ * A pooled iterator is used as follows:
+ * </p>
+ * 
+ * <pre>
+ * <code>
+ * {@literal TreeIterator<Foo>} iterator = TreeIteratorPool.acquire(root,
+ * 		TreeIterationOrder.PreOrder);
+ * try {
+ * 	while (iterator.hasNext()) {
+ * 		Foo node = iterator.next();
+ * 		...
+ * 	}
+ * } finally {
+ * 	TreeIteratorPool.release(iterator);
+ * }
+ * </code>
+ * </pre>
+ * <p>
+ * An iterator must not be used after it has been released, and it can only be
+ * released once. Nested traversals on the same thread are fine, since each
+ * acquires its own iterator.
+ * </p>
+ * 
+ * @author Jordan
+ *
+ */
+public final class TreeIteratorPool {
+
+	/**
+	 * The maximum number of free iterators kept per thread for each order.
+	 */
+	private static final int MAX_FREE = 8;
+
+	/**
+	 * The pool for each thread.
+	 */
+	private static final ThreadLocal<TreeIteratorPool> pools = new ThreadLocal<TreeIteratorPool>() {
+		@Override
+		protected TreeIteratorPool initialValue() {
+			return new TreeIteratorPool();
+		}
+	};
+
+	/**
+	 * The free iterators for each {@link TreeIterationOrder}, indexed by the
+	 * order's ordinal.
+	 */
+	private final TreeIterator<?>[][] free;
+
+	/**
+	 * The number of free iterators for each {@link TreeIterationOrder}.
+	 */
+	private final int[] freeCount;
+
+	/**
+	 * The default constructor. Pools are only created for each thread.
+	 */
+	private TreeIteratorPool() {
+		int orders = TreeIterationOrder.values().length;
+		free = new TreeIterator<?>[orders][MAX_FREE];
+		freeCount = new int[orders];
+	}
+
+	/**
+	 * Gets an iterator from the current thread's pool, or creates one if none
+	 * are free. The iterator is reset to the specified root.
+	 * 
+	 * @param root
+	 *            The root of the tree to iteratively traverse. If null, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @param order
+	 *            The iteration order. If null, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @return An iterator over the tree. It should be passed to
+	 *         {@link #release(TreeIterator)} when no longer needed.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T extends ITree<T>> TreeIterator<T> acquire(T root,
+			TreeIterationOrder order) {
+		if (root == null || order == null) {
+			throw new IllegalArgumentException("TreeIteratorPool error: "
+					+ "Cannot iterate over a null tree or in a null order.");
+		}
+
+		TreeIteratorPool pool = pools.get();
+		int index = order.ordinal();
+		TreeIterator<T> iterator;
+		if (pool.freeCount[index] > 0) {
+			iterator = (TreeIterator<T>) pool.free[index][--pool.freeCount[index]];
+			pool.free[index][pool.freeCount[index]] = null;
+			iterator.reset(root);
+		} else {
+			switch (order) {
+			case BreadthFirst:
+				iterator = new BreadthFirstTreeIterator<T>(root);
+				break;
+			case PreOrder:
+				iterator = new PreOrderTreeIterator<T>(root);
+				break;
+			case PostOrder:
+				iterator = new PostOrderTreeIterator<T>(root);
+				break;
+			default:
+				throw new IllegalArgumentException("TreeIteratorPool error: "
+						+ "Unsupported iteration order " + order + ".");
+			}
+		}
+		return iterator;
+	}
+
+	/**
+	 * Returns an iterator to the current thread's pool. The iterator is
+	 * cleared so that it does not keep the tree reachable. Any iterator whose
+	 * class is exactly {@link BreadthFirstTreeIterator},
+	 * {@link PreOrderTreeIterator} or {@link PostOrderTreeIterator} is pooled,
+	 * including one from {@link com.bar.foo.tree.BasicTree#iterator()} rather
+	 * than {@link #acquire(ITree, TreeIterationOrder)}, and must not be used
+	 * afterward. Iterators of other classes, including sub-classes such as
+	 * those of snapshots, are ignored.
+	 * 
+	 * @param iterator
+	 *            The iterator to release. May be null. If it has already been
+	 *            released, an {@link IllegalStateException} will be thrown,
+	 *            since it may already be in use by another traversal.
+	 */
+	public static void release(TreeIterator<?> iterator) {
+		if (iterator == null) {
+			return;
+		}
+
+		int index;
+		Class<?> type = iterator.getClass();
+		if (type == BreadthFirstTreeIterator.class) {
+			index = TreeIterationOrder.BreadthFirst.ordinal();
+		} else if (type == PreOrderTreeIterator.class) {
+			index = TreeIterationOrder.PreOrder.ordinal();
+		} else if (type == PostOrderTreeIterator.class) {
+			index = TreeIterationOrder.PostOrder.ordinal();
+		} else {
+			return;
+		}
+
+		if (iterator.released) {
+			throw new IllegalStateException("TreeIteratorPool error: "
+					+ "The iterator has already been released.");
+		}
+		iterator.release();
+		TreeIteratorPool pool = pools.get();
+		if (pool.freeCount[index] < MAX_FREE) {
+			pool.free[index][pool.freeCount[index]++] = iterator;
+		}
+		return;
+	}
+}
@@ -0,0 +1,329 @@
+package com.bar.foo.tree.iterator;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import com.bar.foo.tree.ITree;
+
+/**
+ * This class provides a {@link Spliterator} over a tree in pre-order or
+ * post-order. It is used to create sequential and parallel streams of tree
+ * nodes.
+ * <p>
+ * The remaining nodes are described by a stack of pending items in encounter
+ * order. Each item is either a whole sub-tree, a single node, or a range of a
+ * node's children (and their sub-trees). Splitting always happens at sub-tree
+ * boundaries: the widest range closest to the root is cut in half, and the
+ * first half (with everything before it) is handed to the new spliterator.
+ * Both spliterators then read children with {@link ITree#getChild(int)}, so a
+ * parallel stream splits a wide tree much like an array instead of copying
+ * its nodes into a buffer.
+ * </p>
+ * <p>
+ * Breadth-first order cannot be split at sub-tree boundaries without losing
+ * the encounter order, so it is not supported here.
+ * </p>
+ * <p>
+ * If the number of nodes in the tree is known, it can be passed to the
+ * constructor so that the spliterator reports {@link #SIZED} until it is
+ * split. Otherwise, the size is estimated.
+ * </p>
+ * 
+ * @author Jordan
+ *
+ * @param <T>
+ *            The type of tree node.
+ */
+public class TreeSpliterator<T extends ITree<T>> implements Spliterator<T> {
+
+	/**
+	 * An item for a node and its whole sub-tree.
+	 */
+	private static final byte SUBTREE = 0;
+	/**
+	 * An item for a single node without its sub-tree.
+	 */
+	private static final byte SINGLE = 1;
+	/**
+	 * An item for a range of a node's children and their sub-trees.
+	 */
+	private static final byte RANGE = 2;
+
+	/**
+	 * Whether the nodes are traversed in post-order (true) or pre-order
+	 * (false).
+	 */
+	private final boolean postOrder;
+
+	/**
+	 * The kind of each pending item. The top of the stack (the last item) is
+	 * the next in encounter order.
+	 */
+	private byte[] kinds;
+	/**
+	 * The node for each pending item.
+	 */
+	private Object[] nodes;
+	/**
+	 * The first child index for each pending {@link #RANGE} item.
+	 */
+	private int[] from;
+	/**
+	 * The end (exclusive) child index for each pending {@link #RANGE} item.
+	 */
+	private int[] to;
+	/**
+	 * The number of pending items.
+	 */
+	private int size;
+
+	/**
+	 * The exact or estimated number of remaining nodes.
+	 */
+	private long estimate;
+
+	/**
+	 * Whether or not {@link #estimate} is exact.
+	 */
+	private boolean sized;
+
+	/**
+	 * The default constructor. The size of the tree is not known.
+	 * 
+	 * @param root
+	 *            The root of the tree. If null, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @param order
+	 *            The iteration order. Must be
+	 *            {@link TreeIterationOrder#PreOrder} or
+	 *            {@link TreeIterationOrder#PostOrder}, or an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 */
+	public TreeSpliterator(T root, TreeIterationOrder order) {
+		this(root, order, -1);
+	}
+
+	/**
+	 * A constructor for a tree with a known number of nodes.
+	 * 
+	 * @param root
+	 *            The root of the tree. If null, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @param order
+	 *            The iteration order. Must be
+	 *            {@link TreeIterationOrder#PreOrder} or
+	 *            {@link TreeIterationOrder#PostOrder}, or an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @param size
+	 *            The number of nodes in the tree, or a negative number if
+	 *            unknown.
+	 */
+	public TreeSpliterator(T root, TreeIterationOrder order, long size) {
+		if (root == null) {
+			throw new IllegalArgumentException("TreeSpliterator error: "
+					+ "Cannot iterate over a null tree.");
+		} else if (order != TreeIterationOrder.PreOrder
+				&& order != TreeIterationOrder.PostOrder) {
+			throw new IllegalArgumentException("TreeSpliterator error: "
+					+ "The order " + order + " cannot be split.");
+		}
+		postOrder = (order == TreeIterationOrder.PostOrder);
+
+		kinds = new byte[16];
+		nodes = new Object[16];
+		from = new int[16];
+		to = new int[16];
+		push(SUBTREE, root, 0, 0);
+
+		sized = (size >= 0);
+		estimate = (sized ? size : Long.MAX_VALUE);
+	}
+
+	/**
+	 * A constructor used when splitting. The items are added by the caller.
+	 * 
+	 * @param postOrder
+	 *            Whether the nodes are traversed in post-order.
+	 * @param capacity
+	 *            The initial capacity of the item stack.
+	 * @param estimate
+	 *            The estimated number of nodes.
+	 */
+	private TreeSpliterator(boolean postOrder, int capacity, long estimate) {
+		this.postOrder = postOrder;
+		kinds = new byte[capacity];
+		nodes = new Object[capacity];
+		from = new int[capacity];
+		to = new int[capacity];
+		this.estimate = estimate;
+		sized = false;
+	}
+
+	/*
+	 * Implements a method from Spliterator.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean tryAdvance(Consumer<? super T> action) {
+		if (action == null) {
+			throw new NullPointerException();
+		}
+
+		while (size > 0) {
+			int top = size - 1;
+			T node = (T) nodes[top];
+			byte kind = kinds[top];
+
+			if (kind == RANGE) {
+				// Replace the range with its remainder and its first sub-tree.
+				int index = from[top];
+				if (index + 1 < to[top]) {
+					from[top] = index + 1;
+				} else {
+					size--;
+				}
+				push(SUBTREE, node.getChild(index), 0, 0);
+				continue;
+			}
+
+			// Visit the node before or after its children.
+			size--;
+			nodes[top] = null;
+			int children = (kind == SUBTREE ? node.getNumberOfChildren() : 0);
+			if (children > 0) {
+				if (postOrder) {
+					push(SINGLE, node, 0, 0);
+					push(RANGE, node, 0, children);
+					continue;
+				}
+				push(RANGE, node, 0, children);
+			}
+			if (sized) {
+				estimate--;
+			}
+			action.accept(node);
+			return true;
+		}
+		return false;
+	}
+
+	/*
+	 * Implements a method from Spliterator.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public TreeSpliterator<T> trySplit() {
+
+		// Find the first item from the bottom of the stack that can be split.
+		int index;
+		for (index = 0; index < size; index++) {
+			T node = (T) nodes[index];
+			if (kinds[index] == RANGE && to[index] - from[index] == 1) {
+				// A range with one child is the child's sub-tree.
+				nodes[index] = node.getChild(from[index]);
+				kinds[index] = SUBTREE;
+				node = (T) nodes[index];
+			}
+			if (kinds[index] == SUBTREE && node.getNumberOfChildren() > 1) {
+				// Separate the node from the range of its children. The range
+				// comes first in post-order, so it goes above the node.
+				int children = node.getNumberOfChildren();
+				insert(index, SINGLE, node, 0, 0);
+				if (postOrder) {
+					index++;
+				} else {
+					kinds[index + 1] = SINGLE;
+				}
+				kinds[index] = RANGE;
+				from[index] = 0;
+				to[index] = children;
+			}
+			if (kinds[index] == RANGE && to[index] - from[index] > 1) {
+				break;
+			}
+		}
+		if (index == size) {
+			return null;
+		}
+
+		// The new spliterator takes the first half of the range and all items
+		// that come before it (above it on the stack).
+		int mid = (from[index] + to[index]) >>> 1;
+		long half = estimate >>> 1;
+		TreeSpliterator<T> prefix = new TreeSpliterator<T>(postOrder, size
+				- index + 8, half);
+		prefix.push(RANGE, (T) nodes[index], from[index], mid);
+		for (int i = index + 1; i < size; i++) {
+			prefix.push(kinds[i], (T) nodes[i], from[i], to[i]);
+			nodes[i] = null;
+		}
+		from[index] = mid;
+		size = index + 1;
+
+		estimate -= half;
+		sized = false;
+
+		return prefix;
+	}
+
+	/*
+	 * Implements a method from Spliterator.
+	 */
+	@Override
+	public long estimateSize() {
+		return estimate;
+	}
+
+	/*
+	 * Implements a method from Spliterator.
+	 */
+	@Override
+	public int characteristics() {
+		return ORDERED | NONNULL | (sized ? SIZED : 0);
+	}
+
+	/**
+	 * Pushes an item onto the top of the stack.
+	 */
+	private void push(byte kind, T node, int first, int end) {
+		if (size == kinds.length) {
+			grow();
+		}
+		kinds[size] = kind;
+		nodes[size] = node;
+		from[size] = first;
+		to[size] = end;
+		size++;
+	}
+
+	/**
+	 * Inserts an item into the stack at the specified position.
+	 */
+	private void insert(int index, byte kind, T node, int first, int end) {
+		if (size == kinds.length) {
+			grow();
+		}
+		int moved = size - index;
+		System.arraycopy(kinds, index, kinds, index + 1, moved);
+		System.arraycopy(nodes, index, nodes, index + 1, moved);
+		System.arraycopy(from, index, from, index + 1, moved);
+		System.arraycopy(to, index, to, index + 1, moved);
+		kinds[index] = kind;
+		nodes[index] = node;
+		from[index] = first;
+		to[index] = end;
+		size++;
+	}
+
+	/**
+	 * Doubles the capacity of the stack.
+	 */
+	private void grow() {
+		int capacity = kinds.length * 2;
+		kinds = Arrays.copyOf(kinds, capacity);
+		nodes = Arrays.copyOf(nodes, capacity);
+		from = Arrays.copyOf(from, capacity);
+		to = Arrays.copyOf(to, capacity);
+	}
+}
@@ -0,0 +1,26 @@
+package com.bar.foo.tree.mapped;
+
+/**
+ * This interface converts the node-specific content of a tree node into the
+ * raw bytes stored in a mapped tree file. It is used by
+ * {@link MappedTreeWriter} when writing a tree to disk.
+ *
+ * @author Jordan
+ *
+ * @param <T>
+ *            The type of tree node whose content will be encoded.
+ */
+public interface IPayloadEncoder<T> {
+
+	/**
+	 * Encodes the content of the specified node. Note that the node's
+	 * relatives in the tree <i>should not</i> be encoded, as the tree structure
+	 * is stored separately.
+	 *
+	 * @param node
+	 *            The node to encode. This will not be null.
+	 * @return The bytes for the node's payload. This may be null or empty if
+	 *         the node has no content.
+	 */
+	public byte[] encode(T node);
+}
@@ -0,0 +1,370 @@
+package com.bar.foo.tree.mapped;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.bar.foo.tree.ITree;
+import com.bar.foo.tree.iterator.BreadthFirstTreeIterator;
+import com.bar.foo.tree.iterator.PostOrderTreeIterator;
+import com.bar.foo.tree.iterator.PreOrderTreeIterator;
+import com.bar.foo.tree.iterator.TreeIterationOrder;
+import com.bar.foo.tree.iterator.TreeIterator;
+import com.bar.foo.tree.iterator.TreeSpliterator;
+
+/**
+ * This class provides a read-only {@link ITree} view of a node stored in a
+ * {@link MappedTreeFile}. A view holds nothing but a reference to the file
+ * and the node's breadth-first index. All navigation reads the parent, child,
+ * and sibling indexes directly from the mapped file, so views may be created
+ * and discarded freely.
+ * <p>
+ * Since the tree is read-only, the methods that would modify the tree throw
+ * an {@link UnsupportedOperationException}. This includes
+ * {@link Iterator#remove()} on the tree's iterators.
+ * </p>
+ * <p>
+ * Two views are considered equal by {@link #equals(Object)} if their payloads
+ * contain the same bytes, which matches the node-specific equality used
+ * elsewhere in {@code ITree} implementations.
+ * </p>
+ *
+ * @author Jordan
+ *
+ */
+public class MappedTree implements ITree<MappedTree> {
+
+	/**
+	 * The mapped file containing the node.
+	 */
+	private final MappedTreeFile file;
+
+	/**
+	 * The breadth-first index of the node in the {@link #file}.
+	 */
+	private final int index;
+
+	/**
+	 * The default constructor. Views are created by the {@link MappedTreeFile}
+	 * or by navigating from other views.
+	 *
+	 * @param file
+	 *            The mapped file containing the node.
+	 * @param index
+	 *            The breadth-first index of the node.
+	 */
+	MappedTree(MappedTreeFile file, int index) {
+		this.file = file;
+		this.index = index;
+	}
+
+	/**
+	 * Gets the mapped file that contains this node.
+	 *
+	 * @return The node's file.
+	 */
+	public MappedTreeFile getFile() {
+		return file;
+	}
+
+	/**
+	 * Gets the breadth-first index of this node in its file. The root has
+	 * index 0.
+	 *
+	 * @return The node's index.
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Gets the content stored for this node.
+	 *
+	 * @return A read-only buffer containing the node's payload. If the node
+	 *         has no payload, the buffer is empty.
+	 */
+	public ByteBuffer getPayload() {
+		return file.getPayload(index);
+	}
+
+	/**
+	 * Gets the next sibling of this node, i.e., the child of its parent that
+	 * follows it.
+	 *
+	 * @return The next sibling, or {@code null} if this is the root or the
+	 *         last child of its parent.
+	 */
+	public MappedTree getNextSibling() {
+		MappedTree sibling = null;
+		int parent = file.getParentIndex(index);
+		if (parent >= 0 && index + 1 < file.getFirstChildIndex(parent)
+				+ file.getNumberOfChildren(parent)) {
+			sibling = new MappedTree(file, index + 1);
+		}
+		return sibling;
+	}
+
+	/**
+	 * Gets the previous sibling of this node, i.e., the child of its parent
+	 * that precedes it.
+	 *
+	 * @return The previous sibling, or {@code null} if this is the root or the
+	 *         first child of its parent.
+	 */
+	public MappedTree getPreviousSibling() {
+		MappedTree sibling = null;
+		int parent = file.getParentIndex(index);
+		if (parent >= 0 && index > file.getFirstChildIndex(parent)) {
+			sibling = new MappedTree(file, index - 1);
+		}
+		return sibling;
+	}
+
+	/**
+	 * The mapped tree is read-only, so this method always throws an
+	 * {@link UnsupportedOperationException}.
+	 */
+	@Override
+	public boolean addChild(MappedTree child) {
+		throw new UnsupportedOperationException("MappedTree error: "
+				+ "Mapped trees are read-only.");
+	}
+
+	/*
+	 * Implements a method from ITree.
+	 */
+	@Override
+	public MappedTree getChild(int index) {
+		MappedTree child = null;
+		if (index >= 0 && index < file.getNumberOfChildren(this.index)) {
+			child = new MappedTree(file,
+					file.getFirstChildIndex(this.index) + index);
+		}
+		return child;
+	}
+
+	/*
+	 * Implements a method from ITree.
+	 */
+	@Override
+	public List<MappedTree> getChildren() {
+		int size = file.getNumberOfChildren(index);
+		int first = file.getFirstChildIndex(index);
+		List<MappedTree> children = new ArrayList<MappedTree>(size);
+		for (int i = 0; i < size; i++) {
+			children.add(new MappedTree(file, first + i));
+		}
+		return children;
+	}
+
+	/*
+	 * Implements a method from ITree.
+	 */
+	@Override
+	public int getNumberOfChildren() {
+		return file.getNumberOfChildren(index);
+	}
+
+	/*
+	 * Implements a method from ITree.
+	 */
+	@Override
+	public MappedTree getParent() {
+		int parent = file.getParentIndex(index);
+		return parent >= 0 ? file.getNode(parent) : null;
+	}
+
+	/*
+	 * Implements a method from ITree.
+	 */
+	@Override
+	public MappedTree getValue() {
+		return this;
+	}
+
+	/*
+	 * Implements a method from ITree.
+	 */
+	@Override
+	public boolean hasChild(MappedTree child) {
+		return child != null && child.file == file
+				&& file.getParentIndex(child.index) == index;
+	}
+
+	/*
+	 * Implements a method from ITree.
+	 */
+	@Override
+	public boolean hasChildren() {
+		return file.getNumberOfChildren(index) > 0;
+	}
+
+	/*
+	 * Implements a method from Iterable.
+	 */
+	@Override
+	public TreeIterator<MappedTree> iterator() {
+		return iterator(TreeIterationOrder.BreadthFirst);
+	}
+
+	/*
+	 * Implements a method from ITree.
+	 */
+	@Override
+	public TreeIterator<MappedTree> iterator(TreeIterationOrder order) {
+		TreeIterator<MappedTree> iterator = null;
+
+		if (order != null) {
+			switch (order) {
+			case BreadthFirst:
+				iterator = new BreadthFirstTreeIterator<MappedTree>(this);
+				break;
+			case PreOrder:
+				iterator = new PreOrderTreeIterator<MappedTree>(this);
+				break;
+			case PostOrder:
+				iterator = new PostOrderTreeIterator<MappedTree>(this);
+				break;
+			}
+		}
+
+		return iterator;
+	}
+
+	/*
+	 * Overrides a method from ITree.
+	 */
+	@Override
+	public Stream<MappedTree> parallelStream() {
+		return StreamSupport.stream(
+				createSpliterator(TreeIterationOrder.PreOrder), true);
+	}
+
+	/**
+	 * The mapped tree is read-only, so this method always throws an
+	 * {@link UnsupportedOperationException}.
+	 */
+	@Override
+	public MappedTree removeChild(int index) {
+		throw new UnsupportedOperationException("MappedTree error: "
+				+ "Mapped trees are read-only.");
+	}
+
+	/**
+	 * The mapped tree is read-only, so this method always throws an
+	 * {@link UnsupportedOperationException}.
+	 */
+	@Override
+	public boolean removeChild(MappedTree child) {
+		throw new UnsupportedOperationException("MappedTree error: "
+				+ "Mapped trees are read-only.");
+	}
+
+	/*
+	 * Overrides a method from ITree.
+	 */
+	@Override
+	public Stream<MappedTree> stream(TreeIterationOrder order) {
+		Spliterator<MappedTree> spliterator;
+		if (order == TreeIterationOrder.BreadthFirst) {
+			// Breadth-first order cannot be split at sub-tree boundaries.
+			spliterator = Spliterators.spliteratorUnknownSize(
+					iterator(order), Spliterator.ORDERED
+							| Spliterator.NONNULL);
+		} else {
+			spliterator = createSpliterator(order);
+		}
+		return StreamSupport.stream(spliterator, false);
+	}
+
+	/**
+	 * Creates a spliterator over the node's sub-tree. The size of the whole
+	 * tree is stored in the file, so the root's spliterator is sized.
+	 * 
+	 * @param order
+	 *            The pre-order or post-order iteration order.
+	 * @return The new spliterator.
+	 */
+	private Spliterator<MappedTree> createSpliterator(TreeIterationOrder order) {
+		return new TreeSpliterator<MappedTree>(this, order,
+				index == 0 ? file.getNumberOfNodes() : -1);
+	}
+
+	/**
+	 * Compares the payload of this node with another node. The tree structure
+	 * is not compared.
+	 */
+	@Override
+	public boolean equals(Object object) {
+		boolean equals = (this == object);
+		if (!equals && object instanceof MappedTree) {
+			MappedTree tree = (MappedTree) object;
+			equals = (file == tree.file && index == tree.index)
+					|| getPayload().equals(tree.getPayload());
+		}
+		return equals;
+	}
+
+	/*
+	 * Implements a method from ITree.
+	 */
+	@Override
+	public boolean equals(ITree<MappedTree> object, boolean fullTree) {
+		boolean equals = equals(object);
+
+		if (equals && fullTree) {
+			MappedTree tree = (MappedTree) object;
+
+			// Compare the two trees breadth-first. As with BasicTree, the
+			// number of children must be compared along with the payload.
+			Iterator<MappedTree> iterator = tree
+					.iterator(TreeIterationOrder.BreadthFirst);
+			Iterator<MappedTree> treeIterator = iterator(
+					TreeIterationOrder.BreadthFirst);
+			iterator.next();
+			treeIterator.next();
+			while (equals && iterator.hasNext() && treeIterator.hasNext()) {
+				MappedTree subtree = iterator.next();
+				MappedTree treeSubtree = treeIterator.next();
+				equals = (subtree.getNumberOfChildren() == treeSubtree
+						.getNumberOfChildren() && subtree.equals(treeSubtree));
+			}
+		}
+
+		return equals;
+	}
+
+	/**
+	 * Provides a hash code based on the payload of this node.
+	 */
+	@Override
+	public int hashCode() {
+		return getPayload().hashCode();
+	}
+
+	/*
+	 * Implements a method from ITree.
+	 */
+	@Override
+	public int hashCode(boolean fullTree) {
+		int hash = hashCode();
+
+		if (fullTree) {
+			Iterator<MappedTree> iterator = iterator(
+					TreeIterationOrder.BreadthFirst);
+			iterator.next();
+			while (iterator.hasNext()) {
+				MappedTree subtree = iterator.next();
+				hash = hash * 31 + subtree.getNumberOfChildren();
+				hash = hash * 31 + subtree.hashCode();
+			}
+		}
+
+		return hash;
+	}
+}
@@ -0,0 +1,382 @@
+package com.bar.foo.tree.mapped;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * This class provides read-only access to a tree stored in a file written by
+ * {@link MappedTreeWriter}. The file is memory-mapped with
+ * {@link FileChannel#map(MapMode, long, long)}, so opening a file only maps it
+ * into the address space. Nodes are read from the mapped buffers on demand,
+ * and the operating system's page cache is shared between all processes that
+ * map the same file.
+ * <p>
+ * The file is laid out as follows:
+ * </p>
+ *
+ * <pre>
+ * header   (32 bytes)
+ *   int  magic number ("ATRF")
+ *   int  format version
+ *   int  number of nodes
+ *   int  reserved
+ *   long position of the node records
+ *   long position of the payload region
+ * records  (24 bytes per node, in breadth-first order)
+ *   int  parent index (-1 for the root)
+ *   int  first child index
+ *   int  number of children
+ *   int  payload length
+ *   long payload position (relative to the payload region)
+ * payloads (variable length)
+ * </pre>
+ * <p>
+ * Because nodes are stored in breadth-first order, the children of any node
+ * are stored contiguously. The index of a node's child, parent, or sibling can
+ * therefore be read directly from the node's record.
+ * </p>
+ *
+ * @author Jordan
+ *
+ */
+public class MappedTreeFile {
+
+	/**
+	 * The magic number at the start of every mapped tree file ("ATRF").
+	 */
+	static final int MAGIC = 0x41545246;
+	/**
+	 * The current version of the file format.
+	 */
+	static final int VERSION = 1;
+	/**
+	 * The size of the file header in bytes.
+	 */
+	static final int HEADER_SIZE = 32;
+	/**
+	 * The size of each node record in bytes.
+	 */
+	static final int RECORD_SIZE = 24;
+
+	/**
+	 * The offset of the parent index within a node record.
+	 */
+	private static final int PARENT_OFFSET = 0;
+	/**
+	 * The offset of the first child index within a node record.
+	 */
+	private static final int FIRST_CHILD_OFFSET = 4;
+	/**
+	 * The offset of the child count within a node record.
+	 */
+	private static final int CHILD_COUNT_OFFSET = 8;
+	/**
+	 * The offset of the payload length within a node record.
+	 */
+	private static final int PAYLOAD_LENGTH_OFFSET = 12;
+	/**
+	 * The offset of the payload position within a node record.
+	 */
+	private static final int PAYLOAD_POSITION_OFFSET = 16;
+
+	/**
+	 * The maximum size of a single mapped payload segment. A single
+	 * {@code MappedByteBuffer} cannot exceed 2 GB, so larger files are split
+	 * into several segments.
+	 */
+	private static final int PAYLOAD_SEGMENT_SIZE = 1 << 30;
+	/**
+	 * The number of node records in a single mapped record segment. Records
+	 * never straddle two segments.
+	 */
+	private static final int RECORDS_PER_SEGMENT = PAYLOAD_SEGMENT_SIZE
+			/ RECORD_SIZE;
+
+	/**
+	 * The file that was mapped.
+	 */
+	private final File file;
+
+	/**
+	 * The number of nodes stored in the file.
+	 */
+	private final int numberOfNodes;
+
+	/**
+	 * The mapped segments containing the node records.
+	 */
+	private final ByteBuffer[] records;
+
+	/**
+	 * The mapped segments containing the node payloads.
+	 */
+	private final ByteBuffer[] payloads;
+
+	/**
+	 * The root node of the tree. Views are cheap, but the root is requested
+	 * often enough to keep around.
+	 */
+	private final MappedTree root;
+
+	/**
+	 * The default constructor. Use {@link #open(File)} to map a file.
+	 *
+	 * @param file
+	 *            The file that was mapped.
+	 * @param numberOfNodes
+	 *            The number of nodes stored in the file.
+	 * @param records
+	 *            The mapped record segments.
+	 * @param payloads
+	 *            The mapped payload segments.
+	 */
+	private MappedTreeFile(File file, int numberOfNodes, ByteBuffer[] records,
+			ByteBuffer[] payloads) {
+		this.file = file;
+		this.numberOfNodes = numberOfNodes;
+		this.records = records;
+		this.payloads = payloads;
+		root = new MappedTree(this, 0);
+	}
+
+	/**
+	 * Memory-maps a tree file written by {@link MappedTreeWriter}. Only the
+	 * header is read here, so this operation does not depend on the size of
+	 * the tree.
+	 * <p>
+	 * The underlying file handle is closed before this method returns. The
+	 * mapping itself remains valid until the returned object (and all of its
+	 * nodes) are garbage collected.
+	 * </p>
+	 *
+	 * @param file
+	 *            The file to map. If null, an {@link IllegalArgumentException}
+	 *            will be thrown.
+	 * @return The mapped tree file.
+	 * @throws IOException
+	 *             If the file could not be read or is not a valid mapped tree
+	 *             file.
+	 */
+	public static MappedTreeFile open(File file) throws IOException {
+		if (file == null) {
+			throw new IllegalArgumentException("MappedTreeFile error: "
+					+ "Cannot open a null file.");
+		}
+
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = randomAccessFile.getChannel();
+			long size = channel.size();
+			if (size < HEADER_SIZE) {
+				throw new IOException("MappedTreeFile error: "
+						+ "The file \"" + file + "\" is too small.");
+			}
+
+			// Read and validate the header.
+			ByteBuffer header = channel.map(MapMode.READ_ONLY, 0, HEADER_SIZE);
+			if (header.getInt(0) != MAGIC) {
+				throw new IOException("MappedTreeFile error: "
+						+ "The file \"" + file + "\" is not a tree file.");
+			} else if (header.getInt(4) != VERSION) {
+				throw new IOException("MappedTreeFile error: "
+						+ "Unsupported tree file version " + header.getInt(4)
+						+ ".");
+			}
+			int numberOfNodes = header.getInt(8);
+			long recordsPosition = header.getLong(16);
+			long payloadsPosition = header.getLong(24);
+			long recordsSize = (long) numberOfNodes * RECORD_SIZE;
+			if (numberOfNodes < 1 || recordsPosition < HEADER_SIZE
+					|| payloadsPosition < recordsPosition + recordsSize
+					|| payloadsPosition > size) {
+				throw new IOException("MappedTreeFile error: "
+						+ "The file \"" + file + "\" is corrupt.");
+			}
+
+			// Map the node records. Each segment holds a whole number of
+			// records.
+			int recordSegments = (numberOfNodes + RECORDS_PER_SEGMENT - 1)
+					/ RECORDS_PER_SEGMENT;
+			ByteBuffer[] records = new ByteBuffer[recordSegments];
+			for (int i = 0; i < recordSegments; i++) {
+				long start = (long) i * RECORDS_PER_SEGMENT;
+				long count = Math.min(RECORDS_PER_SEGMENT,
+						numberOfNodes - start);
+				records[i] = channel.map(MapMode.READ_ONLY,
+						recordsPosition + start * RECORD_SIZE,
+						count * RECORD_SIZE);
+			}
+
+			// Map the payload region.
+			long payloadSize = size - payloadsPosition;
+			int payloadSegments = (int) ((payloadSize + PAYLOAD_SEGMENT_SIZE
+					- 1) / PAYLOAD_SEGMENT_SIZE);
+			ByteBuffer[] payloads = new ByteBuffer[payloadSegments];
+			for (int i = 0; i < payloadSegments; i++) {
+				long start = (long) i * PAYLOAD_SEGMENT_SIZE;
+				payloads[i] = channel.map(MapMode.READ_ONLY,
+						payloadsPosition + start,
+						Math.min(PAYLOAD_SEGMENT_SIZE, payloadSize - start));
+			}
+
+			return new MappedTreeFile(file, numberOfNodes, records, payloads);
+		} finally {
+			randomAccessFile.close();
+		}
+	}
+
+	/**
+	 * Gets the file that was mapped.
+	 *
+	 * @return The mapped file.
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Gets the number of nodes stored in the file.
+	 *
+	 * @return The total number of nodes in the tree.
+	 */
+	public int getNumberOfNodes() {
+		return numberOfNodes;
+	}
+
+	/**
+	 * Gets the root node of the mapped tree.
+	 *
+	 * @return The root node. This is never null.
+	 */
+	public MappedTree getRoot() {
+		return root;
+	}
+
+	/**
+	 * Gets a view of the node at the specified breadth-first index.
+	 *
+	 * @param index
+	 *            The breadth-first index of the node.
+	 * @return A view of the node, or {@code null} if the index is invalid.
+	 */
+	public MappedTree getNode(int index) {
+		MappedTree node = null;
+		if (index == 0) {
+			node = root;
+		} else if (index > 0 && index < numberOfNodes) {
+			node = new MappedTree(this, index);
+		}
+		return node;
+	}
+
+	/**
+	 * Reads an integer field from a node record.
+	 *
+	 * @param index
+	 *            The index of the node.
+	 * @param offset
+	 *            The offset of the field within the record.
+	 * @return The value of the field.
+	 */
+	private int getInt(int index, int offset) {
+		return records[index / RECORDS_PER_SEGMENT]
+				.getInt((index % RECORDS_PER_SEGMENT) * RECORD_SIZE + offset);
+	}
+
+	/**
+	 * Gets the index of a node's parent.
+	 *
+	 * @param index
+	 *            The index of the node.
+	 * @return The index of its parent, or -1 if it is the root.
+	 */
+	int getParentIndex(int index) {
+		return getInt(index, PARENT_OFFSET);
+	}
+
+	/**
+	 * Gets the index of a node's first child. The node's other children
+	 * follow it contiguously.
+	 *
+	 * @param index
+	 *            The index of the node.
+	 * @return The index of its first child. This is only meaningful if the
+	 *         node has children.
+	 */
+	int getFirstChildIndex(int index) {
+		return getInt(index, FIRST_CHILD_OFFSET);
+	}
+
+	/**
+	 * Gets the number of children of a node.
+	 *
+	 * @param index
+	 *            The index of the node.
+	 * @return The number of children of the node.
+	 */
+	int getNumberOfChildren(int index) {
+		return getInt(index, CHILD_COUNT_OFFSET);
+	}
+
+	/**
+	 * Gets the length of a node's payload.
+	 *
+	 * @param index
+	 *            The index of the node.
+	 * @return The length of the payload in bytes.
+	 */
+	int getPayloadLength(int index) {
+		return getInt(index, PAYLOAD_LENGTH_OFFSET);
+	}
+
+	/**
+	 * Gets a read-only buffer containing a node's payload. If the payload lies
+	 * within a single mapped segment, the buffer is a slice of the mapped file.
+	 * Otherwise, the payload is copied into a new heap buffer.
+	 *
+	 * @param index
+	 *            The index of the node.
+	 * @return A read-only buffer containing the payload.
+	 */
+	ByteBuffer getPayload(int index) {
+		int length = getPayloadLength(index);
+		long position = records[index / RECORDS_PER_SEGMENT].getLong(
+				(index % RECORDS_PER_SEGMENT) * RECORD_SIZE
+						+ PAYLOAD_POSITION_OFFSET);
+
+		int segment = (int) (position / PAYLOAD_SEGMENT_SIZE);
+		int offset = (int) (position % PAYLOAD_SEGMENT_SIZE);
+
+		ByteBuffer payload;
+		if (length == 0) {
+			payload = ByteBuffer.allocate(0);
+		}
+		// The payload can be viewed directly in the mapped segment.
+		else if (offset + length <= payloads[segment].capacity()) {
+			payload = payloads[segment].duplicate();
+			payload.limit(offset + length);
+			payload.position(offset);
+			payload = payload.slice();
+		}
+		// The payload straddles two or more segments. Copy it piece by piece.
+		else {
+			payload = ByteBuffer.allocate(length);
+			while (payload.hasRemaining()) {
+				ByteBuffer source = payloads[segment++].duplicate();
+				source.position(offset);
+				if (source.remaining() > payload.remaining()) {
+					source.limit(offset + payload.remaining());
+				}
+				payload.put(source);
+				offset = 0;
+			}
+			payload.flip();
+		}
+
+		return payload.asReadOnlyBuffer();
+	}
+}
@@ -0,0 +1,196 @@
+package com.bar.foo.tree.mapped;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+import com.bar.foo.tree.ITree;
+import com.bar.foo.tree.iterator.TreeIterationOrder;
+
+/**
+ * This class writes an {@link ITree} to a file that can later be opened with
+ * {@link MappedTreeFile#open(File)}. The content of each node is converted to
+ * bytes with an {@link IPayloadEncoder}.
+ * <p>
+ * The tree is walked twice: once to count its nodes and once, breadth-first,
+ * to write the node records and payloads. Both regions of the file are written
+ * sequentially through small buffers, so the size of the written tree is not
+ * limited by the heap.
+ * </p>
+ *
+ * @author Jordan
+ *
+ */
+public class MappedTreeWriter {
+
+	/**
+	 * The size of the buffers used when writing records and payloads.
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * This class only provides static methods.
+	 */
+	private MappedTreeWriter() {
+		// Nothing to do.
+	}
+
+	/**
+	 * Writes a tree to a file. If the file exists, it is replaced.
+	 *
+	 * @param root
+	 *            The root of the tree to write. If null, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @param encoder
+	 *            The encoder used to convert each node's content to bytes. If
+	 *            null, an {@link IllegalArgumentException} will be thrown.
+	 * @param file
+	 *            The file to write. If null, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @throws IOException
+	 *             If the file could not be written.
+	 */
+	public static <T extends ITree<T>> void write(T root,
+			IPayloadEncoder<? super T> encoder, File file) throws IOException {
+		if (root == null || encoder == null || file == null) {
+			throw new IllegalArgumentException("MappedTreeWriter error: "
+					+ "Cannot write with a null tree, encoder, or file.");
+		}
+
+		// Count the nodes so we know where the payload region starts.
+		int numberOfNodes = 0;
+		Iterator<T> iterator = root.iterator(TreeIterationOrder.BreadthFirst);
+		while (iterator.hasNext()) {
+			iterator.next();
+			numberOfNodes++;
+		}
+		long recordsPosition = MappedTreeFile.HEADER_SIZE;
+		long payloadsPosition = recordsPosition
+				+ (long) numberOfNodes * MappedTreeFile.RECORD_SIZE;
+
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+		try {
+			FileChannel channel = randomAccessFile.getChannel();
+			channel.truncate(0);
+
+			// Write the header.
+			ByteBuffer header = ByteBuffer.allocate(MappedTreeFile.HEADER_SIZE);
+			header.putInt(MappedTreeFile.MAGIC);
+			header.putInt(MappedTreeFile.VERSION);
+			header.putInt(numberOfNodes);
+			header.putInt(0);
+			header.putLong(recordsPosition);
+			header.putLong(payloadsPosition);
+			header.flip();
+			writeFully(channel, header, 0);
+
+			ByteBuffer records = ByteBuffer.allocate(BUFFER_SIZE);
+			ByteBuffer payloads = ByteBuffer.allocate(BUFFER_SIZE);
+			long recordsWritten = recordsPosition;
+			long payloadsWritten = payloadsPosition;
+			long payloadPosition = 0;
+
+			// Walk the tree breadth-first. Node indexes are assigned in the
+			// order nodes are queued, so the index of each node's first child
+			// is the number of nodes queued so far. The parent of each node is
+			// found by walking a cursor over the already written nodes, since
+			// children are stored contiguously.
+			ArrayDeque<T> queue = new ArrayDeque<T>();
+			ArrayDeque<T> parents = new ArrayDeque<T>();
+			queue.add(root);
+			int queued = 1;
+			int index = 0;
+			int parent = -1;
+			int parentChildrenRemaining = 0;
+			while (!queue.isEmpty()) {
+				T node = queue.poll();
+				// Move the parent cursor to the next node with children.
+				if (index > 0) {
+					while (parentChildrenRemaining == 0) {
+						parentChildrenRemaining = parents.poll()
+								.getNumberOfChildren();
+						parent++;
+					}
+					parentChildrenRemaining--;
+				}
+				parents.add(node);
+				int numberOfChildren = node.getNumberOfChildren();
+				int firstChild = queued;
+				for (int i = 0; i < numberOfChildren; i++) {
+					queue.add(node.getChild(i));
+				}
+				queued += numberOfChildren;
+
+				byte[] payload = encoder.encode(node);
+				int length = (payload != null ? payload.length : 0);
+
+				// Write the node's record.
+				if (records.remaining() < MappedTreeFile.RECORD_SIZE) {
+					records.flip();
+					recordsWritten += writeFully(channel, records,
+							recordsWritten);
+					records.clear();
+				}
+				records.putInt(parent);
+				records.putInt(firstChild);
+				records.putInt(numberOfChildren);
+				records.putInt(length);
+				records.putLong(payloadPosition);
+
+				// Write the node's payload.
+				int offset = 0;
+				while (offset < length) {
+					if (!payloads.hasRemaining()) {
+						payloads.flip();
+						payloadsWritten += writeFully(channel, payloads,
+								payloadsWritten);
+						payloads.clear();
+					}
+					int count = Math.min(payloads.remaining(), length - offset);
+					payloads.put(payload, offset, count);
+					offset += count;
+				}
+				payloadPosition += length;
+
+				index++;
+			}
+
+			// Flush the remaining records and payloads.
+			records.flip();
+			writeFully(channel, records, recordsWritten);
+			payloads.flip();
+			writeFully(channel, payloads, payloadsWritten);
+			channel.force(false);
+		} finally {
+			randomAccessFile.close();
+		}
+
+		return;
+	}
+
+	/**
+	 * Writes the remaining content of a buffer to the channel.
+	 *
+	 * @param channel
+	 *            The channel to write to.
+	 * @param buffer
+	 *            The buffer to write.
+	 * @param position
+	 *            The position in the file at which to write.
+	 * @return The number of bytes written.
+	 * @throws IOException
+	 *             If the buffer could not be written.
+	 */
+	private static int writeFully(FileChannel channel, ByteBuffer buffer,
+			long position) throws IOException {
+		int written = 0;
+		while (buffer.hasRemaining()) {
+			written += channel.write(buffer, position + written);
+		}
+		return written;
+	}
+}
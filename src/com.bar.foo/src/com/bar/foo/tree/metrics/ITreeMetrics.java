@@ -0,0 +1,70 @@
+package com.bar.foo.tree.metrics;
+
+import com.bar.foo.tree.BasicTree;
+import com.bar.foo.tree.ITree;
+import com.bar.foo.tree.iterator.TreeIterator;
+
+/**
+ * This interface receives measurements of how trees are changed and
+ * traversed. An implementation is installed for all trees with
+ * {@link TreeMetrics#setMetrics(ITreeMetrics)}. The callbacks are made on the
+ * thread that changed or traversed the tree, so implementations must be
+ * thread-safe and should return quickly.
+ * 
+ * @author Jordan
+ *
+ */
+public interface ITreeMetrics {
+
+	/**
+	 * A child without a parent was added to a {@link BasicTree}. This includes
+	 * children loaded by an {@link com.bar.foo.tree.IChildLoader}.
+	 */
+	public void childAdded();
+
+	/**
+	 * A child was removed from a {@link BasicTree}.
+	 */
+	public void childRemoved();
+
+	/**
+	 * A child was moved from one {@link BasicTree} parent to another.
+	 */
+	public void childMoved();
+
+	/**
+	 * A {@link TreeIterator} reached the end of its traversal, or was reset or
+	 * returned to its pool before the end.
+	 * 
+	 * @param iterator
+	 *            The iterator. This should not be used except to find its
+	 *            type.
+	 * @param nodes
+	 *            The number of nodes visited.
+	 * @param nanos
+	 *            The time from the start of the traversal until the last node
+	 *            was visited, in nanoseconds.
+	 */
+	public void traversalCompleted(TreeIterator<?> iterator, int nodes,
+			long nanos);
+
+	/**
+	 * {@link BasicTree#hashCode(boolean)} hashed a full tree.
+	 * 
+	 * @param nodes
+	 *            The number of nodes hashed.
+	 * @param nanos
+	 *            The time taken, in nanoseconds.
+	 */
+	public void treeHashed(int nodes, long nanos);
+
+	/**
+	 * {@link BasicTree#equals(ITree, boolean)} compared two full trees.
+	 * 
+	 * @param nodes
+	 *            The number of node pairs compared.
+	 * @param nanos
+	 *            The time taken, in nanoseconds.
+	 */
+	public void treeCompared(int nodes, long nanos);
+}
@@ -0,0 +1,527 @@
+package com.bar.foo.tree.metrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.bar.foo.tree.iterator.BreadthFirstTreeIterator;
+import com.bar.foo.tree.iterator.PostOrderTreeIterator;
+import com.bar.foo.tree.iterator.PreOrderTreeIterator;
+import com.bar.foo.tree.iterator.TreeIterationOrder;
+import com.bar.foo.tree.iterator.TreeIterator;
+
+/**
+ * This class provides {@link ITreeMetrics} that add up each measurement in
+ * memory. The counters can be read and reset at any time from any thread.
+ * Traversals are counted for each {@link TreeIterationOrder}, and traversals
+ * by other kinds of iterators are only included in the totals.
+ * <p>
+ * Each thread adds to its own counters without locks or atomic updates, so
+ * that measuring a change costs little more than the change itself. A thread
+ * finds its counters in a small table indexed by its ID, and only looks them
+ * up in a {@link ThreadLocal} when another thread took its slot. Changes are
+ * published to other threads in batches, while traversals, hashes and
+ * comparisons are published with their sizes and times as they are measured.
+ * The counters are written in order, so reads never see a torn value or one
+ * older than an earlier read or {@link #reset()} saw. Reads include all
+ * measurements made by the reading thread and by threads that have ended, but
+ * may miss the latest measurements made on other running threads, including
+ * up to {@link #BATCH} of each kind of change. The counters of a thread are
+ * kept after it ends.
+ * </p>
+ * <p>
+ * Full-tree hashes and comparisons traverse the tree with a
+ * {@link TreeIterator}, so they are also counted as traversals.
+ * </p>
+ * 
+ * @author Jordan
+ *
+ */
+public class InMemoryTreeMetrics implements ITreeMetrics {
+
+	/**
+	 * The index of the number of children added.
+	 */
+	private static final int ADDED = 0;
+
+	/**
+	 * The index of the number of children removed.
+	 */
+	private static final int REMOVED = 1;
+
+	/**
+	 * The index of the number of children moved.
+	 */
+	private static final int MOVED = 2;
+
+	/**
+	 * The index of the number of full-tree hashes, followed by the nodes
+	 * hashed and the nanoseconds spent.
+	 */
+	private static final int HASHES = 3;
+
+	/**
+	 * The index of the number of full-tree comparisons, followed by the nodes
+	 * compared and the nanoseconds spent.
+	 */
+	private static final int COMPARISONS = 6;
+
+	/**
+	 * The index of the number of traversals in each order, followed by the
+	 * nodes visited and the nanoseconds spent. Each takes one counter per
+	 * {@link TreeIterationOrder} and one for other iterators.
+	 */
+	private static final int TRAVERSALS = 9;
+
+	/**
+	 * The number of counters for each traversal measurement.
+	 */
+	private static final int ORDERS = TreeIterationOrder.values().length + 1;
+
+	/**
+	 * The offset from {@link #TRAVERSALS} of the number of nodes visited.
+	 */
+	private static final int NODES_VISITED = ORDERS;
+
+	/**
+	 * The offset from {@link #TRAVERSALS} of the time spent.
+	 */
+	private static final int TRAVERSAL_TIME = 2 * ORDERS;
+
+	/**
+	 * The total number of counters.
+	 */
+	private static final int COUNTERS = TRAVERSALS + 3 * ORDERS;
+
+	/**
+	 * The number of changes counted by a thread before they are published to
+	 * other threads. This must be a power of two.
+	 */
+	private static final int BATCH = 64;
+
+	/**
+	 * The number of slots in {@link #recentCounters}. This is a power of two
+	 * at least twice the number of processors, so that the threads that are
+	 * running at once rarely share a slot.
+	 */
+	private static final int SLOTS = Integer.highestOneBit(Math.max(1, Runtime
+			.getRuntime().availableProcessors()) * 2 - 1) << 1;
+
+	/**
+	 * The counters of each thread.
+	 */
+	private final ThreadLocal<Counters> threadCounters = new ThreadLocal<Counters>() {
+		@Override
+		protected Counters initialValue() {
+			Counters counters = new Counters(Thread.currentThread());
+			allCounters.add(counters);
+			return counters;
+		}
+	};
+
+	/**
+	 * The counters of the threads that reported most recently, indexed by
+	 * their thread IDs modulo {@link #SLOTS}. This avoids the cost of the
+	 * {@link #threadCounters} lookup for each measurement.
+	 */
+	private final Counters[] recentCounters = new Counters[SLOTS];
+
+	/**
+	 * The counters of all threads that have reported to these metrics.
+	 */
+	private final List<Counters> allCounters = new CopyOnWriteArrayList<Counters>();
+
+	/**
+	 * The sum of each counter when they were last {@link #reset()}. These are
+	 * subtracted from the sums, since other threads' counters cannot be
+	 * cleared safely.
+	 */
+	private volatile long[] offsets = new long[COUNTERS];
+
+	/*
+	 * Implements a method from ITreeMetrics.
+	 */
+	@Override
+	public void childAdded() {
+		getCounters().increment(ADDED);
+	}
+
+	/*
+	 * Implements a method from ITreeMetrics.
+	 */
+	@Override
+	public void childRemoved() {
+		getCounters().increment(REMOVED);
+	}
+
+	/*
+	 * Implements a method from ITreeMetrics.
+	 */
+	@Override
+	public void childMoved() {
+		getCounters().increment(MOVED);
+	}
+
+	/*
+	 * Implements a method from ITreeMetrics.
+	 */
+	@Override
+	public void traversalCompleted(TreeIterator<?> iterator, int nodes,
+			long nanos) {
+		int index;
+		// Sub-classes, such as those of snapshots, keep their order.
+		if (iterator instanceof BreadthFirstTreeIterator<?>) {
+			index = TreeIterationOrder.BreadthFirst.ordinal();
+		} else if (iterator instanceof PreOrderTreeIterator<?>) {
+			index = TreeIterationOrder.PreOrder.ordinal();
+		} else if (iterator instanceof PostOrderTreeIterator<?>) {
+			index = TreeIterationOrder.PostOrder.ordinal();
+		} else {
+			index = ORDERS - 1;
+		}
+		Counters counters = getCounters();
+		counters.add(TRAVERSALS + index, 1);
+		counters.add(TRAVERSALS + NODES_VISITED + index, nodes);
+		counters.add(TRAVERSALS + TRAVERSAL_TIME + index, nanos);
+	}
+
+	/*
+	 * Implements a method from ITreeMetrics.
+	 */
+	@Override
+	public void treeHashed(int nodes, long nanos) {
+		Counters counters = getCounters();
+		counters.add(HASHES, 1);
+		counters.add(HASHES + 1, nodes);
+		counters.add(HASHES + 2, nanos);
+	}
+
+	/*
+	 * Implements a method from ITreeMetrics.
+	 */
+	@Override
+	public void treeCompared(int nodes, long nanos) {
+		Counters counters = getCounters();
+		counters.add(COMPARISONS, 1);
+		counters.add(COMPARISONS + 1, nodes);
+		counters.add(COMPARISONS + 2, nanos);
+	}
+
+	/**
+	 * Gets the counters of the current thread.
+	 * 
+	 * @return The thread's counters.
+	 */
+	private Counters getCounters() {
+		long id = Thread.currentThread().getId();
+		int slot = (int) id & (SLOTS - 1);
+		Counters counters = recentCounters[slot];
+		if (counters == null || counters.threadId != id) {
+			counters = threadCounters.get();
+			recentCounters[slot] = counters;
+		}
+		return counters;
+	}
+
+	/**
+	 * Gets the number of children added to a parent, not counting moves.
+	 * 
+	 * @return The number of children added.
+	 */
+	public long getChildrenAdded() {
+		return sum(ADDED);
+	}
+
+	/**
+	 * Gets the number of children removed from a parent, not counting moves.
+	 * 
+	 * @return The number of children removed.
+	 */
+	public long getChildrenRemoved() {
+		return sum(REMOVED);
+	}
+
+	/**
+	 * Gets the number of children moved from one parent to another.
+	 * 
+	 * @return The number of children moved.
+	 */
+	public long getChildrenMoved() {
+		return sum(MOVED);
+	}
+
+	/**
+	 * Gets the number of traversals in all orders.
+	 * 
+	 * @return The number of traversals.
+	 */
+	public long getTraversals() {
+		return sum(TRAVERSALS, ORDERS);
+	}
+
+	/**
+	 * Gets the number of traversals in an order.
+	 * 
+	 * @param order
+	 *            The iteration order.
+	 * @return The number of traversals in that order.
+	 */
+	public long getTraversals(TreeIterationOrder order) {
+		return sum(TRAVERSALS + order.ordinal());
+	}
+
+	/**
+	 * Gets the number of nodes visited by traversals in all orders.
+	 * 
+	 * @return The number of nodes visited.
+	 */
+	public long getNodesVisited() {
+		return sum(TRAVERSALS + NODES_VISITED, ORDERS);
+	}
+
+	/**
+	 * Gets the number of nodes visited by traversals in an order.
+	 * 
+	 * @param order
+	 *            The iteration order.
+	 * @return The number of nodes visited in that order.
+	 */
+	public long getNodesVisited(TreeIterationOrder order) {
+		return sum(TRAVERSALS + NODES_VISITED + order.ordinal());
+	}
+
+	/**
+	 * Gets the time spent in traversals in all orders.
+	 * 
+	 * @return The time in nanoseconds.
+	 */
+	public long getTraversalTime() {
+		return sum(TRAVERSALS + TRAVERSAL_TIME, ORDERS);
+	}
+
+	/**
+	 * Gets the time spent in traversals in an order.
+	 * 
+	 * @param order
+	 *            The iteration order.
+	 * @return The time in nanoseconds.
+	 */
+	public long getTraversalTime(TreeIterationOrder order) {
+		return sum(TRAVERSALS + TRAVERSAL_TIME + order.ordinal());
+	}
+
+	/**
+	 * Gets the number of full-tree hashes.
+	 * 
+	 * @return The number of calls to {@code hashCode(true)}.
+	 */
+	public long getTreeHashes() {
+		return sum(HASHES);
+	}
+
+	/**
+	 * Gets the number of nodes hashed by full-tree hashes.
+	 * 
+	 * @return The number of nodes hashed.
+	 */
+	public long getNodesHashed() {
+		return sum(HASHES + 1);
+	}
+
+	/**
+	 * Gets the time spent in full-tree hashes.
+	 * 
+	 * @return The time in nanoseconds.
+	 */
+	public long getTreeHashTime() {
+		return sum(HASHES + 2);
+	}
+
+	/**
+	 * Gets the number of full-tree comparisons.
+	 * 
+	 * @return The number of calls to {@code equals(tree, true)} that
+	 *         compared the descendants.
+	 */
+	public long getTreeComparisons() {
+		return sum(COMPARISONS);
+	}
+
+	/**
+	 * Gets the number of node pairs compared by full-tree comparisons.
+	 * 
+	 * @return The number of node pairs compared.
+	 */
+	public long getNodesCompared() {
+		return sum(COMPARISONS + 1);
+	}
+
+	/**
+	 * Gets the time spent in full-tree comparisons.
+	 * 
+	 * @return The time in nanoseconds.
+	 */
+	public long getTreeComparisonTime() {
+		return sum(COMPARISONS + 2);
+	}
+
+	/**
+	 * Resets all counters to zero. Measurements made on other threads while
+	 * resetting may be partly lost.
+	 */
+	public void reset() {
+		getCounters().flush();
+		long[] sums = new long[COUNTERS];
+		for (Counters counters : allCounters) {
+			counters.flushIfEnded();
+			for (int i = 0; i < COUNTERS; i++) {
+				sums[i] += counters.values.get(i);
+			}
+		}
+		offsets = sums;
+		return;
+	}
+
+	/**
+	 * Adds up a counter over all threads since the last reset.
+	 * 
+	 * @param index
+	 *            The index of the counter.
+	 * @return The sum of the counter.
+	 */
+	private long sum(int index) {
+		getCounters().flush();
+		// The offsets are read first. Every counter is then at least as large
+		// as it was when the offsets were taken, so the sum is not negative.
+		long sum = -offsets[index];
+		for (Counters counters : allCounters) {
+			counters.flushIfEnded();
+			sum += counters.values.get(index);
+		}
+		return sum;
+	}
+
+	/**
+	 * Adds up consecutive counters over all threads since the last reset.
+	 * 
+	 * @param index
+	 *            The index of the first counter.
+	 * @param count
+	 *            The number of counters.
+	 * @return The sum of the counters.
+	 */
+	private long sum(int index, int count) {
+		long sum = 0L;
+		for (int i = index; i < index + count; i++) {
+			sum += sum(i);
+		}
+		return sum;
+	}
+
+	/**
+	 * The counters of a single thread. Only that thread writes them while it
+	 * runs, so each update is a plain update of its own copy, which is then
+	 * published with an ordered write rather than an atomic update.
+	 * 
+	 * @author Jordan
+	 *
+	 */
+	private static final class Counters {
+		/**
+		 * The ID of the thread that owns the counters.
+		 */
+		private final long threadId;
+
+		/**
+		 * The counters. Writes are ordered, so other threads never see a torn
+		 * value or a value older than one they have seen before.
+		 */
+		private final AtomicLongArray values = new AtomicLongArray(COUNTERS);
+
+		/**
+		 * The owner's copy of the {@link #values}, which it can read without
+		 * ordering constraints.
+		 */
+		private final long[] owned = new long[COUNTERS];
+
+		/**
+		 * The thread that owns the counters, or {@code null} once it has
+		 * ended and its last counts have been published.
+		 */
+		private volatile Thread owner;
+
+		/**
+		 * The default constructor.
+		 * 
+		 * @param owner
+		 *            The thread that owns the counters.
+		 */
+		public Counters(Thread owner) {
+			this.threadId = owner.getId();
+			this.owner = owner;
+		}
+
+		/**
+		 * Adds one to a counter. Only every {@link #BATCH}th increment is
+		 * published, since publishing costs as much as counting.
+		 * 
+		 * @param index
+		 *            The index of the counter.
+		 */
+		public void increment(int index) {
+			long value = ++owned[index];
+			if ((value & (BATCH - 1)) == 0L) {
+				values.lazySet(index, value);
+			}
+		}
+
+		/**
+		 * Adds to a counter.
+		 * 
+		 * @param index
+		 *            The index of the counter.
+		 * @param delta
+		 *            The amount to add.
+		 */
+		public void add(int index, long delta) {
+			values.lazySet(index, owned[index] += delta);
+		}
+
+		/**
+		 * Publishes the increments that have not been published yet. This
+		 * may only be called by the owner.
+		 */
+		public void flush() {
+			for (int i = 0; i < COUNTERS; i++) {
+				values.lazySet(i, owned[i]);
+			}
+		}
+
+		/**
+		 * Publishes the increments that the owner did not publish before it
+		 * ended. Once {@link Thread#isAlive()} returns false, all of the
+		 * owner's writes are visible, so any thread may do this.
+		 */
+		public void flushIfEnded() {
+			Thread thread = owner;
+			if (thread != null && !thread.isAlive()) {
+				flush();
+				// The thread is no longer needed, so it can be collected.
+				owner = null;
+			}
+		}
+	}
+
+	/*
+	 * Overrides a method from Object.
+	 */
+	@Override
+	public String toString() {
+		return "InMemoryTreeMetrics[added=" + getChildrenAdded()
+				+ ", removed=" + getChildrenRemoved() + ", moved="
+				+ getChildrenMoved() + ", traversals=" + getTraversals()
+				+ ", nodesVisited=" + getNodesVisited() + ", traversalTime="
+				+ getTraversalTime() + "ns, treeHashes=" + getTreeHashes()
+				+ ", treeComparisons=" + getTreeComparisons() + "]";
+	}
+}
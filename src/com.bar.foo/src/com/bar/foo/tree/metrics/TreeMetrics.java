@@ -0,0 +1,54 @@
+package com.bar.foo.tree.metrics;
+
+/**
+ * This class holds the {@link ITreeMetrics} that all trees report to. By
+ * default there are none, and the only cost to trees is a check of
+ * {@link #getMetrics()} for {@code null} before each change, traversal or
+ * full-tree hash or comparison. Timings are only taken while metrics are
+ * installed.
+ * <p>
+ * Traversals that are in progress when the metrics are changed are reported
+ * to the metrics that were installed when they started.
+ * </p>
+ * 
+ * @author Jordan
+ *
+ */
+public final class TreeMetrics {
+
+	/**
+	 * The installed metrics, or {@code null} if there are none.
+	 */
+	private static volatile ITreeMetrics metrics = null;
+
+	/**
+	 * This class only has static methods.
+	 */
+	private TreeMetrics() {
+		// Nothing to do.
+	}
+
+	/**
+	 * Gets the installed metrics.
+	 * 
+	 * @return The metrics that trees report to, or {@code null} if there are
+	 *         none.
+	 */
+	public static ITreeMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Installs the metrics that all trees report to.
+	 * 
+	 * @param metrics
+	 *            The new metrics. If {@code null}, trees stop reporting.
+	 * @return The previously installed metrics, or {@code null} if there were
+	 *         none.
+	 */
+	public static ITreeMetrics setMetrics(ITreeMetrics metrics) {
+		ITreeMetrics previous = TreeMetrics.metrics;
+		TreeMetrics.metrics = metrics;
+		return previous;
+	}
+}
@@ -0,0 +1,872 @@
+package com.bar.foo.tree.query;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.bar.foo.tree.ITree;
+
+/**
+ * This class provides a small selector language for finding nodes in an
+ * {@link ITree}, in the spirit of XPath. A query is compiled once with
+ * {@link #compile(String)} and may then be evaluated against any number of
+ * trees, including from several threads at once.
+ * <p>
+ * A query is a sequence of steps. Each step has an axis, a node test, and any
+ * number of predicates:
+ * </p>
+ * <ul>
+ * <li>{@code /} selects the children of the current nodes. In the first step,
+ * it selects the root itself.</li>
+ * <li>{@code //} selects the descendants of the current nodes. In the first
+ * step, it selects the root and all of its descendants.</li>
+ * <li>{@code *} matches any node, while a name matches nodes whose class or
+ * one of its super-classes has that simple name, e.g., {@code ActionTree}.</li>
+ * <li>{@code [n]} keeps the n<sup>th</sup> node (starting at 1) selected from
+ * each current node, and {@code [last]} keeps the last one.</li>
+ * <li>{@code [field]} keeps nodes whose field is neither null nor false.</li>
+ * <li>{@code [field op value]} compares a field with a string, number,
+ * boolean, or {@code null} literal. The operators are {@code =}, {@code !=},
+ * {@code ^=} (starts with), {@code $=} (ends with), and {@code *=}
+ * (contains).</li>
+ * </ul>
+ * <p>
+ * Fields are read from a public field with the given name or from a public
+ * {@code getField()} or {@code isField()} method. For example, the query
+ * {@code //ActionTree[enabled=true]/*[text^='Open'][1]} finds the first child
+ * whose text starts with "Open" under every enabled {@code ActionTree}.
+ * </p>
+ * <p>
+ * Child steps never look below the children of the current nodes, so a query
+ * made up of child steps only visits the part of the tree that can match. A
+ * leading position predicate on a child step reads the child directly by its
+ * index instead of scanning the children. The name test and the predicates
+ * before the first position predicate are checked while the nodes are
+ * visited, so only matching nodes are collected. Unless it has a position
+ * predicate, a descendant step skips current nodes below other current
+ * nodes, since their sub-trees are walked anyway, so each node is visited at
+ * most once per step.
+ * </p>
+ *
+ * @author Jordan
+ *
+ */
+public class TreeQuery {
+
+	/**
+	 * The original query string.
+	 */
+	private final String query;
+
+	/**
+	 * The compiled steps of the query.
+	 */
+	private final Step[] steps;
+
+	/**
+	 * The default constructor. Use {@link #compile(String)} to create a
+	 * query.
+	 *
+	 * @param query
+	 *            The original query string.
+	 * @param steps
+	 *            The compiled steps of the query.
+	 */
+	private TreeQuery(String query, Step[] steps) {
+		this.query = query;
+		this.steps = steps;
+	}
+
+	/**
+	 * Compiles a query.
+	 *
+	 * @param query
+	 *            The query string. If null or invalid, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @return The compiled query.
+	 */
+	public static TreeQuery compile(String query) {
+		if (query == null) {
+			throw new IllegalArgumentException("TreeQuery error: "
+					+ "Cannot compile a null query.");
+		}
+		return new Parser(query).parse();
+	}
+
+	/**
+	 * Selects all nodes in the tree that match the query.
+	 *
+	 * @param root
+	 *            The root of the tree to search. If null, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @return The matching nodes in the order they were found. Each node
+	 *         appears once. If there are no matches, the list is empty.
+	 */
+	public <T extends ITree<T>> List<T> select(T root) {
+		if (root == null) {
+			throw new IllegalArgumentException("TreeQuery error: "
+					+ "Cannot search a null tree.");
+		}
+
+		List<T> context = Collections.singletonList(root);
+		for (int i = 0; i < steps.length && !context.isEmpty(); i++) {
+			Step step = steps[i];
+			List<T> selected = new ArrayList<T>();
+			if (i > 0 && step.descendants && !step.positional) {
+				// The sub-trees of nested context nodes would be walked twice.
+				// Without a position predicate, the union of the walks is the
+				// same as walking from the outermost nodes only.
+				Map<T, Boolean> contextNodes = new IdentityHashMap<T, Boolean>();
+				for (T node : context) {
+					contextNodes.put(node, true);
+				}
+				for (T node : context) {
+					if (!hasAncestorIn(node, contextNodes)) {
+						step.select(node, false, selected);
+					}
+				}
+			} else if (i > 0 && step.descendants) {
+				// Position predicates apply per context node, so the walks
+				// cannot be merged, and nested nodes may select a node twice.
+				Map<T, Boolean> seen = new IdentityHashMap<T, Boolean>();
+				List<T> candidates = new ArrayList<T>();
+				for (T node : context) {
+					candidates.clear();
+					step.select(node, false, candidates);
+					for (T candidate : candidates) {
+						if (seen.put(candidate, true) == null) {
+							selected.add(candidate);
+						}
+					}
+				}
+			} else {
+				// The context nodes are distinct, so are their children.
+				for (T node : context) {
+					step.select(node, i == 0, selected);
+				}
+			}
+			context = selected;
+		}
+
+		return context;
+	}
+
+	/**
+	 * Selects the first node in the tree that matches the query.
+	 *
+	 * @param root
+	 *            The root of the tree to search. If null, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @return The first match, or {@code null} if there are no matches.
+	 */
+	public <T extends ITree<T>> T selectFirst(T root) {
+		List<T> selected = select(root);
+		return selected.isEmpty() ? null : selected.get(0);
+	}
+
+	/**
+	 * Gets whether or not a node has a proper ancestor in a set of nodes.
+	 *
+	 * @param node
+	 *            The node.
+	 * @param nodes
+	 *            The set of nodes.
+	 * @return True if an ancestor of the node is in the set, false otherwise.
+	 */
+	private static <T extends ITree<T>> boolean hasAncestorIn(T node,
+			Map<T, Boolean> nodes) {
+		for (T parent = node.getParent(); parent != null; parent = parent
+				.getParent()) {
+			if (nodes.containsKey(parent)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the original query string.
+	 */
+	@Override
+	public String toString() {
+		return query;
+	}
+
+	/**
+	 * A single compiled step of a query.
+	 *
+	 * @author Jordan
+	 *
+	 */
+	private static class Step {
+
+		/**
+		 * Whether the step uses the descendant axis ({@code //}) instead of
+		 * the child axis ({@code /}).
+		 */
+		private final boolean descendants;
+		/**
+		 * The name of the class to match, or {@code null} to match any node.
+		 */
+		private final String name;
+		/**
+		 * The predicates applied, in order, to the matching nodes.
+		 */
+		private final Predicate[] predicates;
+		/**
+		 * The number of leading predicates that do not depend on the
+		 * position of the node. These are checked while visiting the nodes.
+		 */
+		private final int filters;
+		/**
+		 * Whether any predicate depends on the position of the node.
+		 */
+		private final boolean positional;
+		/**
+		 * The classes that have been checked against the {@link #name}.
+		 */
+		private final Map<Class<?>, Boolean> nameMatches = new ConcurrentHashMap<Class<?>, Boolean>();
+
+		/**
+		 * The default constructor.
+		 *
+		 * @param descendants
+		 *            Whether the step uses the descendant axis.
+		 * @param name
+		 *            The name to match, or {@code null} to match any node.
+		 * @param predicates
+		 *            The predicates for the step.
+		 */
+		public Step(boolean descendants, String name, Predicate[] predicates) {
+			this.descendants = descendants;
+			this.name = name;
+			this.predicates = predicates;
+			int count = 0;
+			while (count < predicates.length
+					&& !(predicates[count] instanceof PositionPredicate)) {
+				count++;
+			}
+			filters = count;
+			positional = (count < predicates.length);
+		}
+
+		/**
+		 * Selects the nodes for this step from a single context node. The
+		 * selected nodes are added to the end of the list, and any nodes
+		 * already in the list are left alone.
+		 *
+		 * @param node
+		 *            The context node.
+		 * @param first
+		 *            Whether this is the first step, in which case the context
+		 *            node itself is a candidate.
+		 * @param selected
+		 *            The list to which the selected nodes are added.
+		 */
+		public <T extends ITree<T>> void select(T node, boolean first,
+				List<T> selected) {
+			int offset = selected.size();
+			int start = filters;
+
+			// Read the child directly if the step starts with a position.
+			if (!descendants && !first && name == null
+					&& predicates.length > 0
+					&& predicates[0] instanceof PositionPredicate) {
+				int size = node.getNumberOfChildren();
+				int position = ((PositionPredicate) predicates[0])
+						.getPosition(size);
+				if (position >= 1 && position <= size) {
+					selected.add(node.getChild(position - 1));
+				}
+				start = 1;
+			}
+			// Otherwise, gather the nodes on the axis that pass the test.
+			else if (!descendants) {
+				if (first) {
+					addIfMatches(node, selected);
+				} else {
+					for (int i = 0; i < node.getNumberOfChildren(); i++) {
+						addIfMatches(node.getChild(i), selected);
+					}
+				}
+			} else {
+				// Walk the sub-tree in pre-order.
+				ArrayDeque<T> stack = new ArrayDeque<T>();
+				if (first) {
+					stack.push(node);
+				} else {
+					for (int i = node.getNumberOfChildren() - 1; i >= 0; i--) {
+						stack.push(node.getChild(i));
+					}
+				}
+				while (!stack.isEmpty()) {
+					T next = stack.pop();
+					addIfMatches(next, selected);
+					for (int i = next.getNumberOfChildren() - 1; i >= 0; i--) {
+						stack.push(next.getChild(i));
+					}
+				}
+			}
+
+			// Apply the remaining predicates in order. Positions are relative
+			// to the nodes selected from this context node.
+			for (int i = start; i < predicates.length
+					&& selected.size() > offset; i++) {
+				Predicate predicate = predicates[i];
+				int size = selected.size() - offset;
+				int kept = offset;
+				for (int j = 0; j < size; j++) {
+					T candidate = selected.get(offset + j);
+					if (predicate.matches(candidate, j + 1, size)) {
+						selected.set(kept++, candidate);
+					}
+				}
+				selected.subList(kept, offset + size).clear();
+			}
+
+			return;
+		}
+
+		/**
+		 * Adds the node to the list if it passes the name test and the
+		 * leading predicates that do not depend on its position.
+		 *
+		 * @param node
+		 *            The node to test.
+		 * @param selected
+		 *            The list of selected nodes.
+		 */
+		private <T extends ITree<T>> void addIfMatches(T node,
+				List<T> selected) {
+			boolean matches = true;
+			if (name != null) {
+				Class<?> type = node.getClass();
+				Boolean named = nameMatches.get(type);
+				if (named == null) {
+					named = false;
+					for (Class<?> c = type; c != null && !named; c = c
+							.getSuperclass()) {
+						named = name.equals(c.getSimpleName());
+					}
+					nameMatches.put(type, named);
+				}
+				matches = named;
+			}
+			for (int i = 0; i < filters && matches; i++) {
+				// These predicates ignore the position.
+				matches = predicates[i].matches(node, 0, 0);
+			}
+			if (matches) {
+				selected.add(node);
+			}
+		}
+	}
+
+	/**
+	 * A predicate that filters the nodes selected by a {@link Step}.
+	 *
+	 * @author Jordan
+	 *
+	 */
+	private static abstract class Predicate {
+		/**
+		 * Determines whether a selected node should be kept.
+		 *
+		 * @param node
+		 *            The selected node.
+		 * @param position
+		 *            The position of the node among the selected nodes,
+		 *            starting at 1.
+		 * @param size
+		 *            The number of selected nodes.
+		 * @return True if the node should be kept, false otherwise.
+		 */
+		public abstract boolean matches(Object node, int position, int size);
+	}
+
+	/**
+	 * A predicate that keeps the node at a given position.
+	 *
+	 * @author Jordan
+	 *
+	 */
+	private static class PositionPredicate extends Predicate {
+		/**
+		 * The position to keep, starting at 1, or -1 for the last node.
+		 */
+		private final int position;
+
+		/**
+		 * The default constructor.
+		 *
+		 * @param position
+		 *            The position to keep, starting at 1, or -1 for the last
+		 *            node.
+		 */
+		public PositionPredicate(int position) {
+			this.position = position;
+		}
+
+		/**
+		 * Gets the position to keep given the number of selected nodes.
+		 *
+		 * @param size
+		 *            The number of selected nodes.
+		 * @return The position to keep, starting at 1.
+		 */
+		public int getPosition(int size) {
+			return position < 0 ? size : position;
+		}
+
+		/*
+		 * Overrides a method from Predicate.
+		 */
+		@Override
+		public boolean matches(Object node, int position, int size) {
+			return position == getPosition(size);
+		}
+	}
+
+	/**
+	 * A predicate that tests the value of a field of the node.
+	 *
+	 * @author Jordan
+	 *
+	 */
+	private static class FieldPredicate extends Predicate {
+
+		/**
+		 * Marks classes that do not have the field.
+		 */
+		private static final Object MISSING = new Object();
+
+		/**
+		 * The name of the field.
+		 */
+		private final String field;
+		/**
+		 * The comparison operator, or {@code null} to test that the value is
+		 * neither null nor false.
+		 */
+		private final String operator;
+		/**
+		 * The literal to compare against.
+		 */
+		private final Object literal;
+		/**
+		 * The public {@link Field} or {@link Method} used to read the field
+		 * for each class, or {@link #MISSING}.
+		 */
+		private final Map<Class<?>, Object> accessors = new ConcurrentHashMap<Class<?>, Object>();
+
+		/**
+		 * The default constructor.
+		 *
+		 * @param field
+		 *            The name of the field.
+		 * @param operator
+		 *            The comparison operator, or {@code null} for an existence
+		 *            test.
+		 * @param literal
+		 *            The literal to compare against.
+		 */
+		public FieldPredicate(String field, String operator, Object literal) {
+			this.field = field;
+			this.operator = operator;
+			this.literal = literal;
+		}
+
+		/*
+		 * Overrides a method from Predicate.
+		 */
+		@Override
+		public boolean matches(Object node, int position, int size) {
+			Object accessor = getAccessor(node.getClass());
+			if (accessor == MISSING) {
+				return false;
+			}
+
+			Object value;
+			try {
+				value = (accessor instanceof Field ? ((Field) accessor)
+						.get(node) : ((Method) accessor).invoke(node));
+			} catch (InvocationTargetException e) {
+				throw readError(node, e.getCause());
+			} catch (IllegalAccessException e) {
+				throw readError(node, e);
+			}
+
+			if (operator == null) {
+				return value != null && !Boolean.FALSE.equals(value);
+			} else if ("=".equals(operator)) {
+				return isEqual(value);
+			} else if ("!=".equals(operator)) {
+				return !isEqual(value);
+			} else if (value == null || literal == null) {
+				return false;
+			}
+
+			String string = value.toString();
+			String literalString = literal.toString();
+			if ("^=".equals(operator)) {
+				return string.startsWith(literalString);
+			} else if ("$=".equals(operator)) {
+				return string.endsWith(literalString);
+			}
+			return string.contains(literalString);
+		}
+
+		/**
+		 * Creates the exception thrown when the field cannot be read.
+		 *
+		 * @param node
+		 *            The node whose field could not be read.
+		 * @param cause
+		 *            The reason the field could not be read.
+		 * @return An exception to throw.
+		 */
+		private IllegalStateException readError(Object node, Throwable cause) {
+			return new IllegalStateException("TreeQuery error: "
+					+ "Cannot read field \"" + field + "\" of "
+					+ node.getClass().getName(), cause);
+		}
+
+		/**
+		 * Compares a field value with the {@link #literal}. Integral numbers
+		 * are compared exactly, while other numbers are compared as doubles.
+		 *
+		 * @param value
+		 *            The value of the field.
+		 * @return True if the value equals the literal, false otherwise.
+		 */
+		private boolean isEqual(Object value) {
+			if (value == null || literal == null) {
+				return value == literal;
+			} else if (value instanceof Number && literal instanceof Number) {
+				Number number = (Number) value;
+				if (isIntegral(number) && isIntegral((Number) literal)) {
+					return number.longValue() == ((Number) literal)
+							.longValue();
+				}
+				return number.doubleValue() == ((Number) literal)
+						.doubleValue();
+			} else if (literal instanceof Boolean) {
+				return literal.equals(value);
+			}
+			return literal.toString().equals(value.toString());
+		}
+
+		/**
+		 * Gets whether or not a number is one of the integral boxed types.
+		 *
+		 * @param number
+		 *            The number to check.
+		 * @return True if the number has no fractional part by type, false
+		 *         otherwise.
+		 */
+		private static boolean isIntegral(Number number) {
+			return number instanceof Long || number instanceof Integer
+					|| number instanceof Short || number instanceof Byte;
+		}
+
+		/**
+		 * Finds the public field or getter for the field in the specified
+		 * class. The result is cached for each class.
+		 *
+		 * @param type
+		 *            The class of the node.
+		 * @return The {@link Field} or {@link Method} used to read the field,
+		 *         or {@link #MISSING}.
+		 */
+		private Object getAccessor(Class<?> type) {
+			Object accessor = accessors.get(type);
+			if (accessor == null) {
+				accessor = MISSING;
+				try {
+					Field publicField = type.getField(field);
+					if (!Modifier.isStatic(publicField.getModifiers())) {
+						accessor = makeAccessible(publicField);
+					}
+				} catch (NoSuchFieldException e) {
+					String suffix = Character.toUpperCase(field.charAt(0))
+							+ field.substring(1);
+					for (String prefix : new String[] { "get", "is" }) {
+						try {
+							accessor = makeAccessible(type.getMethod(prefix
+									+ suffix));
+							break;
+						} catch (NoSuchMethodException e2) {
+							// Try the next prefix.
+						}
+					}
+				}
+				accessors.put(type, accessor);
+			}
+			return accessor;
+		}
+
+		/**
+		 * Allows a public member to be used when its class is not public.
+		 *
+		 * @param member
+		 *            The field or method.
+		 * @return The same member.
+		 */
+		private static AccessibleObject makeAccessible(AccessibleObject member) {
+			try {
+				member.setAccessible(true);
+			} catch (SecurityException e) {
+				// Use it as is. Public classes can still be read.
+			}
+			return member;
+		}
+	}
+
+	/**
+	 * A simple recursive descent parser for queries.
+	 *
+	 * @author Jordan
+	 *
+	 */
+	private static class Parser {
+		/**
+		 * The query being parsed.
+		 */
+		private final String query;
+		/**
+		 * The position of the next character to parse.
+		 */
+		private int position = 0;
+
+		/**
+		 * The default constructor.
+		 *
+		 * @param query
+		 *            The query to parse.
+		 */
+		public Parser(String query) {
+			this.query = query;
+		}
+
+		/**
+		 * Parses the query.
+		 *
+		 * @return The compiled query.
+		 */
+		public TreeQuery parse() {
+			List<Step> steps = new ArrayList<Step>();
+			skipWhitespace();
+			while (position < query.length()) {
+				steps.add(parseStep());
+				skipWhitespace();
+			}
+			if (steps.isEmpty()) {
+				throw error("The query is empty");
+			}
+			return new TreeQuery(query, steps.toArray(new Step[steps.size()]));
+		}
+
+		/**
+		 * Parses a single step.
+		 *
+		 * @return The step.
+		 */
+		private Step parseStep() {
+			expect('/');
+			boolean descendants = accept('/');
+			skipWhitespace();
+
+			String name = null;
+			if (!accept('*')) {
+				name = parseName();
+			}
+
+			List<Predicate> predicates = new ArrayList<Predicate>();
+			skipWhitespace();
+			while (accept('[')) {
+				predicates.add(parsePredicate());
+				skipWhitespace();
+			}
+
+			return new Step(descendants, name,
+					predicates.toArray(new Predicate[predicates.size()]));
+		}
+
+		/**
+		 * Parses the content of a predicate after its opening bracket.
+		 *
+		 * @return The predicate.
+		 */
+		private Predicate parsePredicate() {
+			skipWhitespace();
+			Predicate predicate;
+			if (position < query.length()
+					&& Character.isDigit(query.charAt(position))) {
+				int start = position;
+				while (position < query.length()
+						&& Character.isDigit(query.charAt(position))) {
+					position++;
+				}
+				int index = Integer.parseInt(query.substring(start, position));
+				if (index < 1) {
+					throw error("Positions start at 1");
+				}
+				predicate = new PositionPredicate(index);
+			} else {
+				String field = parseName();
+				skipWhitespace();
+				String operator = null;
+				for (String candidate : new String[] { "!=", "^=", "$=", "*=",
+						"=" }) {
+					if (query.startsWith(candidate, position)) {
+						operator = candidate;
+						position += candidate.length();
+						break;
+					}
+				}
+				if (operator != null) {
+					skipWhitespace();
+					predicate = new FieldPredicate(field, operator,
+							parseLiteral());
+				} else if ("last".equals(field)) {
+					predicate = new PositionPredicate(-1);
+				} else {
+					predicate = new FieldPredicate(field, null, null);
+				}
+			}
+			skipWhitespace();
+			expect(']');
+			return predicate;
+		}
+
+		/**
+		 * Parses a string, number, boolean, or null literal.
+		 *
+		 * @return The value of the literal.
+		 */
+		private Object parseLiteral() {
+			if (position >= query.length()) {
+				throw error("Expected a value");
+			}
+			char quote = query.charAt(position);
+			if (quote == '\'' || quote == '"') {
+				int end = query.indexOf(quote, position + 1);
+				if (end < 0) {
+					throw error("Unterminated string");
+				}
+				String value = query.substring(position + 1, end);
+				position = end + 1;
+				return value;
+			}
+
+			int start = position;
+			while (position < query.length() && query.charAt(position) != ']'
+					&& !Character.isWhitespace(query.charAt(position))) {
+				position++;
+			}
+			String token = query.substring(start, position);
+			if ("null".equals(token)) {
+				return null;
+			} else if ("true".equals(token) || "false".equals(token)) {
+				return Boolean.valueOf(token);
+			}
+			try {
+				// Keep integers integral so they read back the same way.
+				if (token.indexOf('.') < 0 && token.indexOf('e') < 0
+						&& token.indexOf('E') < 0) {
+					try {
+						return Long.valueOf(token);
+					} catch (NumberFormatException e) {
+						// Too large for a long.
+					}
+				}
+				return Double.valueOf(token);
+			} catch (NumberFormatException e) {
+				position = start;
+				throw error("Invalid value \"" + token + "\"");
+			}
+		}
+
+		/**
+		 * Parses a name made up of letters, digits, and underscores.
+		 *
+		 * @return The name.
+		 */
+		private String parseName() {
+			// Note that '$' is not allowed since it starts an operator.
+			int start = position;
+			if (position < query.length()
+					&& Character.isLetter(query.charAt(position))) {
+				position++;
+				while (position < query.length()
+						&& (Character.isLetterOrDigit(query.charAt(position))
+								|| query.charAt(position) == '_')) {
+					position++;
+				}
+			}
+			if (start == position) {
+				throw error("Expected a name");
+			}
+			return query.substring(start, position);
+		}
+
+		/**
+		 * Skips any whitespace at the current position.
+		 */
+		private void skipWhitespace() {
+			while (position < query.length()
+					&& Character.isWhitespace(query.charAt(position))) {
+				position++;
+			}
+		}
+
+		/**
+		 * Consumes the character if it is next in the query.
+		 *
+		 * @param c
+		 *            The expected character.
+		 * @return True if the character was consumed, false otherwise.
+		 */
+		private boolean accept(char c) {
+			boolean accepted = position < query.length()
+					&& query.charAt(position) == c;
+			if (accepted) {
+				position++;
+			}
+			return accepted;
+		}
+
+		/**
+		 * Consumes the character, which must be next in the query.
+		 *
+		 * @param c
+		 *            The expected character.
+		 */
+		private void expect(char c) {
+			if (!accept(c)) {
+				throw error("Expected '" + c + "'");
+			}
+		}
+
+		/**
+		 * Creates an exception for a syntax error at the current position.
+		 *
+		 * @param message
+		 *            The description of the error.
+		 * @return The exception to throw.
+		 */
+		private IllegalArgumentException error(String message) {
+			return new IllegalArgumentException("TreeQuery error: " + message
+					+ " at position " + position + " in \"" + query + "\".");
+		}
+	}
+}
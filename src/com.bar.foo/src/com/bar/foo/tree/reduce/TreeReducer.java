@@ -0,0 +1,398 @@
+package com.bar.foo.tree.reduce;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import com.bar.foo.tree.ITree;
+
+/**
+ * This class folds a tree into a single value, such as a total, a maximum
+ * depth, or a validation result. Sub-classes provide three operations:
+ * <ol>
+ * <li>{@link #map(ITree)} computes the value of a single node.</li>
+ * <li>{@link #combineChildren(Object, Object)} combines the values of two
+ * adjacent sibling sub-trees. It must be associative, but it need not be
+ * commutative.</li>
+ * <li>{@link #combineWithParent(ITree, Object, Object)} combines a node's value
+ * with the combined value of its children's sub-trees.</li>
+ * </ol>
+ * <p>
+ * The value of a sub-tree is then
+ * {@code combineWithParent(node, map(node), childrenValue)}, where the
+ * children's values are combined from left to right. This is the same result
+ * as a sequential post-order fold, whether the tree is reduced with
+ * {@link #reduce(ITree)} or {@link #parallelReduce(ITree)}.
+ * </p>
+ * <p>
+ * The parallel reduction runs as {@link RecursiveTask}s on a
+ * {@link ForkJoinPool}. Sub-tree sizes are not known up front, so work is split
+ * adaptively: while walking its sub-tree, a task forks a child's sub-tree only
+ * when few of its own tasks are waiting to be stolen. Otherwise it processes
+ * the sub-tree itself. A skewed tree therefore keeps splitting wherever its
+ * nodes actually are. The walks are iterative, so deep trees do not overflow
+ * the call stack.
+ * </p>
+ * <p>
+ * The operations may be called from several threads at once and in any order,
+ * so they should not depend on shared mutable state. The tree should not be
+ * modified during a reduction.
+ * </p>
+ * 
+ * @author Jordan
+ *
+ * @param <T>
+ *            The type of tree node.
+ * @param <R>
+ *            The type of the result.
+ */
+public abstract class TreeReducer<T extends ITree<T>, R> {
+
+	/**
+	 * A task only forks a child's sub-tree when it has fewer than this many
+	 * queued tasks that have not been stolen by other workers.
+	 */
+	private static final int SURPLUS_THRESHOLD = 3;
+
+	/**
+	 * Computes the value of a single node.
+	 * 
+	 * @param node
+	 *            The node.
+	 * @return The node's value.
+	 */
+	protected abstract R map(T node);
+
+	/**
+	 * Combines the values of two adjacent sibling sub-trees. This must be
+	 * associative.
+	 * 
+	 * @param left
+	 *            The value of the sub-trees on the left.
+	 * @param right
+	 *            The value of the sub-trees on the right.
+	 * @return The combined value.
+	 */
+	protected abstract R combineChildren(R left, R right);
+
+	/**
+	 * Combines a node's value with the value of its children's sub-trees.
+	 * 
+	 * @param node
+	 *            The node.
+	 * @param nodeValue
+	 *            The value from {@link #map(ITree)} for the node.
+	 * @param childrenValue
+	 *            The combined value of the node's children's sub-trees, or
+	 *            {@code null} if the node has no children.
+	 * @return The value of the node's sub-tree.
+	 */
+	protected abstract R combineWithParent(T node, R nodeValue,
+			R childrenValue);
+
+	/**
+	 * Reduces a tree on the calling thread.
+	 * 
+	 * @param root
+	 *            The root of the tree. If null, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @return The value of the tree.
+	 */
+	public R reduce(T root) {
+		if (root == null) {
+			throw new IllegalArgumentException("TreeReducer error: "
+					+ "Cannot reduce a null tree.");
+		}
+		return new Reduction(false).reduce(root);
+	}
+
+	/**
+	 * Reduces a tree in parallel using the common {@link ForkJoinPool}.
+	 * 
+	 * @param root
+	 *            The root of the tree. If null, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @return The value of the tree.
+	 */
+	public R parallelReduce(T root) {
+		return parallelReduce(root, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Reduces a tree in parallel using the specified {@link ForkJoinPool}.
+	 * 
+	 * @param root
+	 *            The root of the tree. If null, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @param pool
+	 *            The pool that runs the reduction. If null, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @return The value of the tree.
+	 */
+	public R parallelReduce(T root, ForkJoinPool pool) {
+		if (root == null || pool == null) {
+			throw new IllegalArgumentException("TreeReducer error: "
+					+ "Cannot reduce a null tree or with a null pool.");
+		}
+		return pool.invoke(new ReduceTask(root));
+	}
+
+	/**
+	 * A task that reduces a sub-tree, forking tasks for parts of it as
+	 * needed.
+	 */
+	private class ReduceTask extends RecursiveTask<R> {
+
+		/**
+		 * Required for serializable classes.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The root of the sub-tree.
+		 */
+		private final T root;
+
+		/**
+		 * The default constructor.
+		 * 
+		 * @param root
+		 *            The root of the sub-tree.
+		 */
+		public ReduceTask(T root) {
+			this.root = root;
+		}
+
+		/*
+		 * Overrides a method from RecursiveTask.
+		 */
+		@Override
+		protected R compute() {
+			return new Reduction(true).reduce(root);
+		}
+	}
+
+	/**
+	 * The state of an iterative post-order walk over a sub-tree.
+	 * <p>
+	 * Each open node has a frame with the index of its next child and the
+	 * position in {@link #values} where its children's values start. A
+	 * child's value is combined into its left sibling's value right away,
+	 * unless the frame has forked a task. In that case, the values (and
+	 * tasks) are kept until the node is exited so that the tasks can run
+	 * while the remaining children are processed.
+	 * </p>
+	 * <p>
+	 * When a node is exited, any forked task that has not been taken by
+	 * another worker is taken back and its sub-tree is walked in a new frame
+	 * that stores its value in the task's place. This keeps the call stack
+	 * flat instead of running the task from within this one.
+	 * </p>
+	 */
+	private class Reduction {
+
+		/**
+		 * Whether or not child sub-trees may be forked as new tasks.
+		 */
+		private final boolean parallel;
+
+		/**
+		 * The open nodes from the root of the walk.
+		 */
+		private Object[] nodes = new Object[16];
+		/**
+		 * The index of the next child to visit for each open node.
+		 */
+		private int[] nextChild = new int[16];
+		/**
+		 * The position in {@link #values} of the first child value for each
+		 * open node.
+		 */
+		private int[] valueBase = new int[16];
+		/**
+		 * Whether or not each open node has forked a task for a child.
+		 */
+		private boolean[] forked = new boolean[16];
+		/**
+		 * For each open node, the position in {@link #values} of the task
+		 * that was taken back to walk the node, or -1 if the node's value is
+		 * added to its parent's frame.
+		 */
+		private int[] slot = new int[16];
+
+		/**
+		 * The children values (or forked tasks) of the open nodes.
+		 */
+		private Object[] values = new Object[16];
+		/**
+		 * The number of elements used in {@link #values}.
+		 */
+		private int valueCount = 0;
+
+		/**
+		 * The default constructor.
+		 * 
+		 * @param parallel
+		 *            Whether or not child sub-trees may be forked as new
+		 *            tasks.
+		 */
+		public Reduction(boolean parallel) {
+			this.parallel = parallel;
+		}
+
+		/**
+		 * Reduces the sub-tree rooted at the specified node.
+		 * 
+		 * @param root
+		 *            The root of the sub-tree.
+		 * @return The value of the sub-tree.
+		 */
+		@SuppressWarnings("unchecked")
+		public R reduce(T root) {
+			if (!root.hasChildren()) {
+				return combineWithParent(root, map(root), null);
+			}
+
+			int depth = 0;
+			open(depth, root, -1);
+
+			while (true) {
+				T node = (T) nodes[depth];
+				int index = nextChild[depth];
+				int size = node.getNumberOfChildren();
+
+				if (index < size) {
+					nextChild[depth] = index + 1;
+					T child = node.getChild(index);
+					if (!child.hasChildren()) {
+						// Leaves are computed directly.
+						addValue(depth, combineWithParent(child, map(child),
+								null));
+					} else if (parallel && index < size - 1 && ForkJoinTask
+							.getSurplusQueuedTaskCount() < SURPLUS_THRESHOLD) {
+						// Let another worker take the child's sub-tree while
+						// this one moves on to the remaining children.
+						push(new ReduceTask(child).fork());
+						forked[depth] = true;
+					} else {
+						// Process the child's sub-tree with this task.
+						open(++depth, child, -1);
+					}
+				} else if (forked[depth] && unfork(depth)) {
+					// Walk the sub-tree of a task that was taken back.
+					depth++;
+				} else {
+					// Combine the children values from left to right.
+					R childrenValue = null;
+					int base = valueBase[depth];
+					for (int i = base; i < valueCount; i++) {
+						R value;
+						if (values[i] instanceof TreeReducer.ReduceTask) {
+							value = ((ReduceTask) values[i]).join();
+						} else {
+							value = (R) values[i];
+						}
+						childrenValue = (i == base ? value : combineChildren(
+								childrenValue, value));
+						values[i] = null;
+					}
+					valueCount = base;
+					nodes[depth] = null;
+
+					R value = combineWithParent(node, map(node), childrenValue);
+					if (depth == 0) {
+						return value;
+					} else if (slot[depth] >= 0) {
+						values[slot[depth--]] = value;
+					} else {
+						addValue(--depth, value);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Takes back the most recently forked task of an open node that has
+		 * not been started by another worker, and opens a frame for its
+		 * sub-tree.
+		 * 
+		 * @param depth
+		 *            The depth of the open node.
+		 * @return True if a frame was opened at {@code depth + 1}, false if
+		 *         there are no tasks left to take back.
+		 */
+		@SuppressWarnings("unchecked")
+		private boolean unfork(int depth) {
+			for (int i = valueCount - 1; i >= valueBase[depth]; i--) {
+				if (values[i] instanceof TreeReducer.ReduceTask) {
+					ReduceTask task = (ReduceTask) values[i];
+					if (task.tryUnfork()) {
+						open(depth + 1, task.root, i);
+						return true;
+					}
+				}
+			}
+			forked[depth] = false;
+			return false;
+		}
+
+		/**
+		 * Opens a frame for a node.
+		 * 
+		 * @param depth
+		 *            The depth of the frame.
+		 * @param node
+		 *            The node.
+		 * @param target
+		 *            The position in {@link #values} for the node's value, or
+		 *            -1 to add it to the parent's frame.
+		 */
+		private void open(int depth, T node, int target) {
+			if (depth == nodes.length) {
+				int length = depth * 2;
+				nodes = Arrays.copyOf(nodes, length);
+				nextChild = Arrays.copyOf(nextChild, length);
+				valueBase = Arrays.copyOf(valueBase, length);
+				forked = Arrays.copyOf(forked, length);
+				slot = Arrays.copyOf(slot, length);
+			}
+			nodes[depth] = node;
+			nextChild[depth] = 0;
+			valueBase[depth] = valueCount;
+			forked[depth] = false;
+			slot[depth] = target;
+		}
+
+		/**
+		 * Adds the value of a child's sub-tree to an open node's frame.
+		 * 
+		 * @param depth
+		 *            The depth of the frame.
+		 * @param value
+		 *            The child's value.
+		 */
+		@SuppressWarnings("unchecked")
+		private void addValue(int depth, R value) {
+			if (!forked[depth] && valueCount > valueBase[depth]) {
+				values[valueCount - 1] = combineChildren(
+						(R) values[valueCount - 1], value);
+			} else {
+				push(value);
+			}
+		}
+
+		/**
+		 * Pushes a value or forked task onto {@link #values}.
+		 * 
+		 * @param value
+		 *            The value or task.
+		 */
+		private void push(Object value) {
+			if (valueCount == values.length) {
+				values = Arrays.copyOf(values, valueCount * 2);
+			}
+			values[valueCount++] = value;
+		}
+	}
+}
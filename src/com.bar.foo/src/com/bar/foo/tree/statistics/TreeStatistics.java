@@ -0,0 +1,638 @@
+package com.bar.foo.tree.statistics;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import com.bar.foo.tree.BasicTree;
+import com.bar.foo.tree.ITree;
+
+/**
+ * This class measures the shape and estimated memory footprint of a tree. A
+ * single iterative pass with {@link #compute(ITree)} collects:
+ * <ul>
+ * <li>the number of nodes and leaves,</li>
+ * <li>a histogram of node depths,</li>
+ * <li>a histogram of fan-outs, i.e., the number of children per node,</li>
+ * <li>the deepest path, to the first node at the maximum depth,</li>
+ * <li>the widest path, to the first node with the maximum fan-out, and</li>
+ * <li>the number of nodes and estimated heap size for each node class.</li>
+ * </ul>
+ * Paths are given as the child indexes to follow from the root. All results
+ * are available in a machine-readable form from {@link #toMap()} and
+ * {@link #toJson()}.
+ * <p>
+ * Sizes are estimated for a 64-bit JVM with compressed references: a 12-byte
+ * object header, 4-byte references, and 8-byte alignment. A node's estimate
+ * includes the node object and, for a {@link BasicTree}, its list of
+ * children. Objects referenced from other fields are not included, since they
+ * may be shared. Sub-classes can refine the estimate with
+ * {@link #estimateSize(ITree, int)} and collect their own counts with
+ * {@link #visit(ITree, int, int)}.
+ * </p>
+ *
+ * @author Jordan
+ *
+ * @param <T>
+ *            The type of tree node.
+ */
+public class TreeStatistics<T extends ITree<T>> {
+
+	/**
+	 * The size of an object header.
+	 */
+	private static final int HEADER_SIZE = 12;
+
+	/**
+	 * The size of an array header, including its length.
+	 */
+	private static final int ARRAY_HEADER_SIZE = 16;
+
+	/**
+	 * The size of a reference.
+	 */
+	private static final int REFERENCE_SIZE = 4;
+
+	/**
+	 * The estimated size of an {@code ArrayList} object, not including its
+	 * array.
+	 */
+	private static final int ARRAY_LIST_SIZE = 24;
+
+	/**
+	 * The number of nodes.
+	 */
+	private int nodeCount;
+
+	/**
+	 * The number of nodes without children.
+	 */
+	private int leafCount;
+
+	/**
+	 * The number of nodes at each depth. Only the first {@link #maxDepth} + 1
+	 * elements are used.
+	 */
+	private int[] depthCounts;
+
+	/**
+	 * The maximum depth of a node, or -1 if no tree has been measured.
+	 */
+	private int maxDepth;
+
+	/**
+	 * The number of nodes with each number of children.
+	 */
+	private final SortedMap<Integer, Integer> fanOutCounts = new TreeMap<Integer, Integer>();
+
+	/**
+	 * The maximum number of children of a node.
+	 */
+	private int maxFanOut;
+
+	/**
+	 * The path to the first node at the {@link #maxDepth}.
+	 */
+	private final Path deepestPath = new Path();
+
+	/**
+	 * The path to the first node with the {@link #maxFanOut}.
+	 */
+	private final Path widestPath = new Path();
+
+	/**
+	 * The number of nodes of each class, in the order they were found.
+	 */
+	private final Map<Class<?>, Integer> typeCounts = new LinkedHashMap<Class<?>, Integer>();
+
+	/**
+	 * The estimated size of the nodes of each class.
+	 */
+	private final Map<Class<?>, Long> typeSizes = new LinkedHashMap<Class<?>, Long>();
+
+	/**
+	 * The estimated size of an instance of each class, computed when the
+	 * class is first seen.
+	 */
+	private final Map<Class<?>, Long> instanceSizes = new IdentityHashMap<Class<?>, Long>();
+
+	/**
+	 * The default constructor. Use {@link #compute(ITree)} to measure a tree.
+	 */
+	public TreeStatistics() {
+		reset();
+	}
+
+	/**
+	 * Measures a tree, replacing any previous results.
+	 *
+	 * @param root
+	 *            The root of the tree to measure. If null, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 */
+	@SuppressWarnings("unchecked")
+	public void compute(T root) {
+		if (root == null) {
+			throw new IllegalArgumentException("TreeStatistics error: "
+					+ "Cannot measure a null tree.");
+		}
+		reset();
+
+		// Walk the tree with a stack of frames. Each frame holds a node, its
+		// number of children, and the index of the next child to visit. The
+		// index of the child at depth d in its parent is then next[d - 1] - 1.
+		Object[] nodes = new Object[16];
+		int[] counts = new int[16];
+		int[] next = new int[16];
+		int size = 0;
+
+		nodes[size] = root;
+		counts[size] = measure(root, 0, next);
+		next[size++] = 0;
+		while (size > 0) {
+			int top = size - 1;
+			if (next[top] < counts[top]) {
+				T child = ((T) nodes[top]).getChild(next[top]++);
+				// The path changes at the top frame's index.
+				deepestPath.changed(top);
+				widestPath.changed(top);
+				if (size == nodes.length) {
+					nodes = Arrays.copyOf(nodes, size * 2);
+					counts = Arrays.copyOf(counts, size * 2);
+					next = Arrays.copyOf(next, size * 2);
+				}
+				nodes[size] = child;
+				counts[size] = measure(child, size, next);
+				next[size++] = 0;
+			} else {
+				nodes[--size] = null;
+			}
+		}
+	}
+
+	/**
+	 * Adds a node to the statistics.
+	 *
+	 * @param node
+	 *            The node.
+	 * @param depth
+	 *            The depth of the node.
+	 * @param next
+	 *            The next child indexes of the node's ancestors, from which
+	 *            its path is read.
+	 * @return The number of children of the node.
+	 */
+	private int measure(T node, int depth, int[] next) {
+		int children = node.getNumberOfChildren();
+
+		nodeCount++;
+		if (children == 0) {
+			leafCount++;
+		}
+
+		if (depth == depthCounts.length) {
+			depthCounts = Arrays.copyOf(depthCounts, depth * 2);
+		}
+		depthCounts[depth]++;
+		if (depth > maxDepth) {
+			maxDepth = depth;
+			deepestPath.capture(next, depth);
+		}
+
+		Integer count = fanOutCounts.get(children);
+		fanOutCounts.put(children, count == null ? 1 : count + 1);
+		if (children > maxFanOut || nodeCount == 1) {
+			maxFanOut = children;
+			widestPath.capture(next, depth);
+		}
+
+		Class<?> type = node.getClass();
+		count = typeCounts.get(type);
+		typeCounts.put(type, count == null ? 1 : count + 1);
+		Long bytes = typeSizes.get(type);
+		long estimate = estimateSize(node, children);
+		typeSizes.put(type, bytes == null ? estimate : bytes + estimate);
+
+		visit(node, depth, children);
+
+		return children;
+	}
+
+	/**
+	 * Called once for each node as the tree is measured. Sub-classes can
+	 * override this to collect their own statistics. By default, this does
+	 * nothing.
+	 *
+	 * @param node
+	 *            The node.
+	 * @param depth
+	 *            The depth of the node. The root is at depth 0.
+	 * @param children
+	 *            The number of children of the node.
+	 */
+	protected void visit(T node, int depth, int children) {
+		// Nothing to do.
+	}
+
+	/**
+	 * Estimates the number of bytes used by a node. By default, this is the
+	 * size of the node object plus, for a {@link BasicTree}, the size of its
+	 * list of children.
+	 *
+	 * @param node
+	 *            The node.
+	 * @param children
+	 *            The number of children of the node.
+	 * @return The estimated size of the node in bytes.
+	 */
+	protected long estimateSize(T node, int children) {
+		long size = getInstanceSize(node.getClass());
+		if (node instanceof BasicTree) {
+			size += ARRAY_LIST_SIZE;
+			if (children > 0) {
+				size += align(ARRAY_HEADER_SIZE + (long) children
+						* REFERENCE_SIZE);
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Estimates the size of an instance of a class from its fields.
+	 *
+	 * @param type
+	 *            The class.
+	 * @return The estimated size of an instance in bytes.
+	 */
+	protected final long getInstanceSize(Class<?> type) {
+		Long size = instanceSizes.get(type);
+		if (size == null) {
+			long bytes = HEADER_SIZE;
+			for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+				for (Field field : c.getDeclaredFields()) {
+					if (!Modifier.isStatic(field.getModifiers())) {
+						bytes += getFieldSize(field.getType());
+					}
+				}
+			}
+			size = align(bytes);
+			instanceSizes.put(type, size);
+		}
+		return size;
+	}
+
+	/**
+	 * Gets the size of a field of the specified type.
+	 */
+	private static int getFieldSize(Class<?> type) {
+		int size = REFERENCE_SIZE;
+		if (type == long.class || type == double.class) {
+			size = 8;
+		} else if (type == int.class || type == float.class) {
+			size = 4;
+		} else if (type == short.class || type == char.class) {
+			size = 2;
+		} else if (type == byte.class || type == boolean.class) {
+			size = 1;
+		}
+		return size;
+	}
+
+	/**
+	 * Rounds a size up to the 8-byte object alignment.
+	 */
+	private static long align(long size) {
+		return (size + 7) & ~7L;
+	}
+
+	/**
+	 * Clears the results.
+	 */
+	private void reset() {
+		nodeCount = 0;
+		leafCount = 0;
+		depthCounts = new int[16];
+		maxDepth = -1;
+		fanOutCounts.clear();
+		maxFanOut = 0;
+		deepestPath.clear();
+		widestPath.clear();
+		typeCounts.clear();
+		typeSizes.clear();
+	}
+
+	/**
+	 * Gets the number of nodes in the tree.
+	 *
+	 * @return The node count.
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * Gets the number of nodes without children.
+	 *
+	 * @return The leaf count.
+	 */
+	public int getLeafCount() {
+		return leafCount;
+	}
+
+	/**
+	 * Gets the fraction of nodes that are leaves.
+	 *
+	 * @return The leaf ratio between 0 and 1, or 0 if no tree was measured.
+	 */
+	public double getLeafRatio() {
+		return nodeCount > 0 ? (double) leafCount / nodeCount : 0.0;
+	}
+
+	/**
+	 * Gets the maximum depth of a node. The root is at depth 0.
+	 *
+	 * @return The maximum depth, or -1 if no tree was measured.
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * Gets the maximum number of children of a node.
+	 *
+	 * @return The maximum fan-out.
+	 */
+	public int getMaxFanOut() {
+		return maxFanOut;
+	}
+
+	/**
+	 * Gets the number of nodes at each depth.
+	 *
+	 * @return A new array whose element at index {@code d} is the number of
+	 *         nodes at depth {@code d}.
+	 */
+	public int[] getDepthHistogram() {
+		return Arrays.copyOf(depthCounts, maxDepth + 1);
+	}
+
+	/**
+	 * Gets the number of nodes with each number of children.
+	 *
+	 * @return A new map from the number of children to the number of nodes
+	 *         with that many children, sorted by the number of children.
+	 */
+	public SortedMap<Integer, Integer> getFanOutHistogram() {
+		return new TreeMap<Integer, Integer>(fanOutCounts);
+	}
+
+	/**
+	 * Gets the path to the first node found at the maximum depth.
+	 *
+	 * @return A new array of the child indexes to follow from the root.
+	 */
+	public int[] getDeepestPath() {
+		return deepestPath.toArray();
+	}
+
+	/**
+	 * Gets the path to the first node found with the maximum fan-out.
+	 *
+	 * @return A new array of the child indexes to follow from the root.
+	 */
+	public int[] getWidestPath() {
+		return widestPath.toArray();
+	}
+
+	/**
+	 * Gets the number of nodes of each class.
+	 *
+	 * @return A new map from each node class to its number of nodes.
+	 */
+	public Map<Class<?>, Integer> getNodeTypeCounts() {
+		return new LinkedHashMap<Class<?>, Integer>(typeCounts);
+	}
+
+	/**
+	 * Gets the estimated size of the nodes of each class.
+	 *
+	 * @return A new map from each node class to the estimated size in bytes
+	 *         of its nodes.
+	 * @see #estimateSize(ITree, int)
+	 */
+	public Map<Class<?>, Long> getEstimatedSizes() {
+		return new LinkedHashMap<Class<?>, Long>(typeSizes);
+	}
+
+	/**
+	 * Gets the estimated size of all nodes in the tree.
+	 *
+	 * @return The estimated size in bytes.
+	 * @see #estimateSize(ITree, int)
+	 */
+	public long getEstimatedSize() {
+		long size = 0;
+		for (Long bytes : typeSizes.values()) {
+			size += bytes;
+		}
+		return size;
+	}
+
+	/**
+	 * Gets the results as a map of simple values for export. The values are
+	 * numbers, strings, lists, and maps with string keys. Sub-classes that
+	 * collect their own statistics should add them to this map.
+	 *
+	 * @return A new, ordered map of the results.
+	 */
+	public Map<String, Object> toMap() {
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		map.put("nodeCount", nodeCount);
+		map.put("leafCount", leafCount);
+		map.put("leafRatio", getLeafRatio());
+		map.put("maxDepth", maxDepth);
+		map.put("maxFanOut", maxFanOut);
+		map.put("estimatedBytes", getEstimatedSize());
+
+		List<Integer> depths = new ArrayList<Integer>(maxDepth + 1);
+		for (int i = 0; i <= maxDepth; i++) {
+			depths.add(depthCounts[i]);
+		}
+		map.put("depthHistogram", depths);
+
+		Map<String, Integer> fanOuts = new LinkedHashMap<String, Integer>();
+		for (Map.Entry<Integer, Integer> entry : fanOutCounts.entrySet()) {
+			fanOuts.put(entry.getKey().toString(), entry.getValue());
+		}
+		map.put("fanOutHistogram", fanOuts);
+
+		map.put("deepestPath", deepestPath.toList());
+		map.put("widestPath", widestPath.toList());
+
+		Map<String, Object> types = new LinkedHashMap<String, Object>();
+		for (Map.Entry<Class<?>, Integer> entry : typeCounts.entrySet()) {
+			Map<String, Object> type = new LinkedHashMap<String, Object>();
+			type.put("count", entry.getValue());
+			type.put("estimatedBytes", typeSizes.get(entry.getKey()));
+			types.put(entry.getKey().getName(), type);
+		}
+		map.put("nodeTypes", types);
+
+		return map;
+	}
+
+	/**
+	 * Gets the results from {@link #toMap()} as a JSON object.
+	 *
+	 * @return A JSON string.
+	 */
+	public String toJson() {
+		StringBuilder builder = new StringBuilder();
+		appendJson(builder, toMap());
+		return builder.toString();
+	}
+
+	/**
+	 * Appends a value from {@link #toMap()} to a JSON string.
+	 *
+	 * @param builder
+	 *            The JSON string.
+	 * @param value
+	 *            The value to append.
+	 */
+	private static void appendJson(StringBuilder builder, Object value) {
+		if (value instanceof Map) {
+			builder.append('{');
+			boolean first = true;
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				if (!first) {
+					builder.append(',');
+				}
+				appendJson(builder, entry.getKey().toString());
+				builder.append(':');
+				appendJson(builder, entry.getValue());
+				first = false;
+			}
+			builder.append('}');
+		} else if (value instanceof List) {
+			builder.append('[');
+			boolean first = true;
+			for (Object element : (List<?>) value) {
+				if (!first) {
+					builder.append(',');
+				}
+				appendJson(builder, element);
+				first = false;
+			}
+			builder.append(']');
+		} else if (value instanceof Number || value instanceof Boolean) {
+			builder.append(value);
+		} else if (value == null) {
+			builder.append("null");
+		} else {
+			builder.append('"');
+			String string = value.toString();
+			for (int i = 0; i < string.length(); i++) {
+				char c = string.charAt(i);
+				if (c == '"' || c == '\\') {
+					builder.append('\\').append(c);
+				} else if (c < 0x20) {
+					builder.append(String.format("\\u%04x", (int) c));
+				} else {
+					builder.append(c);
+				}
+			}
+			builder.append('"');
+		}
+	}
+
+	/**
+	 * A path recorded during the walk. The walk's current path changes one
+	 * index at a time, so a recorded path only copies the indexes that
+	 * changed since it was last captured. This keeps the cost of recording
+	 * paths linear in the size of the tree.
+	 */
+	private static class Path {
+
+		/**
+		 * The child indexes of the path. Only the first {@link #length} are
+		 * used.
+		 */
+		private int[] indexes = new int[16];
+
+		/**
+		 * The length of the path.
+		 */
+		private int length = 0;
+
+		/**
+		 * The number of leading {@link #indexes} that are still the same as
+		 * the walk's current path.
+		 */
+		private int same = 0;
+
+		/**
+		 * Clears the path.
+		 */
+		public void clear() {
+			length = 0;
+			same = 0;
+		}
+
+		/**
+		 * Notes that the index at a position in the current path changed.
+		 *
+		 * @param position
+		 *            The position of the changed index.
+		 */
+		public void changed(int position) {
+			same = Math.min(same, position);
+		}
+
+		/**
+		 * Records the current path.
+		 *
+		 * @param next
+		 *            The next child indexes of the frames on the walk's
+		 *            stack.
+		 * @param length
+		 *            The length of the current path.
+		 */
+		public void capture(int[] next, int length) {
+			if (length > indexes.length) {
+				indexes = Arrays.copyOf(indexes,
+						Math.max(length, indexes.length * 2));
+			}
+			for (int i = same; i < length; i++) {
+				indexes[i] = next[i] - 1;
+			}
+			this.length = length;
+			same = length;
+		}
+
+		/**
+		 * Gets the path as an array.
+		 */
+		public int[] toArray() {
+			return Arrays.copyOf(indexes, length);
+		}
+
+		/**
+		 * Gets the path as a list.
+		 */
+		public List<Integer> toList() {
+			List<Integer> list = new ArrayList<Integer>(length);
+			for (int i = 0; i < length; i++) {
+				list.add(indexes[i]);
+			}
+			return list;
+		}
+	}
+}
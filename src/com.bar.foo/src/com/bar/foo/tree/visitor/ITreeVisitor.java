@@ -0,0 +1,46 @@
+package com.bar.foo.tree.visitor;
+
+import com.bar.foo.tree.ITree;
+
+/**
+ * This interface provides callbacks for visiting the nodes of an
+ * {@link ITree} with a {@link TreeWalker}. Each node is entered before its
+ * children are visited and exited after them. The result of each callback
+ * determines which nodes are visited next, so parts of the tree can be pruned
+ * from the traversal.
+ * 
+ * @author Jordan
+ *
+ * @param <T>
+ *            The type of tree node.
+ */
+public interface ITreeVisitor<T extends ITree<T>> {
+
+	/**
+	 * Enters a node before any of its children are visited.
+	 * 
+	 * @param node
+	 *            The node being visited.
+	 * @param depth
+	 *            The depth of the node relative to the root of the walk (the
+	 *            root is at depth 0).
+	 * @return How to continue the traversal. If {@code null},
+	 *         {@link TreeVisitResult#CONTINUE} is assumed.
+	 */
+	public TreeVisitResult enter(T node, int depth);
+
+	/**
+	 * Exits a node after all of its children have been visited. This is only
+	 * called if {@link #enter(ITree, int)} returned
+	 * {@link TreeVisitResult#CONTINUE} for the node.
+	 * 
+	 * @param node
+	 *            The node being visited.
+	 * @param depth
+	 *            The depth of the node relative to the root of the walk (the
+	 *            root is at depth 0).
+	 * @return How to continue the traversal. If {@code null},
+	 *         {@link TreeVisitResult#CONTINUE} is assumed.
+	 */
+	public TreeVisitResult exit(T node, int depth);
+}
@@ -0,0 +1,36 @@
+package com.bar.foo.tree.visitor;
+
+/**
+ * An enumeration of the results an {@link ITreeVisitor} can return to control
+ * how a {@link TreeWalker} continues its traversal.
+ * 
+ * @author Jordan
+ *
+ */
+public enum TreeVisitResult {
+	/**
+	 * Continue the traversal. When returned when entering a node, the node's
+	 * children will be visited.
+	 */
+	CONTINUE,
+
+	/**
+	 * Continue the traversal without visiting the node's children. This is
+	 * only meaningful when entering a node, in which case the node will not be
+	 * exited. When exiting a node, it is the same as {@link #CONTINUE}.
+	 */
+	SKIP_SUBTREE,
+
+	/**
+	 * Continue the traversal without visiting the node's children (if
+	 * returned when entering the node) or its remaining siblings. The node
+	 * will not be exited if this is returned when entering it, but its parent
+	 * will be.
+	 */
+	SKIP_SIBLINGS,
+
+	/**
+	 * Stop the traversal immediately. No more nodes will be entered or exited.
+	 */
+	TERMINATE;
+}
@@ -0,0 +1,120 @@
+package com.bar.foo.tree.visitor;
+
+import java.util.Arrays;
+
+import com.bar.foo.tree.ITree;
+
+/**
+ * This class walks an {@link ITree} depth-first and reports each node to an
+ * {@link ITreeVisitor}. Unlike the tree iterators, the visitor can prune the
+ * traversal by skipping sub-trees or siblings, or end it early.
+ * <p>
+ * The walk is iterative. It keeps the path from the root to the current node
+ * and the index of the next child to visit at each level, both in arrays that
+ * grow with the depth of the tree and are kept between walks. Children are
+ * read with {@link ITree#getChild(int)}, so walking a tree does not allocate
+ * anything per node and does not use the call stack.
+ * </p>
+ * <p>
+ * A walker is not thread-safe, but it may be re-used for any number of walks.
+ * The tree should not be modified during a walk.
+ * </p>
+ * 
+ * @author Jordan
+ *
+ * @param <T>
+ *            The type of tree node.
+ */
+public class TreeWalker<T extends ITree<T>> {
+
+	/**
+	 * The path of nodes from the root of the walk to the current node.
+	 */
+	private Object[] path = new Object[16];
+
+	/**
+	 * The index of the next child to visit for each node in the {@link #path}.
+	 */
+	private int[] nextChild = new int[16];
+
+	/**
+	 * The default constructor.
+	 */
+	public TreeWalker() {
+		// Nothing to do.
+	}
+
+	/**
+	 * Walks the tree rooted at the specified node.
+	 * 
+	 * @param root
+	 *            The root of the walk. If null, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @param visitor
+	 *            The visitor to notify. If null, an
+	 *            {@link IllegalArgumentException} will be thrown.
+	 * @return False if the visitor terminated the walk, true otherwise.
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean walk(T root, ITreeVisitor<T> visitor) {
+		if (root == null || visitor == null) {
+			throw new IllegalArgumentException("TreeWalker error: "
+					+ "Cannot walk a null tree or with a null visitor.");
+		}
+
+		// Enter the root. Its siblings are not part of the walk, so skipping
+		// them is the same as skipping its sub-tree.
+		TreeVisitResult result = visitor.enter(root, 0);
+		if (result == TreeVisitResult.TERMINATE) {
+			return false;
+		} else if (result != null && result != TreeVisitResult.CONTINUE) {
+			return true;
+		}
+		path[0] = root;
+		nextChild[0] = 0;
+		int depth = 0;
+
+		try {
+			while (depth >= 0) {
+				T node = (T) path[depth];
+				int index = nextChild[depth];
+
+				if (index < node.getNumberOfChildren()) {
+					// Enter the next child of the current node.
+					nextChild[depth] = index + 1;
+					T child = node.getChild(index);
+					result = visitor.enter(child, depth + 1);
+					if (result == null || result == TreeVisitResult.CONTINUE) {
+						// Descend into the child.
+						depth++;
+						if (depth == path.length) {
+							path = Arrays.copyOf(path, depth * 2);
+							nextChild = Arrays.copyOf(nextChild, depth * 2);
+						}
+						path[depth] = child;
+						nextChild[depth] = 0;
+					} else if (result == TreeVisitResult.SKIP_SIBLINGS) {
+						nextChild[depth] = Integer.MAX_VALUE;
+					} else if (result == TreeVisitResult.TERMINATE) {
+						return false;
+					}
+				} else {
+					// All children have been visited, so exit the node.
+					path[depth] = null;
+					result = visitor.exit(node, depth);
+					depth--;
+					if (result == TreeVisitResult.SKIP_SIBLINGS && depth >= 0) {
+						nextChild[depth] = Integer.MAX_VALUE;
+					} else if (result == TreeVisitResult.TERMINATE) {
+						return false;
+					}
+				}
+			}
+		} finally {
+			// Release any nodes left on the path.
+			Arrays.fill(path, 0, depth + 1, null);
+		}
+
+		return true;
+	}
+}
@@ -1,6 +1,6 @@
 package com.bar.foo.wraptree.iterator;
 
-import java.util.Stack;
+import java.util.Arrays;
 
 import com.bar.foo.wraptree.ITree;
 import com.bar.foo.wraptree.INode;
@@ -8,16 +8,26 @@ import com.bar.foo.wraptree.INode;
 public class PostOrderTreeIterator<T> extends TreeIterator<T> {
 
 	/**
-	 * A queue used to maintain state information about the position of the
-	 * iterator. If empty, there is no remaining tree nodes to visit.
+	 * The nodes on the path from the root to the next node to visit. Only the
+	 * first {@link #size} elements are used. If empty, there is no remaining
+	 * tree nodes to visit.
 	 */
-	private final Stack<INode<T>> stack = new Stack<INode<T>>();
+	private Object[] nodes = new Object[16];
 
 	/**
-	 * A reference to the last node returned by {@link #next()}. This is null
-	 * only at the beginning of the traversal.
+	 * The index of the next child to visit for each node in {@link #nodes}.
 	 */
-	private INode<T> lastNodeVisited = null;
+	private int[] nextChild = new int[16];
+
+	/**
+	 * The number of nodes on the path.
+	 */
+	private int size = 0;
+
+	/**
+	 * Whether or not the last node returned by {@link #next()} can be removed.
+	 */
+	private boolean removable = false;
 
 	/**
 	 * The default constructor. Requires a root node. The root node and all
@@ -33,9 +43,9 @@ public class PostOrderTreeIterator<T> extends TreeIterator<T> {
 		super(root);
 
 		// If the root is not null, we need to start the iteration with it by
-		// adding it to the stack.
+		// adding it to the path.
 		if (root != null) {
-			stack.push(root);
+			push(root);
 		}
 	}
 
@@ -46,7 +56,7 @@ public class PostOrderTreeIterator<T> extends TreeIterator<T> {
 	 */
 	@Override
 	public boolean hasNext() {
-		return !stack.isEmpty();
+		return size > 0;
 	}
 
 	/*
@@ -55,54 +65,69 @@ public class PostOrderTreeIterator<T> extends TreeIterator<T> {
 	 * @see com.bar.foo.TreeIterator#next()
 	 */
 	@Override
+	@SuppressWarnings("unchecked")
 	public INode<T> next() {
 
 		// Set the default return value.
 		INode<T> next = super.next();
 
-		// Take a peek at the top node in the stack.
-		INode<T> node = stack.peek();
-		
-		// Determine if the node is a tree or a leaf node.
-		int numberOfChildren = 0;
-		ITree<T> tree = null;
-		if (node.hasChildren()) {
-			tree = (ITree<T>) node;
-		}
-		
-		// If the last node visited was the right-most child of the top node, we
-		// have finished traversing the top node. It is the next node that
-		// should be visited.
-		if (tree != null && lastNodeVisited == tree.getChild(numberOfChildren - 1)) {
-			next = stack.pop();
-			lastNodeVisited = next;
-		}
-		// Otherwise, we are still traversing this node.
-		else {
-			// If the last node visited was not null, get the sibling to its
-			// right.
-			if (lastNodeVisited != null) {
-				// TODO Figure out how to get around this...
-				// node = lastNodeVisited.getNextSibling();
-			}
-			// Otherwise, we have just started traversing the tree. The current
-			// node is the root node. Remove it from the stack because it might
-			// be added below.
-			else {
-				node = stack.pop();
-			}
-
-			// Traverse all left-descendants of the node down to a leaf child.
-			while (node.hasChildren()) {
-				stack.push(node);
-				node = ((ITree<T>) node).getChild(0);
-			}
-
-			// The next node to visit is the leaf child.
-			next = node;
-			lastNodeVisited = next;
+		// Descend into the next unvisited child of each node on the path until
+		// a node whose children have all been visited is found. Each node's
+		// next child index is kept on the path, so siblings are never searched.
+		int top = size - 1;
+		next = (INode<T>) nodes[top];
+		while (next instanceof ITree<?>
+				&& nextChild[top] < ((ITree<T>) next).getNumberOfChildren()) {
+			next = ((ITree<T>) next).getChild(nextChild[top]++);
+			push(next);
+			top++;
 		}
 
+		// That node is the next node to visit.
+		nodes[--size] = null;
+		removable = true;
+
 		return next;
 	}
+
+	/**
+	 * Removes the last node returned by {@link #next()} from its parent. Its
+	 * children have already been visited, so the iteration continues with its
+	 * next sibling. The root node has no parent, so removing it throws an
+	 * {@link IllegalStateException}.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void remove() {
+		if (!removable) {
+			throw new IllegalStateException(getClass().getName() + " error: "
+					+ "The next() method has not been called or remove() has "
+					+ "already been called after the last call to the next() "
+					+ "method.");
+		} else if (size == 0) {
+			// The root is the last node visited, and it has no parent.
+			throw new IllegalStateException(getClass().getName() + " error: "
+					+ "The root node cannot be removed.");
+		}
+		removable = false;
+
+		// The parent is on top of the path, and its next child index is just
+		// past the removed node.
+		((ITree<T>) nodes[size - 1]).removeChild(--nextChild[size - 1]);
+	}
+
+	/**
+	 * Pushes a node onto the path, doubling its capacity if needed.
+	 * 
+	 * @param node
+	 *            The node to push.
+	 */
+	private void push(INode<T> node) {
+		if (size == nodes.length) {
+			nodes = Arrays.copyOf(nodes, size * 2);
+			nextChild = Arrays.copyOf(nextChild, size * 2);
+		}
+		nodes[size] = node;
+		nextChild[size++] = 0;
+	}
 }